@@ -0,0 +1,199 @@
+const { executeGraphQL } = require('./dgraph');
+
+/**
+ * Keeps the leaderboard totals in memory and pushes every change to subscribed clients as
+ * Server-Sent Events, so the app no longer re-fetches the whole leaderboard (and the server
+ * no longer scans every Score) each time someone looks at it.
+ *
+ * Events carry ids of the form "<epoch>-<seq>". A client reconnecting with the Last-Event-ID
+ * header gets the events it missed replayed; if they are no longer in the history, or the
+ * server restarted in between (new epoch), it gets a full `snapshot` instead.
+ */
+
+const EPOCH = Date.now().toString(36);
+const HISTORY_SIZE = 1000;
+const HEARTBEAT_MS = 15 * 1000; // Keeps the ngrok tunnel from closing idle streams
+const CLIENT_RETRY_MS = 2000;
+const MAX_LOAD_ATTEMPTS = 3;
+// Changes made within this window share one reload, e.g. an admin deleting teams one after another
+const RELOAD_DELAY_MS = 250;
+
+let seq = 0;
+const history = []; // { seq, type, data }, oldest first
+const clients = new Set();
+let totals = null; // teamId -> { teamId, teamName, memberCount, totalScore }
+let loading = null;
+let heartbeat = null;
+let reloadTimer = null;
+
+async function queryTotals() {
+  const query = `
+    query GetAllScores {
+      queryScore {
+        total_score
+        team @cascade { id name }
+      }
+    }`;
+  const data = await executeGraphQL(query, {});
+  const result = new Map();
+  for (const score of data.queryScore || []) {
+    if (!score || !score.team || !score.team.id) continue;
+    addPoints(result, score.team.id, score.team.name, score.total_score);
+  }
+  return result;
+}
+
+function addPoints(map, teamId, teamName, points) {
+  let entry = map.get(teamId);
+  if (!entry) {
+    entry = { teamId, teamName, memberCount: 0, totalScore: 0 };
+    map.set(teamId, entry);
+  }
+  if (teamName) entry.teamName = teamName;
+  entry.totalScore += points || 0;
+}
+
+/** Loads the totals from Dgraph once; later calls reuse them. */
+function ensureLoaded() {
+  if (totals) return Promise.resolve();
+  if (!loading) {
+    loading = (async () => {
+      for (let attempt = 1; ; attempt++) {
+        const seqAtStart = seq;
+        const loaded = await queryTotals();
+        // A score published while the query ran may or may not be in its result; load again to be sure
+        if (seq === seqAtStart || attempt === MAX_LOAD_ATTEMPTS) {
+          totals = loaded;
+          return;
+        }
+      }
+    })().finally(() => { loading = null; });
+  }
+  return loading;
+}
+
+function eventId(eventSeq) {
+  return `${EPOCH}-${eventSeq}`;
+}
+
+function sorted() {
+  return Array.from(totals.values(), entry => ({ ...entry }))
+    .sort((a, b) => b.totalScore - a.totalScore);
+}
+
+function write(res, id, type, data) {
+  res.write(`id: ${id}\nevent: ${type}\ndata: ${JSON.stringify(data)}\n\n`);
+}
+
+function broadcast(event) {
+  for (const res of clients) write(res, eventId(event.seq), event.type, event.data);
+}
+
+// The events after lastEventId, or null if they cannot be replayed and a snapshot is needed
+function eventsSince(lastEventId) {
+  if (!lastEventId) return null;
+  const [epoch, seqText] = String(lastEventId).split('-');
+  const lastSeq = Number(seqText);
+  if (epoch !== EPOCH || !Number.isInteger(lastSeq) || lastSeq > seq) return null;
+  if (lastSeq === seq) return [];
+  if (history.length === 0 || history[0].seq > lastSeq + 1) return null;
+  return history.filter(event => event.seq > lastSeq);
+}
+
+/** @returns {Promise<object[]>} The leaderboard, highest total first. */
+async function leaderboard() {
+  await ensureLoaded();
+  return sorted();
+}
+
+/**
+ * Records a newly added score and pushes it to every subscriber.
+ * @param {object} score - The Score returned by the AddScore mutation.
+ */
+function publishScore(score) {
+  if (!score || !score.team || !score.team.id) return;
+  const data = { teamId: score.team.id, teamName: score.team.name, points: score.total_score || 0 };
+  seq++;
+  if (totals) addPoints(totals, data.teamId, data.teamName, data.points);
+  const event = { seq, type: 'score', data };
+  history.push(event);
+  if (history.length > HISTORY_SIZE) history.shift();
+  broadcast(event);
+}
+
+/**
+ * Drops the in-memory totals after a change they cannot follow, e.g. a team being renamed or
+ * deleted, and shortly after sends every subscriber a fresh snapshot. Any further changes until
+ * then are covered by the same reload and snapshot.
+ */
+function invalidate() {
+  totals = null;
+  seq++;
+  history.length = 0; // Older events no longer add up to the new totals
+  if (reloadTimer) return;
+  reloadTimer = setTimeout(reload, RELOAD_DELAY_MS);
+  reloadTimer.unref();
+}
+
+async function reload() {
+  reloadTimer = null;
+  try {
+    await ensureLoaded();
+    const snapshotId = eventId(seq);
+    const entries = sorted();
+    for (const res of clients) write(res, snapshotId, 'snapshot', entries);
+  } catch (error) {
+    console.error('Error reloading leaderboard:', error.message);
+  }
+}
+
+function startHeartbeat() {
+  if (heartbeat) return;
+  heartbeat = setInterval(() => {
+    for (const res of clients) res.write(': ping\n\n');
+  }, HEARTBEAT_MS);
+  heartbeat.unref();
+}
+
+/**
+ * Turns the response into an event stream and subscribes it to leaderboard changes.
+ * @param {object} req - The request; its Last-Event-ID header is honoured.
+ * @param {object} res - The response to stream into.
+ */
+async function subscribe(req, res) {
+  res.set({
+    'Content-Type': 'text/event-stream',
+    'Cache-Control': 'no-store',
+    'Connection': 'keep-alive',
+    'X-Accel-Buffering': 'no',
+  });
+  res.flushHeaders();
+  res.write(`retry: ${CLIENT_RETRY_MS}\n\n`);
+
+  const missed = eventsSince(req.get('Last-Event-ID'));
+  if (missed) {
+    for (const event of missed) write(res, eventId(event.seq), event.type, event.data);
+  } else {
+    try {
+      await ensureLoaded();
+    } catch (error) {
+      console.error('Error loading leaderboard for stream:', error.message);
+      return res.end(); // The client reconnects after its retry delay
+    }
+    if (res.writableEnded || res.destroyed) return;
+    // Written in the same tick as the subscription below, so no event can fall in between
+    write(res, eventId(seq), 'snapshot', sorted());
+  }
+
+  clients.add(res);
+  startHeartbeat();
+  req.on('close', () => {
+    clients.delete(res);
+    if (clients.size === 0 && heartbeat) {
+      clearInterval(heartbeat);
+      heartbeat = null;
+    }
+  });
+}
+
+module.exports = { leaderboard, publishScore, invalidate, subscribe };
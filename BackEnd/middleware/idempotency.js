@@ -0,0 +1,117 @@
+const crypto = require('crypto');
+
+// How long a finished request's response is replayed for, and how long a request that never
+// finished (e.g. the process crashed mid-mutation) blocks its key
+const COMPLETED_TTL_MS = 24 * 60 * 60 * 1000;
+const PENDING_TTL_MS = 60 * 1000;
+const MAX_ENTRIES = 10000;
+
+// key -> { fingerprint, state: 'pending' | 'done', status, body, contentType, expiresAt }
+const entries = new Map();
+
+function evictExpired(now) {
+  for (const [key, entry] of entries) {
+    if (entry.expiresAt <= now) entries.delete(key);
+  }
+  // Map iterates in insertion order, so the oldest keys go first
+  while (entries.size >= MAX_ENTRIES) {
+    entries.delete(entries.keys().next().value);
+  }
+}
+
+/** Scopes a client's key per user, method and route, e.g. "0x1:POST:/api/scores/:abc". */
+function keyFor(req, method, path, idempotencyKey) {
+  const userId = req.user ? req.user.id : 'anonymous';
+  return `${userId}:${method}:${path}:${idempotencyKey}`;
+}
+
+function fingerprintOf(body) {
+  return crypto.createHash('sha256').update(JSON.stringify(body || {})).digest('hex');
+}
+
+/**
+ * Looks a key up and, if it is new, marks it pending so concurrent retries wait for this one.
+ * Returns { state: 'new' }, { state: 'pending' }, { state: 'mismatch' } (the key was used with a
+ * different body) or { state: 'done', entry } with the stored status, body and contentType.
+ */
+function claim(key, fingerprint) {
+  const now = Date.now();
+  const existing = entries.get(key);
+  if (existing && existing.expiresAt > now) {
+    if (existing.fingerprint !== fingerprint) return { state: 'mismatch' };
+    if (existing.state === 'pending') return { state: 'pending' };
+    return { state: 'done', entry: existing };
+  }
+  evictExpired(now);
+  entries.set(key, { fingerprint, state: 'pending', expiresAt: now + PENDING_TTL_MS });
+  return { state: 'new' };
+}
+
+/** Stores the response of a claimed key, so retries replay it. */
+function complete(key, fingerprint, status, body, contentType) {
+  entries.set(key, {
+    fingerprint,
+    state: 'done',
+    status,
+    body,
+    contentType,
+    expiresAt: Date.now() + COMPLETED_TTL_MS,
+  });
+}
+
+/** Forgets a claimed key, e.g. after a server error that may not have written anything. */
+function release(key) {
+  entries.delete(key);
+}
+
+/**
+ * This middleware makes a POST safe to retry. A client that sends an `Idempotency-Key` header
+ * gets the stored response of the first request with that key instead of a second mutation.
+ * Requests without the header pass straight through.
+ * It should be used AFTER the main authMiddleware, so keys are scoped per user.
+ */
+function idempotencyMiddleware(req, res, next) {
+  const idempotencyKey = req.get('Idempotency-Key');
+  if (!idempotencyKey) {
+    return next();
+  }
+
+  const key = keyFor(req, req.method, `${req.baseUrl}${req.path}`, idempotencyKey);
+  const fingerprint = fingerprintOf(req.body);
+
+  const claimed = claim(key, fingerprint);
+  if (claimed.state === 'mismatch') {
+    return res.status(422).json({ message: 'Idempotency-Key was already used with a different request body.' });
+  }
+  if (claimed.state === 'pending') {
+    // The first attempt is still running; the client should retry later
+    return res.status(409).json({ message: 'A request with this Idempotency-Key is in progress.' });
+  }
+  if (claimed.state === 'done') {
+    const existing = claimed.entry;
+    res.set('Idempotent-Replayed', 'true');
+    if (existing.contentType) res.type(existing.contentType);
+    return res.status(existing.status).send(existing.body);
+  }
+
+  // Capture whatever the route sends; res.json() ends up in res.send() too
+  const send = res.send.bind(res);
+  res.send = (body) => {
+    if (res.statusCode < 500) {
+      complete(key, fingerprint, res.statusCode, body, res.get('Content-Type'));
+    } else {
+      // A server error may not have written anything, so let the retry run for real
+      release(key);
+    }
+    return send(body);
+  };
+  next();
+}
+
+module.exports = idempotencyMiddleware;
+// For routes that take several idempotent items in one request, e.g. POST /api/scores/batch
+module.exports.keyFor = keyFor;
+module.exports.fingerprintOf = fingerprintOf;
+module.exports.claim = claim;
+module.exports.complete = complete;
+module.exports.release = release;
@@ -1,67 +1,19 @@
 const express = require('express');
 const router = express.Router();
 const authMiddleware = require('../auth'); // Adjust path if needed
-const { executeGraphQL } = require('../dgraph'); // Adjust path if needed
+const leaderboardFeed = require('../leaderboardFeed');
 
 /**
  * @route   GET /api/leaderboard
- * @desc    Get aggregated scores for all teams across all rounds, sorted
+ * @desc    Get aggregated scores for all teams across all rounds, sorted.
+ *          Served from the in-memory totals kept by leaderboardFeed.
  * @access  Private
  */
 router.get('/', authMiddleware, async (req, res) => {
     console.log("GET /api/leaderboard");
     try {
-        // 1. Fetch ALL score submissions, including team details
-        const query = `
-            query GetAllScores {
-                queryScore {
-                    id
-                    total_score
-                    team @cascade { # Need team details for aggregation
-                        id
-                        name
-                        # Include members count if needed for display
-                        # members
-                    }
-                    # Include round details if you want to filter/group by round later
-                    # round @cascade { id name }
-                }
-            }`;
-        console.log("Executing GetAllScores Query");
-        const data = await executeGraphQL(query, {});
-        const allScores = data.queryScore || [];
-        console.log(`Fetched ${allScores.length} individual score submissions.`);
-
-        // 2. Aggregate scores per team
-        const teamTotals = {}; // Use a map: { teamId: { teamName: '...', totalScore: 150, memberCount: 5 }, ... }
-
-        for (const score of allScores) {
-            if (score && score.team && score.team.id) {
-                const teamId = score.team.id;
-                if (!teamTotals[teamId]) {
-                    // Initialize team entry if it's the first score for this team
-                    teamTotals[teamId] = {
-                        teamId: teamId,
-                        teamName: score.team.name,
-                        // Calculate member count safely
-                        memberCount: (score.team.members ? score.team.members.length : 0),
-                        totalScore: 0
-                    };
-                }
-                // Add the current score's total to the team's aggregate
-                teamTotals[teamId].totalScore += score.total_score;
-            }
-        }
-
-        // 3. Convert map to an array
-        let leaderboard = Object.values(teamTotals);
-
-        // 4. Sort the array by totalScore (descending)
-        leaderboard.sort((a, b) => b.totalScore - a.totalScore);
-
-        console.log("Generated Leaderboard:", JSON.stringify(leaderboard, null, 2));
+        const leaderboard = await leaderboardFeed.leaderboard();
         res.json(leaderboard); // Send the sorted array
-
     } catch (error) {
         console.error('Error generating leaderboard:', error.message);
         if (error.response?.data?.errors) { console.error("Dgraph Errors:", error.response.data.errors); }
@@ -69,4 +21,16 @@ router.get('/', authMiddleware, async (req, res) => {
     }
 });
 
-module.exports = router;
\ No newline at end of file
+/**
+ * @route   GET /api/leaderboard/stream
+ * @desc    Server-Sent Events: a `snapshot` of the leaderboard, then a `score` event
+ *          ({ teamId, teamName, points }) for every submitted score. Send Last-Event-ID
+ *          when reconnecting to resume; a `snapshot` is sent instead if events were lost.
+ * @access  Private
+ */
+router.get('/stream', authMiddleware, async (req, res) => {
+    console.log("GET /api/leaderboard/stream");
+    await leaderboardFeed.subscribe(req, res);
+});
+
+module.exports = router;
@@ -66,7 +66,7 @@ router.put('/:id', authMiddleware, adminMiddleware, async (req, res) => {
         const mutation = `
             mutation UpdateRound($filter: RoundFilter!, $set: RoundPatch, $remove: RoundPatch) {
                 updateRound(input: { filter: $filter, set: $set, remove: $remove }) {
-                    round { id name description date time status criteria { id name maxScore } teams { id name } }
+                    round { id name description date time status criteria { id name maxScore } teams { id name college members } }
                 }
             }`;
         const variables = { filter: { id: [req.params.id] }, set: Object.keys(setPayload).length > 0 ? setPayload : null, remove: Object.keys(removePayload).length > 0 ? removePayload : null };
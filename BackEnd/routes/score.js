@@ -2,51 +2,73 @@ const express = require('express');
 const router = express.Router();
 const authMiddleware = require('../auth'); // Adjust path
 const { executeGraphQL } = require('../dgraph'); // Adjust path
+const idempotency = require('../middleware/idempotency');
+const leaderboardFeed = require('../leaderboardFeed');
+
+// Items accepted per POST /api/scores/batch, and how many of them are written to Dgraph at once
+const MAX_BATCH_ITEMS = 50;
+const BATCH_CONCURRENCY = 4;
+
+/** Returns what is wrong with a score submission, or null if it can be stored. */
+function validationError(submission) {
+  const { teamId, roundId, judgeId, scoresByCriteria } = submission || {};
+  if (!teamId || !roundId || !judgeId || !scoresByCriteria?.length) {
+    return "Missing required fields or criteria scores";
+  }
+  return null;
+}
+
+/** Stores one validated submission as a Score, publishes it to the leaderboard and returns it. */
+async function addScore({ teamId, roundId, judgeId, scoresByCriteria }) {
+  const total_score = scoresByCriteria.reduce((sum, c) => sum + (parseInt(c.score, 10) || 0), 0);
+  const criteriaInput = scoresByCriteria.map(c => ({
+    score: parseInt(c.score, 10) || 0,
+    criterion: { id: c.criterionId } // Link by ID
+  }));
+  // Use the single complex input mutation structure
+  const mutation = `
+    mutation AddScore($input: [AddScoreInput!]!) {
+      addScore(input: $input) {
+        score {
+          id total_score
+          team { id name } judge { id name } round { id name }
+          scoresByCriteria { id score criterion { id name } }
+        }
+      }
+    }`;
+  const variables = {
+      input: [{
+          team: { id: teamId },
+          judge: { id: judgeId },
+          round: { id: roundId },
+          total_score: total_score,
+          scoresByCriteria: criteriaInput
+      }]
+  };
+  console.log("Executing AddScore Mutation with variables:", JSON.stringify(variables, null, 2));
+  const data = await executeGraphQL(mutation, variables);
+  if (!data || !data.addScore || !data.addScore.score || data.addScore.score.length === 0) {
+      throw new Error('Score creation failed in database response.');
+  }
+  console.log("AddScore Success Response:", JSON.stringify(data, null, 2));
+  leaderboardFeed.publishScore(data.addScore.score[0]);
+  return data.addScore.score[0];
+}
 
 /**
  * @route   POST /api/scores
  * @desc    Add a score for a team in a round
  * @access  Private
+ * Retries carrying the same Idempotency-Key replay the first response instead of adding another score.
  */
-router.post('/', authMiddleware, async (req, res) => {
+router.post('/', authMiddleware, idempotency, async (req, res) => {
   console.log("POST /api/scores Body:", JSON.stringify(req.body, null, 2));
   try {
-    const { teamId, roundId, judgeId, scoresByCriteria } = req.body;
-    if (!teamId || !roundId || !judgeId || !scoresByCriteria?.length) {
-      return res.status(400).json({ msg: "Missing required fields or criteria scores" });
-    }
-    const total_score = scoresByCriteria.reduce((sum, c) => sum + (parseInt(c.score, 10) || 0), 0);
-    const criteriaInput = scoresByCriteria.map(c => ({
-      score: parseInt(c.score, 10) || 0,
-      criterion: { id: c.criterionId } // Link by ID
-    }));
-    // Use the single complex input mutation structure
-    const mutation = `
-      mutation AddScore($input: [AddScoreInput!]!) {
-        addScore(input: $input) {
-          score {
-            id total_score
-            team { id name } judge { id name } round { id name }
-            scoresByCriteria { id score criterion { id name } }
-          }
-        }
-      }`;
-    const variables = {
-        input: [{
-            team: { id: teamId },
-            judge: { id: judgeId },
-            round: { id: roundId },
-            total_score: total_score,
-            scoresByCriteria: criteriaInput
-        }]
-    };
-    console.log("Executing AddScore Mutation with variables:", JSON.stringify(variables, null, 2));
-    const data = await executeGraphQL(mutation, variables);
-    if (!data || !data.addScore || !data.addScore.score || data.addScore.score.length === 0) {
-        throw new Error('Score creation failed in database response.');
+    const invalid = validationError(req.body);
+    if (invalid) {
+      return res.status(400).json({ msg: invalid });
     }
-    console.log("AddScore Success Response:", JSON.stringify(data, null, 2));
-    res.status(201).json(data.addScore.score[0]);
+    res.status(201).json(await addScore(req.body));
   } catch (error) {
     console.error('Error adding score:', error.message);
     if (error.response?.data?.errors) { console.error("Dgraph Errors:", error.response.data.errors); }
@@ -54,6 +76,78 @@ router.post('/', authMiddleware, async (req, res) => {
   }
 });
 
+// Runs one batch item through the same idempotency bookkeeping as POST /api/scores, so an item
+// retried on its own, or a single POST retried inside a batch, is never stored twice
+async function submitBatchItem(req, item) {
+  const idempotencyKey = item?.idempotencyKey || null;
+  const submission = item?.submission;
+  const invalid = validationError(submission);
+  if (invalid) {
+    return { idempotencyKey, status: 400, msg: invalid };
+  }
+
+  let key = null;
+  let fingerprint = null;
+  if (idempotencyKey) {
+    key = idempotency.keyFor(req, 'POST', `${req.baseUrl}/`, idempotencyKey);
+    fingerprint = idempotency.fingerprintOf(submission);
+    const claimed = idempotency.claim(key, fingerprint);
+    if (claimed.state === 'mismatch') {
+      return { idempotencyKey, status: 422, msg: 'Idempotency-Key was already used with a different request body.' };
+    }
+    if (claimed.state === 'pending') {
+      return { idempotencyKey, status: 409, msg: 'A request with this Idempotency-Key is in progress.' };
+    }
+    if (claimed.state === 'done') {
+      const { status, body } = claimed.entry;
+      let stored = body;
+      try { stored = typeof body === 'string' ? JSON.parse(body) : body; } catch (e) { /* Not JSON; send as is */ }
+      return { idempotencyKey, status, body: stored, replayed: true };
+    }
+  }
+
+  try {
+    const score = await addScore(submission);
+    if (key) idempotency.complete(key, fingerprint, 201, JSON.stringify(score), 'application/json; charset=utf-8');
+    return { idempotencyKey, status: 201, body: score };
+  } catch (error) {
+    if (key) idempotency.release(key);
+    console.error('Error adding batched score:', error.message);
+    if (error.response?.data?.errors) { console.error("Dgraph Errors:", error.response.data.errors); }
+    return { idempotencyKey, status: 500, msg: 'Server Error' };
+  }
+}
+
+/**
+ * @route   POST /api/scores/batch
+ * @desc    Add several scores in one request, e.g. a judge's queue after the Wi-Fi came back
+ * @access  Private
+ * Body: { items: [{ idempotencyKey, submission }] }, where each submission is a POST /api/scores body.
+ * Answers 200 with { results: [{ idempotencyKey, status, body | msg }] } in item order; each
+ * status is what POST /api/scores would have answered for that item alone.
+ */
+router.post('/batch', authMiddleware, async (req, res) => {
+  const items = req.body?.items;
+  if (!Array.isArray(items) || items.length === 0) {
+    return res.status(400).json({ msg: "items must be a non-empty array" });
+  }
+  if (items.length > MAX_BATCH_ITEMS) {
+    return res.status(413).json({ msg: `At most ${MAX_BATCH_ITEMS} items per batch` });
+  }
+  console.log(`POST /api/scores/batch with ${items.length} items`);
+
+  const results = new Array(items.length);
+  let next = 0;
+  const workers = Array.from({ length: Math.min(BATCH_CONCURRENCY, items.length) }, async () => {
+    while (next < items.length) {
+      const index = next++;
+      results[index] = await submitBatchItem(req, items[index]);
+    }
+  });
+  await Promise.all(workers);
+  res.json({ results });
+});
+
 /**
  * @route   GET /api/scores/round/:roundId
  * @desc    Get all scores for a specific round by querying the Round first
@@ -3,6 +3,7 @@ const router = express.Router();
 const authMiddleware = require('../auth');
 const adminMiddleware = require('../middleware/admin');
 const { executeGraphQL } = require('../dgraph');
+const leaderboardFeed = require('../leaderboardFeed');
 
 /**
  * @route   GET /api/teams
@@ -128,6 +129,7 @@ router.put('/:id', authMiddleware, adminMiddleware, async (req, res) => {
     if (!data.updateTeam || data.updateTeam.team.length === 0) {
       return res.status(404).json({ msg: 'Team not found' });
     }
+    leaderboardFeed.invalidate(); // The leaderboard shows team names
     res.json(data.updateTeam.team[0]);
   } catch (error) {
     console.error('Error updating team:', error.message);
@@ -161,6 +163,7 @@ router.delete('/:id', authMiddleware, adminMiddleware, async (req, res) => {
     if (data.deleteTeam.numUids === 0) {
       return res.status(404).json({ msg: 'Team not found or already deleted' });
     }
+    leaderboardFeed.invalidate(); // The team's scores drop off the leaderboard
     res.json({ msg: 'Team deleted successfully' });
   } catch (error) {
     console.error('Error deleting team:', error.message);
@@ -0,0 +1,175 @@
+package com.example.user;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round-trips lists through the on-device SQLite store.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocalStoreTest {
+
+    private static final String DATABASE_NAME = "local_store_test.db";
+    private static final int ROW_COUNT = 3000;
+    // One frame at 60 Hz
+    private static final long READ_BUDGET_MS = 16;
+
+    private Context context;
+    private LocalStore store;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        store = new LocalStore(context, DATABASE_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void read_neverStored_returnsNull() {
+        assertNull(store.read(LocalStore.TEAMS, LocalStore.GLOBAL));
+        assertEquals(-1, store.syncedAt(LocalStore.TEAMS, LocalStore.GLOBAL));
+    }
+
+    @Test
+    public void replace_survivesReopeningTheDatabase() {
+        store.replace(LocalStore.TEAMS, LocalStore.GLOBAL, teams(ROW_COUNT));
+        store.close();
+
+        // A new helper on the same file sees exactly what a restarted process would
+        store = new LocalStore(context, DATABASE_NAME);
+        List<Team> read = store.read(LocalStore.TEAMS, LocalStore.GLOBAL);
+
+        assertEquals(ROW_COUNT, read.size());
+        assertEquals("0xt0", read.get(0).getId());
+        assertEquals("Team 1234", read.get(1234).getName());
+        assertEquals(3, read.get(ROW_COUNT - 1).getMemberCount());
+        assertTrue(store.syncedAt(LocalStore.TEAMS, LocalStore.GLOBAL) > 0);
+    }
+
+    @Test
+    public void replace_dropsRowsMissingFromTheNewList() {
+        store.replace(LocalStore.TEAMS, LocalStore.GLOBAL, teams(10));
+        store.replace(LocalStore.TEAMS, LocalStore.GLOBAL, teams(4));
+
+        assertEquals(4, store.read(LocalStore.TEAMS, LocalStore.GLOBAL).size());
+
+        store.replace(LocalStore.TEAMS, LocalStore.GLOBAL, new ArrayList<>());
+        assertTrue(store.read(LocalStore.TEAMS, LocalStore.GLOBAL).isEmpty());
+    }
+
+    @Test
+    public void replace_keepsScopesApart() {
+        List<Criteria> roundA = GsonProvider.get().fromJson(
+                "[{\"id\":\"0xk1\",\"name\":\"Design\",\"maxScore\":10}]", new TypeToken<ArrayList<Criteria>>(){}.getType());
+        List<Criteria> roundB = GsonProvider.get().fromJson(
+                "[{\"id\":\"0xk2\",\"name\":\"Pitch\",\"maxScore\":5},{\"id\":\"0xk3\",\"name\":\"Demo\",\"maxScore\":5}]",
+                new TypeToken<ArrayList<Criteria>>(){}.getType());
+
+        store.replace(LocalStore.CRITERIA, "0xa", roundA);
+        store.replace(LocalStore.CRITERIA, "0xb", roundB);
+
+        assertEquals("Design", store.read(LocalStore.CRITERIA, "0xa").get(0).getName());
+        assertEquals(2, store.read(LocalStore.CRITERIA, "0xb").size());
+        assertEquals(5, store.read(LocalStore.CRITERIA, "0xb").get(1).getMaxScore());
+        assertNull(store.read(LocalStore.TEAMS, "0xa"));
+    }
+
+    @Test
+    public void applyChanges_editsInPlaceAndAddsAtTheEnd() {
+        store.replace(LocalStore.TEAMS, LocalStore.GLOBAL, teams(4), "10");
+        List<Team> changed = GsonProvider.get().fromJson(
+                "[{\"id\":\"0xt2\",\"name\":\"Renamed\"},{\"id\":\"0xt9\",\"name\":\"Newcomer\"}]",
+                new TypeToken<ArrayList<Team>>(){}.getType());
+
+        store.applyChanges(LocalStore.TEAMS, LocalStore.GLOBAL, changed, Arrays.asList("0xt0", "0xt3"), "12");
+
+        List<Team> read = store.read(LocalStore.TEAMS, LocalStore.GLOBAL);
+        assertEquals(3, read.size());
+        assertEquals("0xt1", read.get(0).getId());
+        assertEquals("Renamed", read.get(1).getName());
+        assertEquals("Newcomer", read.get(2).getName());
+        assertEquals("12", store.watermark(LocalStore.TEAMS, LocalStore.GLOBAL));
+
+        store.replace(LocalStore.TEAMS, LocalStore.GLOBAL, teams(2));
+        assertNull(store.watermark(LocalStore.TEAMS, LocalStore.GLOBAL));
+    }
+
+    @Test
+    public void readPage_walksTheListInOrderWithoutExcludedRows() {
+        store.replace(LocalStore.TEAMS, LocalStore.GLOBAL, teams(ROW_COUNT));
+        List<String> deleting = Arrays.asList("0xt1", "0xt2");
+
+        assertEquals(ROW_COUNT - 2, store.count(LocalStore.TEAMS, LocalStore.GLOBAL, deleting));
+        List<Team> first = store.readPage(LocalStore.TEAMS, LocalStore.GLOBAL, 0, 50, deleting);
+        assertEquals("0xt3", first.get(1).getId());
+        List<Team> last = store.readPage(LocalStore.TEAMS, LocalStore.GLOBAL, ROW_COUNT - 50, 50, deleting);
+        assertEquals(48, last.size());
+        assertEquals("Team " + (ROW_COUNT - 1), last.get(47).getName());
+    }
+
+    @Test
+    public void readPage_moreExcludedRowsThanSqliteTakesVariables() {
+        store.replace(LocalStore.TEAMS, LocalStore.GLOBAL, teams(ROW_COUNT));
+        Set<String> deleting = new HashSet<>();
+        for (int i = 0; i < ROW_COUNT; i += 2) deleting.add("0xt" + i); // A bulk delete of every other team
+
+        assertEquals(ROW_COUNT / 2, store.count(LocalStore.TEAMS, LocalStore.GLOBAL, deleting));
+        List<Team> page = store.readPage(LocalStore.TEAMS, LocalStore.GLOBAL, 700, 50, deleting);
+        assertEquals(50, page.size());
+        assertEquals("0xt1401", page.get(0).getId());
+        assertEquals("0xt1499", page.get(49).getId());
+        assertTrue(store.readPage(LocalStore.TEAMS, LocalStore.GLOBAL, ROW_COUNT / 2, 50, deleting).isEmpty());
+    }
+
+    @Test
+    public void read_thousandsOfRows_staysWithinAFrame() {
+        store.replace(LocalStore.TEAMS, LocalStore.GLOBAL, teams(ROW_COUNT));
+        store.read(LocalStore.TEAMS, LocalStore.GLOBAL); // Warm up the page cache and adapters
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            List<Team> read = store.read(LocalStore.TEAMS, LocalStore.GLOBAL);
+            best = Math.min(best, SystemClock.elapsedRealtimeNanos() - start);
+            assertEquals(ROW_COUNT, read.size());
+        }
+
+        long bestMs = best / 1_000_000;
+        assertTrue("Reading " + ROW_COUNT + " teams took " + bestMs + " ms", bestMs < READ_BUDGET_MS);
+    }
+
+    private static List<Team> teams(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":\"0xt").append(i).append("\",\"name\":\"Team ").append(i)
+                    .append("\",\"college\":\"College ").append(i % 40)
+                    .append("\",\"members\":[\"Asha\",\"Ravi\",\"Meera\"]}");
+        }
+        return GsonProvider.get().fromJson(json.append(']').toString(), new TypeToken<ArrayList<Team>>(){}.getType());
+    }
+}
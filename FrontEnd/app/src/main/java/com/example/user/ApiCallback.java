@@ -0,0 +1,32 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import java.io.IOException;
+
+/**
+ * Receives the parsed result of a typed ApiClient call.
+ * All methods are called on OkHttp's background thread, like a plain okhttp3.Callback,
+ * so UI updates still have to be posted to the main thread.
+ * @param <T> The type the response body is parsed into.
+ */
+public interface ApiCallback<T> {
+
+    /**
+     * Called for a 2xx response once the body has been parsed.
+     * @param result The parsed body, or null if the server sent "null" or nothing.
+     */
+    void onSuccess(T result);
+
+    /**
+     * Called for a non-2xx response.
+     * @param code The HTTP status code.
+     * @param errorBody The raw response body, usually a JSON object with a "msg" field.
+     */
+    void onError(int code, String errorBody);
+
+    /**
+     * Called when the request could not complete or the body was not valid JSON.
+     * @param e The cause.
+     */
+    void onFailure(@NonNull IOException e);
+}
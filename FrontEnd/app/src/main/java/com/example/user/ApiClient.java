@@ -1,6 +1,11 @@
 package com.example.user;
 
 import android.content.Context;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
+import java.net.URLEncoder;
+import java.util.concurrent.TimeUnit;
+import okhttp3.EventListener;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -9,35 +14,164 @@ import okhttp3.RequestBody;
 /**
  * A centralized client for making API calls to the Utsav server.
  * It automatically handles adding the authentication token to requests.
+ * Failed requests that may be repeated are retried before a callback sees the failure; see
+ * HttpClientProvider.retryPolicy() to change how. How many calls run at once per host follows the
+ * latency the shared client observes; see HttpClientProvider.concurrencyLimiter(). Which enqueued
+ * call runs first follows its RequestScheduler.Priority: changes the user makes are INTERACTIVE,
+ * reads FOREGROUND unless stated otherwise. A screen creates its client with a CallScope, so its
+ * calls end when the user leaves it.
  */
 public class ApiClient {
 
     private static final String BASE_URL = "https://1182802fb10c.ngrok-free.app/api/";
+    // Three missed server heartbeats (15s apart) mean the stream is dead
+    private static final long STREAM_READ_TIMEOUT_SECONDS = 45;
+    private final String baseUrl;
     private final OkHttpClient httpClient;
+    private final SingleFlight singleFlight;
+    private final RequestScheduler scheduler;
+    private final CallScope scope;
     private final SessionManager sessionManager;
+    private final NetworkMetrics networkMetrics;
 
+    /**
+     * Creates a client for work that outlives any one screen, e.g. ScoreOutbox or ScoringSession.
+     */
     public ApiClient(Context context) {
-        this.httpClient = new OkHttpClient();
-        this.sessionManager = new SessionManager(context);
+        this(context, null);
+    }
+
+    /**
+     * Creates a client for a screen.
+     * @param scope Ends the screen's calls when it is left, e.g. CallScope.untilStop(getViewLifecycleOwner()).
+     */
+    public ApiClient(Context context, CallScope scope) {
+        this(BASE_URL, HttpClientProvider.get(context), HttpClientProvider.singleFlight(),
+                HttpClientProvider.requestScheduler(), scope, new SessionManager(context));
+    }
+
+    /**
+     * Creates a client against an explicit server, used by tests to target a local server.
+     * @param baseUrl e.g., "http://localhost:3000/api/"
+     * @param httpClient The OkHttpClient to issue calls on.
+     * @param sessionManager Source of the auth token, or null to send unauthenticated requests.
+     */
+    ApiClient(String baseUrl, OkHttpClient httpClient, SessionManager sessionManager) {
+        this(baseUrl, httpClient, new SingleFlight(), sessionManager);
+    }
+
+    ApiClient(String baseUrl, OkHttpClient httpClient, SingleFlight singleFlight, SessionManager sessionManager) {
+        this(baseUrl, httpClient, singleFlight, new RequestScheduler(httpClient.dispatcher(),
+                RequestScheduler.DEFAULT_MAX_QUEUED_BACKGROUND, metricsOf(httpClient)), null, sessionManager);
+    }
+
+    /**
+     * @param scope The lifecycle the calls are tied to, or null for calls that are never ended by one.
+     */
+    ApiClient(String baseUrl, OkHttpClient httpClient, SingleFlight singleFlight, RequestScheduler scheduler,
+              CallScope scope, SessionManager sessionManager) {
+        this.baseUrl = baseUrl;
+        this.httpClient = httpClient;
+        this.singleFlight = singleFlight;
+        this.scheduler = scheduler;
+        this.scope = scope;
+        this.sessionManager = sessionManager;
+        this.networkMetrics = metricsOf(httpClient);
+    }
+
+    // Parse and queue times are recorded next to the client's own phase timings, if it keeps any
+    private static NetworkMetrics metricsOf(OkHttpClient httpClient) {
+        EventListener.Factory listeners = httpClient.eventListenerFactory();
+        return listeners instanceof NetworkMetrics ? (NetworkMetrics) listeners : null;
     }
 
     /**
      * Makes a GET request to a specified endpoint.
-     * Automatically adds the auth token if it exists.
+     * Automatically adds the auth token if it exists. If an identical GET is already
+     * in flight, enqueueing the returned call waits for that one instead of sending another.
      * @param endpoint e.g., "teams", "users"
      * @return A Call object ready to be enqueued.
      */
     public okhttp3.Call get(String endpoint) {
-        Request.Builder requestBuilder = new Request.Builder()
-                .url(BASE_URL + endpoint);
+        return get(endpoint, RequestScheduler.Priority.FOREGROUND);
+    }
 
-        String token = sessionManager.getAuthToken();
+    /**
+     * Makes a GET request that is scheduled with the given priority, e.g. BACKGROUND for a prefetch.
+     * Coalesced like get(String).
+     * @param endpoint e.g., "teams", "users"
+     * @return A Call object ready to be enqueued.
+     */
+    public okhttp3.Call get(String endpoint, RequestScheduler.Priority priority) {
+        Request.Builder requestBuilder = newRequest(endpoint, priority);
+
+        String token = authToken();
         if (token != null) {
             requestBuilder.addHeader("x-auth-token", token);
         }
 
         Request request = requestBuilder.build();
-        return httpClient.newCall(request);
+        return scoped(singleFlight.newCall(newCall(request)));
+    }
+
+    /**
+     * Makes a GET request and parses the JSON response into the given type while it streams in.
+     * The call is enqueued immediately; identical in-flight GETs are coalesced as with get(String).
+     * How long parsing took is recorded in the client's NetworkMetrics.
+     * @param endpoint e.g., "teams", "scores/round/0x1"
+     * @param type The type to parse into, e.g. new TypeToken<ArrayList<Team>>(){}.getType().
+     * @param callback Receives the parsed result on a background thread.
+     * @return The enqueued call, so it can be cancelled.
+     */
+    public <T> okhttp3.Call get(String endpoint, Type type, ApiCallback<T> callback) {
+        okhttp3.Call call = get(endpoint);
+        call.enqueue(new JsonCallback<>(type, callback, networkMetrics));
+        return call;
+    }
+
+    /**
+     * Makes a GET request for what changed in a list since an earlier answer, as ?since=.
+     * Coalesced like get(String). See ListChanges for the answer's shape. A first sync is a
+     * FOREGROUND read, since there is nothing to show until it is answered; later ones are
+     * BACKGROUND refreshes of a list already on screen.
+     * @param endpoint e.g., "teams"
+     * @param watermark The watermark of the last answer; null to ask for the whole list.
+     * @return A Call object ready to be enqueued.
+     */
+    public okhttp3.Call getChanges(String endpoint, String watermark) {
+        if (watermark == null) {
+            return get(endpoint, RequestScheduler.Priority.FOREGROUND);
+        }
+        try {
+            return get(endpoint + "?since=" + URLEncoder.encode(watermark, "UTF-8"), RequestScheduler.Priority.BACKGROUND);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e); // UTF-8 is always supported
+        }
+    }
+
+    /**
+     * Opens a long-lived Server-Sent Events stream. Not coalesced like get(), and read with a
+     * timeout that outlasts the server's heartbeats rather than a normal response.
+     * @param endpoint e.g., "leaderboard/stream"
+     * @param lastEventId The id of the last event received, to resume after; null for a fresh start.
+     * @return A Call object ready to be executed.
+     */
+    public okhttp3.Call stream(String endpoint, String lastEventId) {
+        Request.Builder requestBuilder = newRequest(endpoint, RequestScheduler.Priority.FOREGROUND)
+                .header("Accept", "text/event-stream");
+
+        String token = authToken();
+        if (token != null) {
+            requestBuilder.addHeader("x-auth-token", token);
+        }
+        if (lastEventId != null) {
+            requestBuilder.header("Last-Event-ID", lastEventId);
+        }
+
+        OkHttpClient streamClient = httpClient.newBuilder() // Shares the pool and dispatcher
+                .readTimeout(STREAM_READ_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .build();
+        return scoped(streamClient.newCall(requestBuilder.build()));
     }
 
     /**
@@ -48,22 +182,38 @@ public class ApiClient {
      * @return A Call object ready to be enqueued.
      */
     public okhttp3.Call post(String endpoint, String jsonBody) {
+        return post(endpoint, jsonBody, null);
+    }
+
+    /**
+     * Makes a POST request that the server may safely receive more than once.
+     * Every retry of the same logical request must reuse the same key, so the server replays
+     * its first response instead of applying the request again.
+     * @param endpoint e.g., "scores"
+     * @param jsonBody The JSON string to send.
+     * @param idempotencyKey Sent as the Idempotency-Key header; null to send none.
+     * @return A Call object ready to be enqueued.
+     */
+    public okhttp3.Call post(String endpoint, String jsonBody, String idempotencyKey) {
         RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json; charset=utf-8"));
 
-        Request.Builder requestBuilder = new Request.Builder()
-                .url(BASE_URL + endpoint)
+        Request.Builder requestBuilder = newRequest(endpoint, RequestScheduler.Priority.INTERACTIVE)
                 .post(body);
 
         // For most POST requests (except login/register), we need the auth token
         if (!endpoint.startsWith("auth/")) {
-            String token = sessionManager.getAuthToken();
+            String token = authToken();
             if (token != null) {
                 requestBuilder.addHeader("x-auth-token", token);
             }
         }
 
+        if (idempotencyKey != null) {
+            requestBuilder.header("Idempotency-Key", idempotencyKey);
+        }
+
         Request request = requestBuilder.build();
-        return httpClient.newCall(request);
+        return scoped(newCall(request));
     }
 
     /**
@@ -76,17 +226,16 @@ public class ApiClient {
     public okhttp3.Call put(String endpoint, String jsonBody) {
         RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json; charset=utf-8"));
 
-        Request.Builder requestBuilder = new Request.Builder()
-                .url(BASE_URL + endpoint)
+        Request.Builder requestBuilder = newRequest(endpoint, RequestScheduler.Priority.INTERACTIVE)
                 .put(body); // Use .put() for the HTTP method
 
-        String token = sessionManager.getAuthToken();
+        String token = authToken();
         if (token != null) {
             requestBuilder.addHeader("x-auth-token", token);
         }
 
         Request request = requestBuilder.build();
-        return httpClient.newCall(request);
+        return scoped(newCall(request));
     }
 
     /**
@@ -96,17 +245,53 @@ public class ApiClient {
      * @return A Call object ready to be enqueued.
      */
     public okhttp3.Call delete(String endpoint) {
-        Request.Builder requestBuilder = new Request.Builder()
-                .url(BASE_URL + endpoint)
+        Request.Builder requestBuilder = newRequest(endpoint, RequestScheduler.Priority.INTERACTIVE)
                 .delete(); // Use .delete() for the HTTP method
 
-        String token = sessionManager.getAuthToken();
+        String token = authToken();
         if (token != null) {
             requestBuilder.addHeader("x-auth-token", token);
         }
 
         Request request = requestBuilder.build();
-        return httpClient.newCall(request);
+        return scoped(newCall(request));
+    }
+
+    /**
+     * @return A client for the same server whose calls no CallScope ends, for a change whose
+     * answer must be applied app-wide even if the screen is gone by then; see CallScope.bind().
+     */
+    public ApiClient unscoped() {
+        return scope == null ? this : new ApiClient(baseUrl, httpClient, singleFlight, scheduler, null, sessionManager);
+    }
+
+    /** @return The lifecycle this client's calls are tied to, or null if none. */
+    CallScope scope() {
+        return scope;
+    }
+
+    /** @return Where parse times for this client's responses go, or null if its client keeps no metrics. */
+    NetworkMetrics networkMetrics() {
+        return networkMetrics;
     }
-}
 
+    // The endpoint travels with the request so interceptors can apply per-endpoint rules
+    private Request.Builder newRequest(String endpoint, RequestScheduler.Priority priority) {
+        return new Request.Builder()
+                .url(baseUrl + endpoint)
+                .tag(String.class, endpoint)
+                .tag(RequestScheduler.Priority.class, priority);
+    }
+
+    private okhttp3.Call newCall(Request request) {
+        return scheduler.newCall(httpClient.newCall(request));
+    }
+
+    private okhttp3.Call scoped(okhttp3.Call call) {
+        return scope != null ? scope.newCall(call) : call;
+    }
+
+    private String authToken() {
+        return sessionManager != null ? sessionManager.getAuthToken() : null;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.user;
+
+import android.os.Process;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide executors for work that must stay off the UI thread but is not network I/O,
+ * e.g. aggregating a round's scores. Network callbacks already run on OkHttp's threads;
+ * hand heavier processing to background() so those threads are freed for the next call.
+ */
+public final class AppExecutors {
+
+    private static final int BACKGROUND_THREADS = 2;
+
+    private static final ExecutorService BACKGROUND = Executors.newFixedThreadPool(BACKGROUND_THREADS, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(() -> {
+                // Below the UI thread so a long aggregation never competes with drawing
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "app-background-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private AppExecutors() {}
+
+    public static ExecutorService background() {
+        return BACKGROUND;
+    }
+}
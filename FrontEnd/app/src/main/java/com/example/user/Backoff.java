@@ -0,0 +1,24 @@
+package com.example.user;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The delay before trying the server again, shared by RetryPolicy, ScoreOutbox and
+ * LeaderboardStream: it doubles with each attempt up to a cap, and half of it is random, so the
+ * phones that lost the same venue Wi-Fi do not all come back in the same instant.
+ */
+final class Backoff {
+
+    private Backoff() {}
+
+    /**
+     * @param attempt 1 for the first retry.
+     * @param baseMs Delay ceiling for the first retry.
+     * @param capMs Upper bound for the delay ceiling.
+     * @return Between half and all of min(capMs, baseMs * 2^(attempt - 1)).
+     */
+    static long jittered(int attempt, long baseMs, long capMs) {
+        long ceiling = Math.min(capMs, baseMs << Math.max(0, Math.min(attempt - 1, 20)));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.user;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import okhttp3.Cache;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Decides how long each endpoint's GET responses may be served from the disk cache
+ * before they have to be revalidated with the server.
+ *
+ * The server does not send Cache-Control headers, only ETags, so this is installed as a
+ * network interceptor that stamps a Cache-Control header on each response before OkHttp's
+ * cache sees it. Once the max-age has passed, OkHttp revalidates with If-None-Match and an
+ * unchanged list comes back as an empty 304.
+ */
+public class CachePolicy implements Interceptor {
+
+    /** The response is never written to the cache. */
+    public static final int NO_STORE = -1;
+    /** The response is cached but revalidated on every request. */
+    public static final int ALWAYS_REVALIDATE = 0;
+
+    private final Map<String, Integer> maxAgeSeconds = new ConcurrentHashMap<>();
+    private final int defaultMaxAgeSeconds;
+    private volatile Cache cache;
+
+    public CachePolicy(int defaultMaxAgeSeconds) {
+        this.defaultMaxAgeSeconds = defaultMaxAgeSeconds;
+    }
+
+    /**
+     * The policies used by the app: team lists may be 30s stale, the leaderboard must always be live.
+     * @return A new policy with the app's defaults.
+     */
+    public static CachePolicy defaults() {
+        CachePolicy policy = new CachePolicy(ALWAYS_REVALIDATE);
+        policy.setMaxAge("teams", 30);
+        policy.setMaxAge("leaderboard", NO_STORE);
+        return policy;
+    }
+
+    /**
+     * Sets the policy for an endpoint. An exact endpoint ("rounds/0x1/teams") wins over
+     * its top-level resource ("rounds").
+     * @param endpoint The endpoint or top-level resource, e.g. "teams".
+     * @param seconds How long a response may be served without revalidation, or NO_STORE.
+     */
+    public void setMaxAge(String endpoint, int seconds) {
+        maxAgeSeconds.put(endpoint, seconds);
+    }
+
+    public int maxAgeFor(String endpoint) {
+        Integer exact = maxAgeSeconds.get(endpoint);
+        if (exact != null) return exact;
+        Integer resource = maxAgeSeconds.get(resourceOf(endpoint));
+        return resource != null ? resource : defaultMaxAgeSeconds;
+    }
+
+    /**
+     * Lets the policy drop stale list entries after a successful PUT, POST or DELETE.
+     * @param cache The cache installed on the same client.
+     */
+    void attachCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        String endpoint = request.tag(String.class);
+        if (endpoint == null) {
+            return response; // Not issued through ApiClient, leave it alone
+        }
+
+        if (!"GET".equals(request.method())) {
+            if (response.isSuccessful()) {
+                evictResource(request.url(), endpoint);
+            }
+            return response;
+        }
+
+        int maxAge = maxAgeFor(endpoint);
+        String cacheControl = maxAge == NO_STORE ? "no-store" : "private, max-age=" + maxAge;
+        return response.newBuilder()
+                .header("Cache-Control", cacheControl)
+                // Responses depend on who is logged in
+                .header("Vary", "x-auth-token")
+                .removeHeader("Pragma")
+                .build();
+    }
+
+    // A delete of "teams/0x1" must not leave the cached "teams" list around for another 30s
+    private void evictResource(HttpUrl url, String endpoint) throws IOException {
+        Cache currentCache = cache;
+        if (currentCache == null) return;
+        String endpointPath = "/" + endpoint;
+        String encodedPath = url.encodedPath();
+        if (!encodedPath.endsWith(endpointPath)) return;
+        String resourcePrefix = url.newBuilder()
+                .encodedPath(encodedPath.substring(0, encodedPath.length() - endpointPath.length()) + "/" + resourceOf(endpoint))
+                .query(null)
+                .build()
+                .toString();
+
+        Iterator<String> urls = currentCache.urls();
+        while (urls.hasNext()) {
+            if (urls.next().startsWith(resourcePrefix)) {
+                urls.remove();
+            }
+        }
+    }
+
+    static String resourceOf(String endpoint) {
+        int slash = endpoint.indexOf('/');
+        int query = endpoint.indexOf('?');
+        int end = endpoint.length();
+        if (slash >= 0) end = slash;
+        if (query >= 0 && query < end) end = query;
+        return endpoint.substring(0, end);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.user;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Counts how GET responses were served by the disk cache, and how many body bytes
+ * were served locally instead of being downloaded again over the tunnel.
+ */
+public class CacheStats implements Interceptor {
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidatedHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    /** Responses served straight from the cache without touching the network. */
+    public long getHitCount() { return hits.get(); }
+
+    /** Responses the server confirmed unchanged with a 304. */
+    public long getRevalidatedHitCount() { return revalidatedHits.get(); }
+
+    /** Responses whose body had to be downloaded. */
+    public long getMissCount() { return misses.get(); }
+
+    /** Body bytes served from the cache instead of the network. */
+    public long getBytesSaved() { return bytesSaved.get(); }
+
+    public void reset() {
+        hits.set(0);
+        revalidatedHits.set(0);
+        misses.set(0);
+        bytesSaved.set(0);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        if (!"GET".equals(request.method())) {
+            return response;
+        }
+
+        boolean fromCache = response.cacheResponse() != null;
+        boolean fromNetwork = response.networkResponse() != null;
+        if (fromCache && !fromNetwork) {
+            hits.incrementAndGet();
+        } else if (fromCache) {
+            revalidatedHits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            return response;
+        }
+
+        long length = response.body() != null ? response.body().contentLength() : -1;
+        if (length > 0) {
+            bytesSaved.addAndGet(length);
+        }
+        return response;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + getHitCount()
+                + ", revalidated=" + getRevalidatedHitCount()
+                + ", misses=" + getMissCount()
+                + ", bytesSaved=" + getBytesSaved() + "}";
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Timeout;
+
+/**
+ * Ties the calls a screen makes to its lifecycle, so nothing keeps downloading, parsing or holding
+ * on to the screen after the user has left it. Give one to ApiClient when the screen is created.
+ *
+ * When the scope ends (on stop or on destroy, see untilStop and untilDestroy), every read still
+ * running is cancelled and its callback is never called, so a screen that is going away shows no
+ * "Failed to load" either. Changes the user made (RequestScheduler.Priority.INTERACTIVE) are not
+ * cancelled, since the server may already have applied them; they run to the end. On destroy
+ * every callback is let go, so a call still in flight no longer keeps the screen in memory.
+ *
+ * A change whose answer must also be applied outside the screen, e.g. to ScoringSession or
+ * LocalStore, cannot be left to a callback that may be let go. Send it through
+ * ApiClient.unscoped(), and split its callback with bind(): the app-wide part always runs, the
+ * screen's part only while the screen is there.
+ *
+ * Must be created on the main thread, like any lifecycle observer.
+ */
+public final class CallScope implements DefaultLifecycleObserver {
+
+    private final boolean endOnStop;
+    // Guarded by this
+    private final Set<ScopedCall> active = new HashSet<>();
+    private final Set<Held<?>> held = Collections.newSetFromMap(new WeakHashMap<>()); // Gone once nothing uses them
+    private boolean destroyed;
+
+    private CallScope(LifecycleOwner owner, boolean endOnStop) {
+        this.endOnStop = endOnStop;
+        owner.getLifecycle().addObserver(this);
+    }
+
+    /**
+     * For screens that load again every time they are shown, e.g. from onResume().
+     * @param owner e.g. a fragment's getViewLifecycleOwner(), or an activity.
+     */
+    public static CallScope untilStop(LifecycleOwner owner) {
+        return new CallScope(owner, true);
+    }
+
+    /**
+     * For screens that load once, e.g. from onCreate(), and keep what they loaded while in the background.
+     * @param owner e.g. an activity.
+     */
+    public static CallScope untilDestroy(LifecycleOwner owner) {
+        return new CallScope(owner, false);
+    }
+
+    /**
+     * Wraps a call so that it ends with this scope.
+     * @param call A call that has not been executed yet.
+     * @return A call that can be used exactly like the one passed in.
+     */
+    public Call newCall(Call call) {
+        return new ScopedCall(call);
+    }
+
+    /**
+     * Holds the screen's part of work that outlives this scope, e.g. the listener of a change sent
+     * through ApiClient.unscoped(), until the scope is destroyed.
+     * @return Gives screenPart back until then, and null after.
+     */
+    public <T> Supplier<T> hold(T screenPart) {
+        Held<T> holder = new Held<>(screenPart);
+        synchronized (this) {
+            if (destroyed) {
+                holder.letGo();
+            } else {
+                held.add(holder);
+            }
+        }
+        return holder;
+    }
+
+    /**
+     * Splits the callback of a change sent through ApiClient.unscoped(): onApplied runs on every
+     * successful answer, even after the screen is gone, and then the screen's callback, which is
+     * let go when this scope is destroyed.
+     * @param onApplied Keeps app-wide state in step with the server, e.g. drops cached copies of
+     *                  what changed. Runs on a network thread; must not hold on to the screen.
+     */
+    public <T> ApiCallback<T> bind(Consumer<T> onApplied, ApiCallback<T> callback) {
+        Supplier<ApiCallback<T>> screen = hold(callback);
+        return new ApiCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                onApplied.accept(result);
+                ApiCallback<T> target = screen.get();
+                if (target != null) target.onSuccess(result);
+            }
+
+            @Override
+            public void onError(int code, String errorBody) {
+                ApiCallback<T> target = screen.get();
+                if (target != null) target.onError(code, errorBody);
+            }
+
+            @Override
+            public void onFailure(@NonNull IOException e) {
+                ApiCallback<T> target = screen.get();
+                if (target != null) target.onFailure(e);
+            }
+        };
+    }
+
+    /** @return Calls made in this scope that have not finished yet. */
+    public synchronized int activeCount() {
+        return active.size();
+    }
+
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        if (endOnStop) end(false);
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        owner.getLifecycle().removeObserver(this);
+        end(true);
+    }
+
+    private void end(boolean destroy) {
+        List<ScopedCall> ending;
+        List<Held<?>> lettingGo = new ArrayList<>();
+        synchronized (this) {
+            if (destroy) {
+                destroyed = true;
+                lettingGo.addAll(held);
+                held.clear();
+            }
+            ending = new ArrayList<>(active);
+        }
+        for (Held<?> holder : lettingGo) holder.letGo();
+        for (ScopedCall call : ending) {
+            if (!call.isMutation()) {
+                call.detach();
+                call.cancel();
+            } else if (destroy) {
+                call.detach();
+            }
+        }
+    }
+
+    // Returns false if the scope has already been destroyed
+    private synchronized boolean track(ScopedCall call) {
+        if (destroyed) return false;
+        active.add(call);
+        return true;
+    }
+
+    private synchronized void untrack(ScopedCall call) {
+        active.remove(call);
+    }
+
+    private static final class Held<T> implements Supplier<T> {
+        private volatile T value;
+
+        Held(T value) {
+            this.value = value;
+        }
+
+        @Override
+        public T get() {
+            return value;
+        }
+
+        void letGo() {
+            value = null;
+        }
+    }
+
+    private final class ScopedCall implements Call {
+        private final Call call;
+        private volatile Callback callback;
+
+        ScopedCall(Call call) {
+            this.call = call;
+        }
+
+        boolean isMutation() {
+            return RequestScheduler.priorityOf(call.request()) == RequestScheduler.Priority.INTERACTIVE;
+        }
+
+        // Drops the reference to the screen's callback; whatever arrives later goes nowhere
+        void detach() {
+            callback = null;
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return call.request();
+        }
+
+        @NonNull
+        @Override
+        public Response execute() throws IOException {
+            if (!track(this) && !isMutation()) {
+                call.cancel(); // The screen is gone; fail the way a cancelled call does
+            }
+            try {
+                return call.execute();
+            } finally {
+                untrack(this);
+            }
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback callback) {
+            this.callback = callback;
+            if (!track(this)) {
+                detach();
+                if (!isMutation()) call.cancel();
+            }
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(@NonNull Call c, @NonNull IOException e) {
+                    try {
+                        Callback target = ScopedCall.this.callback;
+                        if (target != null) target.onFailure(ScopedCall.this, e);
+                    } finally {
+                        untrack(ScopedCall.this);
+                    }
+                }
+
+                // Still tracked while the body is read, so ending the scope stops the download
+                @Override
+                public void onResponse(@NonNull Call c, @NonNull Response response) throws IOException {
+                    try {
+                        Callback target = ScopedCall.this.callback;
+                        if (target == null) {
+                            response.close(); // Left unread; the screen that wanted it is gone
+                            return;
+                        }
+                        target.onResponse(ScopedCall.this, response);
+                    } finally {
+                        untrack(ScopedCall.this);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void cancel() {
+            call.cancel();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return call.isExecuted();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return call.isCanceled();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return call.timeout();
+        }
+
+        @NonNull
+        @Override
+        public Call clone() {
+            return new ScopedCall(call.clone());
+        }
+    }
+}
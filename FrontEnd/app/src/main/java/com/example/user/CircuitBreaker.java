@@ -0,0 +1,98 @@
+package com.example.user;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops sending requests to a host that keeps failing, e.g. while the ngrok tunnel is down, so
+ * screens fail at once instead of each waiting out its own timeouts and retries.
+ *
+ * After failureThreshold failures in a row the host's circuit opens and every request to it
+ * fails fast with CircuitOpenException. Once openMillis have passed, one request is let through
+ * as a probe: if the host answers, the circuit closes again; if not, it stays open for another
+ * openMillis. Safe to use from any thread.
+ */
+public class CircuitBreaker {
+
+    /** Thrown instead of sending a request while its host's circuit is open. */
+    public static class CircuitOpenException extends IOException {
+        CircuitOpenException(String host, long retryInMillis) {
+            super("Not sending to " + host + " for another " + retryInMillis + " ms after repeated failures");
+        }
+    }
+
+    private static final class HostState {
+        int failures;
+        boolean open;
+        boolean probing;
+        long openedAt;
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Map<String, HostState> hosts = new HashMap<>();
+
+    /**
+     * @param failureThreshold Failures in a row that open a host's circuit.
+     * @param openMillis How long the circuit stays open before a probe is let through.
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Call before sending a request, then report its outcome with onSuccess, onFailure or onCanceled.
+     * @throws CircuitOpenException If the host's circuit is open and this is not the probe.
+     */
+    public synchronized void beforeRequest(String host) throws CircuitOpenException {
+        HostState state = hosts.get(host);
+        if (state == null || !state.open) return;
+        long openFor = openMillis - (now() - state.openedAt);
+        if (openFor > 0 || state.probing) {
+            throw new CircuitOpenException(host, Math.max(0, openFor));
+        }
+        state.probing = true; // This request is the probe; the rest keep failing fast until it is answered
+    }
+
+    /** The host answered. */
+    public synchronized void onSuccess(String host) {
+        hosts.remove(host);
+    }
+
+    /** The host could not be reached, or answered that it is unavailable. */
+    public synchronized void onFailure(String host) {
+        HostState state = hosts.get(host);
+        if (state == null) {
+            state = new HostState();
+            hosts.put(host, state);
+        }
+        state.failures++;
+        if (state.probing || state.failures >= failureThreshold) {
+            state.open = true;
+            state.probing = false;
+            state.openedAt = now();
+        }
+    }
+
+    /**
+     * The caller cancelled the request before the host answered, so it counts as neither. If it
+     * was the probe, the next request becomes the probe instead.
+     */
+    public synchronized void onCanceled(String host) {
+        HostState state = hosts.get(host);
+        if (state != null) state.probing = false;
+    }
+
+    /** @return True while requests to the host fail fast. */
+    public synchronized boolean isOpen(String host) {
+        HostState state = hosts.get(host);
+        return state != null && state.open;
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
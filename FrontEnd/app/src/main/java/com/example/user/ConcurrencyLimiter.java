@@ -0,0 +1,217 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.Call;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Adjusts how many calls the dispatcher runs at once per host from the latency and errors it
+ * observes, instead of OkHttp's fixed five, so a slow tunnel is not flooded and a fast one is used.
+ *
+ * Additive increase, multiplicative decrease: while calls come back close to the fastest latency
+ * recently seen, the limit grows by one for every limit's worth of calls; when a call takes more
+ * than latencyTolerance times as long, times out, fails or is answered 429, 503 or 504, the limit
+ * is cut by a quarter. Calls that started before a cut do not cut it again. A call counts from
+ * sending its request until its body has been read, the time it holds a dispatcher slot for.
+ *
+ * Installed as a network interceptor, so cache hits are not counted and each retry is. The
+ * leaderboard stream is left out; it stays open for as long as the screen is shown. Calls beyond
+ * the limit wait in RequestScheduler, which reports how many there are.
+ */
+public class ConcurrencyLimiter implements Interceptor {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 5;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 16;
+    public static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+
+    // Latencies within this much of the fastest are jitter, not congestion, however fast the server
+    static final long MIN_SLACK_NANOS = 50_000_000L;
+    // The fastest latency is forgotten every this many calls, so moving to a slower network is not
+    // mistaken for congestion forever
+    static final int BASELINE_WINDOW = 100;
+    private static final double BACKOFF_RATIO = 0.75;
+
+    private final Dispatcher dispatcher;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private int limit;
+    private int fastSinceChange;
+    private long baselineNanos = Long.MAX_VALUE;
+    private long windowMinNanos = Long.MAX_VALUE;
+    private int windowSamples;
+    private long lastDecreaseNanos = Long.MIN_VALUE;
+
+    /**
+     * @param dispatcher The dispatcher whose per-host limit is adjusted; give it to the client too.
+     * @param initialLimit Calls per host allowed before anything has been measured.
+     * @param latencyTolerance How many times the fastest latency a call may take before it
+     *                         counts as a sign of congestion.
+     */
+    public ConcurrencyLimiter(Dispatcher dispatcher, int initialLimit, int minLimit, int maxLimit,
+                              double latencyTolerance) {
+        this.dispatcher = dispatcher;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        dispatcher.setMaxRequestsPerHost(limit);
+    }
+
+    /** @return A limiter with the app's defaults, on a new dispatcher. */
+    public static ConcurrencyLimiter defaults() {
+        return new ConcurrencyLimiter(new Dispatcher(), DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT,
+                DEFAULT_LATENCY_TOLERANCE);
+    }
+
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /** @return Calls allowed per host right now. */
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    /** @return Requests sent that have not been fully answered yet. */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if ("text/event-stream".equals(request.header("Accept"))) {
+            return chain.proceed(request);
+        }
+
+        Sample sample = new Sample(chain.call(), System.nanoTime(), inFlight.incrementAndGet());
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            sample.finish(true);
+            throw e;
+        }
+        int code = response.code();
+        boolean overloaded = code == 429 || code == 503 || code == 504;
+        return response.newBuilder()
+                .body(new TimedBody(response.body(), sample, overloaded))
+                .build();
+    }
+
+    /**
+     * Adjusts the limit for one finished call.
+     * @param startNanos When its request was sent.
+     * @param inFlightAtStart Requests in flight when it was sent, itself included.
+     * @param dropped Whether it failed or was answered that the server is overloaded.
+     */
+    synchronized void onSample(long startNanos, long latencyNanos, int inFlightAtStart, boolean dropped) {
+        windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+        if (++windowSamples >= BASELINE_WINDOW) {
+            baselineNanos = windowMinNanos;
+            windowMinNanos = Long.MAX_VALUE;
+            windowSamples = 0;
+        } else {
+            baselineNanos = Math.min(baselineNanos, latencyNanos);
+        }
+
+        boolean congested = dropped
+                || (latencyNanos > baselineNanos * latencyTolerance && latencyNanos - baselineNanos > MIN_SLACK_NANOS);
+        if (congested) {
+            if (startNanos < lastDecreaseNanos) return; // Already paid for by the last cut
+            limit = Math.max(minLimit, (int) (limit * BACKOFF_RATIO));
+            fastSinceChange = 0;
+            lastDecreaseNanos = System.nanoTime();
+        } else if (inFlightAtStart * 2 >= limit && ++fastSinceChange >= limit) {
+            // Only grow while the limit is actually in use, or an idle app would end up at the maximum
+            limit = Math.min(maxLimit, limit + 1);
+            fastSinceChange = 0;
+        }
+        if (limit != dispatcher.getMaxRequestsPerHost()) {
+            dispatcher.setMaxRequestsPerHost(limit); // Raising it starts queued calls at once
+        }
+    }
+
+    private final class Sample {
+        private final Call call;
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        Sample(Call call, long startNanos, int inFlightAtStart) {
+            this.call = call;
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        void finish(boolean dropped) {
+            if (!finished.compareAndSet(false, true)) return;
+            inFlight.decrementAndGet();
+            if (call.isCanceled()) return; // Says nothing about the server
+            onSample(startNanos, System.nanoTime() - startNanos, inFlightAtStart, dropped);
+        }
+    }
+
+    // Ends the sample once the body has been read to the end, failed or been closed
+    private static final class TimedBody extends ResponseBody {
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        TimedBody(ResponseBody delegate, Sample sample, boolean overloaded) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                    long read;
+                    try {
+                        read = super.read(sink, byteCount);
+                    } catch (IOException e) {
+                        sample.finish(true);
+                        throw e;
+                    }
+                    if (read == -1) sample.finish(overloaded);
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    sample.finish(overloaded);
+                    super.close();
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.user;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.google.gson.annotations.SerializedName;
+import java.io.IOException;
 
 public class Criteria {
     @SerializedName("id")
@@ -22,4 +26,36 @@ public class Criteria {
     public String getId() { return id; }
     public String getName() { return name; }
     public int getMaxScore() { return maxScore; }
-}
\ No newline at end of file
+
+    // --- JSON ---
+
+    /** Reflection-free adapter registered in GsonProvider. */
+    static final TypeAdapter<Criteria> ADAPTER = new GsonAdapter().nullSafe();
+
+    private static final class GsonAdapter extends TypeAdapter<Criteria> {
+        @Override
+        public Criteria read(JsonReader in) throws IOException {
+            Criteria criteria = new Criteria(null, 0);
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": criteria.id = JsonFields.readString(in); break;
+                    case "name": criteria.name = JsonFields.readString(in); break;
+                    case "maxScore": criteria.maxScore = JsonFields.readInt(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return criteria;
+        }
+
+        @Override
+        public void write(JsonWriter out, Criteria criteria) throws IOException {
+            out.beginObject();
+            out.name("id").value(criteria.id);
+            out.name("name").value(criteria.name);
+            out.name("maxScore").value(criteria.maxScore);
+            out.endObject();
+        }
+    }
+}
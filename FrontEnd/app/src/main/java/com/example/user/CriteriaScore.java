@@ -1,6 +1,10 @@
 package com.example.user;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.google.gson.annotations.SerializedName;
+import java.io.IOException;
 
 public class CriteriaScore {
     @SerializedName("id")
@@ -16,4 +20,37 @@ public class CriteriaScore {
     public String getId() { return id; }
     public int getScore() { return score; }
     public Criteria getCriterion() { return criterion; }
-}
\ No newline at end of file
+
+    // --- JSON ---
+
+    /** Reflection-free adapter registered in GsonProvider. */
+    static final TypeAdapter<CriteriaScore> ADAPTER = new GsonAdapter().nullSafe();
+
+    private static final class GsonAdapter extends TypeAdapter<CriteriaScore> {
+        @Override
+        public CriteriaScore read(JsonReader in) throws IOException {
+            CriteriaScore criteriaScore = new CriteriaScore();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": criteriaScore.id = JsonFields.readString(in); break;
+                    case "score": criteriaScore.score = JsonFields.readInt(in); break;
+                    case "criterion": criteriaScore.criterion = JsonFields.readObject(in, Criteria.ADAPTER); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return criteriaScore;
+        }
+
+        @Override
+        public void write(JsonWriter out, CriteriaScore criteriaScore) throws IOException {
+            out.beginObject();
+            out.name("id").value(criteriaScore.id);
+            out.name("score").value(criteriaScore.score);
+            out.name("criterion");
+            Criteria.ADAPTER.write(out, criteriaScore.criterion);
+            out.endObject();
+        }
+    }
+}
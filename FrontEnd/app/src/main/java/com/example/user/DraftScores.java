@@ -0,0 +1,195 @@
+package com.example.user;
+
+import android.content.Context;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores a judge has typed but not submitted yet, by round, judge and team, so switching to
+ * another team and back, or leaving the screen, never loses partial work.
+ *
+ * Reads and writes hit memory only and are safe on the UI thread. Changes are written to disk
+ * behind them: every draft changed within the write delay goes out in one write, so a judge
+ * typing a score costs one disk write per team rather than one per keystroke.
+ */
+public final class DraftScores {
+
+    private static final String TAG = "DraftScores";
+    private static final long WRITE_DELAY_MS = 500;
+
+    private static DraftScores instance;
+
+    private final DraftStore store;
+    private final ScheduledExecutorService executor;
+    private final long writeDelayMs;
+
+    // Guarded by this
+    private final Map<String, Draft> drafts = new HashMap<>();
+    private final Set<String> loadedScopes = new HashSet<>();
+    private final Map<String, Draft> unwritten = new LinkedHashMap<>();
+    private ScheduledFuture<?> pendingWrite;
+
+    public static synchronized DraftScores get(Context context) {
+        if (instance == null) {
+            instance = new DraftScores(new SqliteDraftStore(context.getApplicationContext(), SqliteDraftStore.DATABASE_NAME),
+                    newExecutor(), WRITE_DELAY_MS);
+        }
+        return instance;
+    }
+
+    /**
+     * @param store Where drafts are persisted.
+     * @param executor The single thread that does the disk I/O.
+     * @param writeDelayMs How long changes are collected before they are written.
+     */
+    DraftScores(DraftStore store, ScheduledExecutorService executor, long writeDelayMs) {
+        this.store = store;
+        this.executor = executor;
+        this.writeDelayMs = writeDelayMs;
+    }
+
+    /**
+     * Reads a judge's drafts for a round from disk, once per process.
+     * @param onLoaded Run on the drafts' thread once get() returns them.
+     */
+    public void load(String roundId, String judgeId, Runnable onLoaded) {
+        executor.execute(() -> {
+            String scope = roundId + "/" + judgeId;
+            boolean read;
+            synchronized (this) {
+                read = !loadedScopes.contains(scope);
+            }
+            if (read) {
+                Map<String, Map<String, String>> stored;
+                try {
+                    stored = store.load(roundId, judgeId);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Could not read drafts", e);
+                    stored = new HashMap<>();
+                }
+                synchronized (this) {
+                    loadedScopes.add(scope);
+                    for (Map.Entry<String, Map<String, String>> team : stored.entrySet()) {
+                        Draft draft = draft(roundId, judgeId, team.getKey());
+                        // Anything typed while the disk was being read is newer
+                        for (Map.Entry<String, String> score : team.getValue().entrySet()) {
+                            draft.scores.putIfAbsent(score.getKey(), score.getValue());
+                        }
+                    }
+                }
+            }
+            onLoaded.run();
+        });
+    }
+
+    /** @return The text typed for one criterion, or null if there is none. */
+    public synchronized String get(String roundId, String judgeId, String teamId, String criterionId) {
+        Draft draft = drafts.get(keyOf(roundId, judgeId, teamId));
+        return draft != null ? draft.scores.get(criterionId) : null;
+    }
+
+    /** Records the text typed for one criterion; an empty value removes it. */
+    public synchronized void put(String roundId, String judgeId, String teamId, String criterionId, String value) {
+        Draft draft = draft(roundId, judgeId, teamId);
+        String typed = value == null || value.isEmpty() ? null : value;
+        String previous = typed == null ? draft.scores.remove(criterionId) : draft.scores.put(criterionId, typed);
+        if (!Objects.equals(previous, typed)) {
+            changed(draft);
+        }
+    }
+
+    /** Drops a team's draft, e.g. once its scores were submitted. */
+    public synchronized void clear(String roundId, String judgeId, String teamId) {
+        Draft draft = drafts.get(keyOf(roundId, judgeId, teamId));
+        if (draft != null && !draft.scores.isEmpty()) {
+            draft.scores.clear();
+            changed(draft);
+        }
+    }
+
+    /** Writes pending changes now instead of after the write delay, e.g. when the screen is left. */
+    public synchronized void flush() {
+        if (unwritten.isEmpty()) return;
+        if (pendingWrite != null) pendingWrite.cancel(false);
+        pendingWrite = executor.schedule(this::write, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private void changed(Draft draft) {
+        unwritten.put(draft.key(), draft);
+        if (pendingWrite == null) {
+            pendingWrite = executor.schedule(this::write, writeDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // On the executor: one write per draft changed since the last one
+    private void write() {
+        List<String[]> ids = new ArrayList<>();
+        List<Map<String, String>> scores = new ArrayList<>();
+        synchronized (this) {
+            pendingWrite = null;
+            for (Draft draft : unwritten.values()) {
+                ids.add(new String[]{draft.roundId, draft.judgeId, draft.teamId});
+                scores.add(new HashMap<>(draft.scores));
+            }
+            unwritten.clear();
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            String[] id = ids.get(i);
+            try {
+                store.save(id[0], id[1], id[2], scores.get(i));
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not save the draft for team " + id[2], e);
+            }
+        }
+    }
+
+    private Draft draft(String roundId, String judgeId, String teamId) {
+        String key = keyOf(roundId, judgeId, teamId);
+        Draft draft = drafts.get(key);
+        if (draft == null) {
+            draft = new Draft(roundId, judgeId, teamId);
+            drafts.put(key, draft);
+        }
+        return draft;
+    }
+
+    private static String keyOf(String roundId, String judgeId, String teamId) {
+        return roundId + "/" + judgeId + "/" + teamId;
+    }
+
+    private static ScheduledExecutorService newExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "score-drafts");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class Draft {
+        final String roundId;
+        final String judgeId;
+        final String teamId;
+        final Map<String, String> scores = new HashMap<>();
+
+        Draft(String roundId, String judgeId, String teamId) {
+            this.roundId = roundId;
+            this.judgeId = judgeId;
+            this.teamId = teamId;
+        }
+
+        String key() {
+            return keyOf(roundId, judgeId, teamId);
+        }
+    }
+}
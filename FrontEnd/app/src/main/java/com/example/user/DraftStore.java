@@ -0,0 +1,16 @@
+package com.example.user;
+
+import java.util.Map;
+
+/**
+ * Durable storage behind DraftScores. Every method may do disk I/O and is only called from
+ * the drafts' own thread.
+ */
+interface DraftStore {
+
+    /** @return Every draft one judge has in one round: typed text by criterion id, by team id. */
+    Map<String, Map<String, String>> load(String roundId, String judgeId);
+
+    /** Replaces a team's draft; an empty map deletes it. */
+    void save(String roundId, String judgeId, String teamId, Map<String, String> scores);
+}
@@ -0,0 +1,175 @@
+package com.example.user;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory LRU of parsed lists, bounded by how much memory they take rather than how many
+ * there are, shared by every Repository in the process. When a new list would take the cache
+ * over maxBytes, the lists used longest ago are dropped until it fits; a list larger than the
+ * whole cache is not kept at all.
+ *
+ * Sizes are estimates of what a list keeps reachable (see sizeOf), good enough to keep a few
+ * thousand registrants from crowding everything else out, not exact heap accounting.
+ */
+public final class EntityCache {
+
+    public static final long DEFAULT_MAX_BYTES = 4L * 1024 * 1024;
+
+    // Header and fields of a small object, and what one element of a list costs besides itself
+    static final long OBJECT_BYTES = 16;
+    static final long REFERENCE_BYTES = 4;
+    private static final long STRING_BYTES = 40;
+
+    private final long maxBytes;
+    // Guarded by this; least recently used first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxBytes The most memory the cached lists may take, by their estimated size.
+     */
+    public EntityCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return The value cached under the key, or null; counted as a hit or a miss.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <V> V get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return (V) entry.value;
+    }
+
+    /** @return Whether a value is cached under the key; not counted as a lookup. */
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Caches a value in place of any under the same key, then drops the least recently used
+     * values until everything fits.
+     * @param bytes The value's estimated size.
+     */
+    public synchronized void put(String key, Object value, long bytes) {
+        Entry previous = entries.remove(key);
+        if (previous != null) sizeBytes -= previous.bytes;
+        if (bytes > maxBytes) return; // Would push out everything else and still not fit
+        entries.put(key, new Entry(value, bytes));
+        sizeBytes += bytes;
+        trimTo(maxBytes);
+    }
+
+    public synchronized void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) sizeBytes -= entry.bytes;
+    }
+
+    /** Drops every value whose key matches, e.g. all of one Repository's lists. */
+    public synchronized void removeIf(Predicate<String> key) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> entry = it.next();
+            if (key.test(entry.getKey())) {
+                sizeBytes -= entry.getValue().bytes;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops the least recently used values until the rest take at most the given size, e.g.
+     * half of maxBytes when the system is low on memory.
+     */
+    public synchronized void trimTo(long bytes) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (sizeBytes > bytes && it.hasNext()) {
+            sizeBytes -= it.next().bytes;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    /** Lookups that found a cached value. */
+    public synchronized long getHitCount() { return hits; }
+
+    /** Lookups that found nothing, so the list had to be fetched and parsed. */
+    public synchronized long getMissCount() { return misses; }
+
+    /** @return Hits out of all lookups, or 0 before the first lookup. */
+    public synchronized double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /** Values dropped to make room, not counting removed ones. */
+    public synchronized long getEvictionCount() { return evictions; }
+
+    /** The estimated memory the cached values take. */
+    public synchronized long getSizeBytes() { return sizeBytes; }
+
+    public long getMaxBytes() { return maxBytes; }
+
+    public synchronized int getEntryCount() { return entries.size(); }
+
+    public synchronized void resetStats() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    /** @return The estimated size of a String, its characters taken as two bytes each; 0 for null. */
+    static long sizeOf(String s) {
+        return s == null ? 0 : STRING_BYTES + 2L * s.length();
+    }
+
+    /** @return The estimated size of a list and everything in it; 0 for null. */
+    static <T> long sizeOf(List<T> list, ToLongFunction<T> sizeOfItem) {
+        if (list == null) return 0;
+        long bytes = OBJECT_BYTES + REFERENCE_BYTES * list.size();
+        for (T item : list) {
+            if (item != null) bytes += sizeOfItem.applyAsLong(item);
+        }
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "EntityCache{hitRatio=" + String.format(Locale.US, "%.2f", getHitRatio())
+                + ", hits=" + hits
+                + ", misses=" + misses
+                + ", entries=" + entries.size()
+                + ", sizeBytes=" + sizeBytes
+                + ", maxBytes=" + maxBytes
+                + ", evictions=" + evictions + "}";
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long bytes;
+
+        Entry(Object value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.user;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Holds the one Gson instance used by the whole app.
+ *
+ * Every model class registers a hand-written TypeAdapter here, so parsing large lists
+ * (e.g. the scores of a round) skips Gson's reflective field binding entirely.
+ */
+public final class GsonProvider {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Team.class, Team.ADAPTER)
+            .registerTypeAdapter(Judge.class, Judge.ADAPTER)
+            .registerTypeAdapter(User.class, User.ADAPTER)
+            .registerTypeAdapter(Criteria.class, Criteria.ADAPTER)
+            .registerTypeAdapter(CriteriaScore.class, CriteriaScore.ADAPTER)
+            .registerTypeAdapter(Round.class, Round.ADAPTER)
+            .registerTypeAdapter(Score.class, Score.ADAPTER)
+            .registerTypeAdapter(LeaderboardEntry.class, LeaderboardEntry.ADAPTER)
+            .create();
+
+    private GsonProvider() {}
+
+    public static Gson get() {
+        return GSON;
+    }
+}
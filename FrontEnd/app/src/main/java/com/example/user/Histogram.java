@@ -0,0 +1,92 @@
+package com.example.user;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts recorded values in fixed buckets, e.g. request latencies in milliseconds, so
+ * percentiles can be read without keeping every sample. Safe to record from any thread.
+ */
+public final class Histogram {
+
+    /** Bucket upper bounds for latencies, in milliseconds. */
+    public static final long[] LATENCY_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000};
+    /** Bucket upper bounds for payload sizes, in bytes. */
+    public static final long[] SIZE_BOUNDS_BYTES = {256, 1024, 4096, 16384, 65536, 262144, 1048576, 4194304};
+
+    private final long[] bounds;
+    private final AtomicLongArray counts; // One per bound, then one for larger values
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param bounds Inclusive bucket upper bounds, in increasing order.
+     */
+    public Histogram(long[] bounds) {
+        this.bounds = bounds.clone();
+        this.counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    public void record(long value) {
+        int bucket = 0;
+        while (bucket < bounds.length && value > bounds[bucket]) bucket++;
+        counts.incrementAndGet(bucket);
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() { return count.get(); }
+
+    public long getSum() { return sum.get(); }
+
+    public long getMax() { return max.get(); }
+
+    /** @return The mean of the recorded values, or 0 if there are none. */
+    public long getMean() {
+        long n = count.get();
+        return n > 0 ? sum.get() / n : 0;
+    }
+
+    /**
+     * @param quantile e.g. 0.5 for the median, 0.95 for p95.
+     * @return The upper bound of the bucket holding that quantile (the largest value recorded
+     * if that is smaller, or if it is past the last bound), or 0 if nothing was recorded.
+     */
+    public long getPercentile(double quantile) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * n));
+        long seen = 0;
+        for (int bucket = 0; bucket < bounds.length; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) return Math.min(bounds[bucket], max.get());
+        }
+        return max.get();
+    }
+
+    /** @return The bucket upper bounds; getBucketCounts() has one more entry, for larger values. */
+    public long[] getBounds() {
+        return bounds.clone();
+    }
+
+    public long[] getBucketCounts() {
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++) snapshot[i] = counts.get(i);
+        return snapshot;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram{count=" + getCount() + ", mean=" + getMean() + ", p50=" + getPercentile(0.5)
+                + ", p95=" + getPercentile(0.95) + ", max=" + getMax() + "}";
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.user;
+
+import android.content.Context;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+
+/**
+ * Owns the single OkHttpClient shared by every ApiClient in the process.
+ * Sharing one client means every screen reuses the same connection pool,
+ * dispatcher threads, TLS session cache and on-disk response cache.
+ */
+public final class HttpClientProvider {
+
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    public static final long DEFAULT_KEEP_ALIVE_MINUTES = 5;
+    public static final long DEFAULT_CACHE_SIZE_BYTES = 10L * 1024 * 1024;
+
+    private static final String CACHE_DIR_NAME = "http";
+    private static final CachePolicy CACHE_POLICY = CachePolicy.defaults();
+    private static final CacheStats CACHE_STATS = new CacheStats();
+    private static final NetworkMetrics NETWORK_METRICS = new NetworkMetrics();
+    private static final RetryPolicy RETRY_POLICY = RetryPolicy.defaults(NETWORK_METRICS);
+    private static final SingleFlight SINGLE_FLIGHT = new SingleFlight();
+    private static final ConcurrencyLimiter CONCURRENCY_LIMITER = ConcurrencyLimiter.defaults();
+    private static final RequestScheduler REQUEST_SCHEDULER = new RequestScheduler(CONCURRENCY_LIMITER.getDispatcher(),
+            RequestScheduler.DEFAULT_MAX_QUEUED_BACKGROUND, NETWORK_METRICS);
+
+    private static int maxIdleConnections = DEFAULT_MAX_IDLE_CONNECTIONS;
+    private static long keepAliveMinutes = DEFAULT_KEEP_ALIVE_MINUTES;
+    private static OkHttpClient sharedClient;
+
+    private HttpClientProvider() {}
+
+    /**
+     * Tunes the shared connection pool. Must be called before the first ApiClient is created,
+     * e.g. from Application.onCreate().
+     * @param maxIdleConnections How many idle connections to keep open to the server.
+     * @param keepAliveMinutes How long an idle connection is kept before it is evicted.
+     */
+    public static synchronized void configure(int maxIdleConnections, long keepAliveMinutes) {
+        if (sharedClient != null) {
+            throw new IllegalStateException("configure() must be called before the shared client is created");
+        }
+        HttpClientProvider.maxIdleConnections = maxIdleConnections;
+        HttpClientProvider.keepAliveMinutes = keepAliveMinutes;
+    }
+
+    /**
+     * Returns the process-wide client, creating it on first use.
+     * @param context Used once to locate the cache directory; may be null to run without a disk cache.
+     * @return The shared OkHttpClient.
+     */
+    public static synchronized OkHttpClient get(Context context) {
+        if (sharedClient == null) {
+            File cacheDir = context != null
+                    ? new File(context.getApplicationContext().getCacheDir(), CACHE_DIR_NAME)
+                    : null;
+            sharedClient = newClient(new Options(maxIdleConnections, keepAliveMinutes)
+                    .cache(cacheDir, CACHE_POLICY, CACHE_STATS)
+                    .networkMetrics(NETWORK_METRICS)
+                    .retryPolicy(RETRY_POLICY)
+                    .concurrencyLimiter(CONCURRENCY_LIMITER));
+        }
+        return sharedClient;
+    }
+
+    /** Per-endpoint freshness rules for the shared cache, e.g. to change how stale "teams" may be. */
+    public static CachePolicy cachePolicy() {
+        return CACHE_POLICY;
+    }
+
+    /** Hit, miss and bytes-saved counters for the shared cache. */
+    public static CacheStats cacheStats() {
+        return CACHE_STATS;
+    }
+
+    /** Per-endpoint phase timings, payload sizes and error rates for the shared client. */
+    public static NetworkMetrics networkMetrics() {
+        return NETWORK_METRICS;
+    }
+
+    /** Per-method and per-endpoint retries, and the circuit breaker, for the shared client. */
+    public static RetryPolicy retryPolicy() {
+        return RETRY_POLICY;
+    }
+
+    /** The shared dispatcher's per-host limit, as adjusted to observed latency. */
+    public static ConcurrencyLimiter concurrencyLimiter() {
+        return CONCURRENCY_LIMITER;
+    }
+
+    /** Orders calls enqueued through ApiClient by priority, and holds those waiting for a slot. */
+    public static RequestScheduler requestScheduler() {
+        return REQUEST_SCHEDULER;
+    }
+
+    /** Coalesces identical GETs issued by different screens against the shared client. */
+    public static SingleFlight singleFlight() {
+        return SINGLE_FLIGHT;
+    }
+
+    static OkHttpClient newClient(int maxIdleConnections, long keepAliveMinutes) {
+        return newClient(new Options(maxIdleConnections, keepAliveMinutes));
+    }
+
+    static OkHttpClient newClient(int maxIdleConnections, long keepAliveMinutes,
+                                  File cacheDir, CachePolicy cachePolicy, CacheStats cacheStats) {
+        return newClient(new Options(maxIdleConnections, keepAliveMinutes).cache(cacheDir, cachePolicy, cacheStats));
+    }
+
+    static OkHttpClient newClient(Options options) {
+        NetworkMetrics networkMetrics = options.networkMetrics != null ? options.networkMetrics : new NetworkMetrics();
+        RetryPolicy retryPolicy = options.retryPolicy != null ? options.retryPolicy : RetryPolicy.defaults(networkMetrics);
+        ConcurrencyLimiter concurrencyLimiter = options.concurrencyLimiter != null
+                ? options.concurrencyLimiter : ConcurrencyLimiter.defaults();
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(options.maxIdleConnections, options.keepAliveMinutes, TimeUnit.MINUTES))
+                .dispatcher(concurrencyLimiter.getDispatcher())
+                .addInterceptor(options.cacheStats)
+                .addInterceptor(retryPolicy) // Inside CacheStats, so a retried call is counted once
+                .addNetworkInterceptor(options.cachePolicy)
+                .addNetworkInterceptor(concurrencyLimiter)
+                .eventListenerFactory(networkMetrics);
+
+        if (options.cacheDir != null) {
+            Cache cache = new Cache(options.cacheDir, DEFAULT_CACHE_SIZE_BYTES);
+            options.cachePolicy.attachCache(cache);
+            builder.cache(cache);
+        }
+        return builder.build();
+    }
+
+    /**
+     * What newClient builds a client from. Parts that are not set get a fresh instance of their
+     * own with the app's defaults, so a test only names the ones it looks at.
+     */
+    static final class Options {
+        final int maxIdleConnections;
+        final long keepAliveMinutes;
+        File cacheDir;
+        CachePolicy cachePolicy = CachePolicy.defaults();
+        CacheStats cacheStats = new CacheStats();
+        NetworkMetrics networkMetrics;
+        RetryPolicy retryPolicy;
+        ConcurrencyLimiter concurrencyLimiter;
+
+        Options(int maxIdleConnections, long keepAliveMinutes) {
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAliveMinutes = keepAliveMinutes;
+        }
+
+        /** @param cacheDir Where to keep responses on disk, or null for no disk cache. */
+        Options cache(File cacheDir, CachePolicy cachePolicy, CacheStats cacheStats) {
+            this.cacheDir = cacheDir;
+            this.cachePolicy = cachePolicy;
+            this.cacheStats = cacheStats;
+            return this;
+        }
+
+        Options networkMetrics(NetworkMetrics networkMetrics) {
+            this.networkMetrics = networkMetrics;
+            return this;
+        }
+
+        Options retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        Options concurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+            this.concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Adapts an ApiCallback to OkHttp by parsing the response body straight off the socket.
+ *
+ * The body is decoded and parsed incrementally through a JsonReader, so the full payload is
+ * never held as one String next to the parsed objects. Error bodies are small and are still
+ * read as a String for logging. How long parsing took is recorded per endpoint in NetworkMetrics.
+ * A call that was cancelled, e.g. by its screen's CallScope, reports nothing.
+ */
+class JsonCallback<T> implements Callback {
+
+    private static final Gson GSON = GsonProvider.get();
+
+    private final Type type;
+    private final ApiCallback<T> callback;
+    private final NetworkMetrics metrics;
+
+    /** For calls on the shared client. */
+    JsonCallback(Type type, ApiCallback<T> callback) {
+        this(type, callback, HttpClientProvider.networkMetrics());
+    }
+
+    /**
+     * @param metrics Where to record parse times; null to record none.
+     */
+    JsonCallback(Type type, ApiCallback<T> callback, NetworkMetrics metrics) {
+        this.type = type;
+        this.callback = callback;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void onFailure(@NonNull Call call, @NonNull IOException e) {
+        if (call.isCanceled()) return;
+        callback.onFailure(e);
+    }
+
+    @Override
+    public void onResponse(@NonNull Call call, @NonNull Response response) {
+        T result;
+        try (ResponseBody body = response.body()) {
+            if (!response.isSuccessful()) {
+                String errorBody = body != null ? body.string() : "";
+                callback.onError(response.code(), errorBody);
+                return;
+            }
+            long parseStart = System.nanoTime();
+            result = body != null ? parse(body, type) : null;
+            if (metrics != null) {
+                metrics.recordParse(call.request().tag(String.class), System.nanoTime() - parseStart);
+            }
+        } catch (IOException e) {
+            if (!call.isCanceled()) callback.onFailure(e);
+            return;
+        }
+        callback.onSuccess(result);
+    }
+
+    /**
+     * Parses a response body without first copying it into a String.
+     * @param body The body to consume; it is not closed by this method.
+     * @param type The type to parse into, e.g. new TypeToken<ArrayList<Team>>(){}.getType().
+     * @return The parsed value, or null for an empty body.
+     * @throws IOException If the body cannot be read or is not valid JSON.
+     */
+    static <T> T parse(ResponseBody body, Type type) throws IOException {
+        JsonReader reader = new JsonReader(body.charStream());
+        try {
+            return GSON.fromJson(reader, type);
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed JSON response", e);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.user;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.google.gson.annotations.SerializedName;
+import java.io.IOException;
 
 public class Judge {
     @SerializedName("id")
@@ -32,4 +36,38 @@ public class Judge {
     public String getContactNumber() {
         return contactNumber;
     }
+
+    // --- JSON ---
+
+    /** Reflection-free adapter registered in GsonProvider. */
+    static final TypeAdapter<Judge> ADAPTER = new GsonAdapter().nullSafe();
+
+    private static final class GsonAdapter extends TypeAdapter<Judge> {
+        @Override
+        public Judge read(JsonReader in) throws IOException {
+            Judge judge = new Judge();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": judge.id = JsonFields.readString(in); break;
+                    case "name": judge.name = JsonFields.readString(in); break;
+                    case "email": judge.email = JsonFields.readString(in); break;
+                    case "contactNumber": judge.contactNumber = JsonFields.readString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return judge;
+        }
+
+        @Override
+        public void write(JsonWriter out, Judge judge) throws IOException {
+            out.beginObject();
+            out.name("id").value(judge.id);
+            out.name("name").value(judge.name);
+            out.name("email").value(judge.email);
+            out.name("contactNumber").value(judge.contactNumber);
+            out.endObject();
+        }
+    }
 }
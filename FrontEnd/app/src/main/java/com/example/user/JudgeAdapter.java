@@ -6,29 +6,62 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.cardview.widget.CardView;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 public class JudgeAdapter extends RecyclerView.Adapter<JudgeAdapter.JudgeViewHolder> {
 
-    private List<Judge> judgeList = new ArrayList<>();
+    private static final DiffUtil.ItemCallback<Judge> DIFF_CALLBACK = new DiffUtil.ItemCallback<Judge>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Judge oldItem, @NonNull Judge newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Judge oldItem, @NonNull Judge newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getContactNumber(), newItem.getContactNumber());
+        }
+    };
+
+    // Diffs each new list against the current one off the main thread
+    private final AsyncListDiffer<Judge> differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this),
+            new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).setBackgroundThreadExecutor(AppExecutors.background()).build());
     private final OnJudgeListener onJudgeListener;
+    private Set<String> selectedIds = Collections.emptySet();
 
     // Interface for click handling
     public interface OnJudgeListener {
         void onDeleteClick(Judge judge, int position);
         void onEditClick(Judge judge); // Assuming add icon is for edit
+
+        void onSelectClick(Judge judge); // A long press, or a tap while any judge is selected
     }
 
     public JudgeAdapter(OnJudgeListener onJudgeListener) {
         this.onJudgeListener = onJudgeListener;
     }
 
-    // Method to update adapter data
+    // Method to update adapter data; null entries show as blank rows (see PagedList)
     public void setJudges(List<Judge> newJudges) {
-        this.judgeList = newJudges != null ? new ArrayList<>(newJudges) : new ArrayList<>();
-        notifyDataSetChanged();
+        differ.submitList(newJudges != null ? new ArrayList<>(newJudges) : null);
+    }
+
+    // Highlights the selected judges; an empty set leaves selection mode
+    public void setSelectedIds(Set<String> ids) {
+        selectedIds = new HashSet<>(ids);
+        notifyItemRangeChanged(0, getItemCount());
     }
 
     @NonNull
@@ -41,7 +74,24 @@ public class JudgeAdapter extends RecyclerView.Adapter<JudgeAdapter.JudgeViewHol
 
     @Override
     public void onBindViewHolder(@NonNull JudgeViewHolder holder, int position) {
-        Judge judge = judgeList.get(position);
+        Judge judge = differ.getCurrentList().get(position);
+        if (judge == null) {
+            bindPlaceholder(holder); // Its page is still loading
+            return;
+        }
+
+        // Long press starts selecting for a bulk delete; while selecting, taps toggle too
+        boolean selected = selectedIds.contains(judge.getId());
+        ((CardView) holder.itemView).setCardBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(),
+                selected ? R.color.selected_item : R.color.white));
+        holder.itemView.setOnLongClickListener(v -> {
+            selectClicked(holder);
+            return true;
+        });
+        holder.itemView.setOnClickListener(v -> {
+            if (!selectedIds.isEmpty()) selectClicked(holder);
+        });
+
         holder.nameText.setText(judge.getName());
         holder.phoneText.setText(judge.getContactNumber()); // Use contactNumber
 
@@ -51,16 +101,35 @@ public class JudgeAdapter extends RecyclerView.Adapter<JudgeAdapter.JudgeViewHol
         holder.deleteIcon.setOnClickListener(v -> {
             if (onJudgeListener != null) {
                 int currentPosition = holder.getAdapterPosition();
-                if (currentPosition != RecyclerView.NO_POSITION) {
-                    onJudgeListener.onDeleteClick(judgeList.get(currentPosition), currentPosition);
+                if (currentPosition != RecyclerView.NO_POSITION && differ.getCurrentList().get(currentPosition) != null) {
+                    onJudgeListener.onDeleteClick(differ.getCurrentList().get(currentPosition), currentPosition);
                 }
             }
         });
     }
 
+    private void selectClicked(JudgeViewHolder holder) {
+        int currentPosition = holder.getAdapterPosition();
+        if (onJudgeListener != null && currentPosition != RecyclerView.NO_POSITION
+                && differ.getCurrentList().get(currentPosition) != null) {
+            onJudgeListener.onSelectClick(differ.getCurrentList().get(currentPosition));
+        }
+    }
+
+    // A row of a page that is not loaded yet: blank, and ignores clicks until its judge arrives
+    private void bindPlaceholder(JudgeViewHolder holder) {
+        ((CardView) holder.itemView).setCardBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(),
+                R.color.white));
+        holder.itemView.setOnLongClickListener(null);
+        holder.itemView.setOnClickListener(null);
+        holder.nameText.setText("");
+        holder.phoneText.setText("");
+        holder.deleteIcon.setOnClickListener(null);
+    }
+
     @Override
     public int getItemCount() {
-        return judgeList.size();
+        return differ.getCurrentList().size();
     }
 
     public static class JudgeViewHolder extends RecyclerView.ViewHolder {
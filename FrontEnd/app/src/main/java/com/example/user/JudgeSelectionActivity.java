@@ -2,7 +2,6 @@ package com.example.user;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
@@ -14,24 +13,15 @@ import android.widget.TextView;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import java.io.IOException;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors; // For Java 8+
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Response;
 
 public class JudgeSelectionActivity extends AppCompatActivity {
     private static final String TAG = "JudgeSelectionActivity";
     private Spinner judgeSpinner;
     private Button startButton;
     private ProgressBar progressBar; // Add ProgressBar
-    private ApiClient apiClient;
-    private Gson gson = new Gson();
     private List<Judge> judgeList = new ArrayList<>();
     private String roundId, roundName;
 
@@ -40,7 +30,6 @@ public class JudgeSelectionActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_judge_selection);
 
-        apiClient = new ApiClient(this);
         TextView judgeTitle = findViewById(R.id.text_judge_title);
         judgeSpinner = findViewById(R.id.spinner_judge);
         startButton = findViewById(R.id.button_start);
@@ -75,59 +64,39 @@ public class JudgeSelectionActivity extends AppCompatActivity {
         backButton.setOnClickListener(v -> finish());
     }
 
+    // Loads the whole scoring session, not just the judges, so StartActivity opens without a round trip
     private void fetchJudges() {
         if (progressBar != null) progressBar.setVisibility(View.VISIBLE);
         startButton.setEnabled(false); // Disable start while loading
 
-        apiClient.get("judges").enqueue(new Callback() {
+        ScoringSession.forRound(this, roundId).load(new ScoringSession.Listener() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Failed to fetch judges", e);
-                runOnUiThread(() -> {
-                    if (progressBar != null) progressBar.setVisibility(View.GONE);
-                    startButton.setEnabled(true);
-                    setupSpinner(new ArrayList<>(List.of("Error loading judges")));
-                    Toast.makeText(JudgeSelectionActivity.this, "Failed to load judges", Toast.LENGTH_SHORT).show();
-                });
+            public void onReady(ScoringSession session) {
+                runOnUiThread(() -> showJudges(session.getJudges()));
             }
+        });
+    }
 
-            @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Error fetching judges: " + responseBody);
-                    runOnUiThread(() -> {
-                        if (progressBar != null) progressBar.setVisibility(View.GONE);
-                        startButton.setEnabled(true);
-                        setupSpinner(new ArrayList<>(List.of("Error loading judges")));
-                        Toast.makeText(JudgeSelectionActivity.this, "Error loading judges", Toast.LENGTH_SHORT).show();
-                    });
-                    return;
-                }
-
-                Type listType = new TypeToken<ArrayList<Judge>>(){}.getType();
-                List<Judge> fetchedJudges = gson.fromJson(responseBody, listType);
-
-                runOnUiThread(() -> {
-                    if (progressBar != null) progressBar.setVisibility(View.GONE);
-                    startButton.setEnabled(true);
-                    if (fetchedJudges != null && !fetchedJudges.isEmpty()) {
-                        judgeList = fetchedJudges;
-                        List<String> judgeNames = new ArrayList<>();
-                        judgeNames.add("Select a Judge"); // Hint
-                        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.N) {
-                            judgeNames.addAll(judgeList.stream().map(Judge::getName).collect(Collectors.toList()));
-                        } else {
-                            for (Judge judge : judgeList) { judgeNames.add(judge.getName()); }
-                        }
-                        setupSpinner(judgeNames);
-                    } else {
-                        setupSpinner(new ArrayList<>(List.of("No judges found")));
-                        Toast.makeText(JudgeSelectionActivity.this, "No judges found", Toast.LENGTH_SHORT).show();
-                    }
-                });
+    private void showJudges(List<Judge> fetchedJudges) {
+        if (progressBar != null) progressBar.setVisibility(View.GONE);
+        startButton.setEnabled(true);
+        if (fetchedJudges == null) {
+            setupSpinner(new ArrayList<>(List.of("Error loading judges")));
+            Toast.makeText(this, "Failed to load judges", Toast.LENGTH_SHORT).show();
+        } else if (!fetchedJudges.isEmpty()) {
+            judgeList = fetchedJudges;
+            List<String> judgeNames = new ArrayList<>();
+            judgeNames.add("Select a Judge"); // Hint
+            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.N) {
+                judgeNames.addAll(judgeList.stream().map(Judge::getName).collect(Collectors.toList()));
+            } else {
+                for (Judge judge : judgeList) { judgeNames.add(judge.getName()); }
             }
-        });
+            setupSpinner(judgeNames);
+        } else {
+            setupSpinner(new ArrayList<>(List.of("No judges found")));
+            Toast.makeText(this, "No judges found", Toast.LENGTH_SHORT).show();
+        }
     }
 
     // setupSpinner remains the same
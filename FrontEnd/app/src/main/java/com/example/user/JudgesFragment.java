@@ -1,5 +1,6 @@
 package com.example.user;
 
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
@@ -11,19 +12,18 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton; // Import FAB
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Response;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class JudgesFragment extends Fragment implements JudgeAdapter.OnJudgeListener {
 
@@ -34,14 +34,15 @@ public class JudgesFragment extends Fragment implements JudgeAdapter.OnJudgeList
     // private Button addButton; // Removed
     private FloatingActionButton fabAddJudge; // Added FAB
     private ApiClient apiClient;
-    private Gson gson = new Gson();
-    private List<Judge> judgeList = new ArrayList<>();
+    private PagedList<Judge> pagedJudges; // The stored judges a page at a time, without those being deleted
+    private OptimisticDeletes<Judge> deletes;
+    private final Map<String, Judge> selectedJudges = new LinkedHashMap<>();
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_judge, container, false);
 
-        apiClient = new ApiClient(requireContext());
+        apiClient = new ApiClient(requireContext(), CallScope.untilStop(getViewLifecycleOwner()));
         // searchEditText = view.findViewById(R.id.search_edit_text); // Removed
         // addButton = view.findViewById(R.id.add_button); // Removed
         fabAddJudge = view.findViewById(R.id.fab_add_judge); // Find new FAB
@@ -50,9 +51,16 @@ public class JudgesFragment extends Fragment implements JudgeAdapter.OnJudgeList
 
         adapter = new JudgeAdapter(this);
         recyclerView.setAdapter(adapter);
+        deletes = newDeletes();
+        pagedJudges = newPagedList();
+        recyclerView.addOnScrollListener(new PagedScrollListener(pagedJudges));
 
         // Listener moved to fabAddJudge
         fabAddJudge.setOnClickListener(v -> {
+            if (!selectedJudges.isEmpty()) {
+                confirmDeleteSelected();
+                return;
+            }
             Intent intent = new Intent(requireContext(), RegisterJudgeActivity.class);
             startActivity(intent);
         });
@@ -67,9 +75,12 @@ public class JudgesFragment extends Fragment implements JudgeAdapter.OnJudgeList
     }
 
     private void fetchJudges() {
-        apiClient.get("judges").enqueue(new Callback() {
+        // Show the stored judges a page at a time right away, then sync them with the server
+        pagedJudges.refresh();
+        StaleWhileRevalidate.load(apiClient, LocalStore.get(requireContext()), LocalStore.JUDGES, LocalStore.GLOBAL,
+                "judges", new ApiCallback<List<Judge>>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onFailure(@NonNull IOException e) {
                 Log.e(TAG, "Failed to fetch judges", e);
                 if (getActivity() != null) {
                     getActivity().runOnUiThread(() -> Toast.makeText(getContext(), "Failed to load judges", Toast.LENGTH_SHORT).show());
@@ -77,26 +88,21 @@ public class JudgesFragment extends Fragment implements JudgeAdapter.OnJudgeList
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response fetching judges: " + responseBody);
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> Toast.makeText(getContext(), "Failed to load judges: Server error", Toast.LENGTH_SHORT).show());
-                    }
-                    return;
+            public void onError(int code, String errorBody) {
+                Log.e(TAG, "Unsuccessful response fetching judges: " + errorBody);
+                if (getActivity() != null) {
+                    getActivity().runOnUiThread(() -> Toast.makeText(getContext(), "Failed to load judges: Server error", Toast.LENGTH_SHORT).show());
                 }
+            }
 
-                Type listType = new TypeToken<ArrayList<Judge>>(){}.getType();
-                List<Judge> fetchedJudges = gson.fromJson(responseBody, listType);
-
+            @Override
+            public void onSuccess(List<Judge> fetchedJudges) {
                 if (getActivity() != null) {
                     getActivity().runOnUiThread(() -> {
-                        if (fetchedJudges != null) {
-                            judgeList = fetchedJudges;
-                            adapter.setJudges(judgeList);
-                        } else {
-                            adapter.setJudges(new ArrayList<>());
+                        // Read the synced list again; deletes still in flight stay hidden
+                        deletes.onFreshList(fetchedJudges);
+                        pagedJudges.refresh();
+                        if (fetchedJudges == null) {
                             Toast.makeText(getContext(), "No judges found or error parsing data", Toast.LENGTH_SHORT).show();
                         }
                     });
@@ -110,11 +116,17 @@ public class JudgesFragment extends Fragment implements JudgeAdapter.OnJudgeList
         new AlertDialog.Builder(requireContext())
                 .setTitle("Delete Judge")
                 .setMessage("Are you sure you want to delete '" + judge.getName() + "'?")
-                .setPositiveButton("Yes", (dialog, which) -> deleteJudgeFromServer(judge, position))
+                .setPositiveButton("Yes", (dialog, which) -> deletes.delete(Collections.singletonList(judge)))
                 .setNegativeButton("No", null)
                 .show();
     }
 
+    @Override
+    public void onSelectClick(Judge judge) {
+        if (selectedJudges.remove(judge.getId()) == null) selectedJudges.put(judge.getId(), judge);
+        updateSelection();
+    }
+
     // Kept onEditClick as requested
     @Override
     public void onEditClick(Judge judge) {
@@ -122,32 +134,58 @@ public class JudgesFragment extends Fragment implements JudgeAdapter.OnJudgeList
         Toast.makeText(getContext(), "Edit clicked for: " + judge.getName(), Toast.LENGTH_SHORT).show();
     }
 
-    private void deleteJudgeFromServer(Judge judge, int position) {
-        apiClient.delete("judges/" + judge.getId()).enqueue(new Callback() {
+    private void updateSelection() {
+        adapter.setSelectedIds(selectedJudges.keySet());
+        // While judges are selected the FAB deletes them instead of adding one
+        fabAddJudge.setImageResource(selectedJudges.isEmpty() ? R.drawable.ic_add : android.R.drawable.ic_menu_delete);
+        fabAddJudge.setContentDescription(selectedJudges.isEmpty() ? "Add Judge" : "Delete Selected Judges");
+    }
+
+    private void confirmDeleteSelected() {
+        List<Judge> selected = new ArrayList<>(selectedJudges.values()); // Their pages may have been dropped
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Delete Judges")
+                .setMessage("Are you sure you want to delete " + selected.size() + (selected.size() == 1 ? " judge?" : " judges?"))
+                .setPositiveButton("Yes", (dialog, which) -> {
+                    selectedJudges.clear();
+                    updateSelection();
+                    deletes.delete(selected);
+                })
+                .setNegativeButton("No", null)
+                .show();
+    }
+
+    // Reads the stored judges a page at a time, leaving out the ones being deleted
+    private PagedList<Judge> newPagedList() {
+        return new PagedList<>(LocalStore.get(requireContext()).pages(LocalStore.JUDGES, LocalStore.GLOBAL, deletes::hiddenIds),
+                PagedList.PAGE_SIZE, PagedList.MAX_PAGES, PagedList.PREFETCH_DISTANCE, AppExecutors.background(),
+                ContextCompat.getMainExecutor(requireContext()), snapshot -> adapter.setJudges(snapshot));
+    }
+
+    // Shows deletes at once and puts a judge back if the server refuses to delete it
+    private OptimisticDeletes<Judge> newDeletes() {
+        Context appContext = requireContext().getApplicationContext();
+        // Applied even if the view is destroyed before the server answers, so it holds nothing of the fragment
+        Consumer<Judge> onDeleted = judge -> {
+            ScoringSession.discardAll();
+            LocalStore.get(appContext).remove(LocalStore.JUDGES, LocalStore.GLOBAL, judge.getId());
+        };
+        return new OptimisticDeletes<>(apiClient, "judges", Judge::getId, onDeleted, OptimisticDeletes.MAX_CONCURRENT,
+                ContextCompat.getMainExecutor(appContext), new OptimisticDeletes.Listener<Judge>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Failed to delete judge", e);
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> Toast.makeText(getContext(), "Deletion failed", Toast.LENGTH_SHORT).show());
-                }
+            public void onChanged() {
+                pagedJudges.refresh();
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response deleting judge: " + responseBody);
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> Toast.makeText(getContext(), "Deletion failed: Server error", Toast.LENGTH_SHORT).show());
-                    }
-                    return;
-                }
-
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        Toast.makeText(getContext(), "'" + judge.getName() + "' deleted", Toast.LENGTH_SHORT).show();
-                        fetchJudges();
-                    });
+            public void onSettled(int deleted, List<Judge> failed) {
+                if (getContext() == null) return;
+                if (failed.isEmpty()) {
+                    Toast.makeText(getContext(), deleted == 1 ? "Judge deleted" : deleted + " judges deleted", Toast.LENGTH_SHORT).show();
+                } else if (failed.size() == 1) {
+                    Toast.makeText(getContext(), "Deletion failed for '" + failed.get(0).getName() + "'", Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(getContext(), "Deletion failed for " + failed.size() + " judges", Toast.LENGTH_SHORT).show();
                 }
             }
         });
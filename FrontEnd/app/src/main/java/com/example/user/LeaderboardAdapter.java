@@ -1,22 +1,103 @@
 package com.example.user;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale; // Import Locale
+import java.util.Objects;
 
 public class LeaderboardAdapter extends RecyclerView.Adapter<LeaderboardAdapter.LeaderboardViewHolder> {
 
-    private List<LeaderboardEntry> leaderboardList = new ArrayList<>();
+    // The rank is part of a row's content: when a team moves up, every team it passed must rebind too
+    static final DiffUtil.ItemCallback<RankedEntry> DIFF_CALLBACK = new DiffUtil.ItemCallback<RankedEntry>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull RankedEntry oldItem, @NonNull RankedEntry newItem) {
+            return Objects.equals(oldItem.entry.getTeamId(), newItem.entry.getTeamId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull RankedEntry oldItem, @NonNull RankedEntry newItem) {
+            return oldItem.rank == newItem.rank
+                    && Objects.equals(oldItem.entry.getTeamName(), newItem.entry.getTeamName())
+                    && oldItem.entry.getTotalScore() == newItem.entry.getTotalScore()
+                    && oldItem.entry.getMemberCount() == newItem.entry.getMemberCount();
+        }
+    };
+
+    private final Handler mainThread = new Handler(Looper.getMainLooper());
+    private RankedLeaderboard board = new RankedLeaderboard();
+    // Scores that arrived while a snapshot was being diffed; they apply on top of that snapshot
+    private final List<PendingScore> pendingScores = new ArrayList<>();
+    private int snapshotVersion;
+    private boolean snapshotPending;
 
+    /**
+     * Replaces the whole leaderboard, e.g. with a snapshot. The new board is built and diffed
+     * against the current one off the main thread. Call from the main thread.
+     */
     public void setLeaderboard(List<LeaderboardEntry> newList) {
-        this.leaderboardList = newList != null ? new ArrayList<>(newList) : new ArrayList<>();
-        notifyDataSetChanged();
+        List<LeaderboardEntry> entries = newList != null ? new ArrayList<>(newList) : new ArrayList<>();
+        List<RankedEntry> oldRows = rank(board.toList());
+        int version = ++snapshotVersion;
+        snapshotPending = true;
+        pendingScores.clear(); // They belonged to the board this snapshot replaces
+        AppExecutors.background().execute(() -> {
+            RankedLeaderboard next = new RankedLeaderboard();
+            next.replaceAll(entries);
+            List<RankedEntry> newRows = rank(next.toList());
+            DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new RowDiff(oldRows, newRows), true);
+            mainThread.post(() -> {
+                if (version != snapshotVersion) return; // A newer snapshot replaced this one
+                board = next;
+                snapshotPending = false;
+                diff.dispatchUpdatesTo(this);
+                for (PendingScore score : pendingScores) {
+                    applyScore(score.teamId, score.teamName, score.points);
+                }
+                pendingScores.clear();
+            });
+        });
+    }
+
+    /**
+     * Adds one score in O(log n) and notifies only the rows whose rank or entry changed:
+     * the team's own row, and the rows it overtook or fell behind. Call from the main thread.
+     */
+    public void applyScore(String teamId, String teamName, int points) {
+        if (snapshotPending) {
+            pendingScores.add(new PendingScore(teamId, teamName, points));
+            return;
+        }
+        RankedLeaderboard.Move move = board.addPoints(teamId, teamName, points);
+        if (move.isInsert()) {
+            notifyItemInserted(move.to);
+            // Every team below the new one drops a rank
+            notifyItemRangeChanged(move.to + 1, board.size() - move.to - 1);
+        } else if (move.from == move.to) {
+            notifyItemChanged(move.to);
+        } else {
+            notifyItemMoved(move.from, move.to);
+            int first = Math.min(move.from, move.to);
+            notifyItemRangeChanged(first, Math.abs(move.from - move.to) + 1);
+        }
+    }
+
+    /** Ranks a list that is already in leaderboard order. */
+    static List<RankedEntry> rank(List<LeaderboardEntry> entries) {
+        List<RankedEntry> rows = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            // Rank is position + 1
+            rows.add(new RankedEntry(i + 1, entries.get(i)));
+        }
+        return rows;
     }
 
     @NonNull
@@ -29,9 +110,8 @@ public class LeaderboardAdapter extends RecyclerView.Adapter<LeaderboardAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull LeaderboardViewHolder holder, int position) {
-        LeaderboardEntry entry = leaderboardList.get(position);
-        // Rank is position + 1
-        holder.rank.setText(String.format(Locale.getDefault(), "%d", position + 1));
+        LeaderboardEntry entry = board.get(position);
+        holder.rank.setText(String.format(Locale.getDefault(), "%d", position + 1)); // Rank is position + 1
         holder.teamName.setText(entry.getTeamName());
         holder.score.setText(String.format(Locale.getDefault(), "%d", entry.getTotalScore()));
         // Optional: Set member count if TextView exists
@@ -45,7 +125,56 @@ public class LeaderboardAdapter extends RecyclerView.Adapter<LeaderboardAdapter.
 
     @Override
     public int getItemCount() {
-        return leaderboardList.size();
+        return board.size();
+    }
+
+    // An entry together with the rank it is shown at
+    static final class RankedEntry {
+        final int rank;
+        final LeaderboardEntry entry;
+
+        RankedEntry(int rank, LeaderboardEntry entry) {
+            this.rank = rank;
+            this.entry = entry;
+        }
+    }
+
+    private static final class RowDiff extends DiffUtil.Callback {
+        private final List<RankedEntry> oldRows;
+        private final List<RankedEntry> newRows;
+
+        RowDiff(List<RankedEntry> oldRows, List<RankedEntry> newRows) {
+            this.oldRows = oldRows;
+            this.newRows = newRows;
+        }
+
+        @Override
+        public int getOldListSize() { return oldRows.size(); }
+
+        @Override
+        public int getNewListSize() { return newRows.size(); }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return DIFF_CALLBACK.areItemsTheSame(oldRows.get(oldPosition), newRows.get(newPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return DIFF_CALLBACK.areContentsTheSame(oldRows.get(oldPosition), newRows.get(newPosition));
+        }
+    }
+
+    private static final class PendingScore {
+        final String teamId;
+        final String teamName;
+        final int points;
+
+        PendingScore(String teamId, String teamName, int points) {
+            this.teamId = teamId;
+            this.teamName = teamName;
+            this.points = points;
+        }
     }
 
     static class LeaderboardViewHolder extends RecyclerView.ViewHolder {
@@ -1,6 +1,10 @@
 package com.example.user;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.google.gson.annotations.SerializedName;
+import java.io.IOException;
 
 // Represents one entry in the leaderboard data received from the API
 public class LeaderboardEntry {
@@ -17,9 +21,61 @@ public class LeaderboardEntry {
     @SerializedName("memberCount")
     private int memberCount;
 
+    public LeaderboardEntry() {}
+
+    LeaderboardEntry(String teamId, String teamName, int totalScore, int memberCount) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.totalScore = totalScore;
+        this.memberCount = memberCount;
+    }
+
+    /**
+     * Entries are treated as immutable once shown, so the adapter can diff old against new.
+     * @return A copy with the points added and, if given, the team's current name.
+     */
+    LeaderboardEntry withPoints(int points, String currentTeamName) {
+        return new LeaderboardEntry(teamId, currentTeamName != null ? currentTeamName : teamName,
+                totalScore + points, memberCount);
+    }
+
     // Getters
     public String getTeamId() { return teamId; }
     public String getTeamName() { return teamName; }
     public int getTotalScore() { return totalScore; }
     public int getMemberCount() { return memberCount; }
-}
\ No newline at end of file
+
+    // --- JSON ---
+
+    /** Reflection-free adapter registered in GsonProvider. */
+    static final TypeAdapter<LeaderboardEntry> ADAPTER = new GsonAdapter().nullSafe();
+
+    private static final class GsonAdapter extends TypeAdapter<LeaderboardEntry> {
+        @Override
+        public LeaderboardEntry read(JsonReader in) throws IOException {
+            LeaderboardEntry entry = new LeaderboardEntry();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "teamId": entry.teamId = JsonFields.readString(in); break;
+                    case "teamName": entry.teamName = JsonFields.readString(in); break;
+                    case "totalScore": entry.totalScore = JsonFields.readInt(in); break;
+                    case "memberCount": entry.memberCount = JsonFields.readInt(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return entry;
+        }
+
+        @Override
+        public void write(JsonWriter out, LeaderboardEntry entry) throws IOException {
+            out.beginObject();
+            out.name("teamId").value(entry.teamId);
+            out.name("teamName").value(entry.teamName);
+            out.name("totalScore").value(entry.totalScore);
+            out.name("memberCount").value(entry.memberCount);
+            out.endObject();
+        }
+    }
+}
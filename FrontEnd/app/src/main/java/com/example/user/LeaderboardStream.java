@@ -0,0 +1,231 @@
+package com.example.user;
+
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.Call;
+import okhttp3.Response;
+
+/**
+ * Follows the server's leaderboard event stream (GET leaderboard/stream) instead of re-fetching
+ * the leaderboard: a `snapshot` event carries the whole board, each `score` event one
+ * submission's points, which the listener applies to its RankedLeaderboard.
+ *
+ * When the connection drops it reconnects with backoff, sending the id of the last event it
+ * applied so the server replays what was missed. If the server can no longer replay, it sends a
+ * snapshot instead; if the client sees a hole in the event ids, it reconnects without an id to
+ * get one. An event it cannot read is handled the same way, after the usual backoff in case the
+ * server keeps sending it. Either way the board is never left missing an update.
+ */
+public final class LeaderboardStream {
+
+    public interface Listener {
+        /**
+         * Called on the stream's thread when the whole board must be replaced: on the first
+         * connect, and after events were missed.
+         * @param entries The whole leaderboard, highest total first.
+         */
+        void onSnapshot(List<LeaderboardEntry> entries);
+
+        /** Called on the stream's thread for each new score, in order, after the snapshot it applies to. */
+        void onScore(String teamId, String teamName, int points);
+
+        /** Called on the stream's thread when the stream connects (true), or drops and retries (false). */
+        void onLiveChanged(boolean live);
+    }
+
+    static final String ENDPOINT = "leaderboard/stream";
+    private static final long BASE_BACKOFF_MS = 1_000; // Until the server sends its own retry delay
+    private static final long MAX_BACKOFF_MS = 30_000;
+    private static final long IDLE_THREAD_SECONDS = 30;
+
+    private static final Type LIST_TYPE = new TypeToken<ArrayList<LeaderboardEntry>>(){}.getType();
+
+    private final ApiClient apiClient;
+    private final Listener listener;
+    private final long maxBackoffMs;
+    private final ScheduledThreadPoolExecutor executor;
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile Call call;
+    private volatile long baseBackoffMs;
+
+    // Only touched on the executor
+    private String lastEventId;
+    private int failures;
+    private ScheduledFuture<?> reconnect;
+
+    public LeaderboardStream(ApiClient apiClient, Listener listener) {
+        this(apiClient, listener, BASE_BACKOFF_MS, MAX_BACKOFF_MS);
+    }
+
+    LeaderboardStream(ApiClient apiClient, Listener listener, long baseBackoffMs, long maxBackoffMs) {
+        this.apiClient = apiClient;
+        this.listener = listener;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        // One thread that holds the open stream; it goes away while the stream is stopped
+        this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "leaderboard-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(IDLE_THREAD_SECONDS, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** Connects, or reconnects at once if the stream was waiting to retry. */
+    public void start() {
+        int current = generation.incrementAndGet();
+        cancelCall();
+        executor.execute(() -> {
+            if (reconnect != null) reconnect.cancel(false);
+            connect(current);
+        });
+    }
+
+    /** Closes the stream; start() resumes from the last event applied. */
+    public void stop() {
+        generation.incrementAndGet();
+        cancelCall();
+    }
+
+    private void cancelCall() {
+        Call current = call;
+        if (current != null) current.cancel();
+    }
+
+    private void connect(int connectGeneration) {
+        if (connectGeneration != generation.get()) return;
+        Call current = apiClient.stream(ENDPOINT, lastEventId);
+        call = current;
+        if (connectGeneration != generation.get()) return; // stop() ran before it could see this call
+
+        boolean opened = false;
+        long delayMs;
+        try (Response response = current.execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("HTTP " + response.code());
+            }
+            opened = true;
+            failures = 0;
+            listener.onLiveChanged(true);
+            ServerSentEvents.read(response.body().source(), lastEventId, new ServerSentEvents.Handler() {
+                @Override
+                public void onEvent(String id, String type, String data) throws IOException {
+                    apply(id, type, data);
+                }
+
+                @Override
+                public void onRetry(long retryMs) {
+                    baseBackoffMs = retryMs;
+                }
+            });
+            delayMs = baseBackoffMs; // The server closed the stream, e.g. on restart
+        } catch (GapException e) {
+            lastEventId = null; // Ask for a fresh snapshot straight away
+            delayMs = 0;
+        } catch (MalformedEventException e) {
+            // Resuming after it would replay the same event; a snapshot replaces it, and what it changed
+            lastEventId = null;
+            failures++;
+            delayMs = Backoff.jittered(failures, baseBackoffMs, maxBackoffMs);
+        } catch (IOException | RuntimeException e) {
+            failures++;
+            delayMs = Backoff.jittered(failures, baseBackoffMs, maxBackoffMs);
+        }
+
+        if (connectGeneration != generation.get()) return;
+        if (opened) listener.onLiveChanged(false);
+        reconnect = executor.schedule(() -> connect(connectGeneration), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void apply(String id, String type, String data) throws IOException {
+        switch (type) {
+            case "snapshot":
+                List<LeaderboardEntry> entries = readSnapshotEvent(id, data);
+                listener.onSnapshot(entries != null ? Collections.unmodifiableList(entries)
+                        : Collections.<LeaderboardEntry>emptyList());
+                break;
+            case "score":
+                if (isGap(lastEventId, id)) {
+                    throw new GapException();
+                }
+                LeaderboardEntry points = readScoreEvent(id, data);
+                listener.onScore(points.getTeamId(), points.getTeamName(), points.getTotalScore());
+                break;
+            default:
+                break; // Unknown to this version of the app
+        }
+        lastEventId = id;
+    }
+
+    // Ids are "<server epoch>-<sequence>"; within one epoch, each event must follow the last
+    static boolean isGap(String previousId, String id) {
+        if (previousId == null || id == null) return false;
+        int previousDash = previousId.lastIndexOf('-');
+        int dash = id.lastIndexOf('-');
+        if (previousDash < 0 || dash < 0 || !previousId.substring(0, previousDash).equals(id.substring(0, dash))) {
+            return false; // A different server epoch always starts with a snapshot
+        }
+        try {
+            return Long.parseLong(id.substring(dash + 1)) != Long.parseLong(previousId.substring(previousDash + 1)) + 1;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static List<LeaderboardEntry> readSnapshotEvent(String id, String data) throws MalformedEventException {
+        try {
+            return GsonProvider.get().fromJson(data, LIST_TYPE);
+        } catch (RuntimeException e) {
+            throw new MalformedEventException(id, e);
+        }
+    }
+
+    // { "teamId": "0x1", "teamName": "Alpha", "points": 42 }, as an entry holding just those points
+    private static LeaderboardEntry readScoreEvent(String id, String data) throws MalformedEventException {
+        String teamId = null;
+        String teamName = null;
+        int points = 0;
+        try {
+            JsonReader in = new JsonReader(new StringReader(data));
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "teamId": teamId = JsonFields.readString(in); break;
+                    case "teamName": teamName = JsonFields.readString(in); break;
+                    case "points": points = JsonFields.readInt(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (IOException | RuntimeException e) {
+            throw new MalformedEventException(id, e);
+        }
+        if (teamId == null) {
+            throw new MalformedEventException(id, new IOException("Score event without a teamId: " + data));
+        }
+        return new LeaderboardEntry(teamId, teamName, points, 0);
+    }
+
+    private static final class GapException extends IOException {
+        GapException() {
+            super("Missed leaderboard events");
+        }
+    }
+
+    private static final class MalformedEventException extends IOException {
+        MalformedEventException(String id, Throwable cause) {
+            super("Unreadable leaderboard event " + id, cause);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.user;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * One answer to a list GET: either the whole list, or only what changed since the watermark
+ * the client sent with ?since=. A changes answer looks like
+ * { "watermark": "1712", "complete": false, "changed": [...], "deleted": ["0x1f"] }, where
+ * "changed" holds every entity added or edited and "deleted" the ids removed since then.
+ *
+ * A server that keeps no watermarks ignores ?since= and answers with a plain JSON array; that
+ * reads as the complete list without a watermark, so the next sync asks for everything again.
+ */
+final class ListChanges<T> {
+
+    /** True if items is the whole list rather than changes to the stored one. */
+    final boolean complete;
+    final List<T> items;
+    final List<String> deletedIds;
+    /** What to send as ?since= next time, or null if the server keeps none. */
+    final String watermark;
+
+    ListChanges(boolean complete, List<T> items, List<String> deletedIds, String watermark) {
+        this.complete = complete;
+        this.items = items;
+        this.deletedIds = deletedIds;
+        this.watermark = watermark;
+    }
+
+    static <T> ListChanges<T> read(JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        if (in.peek() == JsonToken.BEGIN_ARRAY) {
+            return new ListChanges<>(true, JsonFields.readList(in, adapter), Collections.<String>emptyList(), null);
+        }
+        boolean complete = false;
+        List<T> items = null;
+        List<String> deletedIds = null;
+        String watermark = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "complete": complete = in.nextBoolean(); break;
+                case "changed": items = JsonFields.readList(in, adapter); break;
+                case "deleted": deletedIds = JsonFields.readStringList(in); break;
+                case "watermark": watermark = JsonFields.readString(in); break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+        return new ListChanges<>(complete,
+                items != null ? items : Collections.<T>emptyList(),
+                deletedIds != null ? deletedIds : Collections.<String>emptyList(),
+                watermark);
+    }
+
+    /**
+     * @param stored The list as stored after the last sync.
+     * @return The list as the server has it now. Edited entities keep their place, new ones go last.
+     */
+    List<T> applyTo(List<T> stored, Function<T, String> idOf) {
+        if (complete) return items;
+        Set<String> deleted = new HashSet<>(deletedIds);
+        Map<String, T> merged = new LinkedHashMap<>();
+        for (T item : stored) {
+            String id = idOf.apply(item);
+            if (!deleted.contains(id)) merged.put(id, item);
+        }
+        for (T item : items) {
+            merged.put(idOf.apply(item), item); // Replacing a value keeps its position
+        }
+        return new ArrayList<>(merged.values());
+    }
+}
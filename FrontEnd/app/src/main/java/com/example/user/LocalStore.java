@@ -0,0 +1,345 @@
+package com.example.user;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import com.google.gson.TypeAdapter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * On-device SQLite copy of the last lists the server returned, so screens can render
+ * immediately and keep working when the venue Wi-Fi drops.
+ *
+ * Rows are stored as their JSON, one row per entity, keyed by kind ("teams"), scope (e.g. a
+ * round id, or "" for global lists) and entity id. Every method does disk I/O; call them from
+ * a background thread such as AppExecutors.background().
+ */
+public class LocalStore extends SQLiteOpenHelper {
+
+    public static final Kind<Team> TEAMS = new Kind<>("teams", Team.ADAPTER, Team::getId);
+    public static final Kind<Judge> JUDGES = new Kind<>("judges", Judge.ADAPTER, Judge::getId);
+    public static final Kind<User> USERS = new Kind<>("users", User.ADAPTER, User::getId);
+    public static final Kind<Round> ROUNDS = new Kind<>("rounds", Round.ADAPTER, Round::getId);
+    public static final Kind<Criteria> CRITERIA = new Kind<>("criteria", Criteria.ADAPTER, Criteria::getId);
+
+    /** Scope for lists that are not tied to a round. */
+    public static final String GLOBAL = "";
+
+    static final String DATABASE_NAME = "local_store.db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static LocalStore instance;
+
+    /** Describes one kind of stored entity: its table key, how to (de)serialize it and its id. */
+    public static final class Kind<T> {
+        final String name;
+        final TypeAdapter<T> adapter;
+        final Function<T, String> idOf;
+
+        Kind(String name, TypeAdapter<T> adapter, Function<T, String> idOf) {
+            this.name = name;
+            this.adapter = adapter;
+            this.idOf = idOf;
+        }
+    }
+
+    public static synchronized LocalStore get(Context context) {
+        if (instance == null) {
+            instance = new LocalStore(context.getApplicationContext(), DATABASE_NAME);
+        }
+        return instance;
+    }
+
+    LocalStore(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true); // Readers do not wait for a background list replace
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE entities ("
+                + "kind TEXT NOT NULL, scope TEXT NOT NULL, id TEXT NOT NULL, "
+                + "position INTEGER NOT NULL, json TEXT NOT NULL, "
+                + "PRIMARY KEY (kind, scope, id))");
+        db.execSQL("CREATE INDEX entities_by_position ON entities (kind, scope, position)");
+        db.execSQL("CREATE TABLE sync_state ("
+                + "kind TEXT NOT NULL, scope TEXT NOT NULL, synced_at INTEGER NOT NULL, watermark TEXT, "
+                + "PRIMARY KEY (kind, scope))");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Everything here can be fetched again
+        db.execSQL("DROP TABLE IF EXISTS entities");
+        db.execSQL("DROP TABLE IF EXISTS sync_state");
+        onCreate(db);
+    }
+
+    /**
+     * Reads the last stored list, in the order the server returned it.
+     * @return The list, or null if it has never been stored.
+     */
+    public <T> List<T> read(Kind<T> kind, String scope) {
+        SQLiteDatabase db = getReadableDatabase();
+        if (syncedAt(db, kind, scope) < 0) {
+            return null;
+        }
+        List<T> items = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery(
+                "SELECT json FROM entities WHERE kind = ? AND scope = ? ORDER BY position",
+                new String[]{kind.name, scope})) {
+            while (cursor.moveToNext()) {
+                T item = kind.adapter.fromJson(cursor.getString(0));
+                if (item != null) items.add(item);
+            }
+        } catch (IOException e) {
+            // A row we wrote ourselves no longer parses, e.g. after a model change; treat as never stored
+            return null;
+        }
+        return items;
+    }
+
+    /**
+     * @param excludedIds Entities to leave out, e.g. ones being deleted.
+     * @return How many entities the stored list holds, or 0 if it has never been stored.
+     */
+    public int count(Kind<?> kind, String scope, Collection<String> excludedIds) {
+        String[] args = {kind.name, scope};
+        if (excludedIds.isEmpty()) {
+            try (Cursor cursor = getReadableDatabase().rawQuery(
+                    "SELECT COUNT(*) FROM entities WHERE kind = ? AND scope = ?", args)) {
+                return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+            }
+        }
+        Set<String> excluded = asSet(excludedIds); // Not bound into the query; see pageRows
+        int count = 0;
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT id FROM entities WHERE kind = ? AND scope = ?", args)) {
+            while (cursor.moveToNext()) {
+                if (!excluded.contains(cursor.getString(0))) count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads one page of the stored list, in the order the server returned it. SQLite still
+     * steps over every row before the offset in the position index, so a page costs more the
+     * deeper it is; PagedList jumps straight to the pages a fling lands on, so there is no
+     * previous page to continue from.
+     * @param excludedIds Entities to leave out; pass the same set to count() for matching offsets.
+     * @return Up to limit entities; fewer at the end of the list.
+     */
+    public <T> List<T> readPage(Kind<T> kind, String scope, int offset, int limit, Collection<String> excludedIds) {
+        SQLiteDatabase db = getReadableDatabase();
+        Set<String> excluded = asSet(excludedIds);
+        int start = offset;
+        int rows = limit;
+        if (!excluded.isEmpty()) {
+            int[] range = pageRows(db, kind, scope, offset, limit, excluded);
+            start = range[0];
+            rows = range[1];
+        }
+        List<T> items = new ArrayList<>(limit);
+        try (Cursor cursor = db.rawQuery(
+                "SELECT id, json FROM entities WHERE kind = ? AND scope = ? ORDER BY position LIMIT ? OFFSET ?",
+                new String[]{kind.name, scope, String.valueOf(rows), String.valueOf(start)})) {
+            while (cursor.moveToNext()) {
+                if (excluded.contains(cursor.getString(0))) continue;
+                T item = kind.adapter.fromJson(cursor.getString(1));
+                if (item != null) items.add(item);
+            }
+        } catch (IOException e) {
+            // A row we wrote ourselves no longer parses; the next sync replaces it
+            return new ArrayList<>();
+        }
+        return items;
+    }
+
+    /**
+     * @param excludedIds Asked on every read, e.g. OptimisticDeletes::hiddenIds.
+     * @return A PagedList source over the stored list.
+     */
+    public <T> PagedList.Source<T> pages(Kind<T> kind, String scope, Supplier<Set<String>> excludedIds) {
+        return new PagedList.Source<T>() {
+            @Override
+            public int count() {
+                return LocalStore.this.count(kind, scope, excludedIds.get());
+            }
+
+            @Override
+            public List<T> load(int offset, int limit) {
+                return readPage(kind, scope, offset, limit, excludedIds.get());
+            }
+        };
+    }
+
+    // Excluded ids are skipped here rather than bound into the query: a bulk delete can hide
+    // more of them than the 999 variables the SQLite on older devices allows in one statement.
+    // Returns the first stored row of the page and how many stored rows it spans.
+    private static int[] pageRows(SQLiteDatabase db, Kind<?> kind, String scope, int offset, int limit,
+                                  Set<String> excluded) {
+        int row = 0;
+        int kept = 0;
+        int start = -1;
+        try (Cursor cursor = db.rawQuery("SELECT id FROM entities WHERE kind = ? AND scope = ? ORDER BY position",
+                new String[]{kind.name, scope})) {
+            while (kept < offset + limit && cursor.moveToNext()) {
+                if (!excluded.contains(cursor.getString(0))) {
+                    if (kept == offset) start = row;
+                    kept++;
+                }
+                row++;
+            }
+        }
+        return start < 0 ? new int[]{row, 0} : new int[]{start, row - start};
+    }
+
+    private static Set<String> asSet(Collection<String> ids) {
+        return ids instanceof Set ? (Set<String>) ids : new HashSet<>(ids);
+    }
+
+    /**
+     * Replaces the stored list with a fresh one from the server, in a single transaction.
+     */
+    public <T> void replace(Kind<T> kind, String scope, List<T> items) {
+        replace(kind, scope, items, null);
+    }
+
+    /**
+     * Replaces the stored list with the whole list from the server, in a single transaction.
+     * @param watermark The server's watermark for this list, or null if it sent none.
+     */
+    public <T> void replace(Kind<T> kind, String scope, List<T> items, String watermark) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete("entities", "kind = ? AND scope = ?", new String[]{kind.name, scope});
+            SQLiteStatement insert = db.compileStatement(
+                    "INSERT OR REPLACE INTO entities (kind, scope, id, position, json) VALUES (?, ?, ?, ?, ?)");
+            try {
+                for (int position = 0; position < items.size(); position++) {
+                    T item = items.get(position);
+                    if (item == null) continue;
+                    String id = kind.idOf.apply(item);
+                    insert.bindString(1, kind.name);
+                    insert.bindString(2, scope);
+                    insert.bindString(3, id != null ? id : "#" + position);
+                    insert.bindLong(4, position);
+                    insert.bindString(5, kind.adapter.toJson(item));
+                    insert.executeInsert();
+                }
+            } finally {
+                insert.close();
+            }
+            markSynced(db, kind, scope, watermark);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Applies what changed on the server since the stored watermark, in a single transaction:
+     * changed entities are rewritten in place, new ones are added at the end and deleted ones
+     * are dropped. Only the changed rows are written, however long the list is.
+     * @param watermark The server's watermark after these changes.
+     */
+    public <T> void applyChanges(Kind<T> kind, String scope, List<T> changed, List<String> deletedIds,
+                                 String watermark) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (String id : deletedIds) {
+                db.delete("entities", "kind = ? AND scope = ? AND id = ?", new String[]{kind.name, scope, id});
+            }
+            long nextPosition;
+            try (Cursor cursor = db.rawQuery("SELECT MAX(position) FROM entities WHERE kind = ? AND scope = ?",
+                    new String[]{kind.name, scope})) {
+                nextPosition = cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) + 1 : 0;
+            }
+            SQLiteStatement update = db.compileStatement(
+                    "UPDATE entities SET json = ? WHERE kind = ? AND scope = ? AND id = ?");
+            SQLiteStatement insert = db.compileStatement(
+                    "INSERT INTO entities (kind, scope, id, position, json) VALUES (?, ?, ?, ?, ?)");
+            try {
+                for (T item : changed) {
+                    if (item == null) continue;
+                    String id = kind.idOf.apply(item);
+                    if (id == null) continue; // Cannot be matched by a later change
+                    String json = kind.adapter.toJson(item);
+                    update.bindString(1, json);
+                    update.bindString(2, kind.name);
+                    update.bindString(3, scope);
+                    update.bindString(4, id);
+                    if (update.executeUpdateDelete() > 0) continue;
+                    insert.bindString(1, kind.name);
+                    insert.bindString(2, scope);
+                    insert.bindString(3, id);
+                    insert.bindLong(4, nextPosition++);
+                    insert.bindString(5, json);
+                    insert.executeInsert();
+                }
+            } finally {
+                update.close();
+                insert.close();
+            }
+            markSynced(db, kind, scope, watermark);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Drops one entity from the stored list after the server confirmed deleting it, so the
+     * stored copy shown before the next refresh does not bring it back.
+     */
+    public void remove(Kind<?> kind, String scope, String id) {
+        getWritableDatabase().delete("entities", "kind = ? AND scope = ? AND id = ?",
+                new String[]{kind.name, scope, id});
+    }
+
+    /**
+     * @return The server's watermark from the last sync, to send as ?since=, or null if there is none.
+     */
+    public String watermark(Kind<?> kind, String scope) {
+        try (Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT watermark FROM sync_state WHERE kind = ? AND scope = ?", new String[]{kind.name, scope})) {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getString(0) : null;
+        }
+    }
+
+    /**
+     * @return When the list was last replaced from the server (epoch millis), or -1 if never.
+     */
+    public long syncedAt(Kind<?> kind, String scope) {
+        return syncedAt(getReadableDatabase(), kind, scope);
+    }
+
+    private static long syncedAt(SQLiteDatabase db, Kind<?> kind, String scope) {
+        try (Cursor cursor = db.rawQuery("SELECT synced_at FROM sync_state WHERE kind = ? AND scope = ?",
+                new String[]{kind.name, scope})) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        }
+    }
+
+    private static void markSynced(SQLiteDatabase db, Kind<?> kind, String scope, String watermark) {
+        ContentValues values = new ContentValues();
+        values.put("kind", kind.name);
+        values.put("scope", scope);
+        values.put("synced_at", System.currentTimeMillis());
+        values.put("watermark", watermark);
+        db.insertWithOnConflict("sync_state", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+}
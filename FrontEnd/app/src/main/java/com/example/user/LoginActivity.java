@@ -24,7 +24,7 @@ public class LoginActivity extends AppCompatActivity {
 
     private ApiClient apiClient;
     private SessionManager sessionManager;
-    private Gson gson = new Gson();
+    private Gson gson = GsonProvider.get();
 
     private TextInputEditText emailEditText;
     private TextInputEditText passwordEditText;
@@ -42,7 +42,7 @@ public class LoginActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_login); // Make sure your layout file is named this
 
-        apiClient = new ApiClient(this);
+        apiClient = new ApiClient(this, CallScope.untilDestroy(this));
         sessionManager = new SessionManager(this);
 
         emailEditText = findViewById(R.id.emailEditText);
@@ -102,6 +102,8 @@ public class LoginActivity extends AppCompatActivity {
 
                 // Save the token using our SessionManager
                 sessionManager.saveAuthToken(loginResponse.token);
+                // Scores queued while the previous token was refused can go out now
+                ScoreOutbox.get(LoginActivity.this).resume();
 
                 runOnUiThread(() -> {
                     progressBar.setVisibility(View.GONE);
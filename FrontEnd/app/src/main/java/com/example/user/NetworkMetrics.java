@@ -0,0 +1,330 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import com.google.gson.stream.JsonWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Times every call on the shared client, per endpoint and per phase, so venue networks can be
+ * compared and regressions caught: where a slow request spent its time (waiting for a dispatcher
+ * slot, DNS, connecting, TLS, sending, waiting for the first byte, reading the body, parsing the
+ * JSON), how large its payloads were and how often it failed.
+ *
+ * Endpoints are grouped with their ids left out, e.g. "rounds/0x1a/teams" is counted as
+ * "rounds/{id}/teams". DNS, connect and TLS are only recorded for calls that opened a new
+ * connection. QUEUE is how long an enqueued call waited in RequestScheduler for a dispatcher
+ * slot; calls that were executed directly have none. JSON parsing streams off the socket, so PARSE includes reading
+ * the body; BODY is the time the socket took to deliver it. Retries made by RetryPolicy are
+ * counted as well. Read it through get() or endpoints(), or write everything to a file with dump().
+ */
+public final class NetworkMetrics implements EventListener.Factory {
+
+    public enum Phase { QUEUE, DNS, CONNECT, TLS, REQUEST, TTFB, BODY, PARSE, TOTAL }
+
+    /** What has been recorded for one endpoint. */
+    public static final class Endpoint {
+        private final Map<Phase, Histogram> latencies = new EnumMap<>(Phase.class);
+        private final Histogram requestBytes = new Histogram(Histogram.SIZE_BOUNDS_BYTES);
+        private final Histogram responseBytes = new Histogram(Histogram.SIZE_BOUNDS_BYTES);
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+
+        Endpoint() {
+            for (Phase phase : Phase.values()) latencies.put(phase, new Histogram(Histogram.LATENCY_BOUNDS_MS));
+        }
+
+        /** @return How long the phase took, in milliseconds. */
+        public Histogram getLatency(Phase phase) { return latencies.get(phase); }
+
+        /** @return Request body sizes, in bytes, for calls that sent one. */
+        public Histogram getRequestBytes() { return requestBytes; }
+
+        /** @return Response body sizes as read off the socket, in bytes. */
+        public Histogram getResponseBytes() { return responseBytes; }
+
+        public long getCallCount() { return calls.get(); }
+
+        /** @return Calls that failed with an I/O error or were answered with a 4xx or 5xx. */
+        public long getErrorCount() { return errors.get(); }
+
+        /** @return Attempts repeated by RetryPolicy; a call retried twice counts twice. */
+        public long getRetryCount() { return retries.get(); }
+
+        /** @return getErrorCount() / getCallCount(), or 0 if there were no calls. */
+        public double getErrorRate() {
+            long n = calls.get();
+            return n > 0 ? (double) errors.get() / n : 0;
+        }
+    }
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * @param endpoint e.g. "teams" or "rounds/0x1/teams"; ids are left out as when recording.
+     * @return What has been recorded for the endpoint, or null if nothing has.
+     */
+    public Endpoint get(String endpoint) {
+        return endpoints.get(keyOf(endpoint));
+    }
+
+    /** @return Every endpoint recorded so far, by name. */
+    public Map<String, Endpoint> endpoints() {
+        return Collections.unmodifiableMap(new TreeMap<>(endpoints));
+    }
+
+    /**
+     * Records how long parsing a response took, for the phases the socket cannot see.
+     * @param endpoint The endpoint the response came from, as passed to ApiClient.
+     */
+    public void recordParse(String endpoint, long nanos) {
+        if (endpoint == null) return;
+        endpoint(endpoint).getLatency(Phase.PARSE).record(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    /**
+     * Records how long a call waited for a dispatcher slot before it was sent.
+     * @param endpoint The endpoint it was sent to, as passed to ApiClient.
+     */
+    public void recordQueued(String endpoint, long nanos) {
+        if (endpoint == null) return;
+        endpoint(endpoint).getLatency(Phase.QUEUE).record(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    /**
+     * Records that a request is about to be sent again.
+     * @param endpoint The endpoint it was sent to, as passed to ApiClient.
+     */
+    public void recordRetry(String endpoint) {
+        endpoint(endpoint).retries.incrementAndGet();
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    /**
+     * Writes everything recorded so far to a file as JSON, e.g. to pull off a device after an event.
+     * Overwrites the file if it exists.
+     */
+    public void dump(File file) throws IOException {
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+             JsonWriter writer = new JsonWriter(out)) {
+            writer.setIndent("  ");
+            writer.beginObject();
+            for (Map.Entry<String, Endpoint> entry : endpoints().entrySet()) {
+                Endpoint endpoint = entry.getValue();
+                writer.name(entry.getKey()).beginObject();
+                writer.name("calls").value(endpoint.getCallCount());
+                writer.name("errors").value(endpoint.getErrorCount());
+                writer.name("errorRate").value(endpoint.getErrorRate());
+                writer.name("retries").value(endpoint.getRetryCount());
+                writer.name("latencyMs").beginObject();
+                for (Phase phase : Phase.values()) {
+                    writer.name(phase.name().toLowerCase(Locale.ROOT));
+                    write(writer, endpoint.getLatency(phase));
+                }
+                writer.endObject();
+                writer.name("requestBytes");
+                write(writer, endpoint.getRequestBytes());
+                writer.name("responseBytes");
+                write(writer, endpoint.getResponseBytes());
+                writer.endObject();
+            }
+            writer.endObject();
+        }
+    }
+
+    private static void write(JsonWriter writer, Histogram histogram) throws IOException {
+        writer.beginObject();
+        writer.name("count").value(histogram.getCount());
+        writer.name("mean").value(histogram.getMean());
+        writer.name("p50").value(histogram.getPercentile(0.5));
+        writer.name("p95").value(histogram.getPercentile(0.95));
+        writer.name("p99").value(histogram.getPercentile(0.99));
+        writer.name("max").value(histogram.getMax());
+        writer.name("bounds").beginArray();
+        for (long bound : histogram.getBounds()) writer.value(bound);
+        writer.endArray();
+        writer.name("buckets").beginArray();
+        for (long count : histogram.getBucketCounts()) writer.value(count);
+        writer.endArray();
+        writer.endObject();
+    }
+
+    @NonNull
+    @Override
+    public EventListener create(@NonNull Call call) {
+        return new CallTimer(this, call.request());
+    }
+
+    private Endpoint endpoint(String endpoint) {
+        return endpoints.computeIfAbsent(keyOf(endpoint), key -> new Endpoint());
+    }
+
+    // "rounds/0x1a/teams?since=4" -> "rounds/{id}/teams"
+    static String keyOf(String endpoint) {
+        int query = endpoint.indexOf('?');
+        String path = query >= 0 ? endpoint.substring(0, query) : endpoint;
+        StringBuilder key = new StringBuilder();
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) continue;
+            if (key.length() > 0) key.append('/');
+            key.append(isId(segment) ? "{id}" : segment);
+        }
+        return key.toString();
+    }
+
+    private static boolean isId(String segment) {
+        if (segment.startsWith("0x")) return true; // Dgraph uids
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    // One per call; OkHttp reports a call's events one after another, so no locking is needed
+    private static final class CallTimer extends EventListener {
+        private final NetworkMetrics metrics;
+        private final String endpoint;
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        private long secureConnectStart;
+        private long requestStart;
+        private long requestEnd;
+        private long responseBodyStart;
+        private boolean failed;
+
+        CallTimer(NetworkMetrics metrics, Request request) {
+            this.metrics = metrics;
+            String tag = request.tag(String.class); // Set by ApiClient
+            this.endpoint = tag != null ? tag : request.url().encodedPath();
+        }
+
+        private Histogram latency(Phase phase) {
+            return metrics.endpoint(endpoint).getLatency(phase);
+        }
+
+        private static long millisSince(long start) {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+
+        @Override
+        public void callStart(@NonNull Call call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> addresses) {
+            latency(Phase.DNS).record(millisSince(dnsStart));
+        }
+
+        @Override
+        public void connectStart(@NonNull Call call, @NonNull InetSocketAddress address, @NonNull Proxy proxy) {
+            connectStart = System.nanoTime();
+            secureConnectStart = 0;
+        }
+
+        @Override
+        public void secureConnectStart(@NonNull Call call) {
+            secureConnectStart = System.nanoTime();
+            latency(Phase.CONNECT).record(TimeUnit.NANOSECONDS.toMillis(secureConnectStart - connectStart));
+        }
+
+        @Override
+        public void secureConnectEnd(@NonNull Call call, Handshake handshake) {
+            latency(Phase.TLS).record(millisSince(secureConnectStart));
+        }
+
+        @Override
+        public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress address, @NonNull Proxy proxy,
+                               Protocol protocol) {
+            if (secureConnectStart == 0) latency(Phase.CONNECT).record(millisSince(connectStart));
+        }
+
+        @Override
+        public void requestHeadersStart(@NonNull Call call) {
+            requestStart = System.nanoTime();
+        }
+
+        @Override
+        public void requestHeadersEnd(@NonNull Call call, @NonNull Request request) {
+            requestEnd = System.nanoTime();
+        }
+
+        @Override
+        public void requestBodyEnd(@NonNull Call call, long byteCount) {
+            requestEnd = System.nanoTime();
+            metrics.endpoint(endpoint).getRequestBytes().record(byteCount);
+        }
+
+        @Override
+        public void responseHeadersStart(@NonNull Call call) {
+            long now = System.nanoTime();
+            latency(Phase.REQUEST).record(TimeUnit.NANOSECONDS.toMillis(requestEnd - requestStart));
+            latency(Phase.TTFB).record(TimeUnit.NANOSECONDS.toMillis(now - requestEnd));
+        }
+
+        @Override
+        public void responseHeadersEnd(@NonNull Call call, @NonNull Response response) {
+            failed = response.code() >= 400; // The last response of a redirect or retry counts
+        }
+
+        @Override
+        public void responseBodyStart(@NonNull Call call) {
+            responseBodyStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseBodyEnd(@NonNull Call call, long byteCount) {
+            latency(Phase.BODY).record(millisSince(responseBodyStart));
+            metrics.endpoint(endpoint).getResponseBytes().record(byteCount);
+        }
+
+        @Override
+        public void callEnd(@NonNull Call call) {
+            finish(failed);
+        }
+
+        @Override
+        public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+            finish(true);
+        }
+
+        private void finish(boolean error) {
+            Endpoint recorded = metrics.endpoint(endpoint);
+            recorded.getLatency(Phase.TOTAL).record(millisSince(callStart));
+            recorded.calls.incrementAndGet();
+            if (error) recorded.errors.incrementAndGet();
+        }
+    }
+}
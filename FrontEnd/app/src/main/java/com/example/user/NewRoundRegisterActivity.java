@@ -2,28 +2,22 @@ package com.example.user;
 
 import android.os.Bundle;
 import android.util.Log;
+import android.view.View;
+import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
+import androidx.activity.OnBackPressedCallback;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors; // For Java 8+
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Response;
 
 public class NewRoundRegisterActivity extends AppCompatActivity implements TeamRegisterAdapter.OnTeamRegisterActionListener {
 
@@ -37,15 +31,28 @@ public class NewRoundRegisterActivity extends AppCompatActivity implements TeamR
     private List<String> registeredTeamIds = new ArrayList<>(); // IDs passed from previous activity
     private String roundId;
     private String roundName = "UNKNOWN ROUND";
+    private CallScope scope;
     private ApiClient apiClient;
-    private Gson gson = new Gson();
+    private Button saveButton;
+    private final RoundTeamChanges pendingChanges = new RoundTeamChanges();
+    private RoundTeamChanges savingChanges; // Sent, waiting for the server's answer
+    private Runnable afterSave;
+    // Enabled while anything is staged or saving. A callback rather than an onBackPressed
+    // override, which the system back gesture no longer calls with predictive back
+    private final OnBackPressedCallback saveBeforeBack = new OnBackPressedCallback(false) {
+        @Override
+        public void handleOnBackPressed() {
+            runAfterSaving(NewRoundRegisterActivity.this::finish);
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_new_round_register); // Make sure layout name is correct
 
-        apiClient = new ApiClient(this);
+        scope = CallScope.untilDestroy(this);
+        apiClient = new ApiClient(this, scope);
 
         // Get data from Intent
         roundId = getIntent().getStringExtra("ROUND_ID");
@@ -59,6 +66,7 @@ public class NewRoundRegisterActivity extends AppCompatActivity implements TeamR
             return;
         }
 
+        getOnBackPressedDispatcher().addCallback(this, saveBeforeBack);
         setupToolbar();
         setupViews();
         setupRecyclerView();
@@ -70,13 +78,15 @@ public class NewRoundRegisterActivity extends AppCompatActivity implements TeamR
         setSupportActionBar(toolbar);
         if (getSupportActionBar() != null) getSupportActionBar().setDisplayShowTitleEnabled(false);
         ImageView backArrow = findViewById(R.id.back_arrow);
-        if (backArrow != null) backArrow.setOnClickListener(v -> finish());
+        if (backArrow != null) backArrow.setOnClickListener(v -> runAfterSaving(this::finish));
     }
 
     private void setupViews() {
         roundTitle = findViewById(R.id.text_round_name);
         roundTitle.setText(("Add Teams to " + roundName).toUpperCase());
         searchBar = findViewById(R.id.edit_text_search); // For future filtering
+        saveButton = findViewById(R.id.button_save_changes);
+        saveButton.setOnClickListener(v -> saveChanges());
     }
 
     private void setupRecyclerView() {
@@ -88,34 +98,27 @@ public class NewRoundRegisterActivity extends AppCompatActivity implements TeamR
     }
 
     private void fetchAllTeams() {
-        // Show loading
-        apiClient.get("teams").enqueue(new Callback() {
+        // Shows the teams the teams tab already loaded at once, then whatever the refresh brings
+        Repositories.teams().observe(this, "teams", teams -> runOnUiThread(() -> {
+            allTeamsList = teams;
+            displayAvailableTeams(); // Filter and display
+        }));
+        Repositories.teams().refresh(apiClient, "teams", new ApiCallback<List<Team>>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onFailure(@NonNull IOException e) {
                 Log.e(TAG, "Failed to fetch all teams", e);
                 runOnUiThread(() -> Toast.makeText(NewRoundRegisterActivity.this, "Failed to load teams", Toast.LENGTH_SHORT).show());
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response fetching all teams: " + responseBody);
-                    runOnUiThread(() -> Toast.makeText(NewRoundRegisterActivity.this, "Error loading teams", Toast.LENGTH_SHORT).show());
-                    return;
-                }
+            public void onError(int code, String errorBody) {
+                Log.e(TAG, "Unsuccessful response fetching all teams: " + errorBody);
+                runOnUiThread(() -> Toast.makeText(NewRoundRegisterActivity.this, "Error loading teams", Toast.LENGTH_SHORT).show());
+            }
 
-                Type listType = new TypeToken<ArrayList<Team>>(){}.getType();
-                List<Team> fetchedTeams = gson.fromJson(responseBody, listType);
-
-                runOnUiThread(() -> {
-                    if (fetchedTeams != null) {
-                        allTeamsList = fetchedTeams;
-                        displayAvailableTeams(); // Filter and display
-                    } else {
-                        adapter.setTeams(new ArrayList<>());
-                    }
-                });
+            @Override
+            public void onSuccess(List<Team> fetchedTeams) {
+                // Shown by the observer
             }
         });
     }
@@ -124,13 +127,13 @@ public class NewRoundRegisterActivity extends AppCompatActivity implements TeamR
     private void displayAvailableTeams() {
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.N) {
             List<Team> availableTeams = allTeamsList.stream()
-                    .filter(team -> !registeredTeamIds.contains(team.getId()))
+                    .filter(team -> !isRegistered(team.getId()))
                     .collect(Collectors.toList());
             adapter.setTeams(availableTeams);
         } else {
             List<Team> availableTeams = new ArrayList<>();
             for (Team team : allTeamsList) {
-                if (!registeredTeamIds.contains(team.getId())) {
+                if (!isRegistered(team.getId())) {
                     availableTeams.add(team);
                 }
             }
@@ -141,44 +144,105 @@ public class NewRoundRegisterActivity extends AppCompatActivity implements TeamR
     // This is called when the add icon is clicked in the adapter
     @Override
     public void onTeamActionClick(Team team, int position) {
-        addTeamToRound(team, position);
+        // Only staged here; every tap goes to the server in one PUT when the changes are saved
+        pendingChanges.add(team);
+        displayAvailableTeams();
+        updateSaveButton();
     }
 
-    private void addTeamToRound(Team team, int position) {
-        // Show loading indicator
-        JSONObject jsonBody = new JSONObject();
-        try {
-            // Use the PUT endpoint with the addTeamIds field
-            JSONArray addIds = new JSONArray();
-            addIds.put(team.getId());
-            jsonBody.put("addTeamIds", addIds);
-        } catch (JSONException e) {
-            Log.e(TAG, "Error creating JSON for adding team", e);
+    private boolean isRegistered(String teamId) {
+        boolean registered = registeredTeamIds.contains(teamId);
+        if (savingChanges != null) registered = savingChanges.isRegistered(teamId, registered);
+        return pendingChanges.isRegistered(teamId, registered);
+    }
+
+    private void updateSaveButton() {
+        saveBeforeBack.setEnabled(savingChanges != null || !pendingChanges.isEmpty());
+        if (savingChanges != null) {
+            saveButton.setVisibility(View.VISIBLE);
+            saveButton.setEnabled(false);
+            saveButton.setText("Saving...");
+        } else if (pendingChanges.isEmpty()) {
+            saveButton.setVisibility(View.GONE);
+        } else {
+            int count = pendingChanges.size();
+            saveButton.setVisibility(View.VISIBLE);
+            saveButton.setEnabled(true);
+            saveButton.setText("Add " + count + (count == 1 ? " team" : " teams"));
+        }
+    }
+
+    // Leaves once every staged team is saved, so the previous screen reloads the round's real list
+    private void runAfterSaving(Runnable next) {
+        if (pendingChanges.isEmpty() && savingChanges == null) {
+            next.run();
             return;
         }
+        afterSave = next;
+        saveChanges();
+    }
+
+    private void saveChanges() {
+        if (savingChanges != null || pendingChanges.isEmpty()) return; // The PUT in flight saves again when it is done
+        RoundTeamChanges sending = pendingChanges.take();
+        savingChanges = sending;
+        updateSaveButton();
 
-        apiClient.put("rounds/" + roundId, jsonBody.toString()).enqueue(new Callback() {
+        String round = roundId;
+        // Judges must see the new teams, even if this screen is destroyed before the server answers
+        ApiCallback<Round> callback = scope.bind(updated -> ScoringSession.discard(round), new ApiCallback<Round>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Failed to add team", e);
-                runOnUiThread(() -> Toast.makeText(NewRoundRegisterActivity.this, "Failed to add team", Toast.LENGTH_SHORT).show());
+            public void onFailure(@NonNull IOException e) {
+                Log.e(TAG, "Failed to add teams", e);
+                runOnUiThread(() -> saveFailed(sending, "Failed to add teams"));
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response adding team: " + responseBody);
-                    runOnUiThread(() -> Toast.makeText(NewRoundRegisterActivity.this, "Error adding team", Toast.LENGTH_SHORT).show());
-                    return;
-                }
-                runOnUiThread(() -> {
-                    Toast.makeText(NewRoundRegisterActivity.this, "'" + team.getName() + "' added", Toast.LENGTH_SHORT).show();
-                    // Update the list of registered IDs and refresh the display
-                    registeredTeamIds.add(team.getId());
-                    displayAvailableTeams(); // Re-filter and update adapter
-                });
+            public void onError(int code, String errorBody) {
+                Log.e(TAG, "Unsuccessful response adding teams: " + errorBody);
+                runOnUiThread(() -> saveFailed(sending, "Error adding teams"));
+            }
+
+            @Override
+            public void onSuccess(Round round) {
+                runOnUiThread(() -> saved(sending, round));
             }
         });
+        apiClient.unscoped().put("rounds/" + roundId, sending.toJson()).enqueue(new JsonCallback<>(Round.class, callback));
+    }
+
+    private void saved(RoundTeamChanges sent, Round round) {
+        savingChanges = null;
+        // The round in the response is the server's list; reconcile with it once instead of refetching
+        List<String> ids = new ArrayList<>();
+        if (round != null && round.getTeams() != null) {
+            for (Team team : round.getTeams()) ids.add(team.getId());
+        } else {
+            for (Team team : allTeamsList) {
+                if (sent.isRegistered(team.getId(), registeredTeamIds.contains(team.getId()))) ids.add(team.getId());
+            }
+        }
+        registeredTeamIds = ids;
+        Toast.makeText(this, sent.size() + (sent.size() == 1 ? " team" : " teams") + " added", Toast.LENGTH_SHORT).show();
+        displayAvailableTeams();
+        updateSaveButton();
+
+        if (afterSave == null) return;
+        if (!pendingChanges.isEmpty()) {
+            saveChanges(); // Tapped while the last PUT was in flight
+        } else {
+            Runnable next = afterSave;
+            afterSave = null;
+            next.run();
+        }
+    }
+
+    private void saveFailed(RoundTeamChanges unsaved, String message) {
+        savingChanges = null;
+        afterSave = null; // Stay, so nothing staged is lost
+        pendingChanges.restore(unsaved);
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+        displayAvailableTeams();
+        updateSaveButton();
     }
 }
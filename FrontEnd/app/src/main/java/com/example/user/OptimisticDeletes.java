@@ -0,0 +1,181 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+/**
+ * Deletes on a list screen, applied before the server confirms them. A deleted item is hidden
+ * at once; if its DELETE fails it comes back where it was. The list is never reloaded from the
+ * server because of a delete: the screen leaves hiddenIds() out of what it shows (see
+ * LocalStore.readPage), and the next list it syncs anyway (e.g. in onResume) is reconciled with
+ * the deletes still in flight or just confirmed.
+ *
+ * Deleting several items sends their DELETEs concurrently, at most maxConcurrent at a time.
+ * They are sent outside the screen's CallScope: once the user has confirmed them they all go
+ * out, and each one the server confirms is applied app-wide, even if the screen is destroyed
+ * first. Only the listener is tied to the screen, and let go with it.
+ * Confined to the main thread: call it there, and give it an executor that runs on it.
+ */
+public final class OptimisticDeletes<T> {
+
+    public interface Listener<T> {
+        /** hiddenIds() changed; show the list again without them. Called on the main thread. */
+        void onChanged();
+
+        /** Every delete asked for has been answered. Called on the main thread. */
+        void onSettled(int deleted, List<T> failed);
+    }
+
+    /** How many DELETEs the list screens send at once. */
+    public static final int MAX_CONCURRENT = 4;
+
+    private final ApiClient apiClient;
+    private final String endpoint;
+    private final Function<T, String> idOf;
+    private final Consumer<T> onDeleted;
+    private final int maxConcurrent;
+    private final Executor mainThread;
+    private final Supplier<Listener<T>> listener;
+
+    private volatile Set<String> hidden = Collections.emptySet();
+    private final Map<String, T> deleting = new LinkedHashMap<>(); // Queued or in flight
+    private final Set<String> deleted = new HashSet<>(); // Confirmed, until a server list agrees
+    private final Queue<T> queue = new ArrayDeque<>();
+    private int inFlight;
+    private int settledDeletes;
+    private final List<T> failed = new ArrayList<>();
+
+    /**
+     * @param apiClient The screen's client; the listener is let go when its CallScope is destroyed.
+     * @param endpoint The collection endpoint; an item is deleted with DELETE endpoint/{id}.
+     * @param onDeleted The server confirmed a delete; update anything else that holds the item.
+     *                  Called on a network thread, even after the screen is gone, so it must not
+     *                  hold on to the screen.
+     * @param maxConcurrent How many DELETEs may be in flight at once.
+     * @param mainThread Runs the listener's main-thread calls and every state change.
+     */
+    public OptimisticDeletes(ApiClient apiClient, String endpoint, Function<T, String> idOf, Consumer<T> onDeleted,
+                             int maxConcurrent, Executor mainThread, Listener<T> listener) {
+        this.apiClient = apiClient.unscoped();
+        this.endpoint = endpoint;
+        this.idOf = idOf;
+        this.onDeleted = onDeleted;
+        this.maxConcurrent = maxConcurrent;
+        this.mainThread = mainThread;
+        CallScope scope = apiClient.scope();
+        this.listener = scope != null ? scope.hold(listener) : () -> listener;
+    }
+
+    /**
+     * Stops hiding confirmed deletes that the server's own fresh list no longer has.
+     */
+    public void onFreshList(List<T> items) {
+        if (items == null || deleted.isEmpty()) return;
+        Set<String> listed = new HashSet<>();
+        for (T item : items) listed.add(idOf.apply(item));
+        deleted.retainAll(listed);
+        updateHidden();
+    }
+
+    /**
+     * @return The ids of the items being or already deleted, to leave out of the shown list.
+     * An unmodifiable snapshot, safe to read from any thread.
+     */
+    public Set<String> hiddenIds() {
+        return hidden;
+    }
+
+    /** @return True while any DELETE is queued or in flight. */
+    public boolean isDeleting() {
+        return !deleting.isEmpty();
+    }
+
+    /** Hides the items now and sends their DELETEs. */
+    public void delete(Collection<T> items) {
+        for (T item : items) {
+            String id = idOf.apply(item);
+            if (deleting.containsKey(id) || deleted.contains(id)) continue;
+            deleting.put(id, item);
+            queue.add(item);
+        }
+        updateHidden();
+        notifyChanged();
+        drain();
+    }
+
+    private void drain() {
+        while (inFlight < maxConcurrent && !queue.isEmpty()) { // Each completion drains again
+            send(queue.remove());
+        }
+    }
+
+    private void send(T item) {
+        inFlight++;
+        apiClient.delete(endpoint + "/" + idOf.apply(item)).enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                mainThread.execute(() -> settle(item, false));
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                // A 404 means it is gone already, which is what was asked for
+                boolean gone = response.isSuccessful() || response.code() == 404;
+                response.close();
+                if (gone) onDeleted.accept(item);
+                mainThread.execute(() -> settle(item, gone));
+            }
+        });
+    }
+
+    private void settle(T item, boolean gone) {
+        inFlight--;
+        String id = idOf.apply(item);
+        deleting.remove(id);
+        if (gone) {
+            deleted.add(id);
+            settledDeletes++;
+        } else {
+            failed.add(item); // Rolled back: no longer hidden, so it shows in its old place
+            updateHidden();
+            notifyChanged();
+        }
+        drain();
+        if (deleting.isEmpty()) {
+            List<T> failedItems = new ArrayList<>(failed);
+            int deletedCount = settledDeletes;
+            failed.clear();
+            settledDeletes = 0;
+            Listener<T> target = listener.get();
+            if (target != null) target.onSettled(deletedCount, failedItems);
+        }
+    }
+
+    private void notifyChanged() {
+        Listener<T> target = listener.get();
+        if (target != null) target.onChanged();
+    }
+
+    private void updateHidden() {
+        Set<String> ids = new HashSet<>(deleting.keySet());
+        ids.addAll(deleted);
+        hidden = Collections.unmodifiableSet(ids);
+    }
+}
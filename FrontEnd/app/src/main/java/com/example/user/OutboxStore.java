@@ -0,0 +1,18 @@
+package com.example.user;
+
+import java.util.List;
+
+/**
+ * Durable storage behind the ScoreOutbox. Every method may do disk I/O and is only called
+ * from the outbox's own thread.
+ */
+interface OutboxStore {
+
+    /** @return Every stored entry, oldest first. */
+    List<ScoreOutbox.Entry> loadAll();
+
+    /** Inserts the entry, or overwrites the stored entry with the same idempotency key. */
+    void save(ScoreOutbox.Entry entry);
+
+    void delete(String idempotencyKey);
+}
@@ -0,0 +1,201 @@
+package com.example.user;
+
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * A long list read a page at a time, so a screen shows its first rows after one page load
+ * however long the list is, and holds at most maxPages pages in memory however far it scrolls.
+ *
+ * snapshot() is the whole list with null placeholders for rows that are not loaded; give it to
+ * an AsyncListDiffer-backed adapter, which keeps the scrollbar right and swaps placeholders for
+ * rows as their pages arrive. Report the visible rows with loadAround() as the list scrolls: the
+ * pages within prefetchDistance rows of them are loaded before they come into view, and the
+ * pages farthest from them are dropped once more than maxPages are held (pages that are on
+ * screen or about to be are never dropped).
+ *
+ * Confined to the main thread: call it there, and give it an executor that runs on it.
+ */
+public final class PagedList<T> {
+
+    /** Where pages are read from; a LocalStore list in the app. Called on the background executor. */
+    public interface Source<T> {
+        /** @return How many items the list holds now. */
+        int count();
+
+        /** @return Up to limit items starting at offset; fewer at the end of the list. */
+        List<T> load(int offset, int limit);
+    }
+
+    public interface Listener<T> {
+        /** The list to show changed, e.g. a page arrived. Called on the main thread. */
+        void onChanged(List<T> snapshot);
+    }
+
+    /** Rows per page on the list screens; a few screenfuls. */
+    public static final int PAGE_SIZE = 50;
+    /** Pages the list screens hold at once. */
+    public static final int MAX_PAGES = 5;
+    /** How close to a page's edge the list screens start loading the next one, in rows. */
+    public static final int PREFETCH_DISTANCE = 20;
+
+    private final Source<T> source;
+    private final int pageSize;
+    private final int maxPages;
+    private final int prefetchDistance;
+    private final Executor background;
+    private final Executor mainThread;
+    private final Listener<T> listener;
+
+    private int size;
+    private Map<Integer, List<T>> pages = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    private int generation; // Bumped by refresh(), so pages read before it are dropped
+    private int firstVisible;
+    private int lastVisible;
+
+    /**
+     * @param background Runs the source's reads.
+     * @param mainThread Runs the listener and every state change.
+     */
+    public PagedList(Source<T> source, int pageSize, int maxPages, int prefetchDistance,
+                     Executor background, Executor mainThread, Listener<T> listener) {
+        this.source = source;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.prefetchDistance = prefetchDistance;
+        this.background = background;
+        this.mainThread = mainThread;
+        this.listener = listener;
+    }
+
+    /**
+     * Reads the list again, e.g. after a sync or a delete: its size and the pages around the
+     * visible rows. The pages held now stay shown until the new ones replace them, so nothing
+     * flashes back to placeholders.
+     */
+    public void refresh() {
+        int refreshGeneration = ++generation;
+        int first = firstPage(firstVisible);
+        int last = lastPage(lastVisible, Integer.MAX_VALUE);
+        background.execute(() -> {
+            int count = source.count();
+            Map<Integer, List<T>> read = new HashMap<>();
+            int lastInList = (count - 1) / pageSize;
+            for (int page = first; page <= Math.min(last, lastInList); page++) {
+                read.put(page, source.load(page * pageSize, pageSize));
+            }
+            mainThread.execute(() -> {
+                if (refreshGeneration != generation) return;
+                size = count;
+                pages = read;
+                loading.clear(); // Their answers belong to an older generation
+                listener.onChanged(snapshot());
+                ensureWindow();
+            });
+        });
+    }
+
+    /**
+     * Reports the rows on screen, so the pages around them are loaded and far ones dropped.
+     * @param first The first visible position, e.g. LinearLayoutManager.findFirstVisibleItemPosition().
+     * @param last The last visible position.
+     */
+    public void loadAround(int first, int last) {
+        if (first < 0 || last < first) return; // RecyclerView.NO_POSITION while laying out
+        firstVisible = first;
+        lastVisible = last;
+        ensureWindow();
+    }
+
+    /** @return How many items the list held when last read. */
+    public int size() {
+        return size;
+    }
+
+    /** @return The list as it is now, with null for items that are not loaded. */
+    public List<T> snapshot() {
+        return new Snapshot<>(size, pageSize, new HashMap<>(pages));
+    }
+
+    private void ensureWindow() {
+        if (size == 0) return;
+        int first = firstPage(firstVisible);
+        int last = lastPage(lastVisible, (size - 1) / pageSize);
+        for (int page = first; page <= last; page++) {
+            if (!pages.containsKey(page) && !loading.contains(page)) loadPage(page);
+        }
+        evict(first, last);
+    }
+
+    private void loadPage(int page) {
+        int loadGeneration = generation;
+        loading.add(page);
+        background.execute(() -> {
+            List<T> items = source.load(page * pageSize, pageSize);
+            mainThread.execute(() -> {
+                if (loadGeneration != generation) return;
+                loading.remove(page);
+                pages.put(page, items);
+                evict(firstPage(firstVisible), lastPage(lastVisible, (size - 1) / pageSize));
+                listener.onChanged(snapshot());
+            });
+        });
+    }
+
+    // Drops the held pages farthest from the wanted ones until at most maxPages are left
+    private void evict(int first, int last) {
+        while (pages.size() > maxPages) {
+            int farthest = -1;
+            int farthestDistance = -1;
+            for (int page : pages.keySet()) {
+                int distance = page < first ? first - page : page - last;
+                if (distance > farthestDistance) {
+                    farthest = page;
+                    farthestDistance = distance;
+                }
+            }
+            if (farthestDistance <= 0) return; // Only wanted pages are left
+            pages.remove(farthest);
+        }
+    }
+
+    private int firstPage(int firstRow) {
+        return Math.max(0, firstRow - prefetchDistance) / pageSize;
+    }
+
+    private int lastPage(int lastRow, int lastInList) {
+        return (int) Math.min(lastInList, ((long) lastRow + prefetchDistance) / pageSize);
+    }
+
+    // An immutable view over the pages held when it was taken
+    private static final class Snapshot<T> extends AbstractList<T> {
+        private final int size;
+        private final int pageSize;
+        private final Map<Integer, List<T>> pages;
+
+        Snapshot(int size, int pageSize, Map<Integer, List<T>> pages) {
+            this.size = size;
+            this.pageSize = pageSize;
+            this.pages = pages;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+            List<T> page = pages.get(index / pageSize);
+            int offset = index % pageSize;
+            return page != null && offset < page.size() ? page.get(offset) : null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Tells a PagedList which rows a RecyclerView shows, so the pages around them are loaded before
+ * they scroll into view. Also called after every layout, e.g. when a refresh changes the size.
+ */
+public class PagedScrollListener extends RecyclerView.OnScrollListener {
+
+    private final PagedList<?> pagedList;
+
+    public PagedScrollListener(PagedList<?> pagedList) {
+        this.pagedList = pagedList;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        if (layoutManager == null) return;
+        pagedList.loadAround(layoutManager.findFirstVisibleItemPosition(), layoutManager.findLastVisibleItemPosition());
+    }
+}
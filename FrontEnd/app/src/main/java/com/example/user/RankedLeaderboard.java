@@ -0,0 +1,230 @@
+package com.example.user;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The leaderboard as an order-statistic tree (a treap whose nodes know their subtree size),
+ * keyed by team id. Adding one score to a team, finding a team's position and reading the
+ * entry at a position are all O(log n), so a live leaderboard never has to re-sort.
+ *
+ * Teams are ordered by total, highest first; tied teams keep the order in which they were
+ * first added. Positions are 0-based; the displayed rank is position + 1.
+ * Not thread-safe: use it from one thread, e.g. the UI thread that binds the rows.
+ */
+public final class RankedLeaderboard {
+
+    /**
+     * Where a team was before and after a change. Every position from min(from, to) to
+     * max(from, to) now shows a different rank or entry; all other positions are unchanged.
+     */
+    public static final class Move {
+        /** The team's previous position, or -1 if it was not on the board. */
+        public final int from;
+        /** The team's position now. */
+        public final int to;
+
+        Move(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public boolean isInsert() {
+            return from < 0;
+        }
+
+        @Override
+        public String toString() {
+            return "Move{" + from + " -> " + to + "}";
+        }
+    }
+
+    private static final class Node {
+        final LeaderboardEntry entry;
+        final long order; // Tie-break: when the team was first added
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(LeaderboardEntry entry, long order, int priority) {
+            this.entry = entry;
+            this.order = order;
+            this.priority = priority;
+        }
+    }
+
+    private final Map<String, Node> nodesByTeam = new HashMap<>();
+    private final Random priorities = new Random(0x5EED);
+    private Node root;
+    private long nextOrder;
+
+    public int size() {
+        return size(root);
+    }
+
+    /** @return The entry at a position, 0 being first place. */
+    public LeaderboardEntry get(int position) {
+        if (position < 0 || position >= size()) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (position < leftSize) {
+                node = node.left;
+            } else if (position == leftSize) {
+                return node.entry;
+            } else {
+                position -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /** @return The team's position, or -1 if it is not on the board. */
+    public int positionOf(String teamId) {
+        Node node = nodesByTeam.get(teamId);
+        return node != null ? positionOf(node.entry.getTotalScore(), node.order) : -1;
+    }
+
+    /**
+     * Adds one submission's points to a team, adding the team if it is new.
+     * @param teamName The team's current name, or null to keep the one on the board.
+     * @return Where the team moved.
+     */
+    public Move addPoints(String teamId, String teamName, int points) {
+        Node existing = nodesByTeam.get(teamId);
+        if (existing == null) {
+            return new Move(-1, insert(new LeaderboardEntry(teamId, teamName, points, 0), nextOrder++));
+        }
+        int from = positionOf(existing.entry.getTotalScore(), existing.order);
+        root = remove(root, existing.entry.getTotalScore(), existing.order);
+        return new Move(from, insert(existing.entry.withPoints(points, teamName), existing.order));
+    }
+
+    /**
+     * Replaces the whole board, e.g. with a snapshot from the server. Tied teams keep the
+     * order they have in the list.
+     */
+    public void replaceAll(List<LeaderboardEntry> entries) {
+        root = null;
+        nodesByTeam.clear();
+        nextOrder = 0;
+        for (LeaderboardEntry entry : entries) {
+            if (entry == null || entry.getTeamId() == null || nodesByTeam.containsKey(entry.getTeamId())) continue;
+            insert(entry, nextOrder++);
+        }
+    }
+
+    /** @return Every entry in rank order; O(n). */
+    public List<LeaderboardEntry> toList() {
+        List<LeaderboardEntry> entries = new ArrayList<>(size());
+        collect(root, entries);
+        return entries;
+    }
+
+    // Inserts a team not currently in the tree; returns its position
+    private int insert(LeaderboardEntry entry, long order) {
+        Node node = new Node(entry, order, priorities.nextInt());
+        Node[] parts = split(root, entry.getTotalScore(), order);
+        root = merge(merge(parts[0], node), parts[1]);
+        nodesByTeam.put(entry.getTeamId(), node);
+        return positionOf(entry.getTotalScore(), order);
+    }
+
+    // Number of nodes ranked before (total, order)
+    private int positionOf(int total, long order) {
+        int position = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = compare(total, order, node);
+            if (cmp == 0) {
+                return position + size(node.left);
+            } else if (cmp < 0) {
+                node = node.left;
+            } else {
+                position += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return position;
+    }
+
+    // Higher totals first, then earlier teams first
+    private static int compare(int total, long order, Node node) {
+        int byTotal = Integer.compare(node.entry.getTotalScore(), total);
+        return byTotal != 0 ? byTotal : Long.compare(order, node.order);
+    }
+
+    // Splits into nodes ranked before (total, order) and the rest
+    private static Node[] split(Node node, int total, long order) {
+        if (node == null) return new Node[2];
+        if (compare(total, order, node) > 0) {
+            Node[] parts = split(node.right, total, order);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+            return parts;
+        } else {
+            Node[] parts = split(node.left, total, order);
+            node.left = parts[1];
+            update(node);
+            parts[1] = node;
+            return parts;
+        }
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        } else {
+            right.left = merge(left, right.left);
+            update(right);
+            return right;
+        }
+    }
+
+    private static Node remove(Node node, int total, long order) {
+        if (node == null) return null;
+        int cmp = compare(total, order, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        } else if (cmp < 0) {
+            node.left = remove(node.left, total, order);
+        } else {
+            node.right = remove(node.right, total, order);
+        }
+        update(node);
+        return node;
+    }
+
+    private static void collect(Node node, List<LeaderboardEntry> into) {
+        // In-order walk with an explicit stack
+        List<Node> stack = new ArrayList<>();
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.add(node);
+                node = node.left;
+            }
+            node = stack.remove(stack.size() - 1);
+            into.add(node.entry);
+            node = node.right;
+        }
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+}
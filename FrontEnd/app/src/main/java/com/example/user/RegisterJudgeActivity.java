@@ -10,15 +10,13 @@ import androidx.appcompat.app.AppCompatActivity;
 import org.json.JSONException;
 import org.json.JSONObject;
 import java.io.IOException;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Response;
 
 public class RegisterJudgeActivity extends AppCompatActivity {
 
     private static final String TAG = "RegisterJudgeActivity";
     private EditText nameEditText, emailEditText, phoneEditText;
     private Button submitButton;
+    private CallScope scope;
     private ApiClient apiClient;
 
     @Override
@@ -26,7 +24,8 @@ public class RegisterJudgeActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_register_judge);
 
-        apiClient = new ApiClient(this);
+        scope = CallScope.untilDestroy(this);
+        apiClient = new ApiClient(this, scope);
 
         // Views
         nameEditText = findViewById(R.id.judgeNameEditText);
@@ -81,9 +80,10 @@ public class RegisterJudgeActivity extends AppCompatActivity {
             return;
         }
 
-        apiClient.post("judges", jsonBody.toString()).enqueue(new Callback() {
+        // Every round's judge list is now out of date, even if this screen is gone before the server answers
+        ApiCallback<Judge> callback = scope.bind(judge -> ScoringSession.discardAll(), new ApiCallback<Judge>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onFailure(@NonNull IOException e) {
                 Log.e(TAG, "Failed to register judge", e);
                 runOnUiThread(() -> {
                     submitButton.setEnabled(true);
@@ -92,25 +92,29 @@ public class RegisterJudgeActivity extends AppCompatActivity {
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
+            public void onError(int code, String errorBody) {
                 runOnUiThread(() -> {
                     submitButton.setEnabled(true);
-                    if (response.isSuccessful()) {
-                        showToast("Judge registered successfully!");
-                        finish(); // Close activity on success
-                    } else {
-                        String errorMessage = "Server error.";
-                        try { // Try parsing error message from server
-                            JSONObject errorJson = new JSONObject(responseBody);
-                            errorMessage = errorJson.optString("message", errorMessage);
-                        } catch (JSONException ignored) {}
-                        showToast("Registration failed: " + errorMessage);
-                        Log.e(TAG, "Unsuccessful registration: " + responseBody);
-                    }
+                    String errorMessage = "Server error.";
+                    try { // Try parsing error message from server
+                        JSONObject errorJson = new JSONObject(errorBody);
+                        errorMessage = errorJson.optString("message", errorMessage);
+                    } catch (JSONException ignored) {}
+                    showToast("Registration failed: " + errorMessage);
+                    Log.e(TAG, "Unsuccessful registration: " + errorBody);
+                });
+            }
+
+            @Override
+            public void onSuccess(Judge judge) {
+                runOnUiThread(() -> {
+                    submitButton.setEnabled(true);
+                    showToast("Judge registered successfully!");
+                    finish(); // Close activity on success
                 });
             }
         });
+        apiClient.unscoped().post("judges", jsonBody.toString()).enqueue(new JsonCallback<>(Judge.class, callback));
     }
 
     private void showToast(String message) {
@@ -1,8 +1,6 @@
 package com.example.user;
 
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
@@ -43,7 +41,7 @@ public class RegisterTeamActivity extends AppCompatActivity {
         setContentView(R.layout.activity_register_team);
 
         // Initialize ApiClient
-        apiClient = new ApiClient(this);
+        apiClient = new ApiClient(this, CallScope.untilDestroy(this));
 
         // Find all the views from your XML layout
         collegeNameEditText = findViewById(R.id.collegeNameEditText);
@@ -86,7 +84,6 @@ public class RegisterTeamActivity extends AppCompatActivity {
     private void registerTeamOnServer() {
         progressBar.setVisibility(View.VISIBLE);
         submitTeamButton.setEnabled(false);
-        long startTime = System.currentTimeMillis(); // Record start time
 
         // Collect all data from the form
         String collegeName = collegeNameEditText.getText().toString().trim();
@@ -134,7 +131,7 @@ public class RegisterTeamActivity extends AppCompatActivity {
                 Log.e(TAG, "Failed to register team", e);
                 handleResponse(() -> {
                     showToast("Registration failed: " + e.getMessage());
-                }, startTime);
+                });
             }
 
             @Override
@@ -149,28 +146,21 @@ public class RegisterTeamActivity extends AppCompatActivity {
                         showToast("Registration failed: Server error.");
                         Log.e(TAG, "Unsuccessful response: " + responseBody);
                     }
-                }, startTime);
+                });
             }
         });
     }
 
     /**
-     * Handles the UI update after an API response, ensuring the progress bar
-     * is shown for at least 1 second.
-     * @param uiUpdate The code to run after the delay.
-     * @param startTime The time the request was initiated.
+     * Handles the UI update after an API response, as soon as it arrives.
+     * @param uiUpdate The code to run on the UI thread.
      */
-    private void handleResponse(Runnable uiUpdate, long startTime) {
-        long elapsedTime = System.currentTimeMillis() - startTime;
-        long delay = Math.max(0, 1000 - elapsedTime); // Calculate remaining time to reach 1 sec
-
-        new Handler(Looper.getMainLooper()).postDelayed(() -> {
-            runOnUiThread(() -> {
-                progressBar.setVisibility(View.GONE);
-                submitTeamButton.setEnabled(true);
-                uiUpdate.run();
-            });
-        }, delay);
+    private void handleResponse(Runnable uiUpdate) {
+        runOnUiThread(() -> {
+            progressBar.setVisibility(View.GONE);
+            submitTeamButton.setEnabled(true);
+            uiUpdate.run();
+        });
     }
 
     /**
@@ -0,0 +1,124 @@
+package com.example.user;
+
+import com.google.gson.reflect.TypeToken;
+import java.util.ArrayList;
+
+/**
+ * Owns the process-wide Repository of each kind of list the screens show, all sharing one
+ * EntityCache, so the teams parsed for the teams tab are the ones the add-teams screen shows and
+ * the judges synced by the judges tab are the ones a judge picks from.
+ *
+ * How well it works is in cache(): its hit ratio, and how much memory the cached lists take.
+ */
+public final class Repositories {
+
+    private static final EntityCache CACHE = new EntityCache(EntityCache.DEFAULT_MAX_BYTES);
+
+    private static final Repository<Team> TEAMS = newTeamRepository(CACHE);
+    private static final Repository<Judge> JUDGES = newJudgeRepository(CACHE);
+    private static final Repository<User> USERS = new Repository<>("users",
+            new TypeToken<ArrayList<User>>(){}.getType(), Repositories::sizeOf, CACHE);
+    private static final Repository<Round> ROUNDS = new Repository<>("rounds",
+            new TypeToken<ArrayList<Round>>(){}.getType(), Repositories::sizeOf, CACHE);
+    private static final Repository<Score> SCORES = new Repository<>("scores",
+            new TypeToken<ArrayList<Score>>(){}.getType(), Repositories::sizeOf, CACHE);
+
+    private Repositories() {}
+
+    /** Every team ("teams") and the teams of each round (roundTeams). */
+    public static Repository<Team> teams() {
+        return TEAMS;
+    }
+
+    /** Every judge ("judges"). */
+    public static Repository<Judge> judges() {
+        return JUDGES;
+    }
+
+    /** Every user ("users"). */
+    public static Repository<User> users() {
+        return USERS;
+    }
+
+    /** Every round ("rounds"). */
+    public static Repository<Round> rounds() {
+        return ROUNDS;
+    }
+
+    /** The score submissions of each round (roundScores). */
+    public static Repository<Score> scores() {
+        return SCORES;
+    }
+
+    /** The cache every repository keeps its lists in. */
+    public static EntityCache cache() {
+        return CACHE;
+    }
+
+    public static String roundTeams(String roundId) {
+        return "rounds/" + roundId + "/teams";
+    }
+
+    public static String roundScores(String roundId) {
+        return "scores/round/" + roundId;
+    }
+
+    /** Also used by ScoringSession's tests, on a cache of their own. */
+    static Repository<Team> newTeamRepository(EntityCache cache) {
+        return new Repository<>("teams", new TypeToken<ArrayList<Team>>(){}.getType(), Repositories::sizeOf, cache);
+    }
+
+    static Repository<Judge> newJudgeRepository(EntityCache cache) {
+        return new Repository<>("judges", new TypeToken<ArrayList<Judge>>(){}.getType(), Repositories::sizeOf, cache);
+    }
+
+    /** @return The repository a LocalStore list is published to once synced, or null for none. */
+    @SuppressWarnings("unchecked")
+    static <T> Repository<T> of(LocalStore.Kind<T> kind) {
+        if (kind == LocalStore.TEAMS) return (Repository<T>) TEAMS;
+        if (kind == LocalStore.JUDGES) return (Repository<T>) JUDGES;
+        if (kind == LocalStore.USERS) return (Repository<T>) USERS;
+        if (kind == LocalStore.ROUNDS) return (Repository<T>) ROUNDS;
+        return null;
+    }
+
+    static long sizeOf(Team team) {
+        return EntityCache.OBJECT_BYTES + EntityCache.sizeOf(team.getId()) + EntityCache.sizeOf(team.getName())
+                + EntityCache.sizeOf(team.getCollege()) + EntityCache.sizeOf(team.getMembers(), EntityCache::sizeOf);
+    }
+
+    static long sizeOf(Judge judge) {
+        return EntityCache.OBJECT_BYTES + EntityCache.sizeOf(judge.getId()) + EntityCache.sizeOf(judge.getName())
+                + EntityCache.sizeOf(judge.getEmail()) + EntityCache.sizeOf(judge.getContactNumber());
+    }
+
+    static long sizeOf(User user) {
+        return EntityCache.OBJECT_BYTES + EntityCache.sizeOf(user.getId()) + EntityCache.sizeOf(user.getName())
+                + EntityCache.sizeOf(user.getEmail()) + EntityCache.sizeOf(user.getContactNumber())
+                + EntityCache.sizeOf(user.getRole());
+    }
+
+    static long sizeOf(Criteria criteria) {
+        return EntityCache.OBJECT_BYTES + EntityCache.sizeOf(criteria.getId()) + EntityCache.sizeOf(criteria.getName());
+    }
+
+    static long sizeOf(Round round) {
+        return EntityCache.OBJECT_BYTES + EntityCache.sizeOf(round.getId()) + EntityCache.sizeOf(round.getName())
+                + EntityCache.sizeOf(round.getDescription()) + EntityCache.sizeOf(round.getDate())
+                + EntityCache.sizeOf(round.getTime()) + EntityCache.sizeOf(round.getStatus())
+                + EntityCache.sizeOf(round.getCriteria(), Repositories::sizeOf)
+                + EntityCache.sizeOf(round.getTeams(), Repositories::sizeOf);
+    }
+
+    static long sizeOf(Score score) {
+        long bytes = EntityCache.OBJECT_BYTES + EntityCache.sizeOf(score.getId())
+                + EntityCache.sizeOf(score.getScoresByCriteria(), criteriaScore -> EntityCache.OBJECT_BYTES
+                        + EntityCache.sizeOf(criteriaScore.getId())
+                        + (criteriaScore.getCriterion() != null ? sizeOf(criteriaScore.getCriterion()) : 0));
+        // Each submission is parsed with its own copies of the team, judge and round
+        if (score.getTeam() != null) bytes += sizeOf(score.getTeam());
+        if (score.getJudge() != null) bytes += sizeOf(score.getJudge());
+        if (score.getRound() != null) bytes += sizeOf(score.getRound());
+        return bytes;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * The app's copy of one kind of list, e.g. every team or the teams of one round, kept parsed in
+ * the shared EntityCache so a screen opened after another has loaded the list shows it at once
+ * instead of fetching and parsing it again. See Repositories for the ones the app uses.
+ *
+ * Lists are identified by the endpoint they come from, e.g. "teams" or "rounds/0x1/teams", and
+ * handed out unmodifiable; the entities in them are shared by every screen and must not be changed.
+ * A list that is not cached, or was dropped to make room, is simply fetched again.
+ */
+public final class Repository<T> {
+
+    public interface Observer<T> {
+        /**
+         * Called with the cached list when observing starts, if there is one, on the calling
+         * thread; then with every newer list, on the thread that fetched it.
+         */
+        void onChanged(List<T> items);
+    }
+
+    private final String name;
+    private final Type listType;
+    private final ToLongFunction<T> sizeOf;
+    private final EntityCache cache;
+    // Guarded by this
+    private final Map<String, List<Observer<T>>> observers = new HashMap<>();
+
+    /**
+     * @param name Keeps this repository's lists apart from others in the cache, e.g. "teams".
+     * @param listType What its endpoints return, e.g. new TypeToken<ArrayList<Team>>(){}.getType().
+     * @param sizeOf Estimates the memory one entity takes; see EntityCache.sizeOf.
+     */
+    Repository(String name, Type listType, ToLongFunction<T> sizeOf, EntityCache cache) {
+        this.name = name;
+        this.listType = listType;
+        this.sizeOf = sizeOf;
+        this.cache = cache;
+    }
+
+    /** @return The cached list, or null if it has to be fetched. */
+    public List<T> peek(String endpoint) {
+        return cache.get(key(endpoint));
+    }
+
+    /**
+     * Hands the list to the observer now if it is cached, and again every time it changes, until
+     * the owner is destroyed.
+     * @param owner e.g. an activity; for a fragment, its getViewLifecycleOwner().
+     */
+    public void observe(LifecycleOwner owner, String endpoint, Observer<T> observer) {
+        synchronized (this) {
+            List<Observer<T>> list = observers.get(endpoint);
+            if (list == null) {
+                list = new ArrayList<>();
+                observers.put(endpoint, list);
+            }
+            list.add(observer);
+        }
+        owner.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner o) {
+                o.getLifecycle().removeObserver(this);
+                removeObserver(endpoint, observer);
+            }
+        });
+        List<T> cached = peek(endpoint);
+        if (cached != null) observer.onChanged(cached);
+    }
+
+    /**
+     * Hands over the cached list if there is one, and fetches it otherwise. For callers that
+     * need the list once rather than every change, e.g. ScoringSession.
+     * @param callback Called on the calling thread if the list is cached, else on a network thread.
+     */
+    public void load(ApiClient apiClient, String endpoint, ApiCallback<List<T>> callback) {
+        List<T> cached = peek(endpoint);
+        if (cached != null) {
+            callback.onSuccess(cached);
+            return;
+        }
+        fetch(apiClient, endpoint, RequestScheduler.Priority.FOREGROUND, callback);
+    }
+
+    /**
+     * Fetches the list again and hands it to every observer. With a cached list already on
+     * screen this is background work for RequestScheduler; one that is dropped while the network
+     * is busy reports nothing, as does one whose screen was left.
+     * @param callback Told the outcome, on a network thread; onSuccess after the observers.
+     */
+    public void refresh(ApiClient apiClient, String endpoint, ApiCallback<List<T>> callback) {
+        RequestScheduler.Priority priority = cache.contains(key(endpoint))
+                ? RequestScheduler.Priority.BACKGROUND : RequestScheduler.Priority.FOREGROUND;
+        fetch(apiClient, endpoint, priority, callback);
+    }
+
+    /**
+     * Caches a list fetched elsewhere, e.g. by StaleWhileRevalidate or returned by a PUT, and
+     * hands it to every observer.
+     * @return The list as cached and handed out.
+     */
+    public List<T> put(String endpoint, List<T> items) {
+        List<T> list = Collections.unmodifiableList(new ArrayList<>(items));
+        cache.put(key(endpoint), list, EntityCache.sizeOf(list, sizeOf));
+        List<Observer<T>> notify;
+        synchronized (this) {
+            List<Observer<T>> observing = observers.get(endpoint);
+            notify = observing != null ? new ArrayList<>(observing) : Collections.<Observer<T>>emptyList();
+        }
+        for (Observer<T> observer : notify) {
+            observer.onChanged(list);
+        }
+        return list;
+    }
+
+    /** Forgets a cached list, e.g. after an edit elsewhere made it out of date. */
+    public void invalidate(String endpoint) {
+        cache.remove(key(endpoint));
+    }
+
+    /** Forgets every list of this kind. */
+    public void invalidateAll() {
+        String prefix = name + " ";
+        cache.removeIf(key -> key.startsWith(prefix));
+    }
+
+    private void fetch(ApiClient apiClient, String endpoint, RequestScheduler.Priority priority,
+                       ApiCallback<List<T>> callback) {
+        apiClient.get(endpoint, priority).enqueue(new JsonCallback<>(listType, new ApiCallback<List<T>>() {
+            @Override
+            public void onSuccess(List<T> result) {
+                callback.onSuccess(put(endpoint, result != null ? result : Collections.<T>emptyList()));
+            }
+
+            @Override
+            public void onError(int code, String errorBody) {
+                callback.onError(code, errorBody);
+            }
+
+            @Override
+            public void onFailure(@NonNull IOException e) {
+                if (e instanceof RequestScheduler.ShedException) return; // The cached list stays; the next refresh tries again
+                callback.onFailure(e);
+            }
+        }, apiClient.networkMetrics()));
+    }
+
+    private synchronized void removeObserver(String endpoint, Observer<T> observer) {
+        List<Observer<T>> list = observers.get(endpoint);
+        if (list == null) return;
+        list.remove(observer);
+        if (list.isEmpty()) observers.remove(endpoint);
+    }
+
+    private String key(String endpoint) {
+        return name + " " + endpoint;
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Timeout;
+
+/**
+ * Decides which enqueued call goes to the dispatcher next, so a judge's score submission is not
+ * stuck behind list refreshes when the tunnel is saturated. OkHttp's dispatcher runs calls in the
+ * order they were enqueued; calls made through ApiClient wait here instead, by Priority, and are
+ * only handed to the dispatcher once it has a slot for their host.
+ *
+ * A higher class is always dispatched first. Background work is deferred while anything else is
+ * waiting and never takes a host's last slot, so a submission can start at once however much
+ * background work is queued. When more than maxQueuedBackground background calls are waiting,
+ * the oldest is dropped and fails with ShedException; the newer one usually asks for the same list.
+ *
+ * Only enqueue() is scheduled; execute() goes straight to the network. A GET that joins an
+ * identical one through SingleFlight waits at that one's priority.
+ */
+public class RequestScheduler {
+
+    public enum Priority {
+        /** Something the user just did and is waiting on, e.g. submitting scores or deleting a team. */
+        INTERACTIVE,
+        /** Data a screen cannot show anything without. */
+        FOREGROUND,
+        /** Refreshes of data already on screen, and prefetches. */
+        BACKGROUND
+    }
+
+    /** Fails a background call dropped from a full queue. */
+    public static class ShedException extends IOException {
+        ShedException() {
+            super("Background request dropped while the network is busy");
+        }
+    }
+
+    public static final int DEFAULT_MAX_QUEUED_BACKGROUND = 32;
+
+    private final Dispatcher dispatcher;
+    private final int maxQueuedBackground;
+    private final NetworkMetrics metrics;
+    // Guarded by this
+    private final Map<Priority, ArrayDeque<Pending>> pending = new EnumMap<>(Priority.class);
+    private final Map<String, Integer> running = new HashMap<>();
+
+    /**
+     * @param dispatcher The dispatcher of the client whose calls are scheduled; its per-host limit
+     *                   is how many calls are handed to it per host.
+     * @param maxQueuedBackground Background calls that may wait before the oldest is dropped.
+     * @param metrics Where to record how long calls waited, as the QUEUE phase; null to record nothing.
+     */
+    public RequestScheduler(Dispatcher dispatcher, int maxQueuedBackground, NetworkMetrics metrics) {
+        this.dispatcher = dispatcher;
+        this.maxQueuedBackground = maxQueuedBackground;
+        this.metrics = metrics;
+        for (Priority priority : Priority.values()) pending.put(priority, new ArrayDeque<>());
+    }
+
+    /**
+     * Wraps a fresh network call so that enqueueing it waits for its turn here.
+     * @param networkCall A call that has not been executed yet, with its Priority as a request tag;
+     *                    FOREGROUND if it has none.
+     * @return A call that can be used exactly like the one passed in.
+     */
+    public Call newCall(Call networkCall) {
+        return new ScheduledCall(networkCall);
+    }
+
+    /** @return Calls of the class waiting here for a dispatcher slot. */
+    public synchronized int queuedCount(Priority priority) {
+        return pending.get(priority).size();
+    }
+
+    /** @return Calls of every class waiting here for a dispatcher slot. */
+    public synchronized int queuedCount() {
+        int queued = 0;
+        for (ArrayDeque<Pending> queue : pending.values()) queued += queue.size();
+        return queued;
+    }
+
+    static Priority priorityOf(Request request) {
+        Priority priority = request.tag(Priority.class);
+        return priority != null ? priority : Priority.FOREGROUND;
+    }
+
+    private void enqueue(ScheduledCall call, Callback callback) {
+        Priority priority = priorityOf(call.request());
+        Pending shed = null;
+        synchronized (this) {
+            ArrayDeque<Pending> queue = pending.get(priority);
+            queue.addLast(new Pending(call, callback));
+            if (priority == Priority.BACKGROUND && queue.size() > maxQueuedBackground) {
+                shed = queue.pollFirst();
+            }
+        }
+        if (shed != null) {
+            shed.call.canceled = true;
+            shed.callback.onFailure(shed.call, new ShedException());
+        }
+        dispatchReady();
+    }
+
+    // Hands every call that has a slot to the dispatcher, highest class first
+    private void dispatchReady() {
+        List<Pending> ready = new ArrayList<>();
+        synchronized (this) {
+            int limit = dispatcher.getMaxRequestsPerHost();
+            for (Priority priority : Priority.values()) {
+                // Background work leaves one slot free for anything more urgent that comes along
+                int slots = priority == Priority.BACKGROUND && limit > 1 ? limit - 1 : limit;
+                Iterator<Pending> it = pending.get(priority).iterator();
+                while (it.hasNext()) {
+                    Pending p = it.next();
+                    String host = p.call.request().url().host();
+                    int busy = running.getOrDefault(host, 0);
+                    if (busy >= slots || waitingAbove(priority, host)) continue;
+                    it.remove();
+                    running.put(host, busy + 1);
+                    ready.add(p);
+                }
+            }
+        }
+        long now = System.nanoTime();
+        for (Pending p : ready) {
+            if (metrics != null) metrics.recordQueued(p.call.request().tag(String.class), now - p.enqueuedAt);
+            p.call.networkCall.enqueue(new Finisher(p));
+        }
+    }
+
+    // Guarded by this
+    private boolean waitingAbove(Priority priority, String host) {
+        for (Priority above : Priority.values()) {
+            if (above == priority) return false;
+            for (Pending p : pending.get(above)) {
+                if (p.call.request().url().host().equals(host)) return true;
+            }
+        }
+        return false;
+    }
+
+    private void finished(String host) {
+        synchronized (this) {
+            int busy = running.getOrDefault(host, 1) - 1;
+            if (busy > 0) {
+                running.put(host, busy);
+            } else {
+                running.remove(host);
+            }
+        }
+        dispatchReady();
+    }
+
+    // Removes a call cancelled before its turn; false if it has already been dispatched
+    private synchronized boolean remove(ScheduledCall call) {
+        for (ArrayDeque<Pending> queue : pending.values()) {
+            Iterator<Pending> it = queue.iterator();
+            while (it.hasNext()) {
+                Pending p = it.next();
+                if (p.call == call) {
+                    it.remove();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static final class Pending {
+        final ScheduledCall call;
+        final Callback callback;
+        final long enqueuedAt = System.nanoTime();
+
+        Pending(ScheduledCall call, Callback callback) {
+            this.call = call;
+            this.callback = callback;
+        }
+    }
+
+    // Frees the slot once the caller is done with the response, as the dispatcher does
+    private final class Finisher implements Callback {
+        private final Pending pending;
+
+        Finisher(Pending pending) {
+            this.pending = pending;
+        }
+
+        @Override
+        public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            try {
+                pending.callback.onFailure(pending.call, e);
+            } finally {
+                finished(pending.call.request().url().host());
+            }
+        }
+
+        @Override
+        public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+            try {
+                pending.callback.onResponse(pending.call, response);
+            } finally {
+                finished(pending.call.request().url().host());
+            }
+        }
+    }
+
+    private final class ScheduledCall implements Call {
+        private final Call networkCall;
+        private volatile boolean executed;
+        private volatile boolean canceled;
+        private volatile Callback callback;
+
+        ScheduledCall(Call networkCall) {
+            this.networkCall = networkCall;
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return networkCall.request();
+        }
+
+        @NonNull
+        @Override
+        public Response execute() throws IOException {
+            markExecuted();
+            return networkCall.execute();
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback callback) {
+            markExecuted();
+            this.callback = callback;
+            RequestScheduler.this.enqueue(this, callback);
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            if (remove(this)) {
+                callback.onFailure(this, new IOException("Canceled"));
+            } else {
+                networkCall.cancel();
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled || networkCall.isCanceled();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return networkCall.timeout();
+        }
+
+        @NonNull
+        @Override
+        public Call clone() {
+            return new ScheduledCall(networkCall.clone());
+        }
+
+        private synchronized void markExecuted() {
+            if (executed) throw new IllegalStateException("Already Executed");
+            executed = true;
+        }
+    }
+}
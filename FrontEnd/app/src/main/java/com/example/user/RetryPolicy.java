@@ -0,0 +1,182 @@
+package com.example.user;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Retries requests that failed on a flaky venue network before the caller ever sees the
+ * failure, and fails fast through a CircuitBreaker while the server cannot be reached at all.
+ *
+ * How many retries a request gets is set per method and endpoint, like CachePolicy's max-ages.
+ * GET, PUT and DELETE can be repeated safely; a POST is only retried when it carries an
+ * Idempotency-Key, so the server replays its first answer instead of applying it twice.
+ * Network errors and 408, 429, 500, 502, 503 and 504 answers are retried, after a backoff that
+ * doubles with each attempt (see Backoff), or after the server's Retry-After.
+ *
+ * Installed as an application interceptor, so a retried call still counts as one call for
+ * CacheStats and SingleFlight, and each retry is recorded in NetworkMetrics.
+ */
+public class RetryPolicy implements Interceptor {
+
+    public static final long DEFAULT_BASE_BACKOFF_MS = 250;
+    public static final long DEFAULT_MAX_BACKOFF_MS = 2_000;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_MS = 10_000;
+    // How often a call waiting to retry checks whether it was cancelled, e.g. by CallScope
+    private static final long CANCEL_CHECK_MS = 50;
+
+    private final Map<String, Integer> maxRetries = new ConcurrentHashMap<>();
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final CircuitBreaker circuitBreaker;
+    private final NetworkMetrics metrics;
+
+    /**
+     * @param baseBackoffMs Delay ceiling before the first retry; doubles with every further one.
+     * @param maxBackoffMs Upper bound for the delay, and for a Retry-After worth waiting for.
+     * @param metrics Where to count retries; null to count none.
+     */
+    public RetryPolicy(long baseBackoffMs, long maxBackoffMs, CircuitBreaker circuitBreaker, NetworkMetrics metrics) {
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.circuitBreaker = circuitBreaker;
+        this.metrics = metrics;
+    }
+
+    /**
+     * The policies used by the app: two retries for everything that may be repeated, none for
+     * the leaderboard stream, which reconnects and resumes on its own.
+     * @return A new policy with the app's defaults.
+     */
+    public static RetryPolicy defaults(NetworkMetrics metrics) {
+        RetryPolicy policy = new RetryPolicy(DEFAULT_BASE_BACKOFF_MS, DEFAULT_MAX_BACKOFF_MS,
+                new CircuitBreaker(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MS), metrics);
+        policy.setMaxRetries("GET", null, 2);
+        policy.setMaxRetries("PUT", null, 2);
+        policy.setMaxRetries("DELETE", null, 2);
+        policy.setMaxRetries("POST", null, 2);
+        policy.setMaxRetries("GET", "leaderboard/stream", 0);
+        return policy;
+    }
+
+    /**
+     * Sets how often a request may be retried. An exact endpoint ("rounds/0x1/teams") wins over
+     * its top-level resource ("rounds"), which wins over the method's default.
+     * @param method e.g. "GET".
+     * @param endpoint The endpoint or top-level resource, or null for the method's default.
+     * @param retries Retries after the first attempt; 0 to never retry.
+     */
+    public void setMaxRetries(String method, String endpoint, int retries) {
+        maxRetries.put(keyOf(method, endpoint), retries);
+    }
+
+    /**
+     * @return How often the request may be retried under this policy.
+     */
+    public int maxRetriesFor(Request request) {
+        String method = request.method();
+        if ("POST".equals(method) && request.header("Idempotency-Key") == null) {
+            return 0; // The server might have applied it even if the answer never arrived
+        }
+        String endpoint = request.tag(String.class);
+        if (endpoint != null) {
+            Integer exact = maxRetries.get(keyOf(method, endpoint));
+            if (exact != null) return exact;
+            Integer resource = maxRetries.get(keyOf(method, CachePolicy.resourceOf(endpoint)));
+            if (resource != null) return resource;
+        }
+        Integer methodDefault = maxRetries.get(keyOf(method, null));
+        return methodDefault != null ? methodDefault : 0;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String host = request.url().host();
+        int retries = maxRetriesFor(request);
+        for (int attempt = 0; ; attempt++) {
+            circuitBreaker.beforeRequest(host);
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (chain.call().isCanceled()) {
+                    circuitBreaker.onCanceled(host); // Says nothing about the host, e.g. the screen was left
+                    throw e;
+                }
+                circuitBreaker.onFailure(host);
+                if (attempt >= retries) throw e;
+                waitToRetry(Backoff.jittered(attempt + 1, baseBackoffMs, maxBackoffMs), chain);
+                continue;
+            }
+
+            int code = response.code();
+            if (code == 502 || code == 503 || code == 504) {
+                circuitBreaker.onFailure(host); // The tunnel answers these when the server is gone
+            } else {
+                circuitBreaker.onSuccess(host);
+            }
+            if (!isRetryable(code) || attempt >= retries || chain.call().isCanceled()) {
+                return response;
+            }
+            long delay = retryAfterMs(response, Backoff.jittered(attempt + 1, baseBackoffMs, maxBackoffMs));
+            if (delay > maxBackoffMs) {
+                return response; // Not worth holding the caller for; let it decide
+            }
+            response.close();
+            waitToRetry(delay, chain);
+        }
+    }
+
+    static boolean isRetryable(int code) {
+        return code == 408 || code == 429 || code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    // Retry-After in seconds; the HTTP-date form is not sent by our server
+    private static long retryAfterMs(Response response, long backoff) {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter == null) return backoff;
+        try {
+            return Math.max(backoff, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            return backoff;
+        }
+    }
+
+    // The call keeps its dispatcher and RequestScheduler slots while it waits here, so a
+    // cancelled one gives them up within a step instead of after the whole delay
+    private void waitToRetry(long delayMs, Chain chain) throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        try {
+            for (long left = delayMs; left > 0; left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())) {
+                if (chain.call().isCanceled()) break;
+                Thread.sleep(Math.min(left, CANCEL_CHECK_MS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+        if (chain.call().isCanceled()) {
+            throw new IOException("Canceled");
+        }
+        if (metrics != null) {
+            Request request = chain.request();
+            String endpoint = request.tag(String.class);
+            metrics.recordRetry(endpoint != null ? endpoint : request.url().encodedPath());
+        }
+    }
+
+    private static String keyOf(String method, String endpoint) {
+        return endpoint != null ? method + " " + endpoint : method;
+    }
+}
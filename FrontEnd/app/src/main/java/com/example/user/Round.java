@@ -1,6 +1,10 @@
 package com.example.user;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.google.gson.annotations.SerializedName;
+import java.io.IOException;
 import java.util.List;
 
 public class Round {
@@ -30,4 +34,48 @@ public class Round {
     public String getStatus() { return status; }
     public List<Criteria> getCriteria() { return criteria; }
     public List<Team> getTeams() { return teams; }
+
+    // --- JSON ---
+
+    /** Reflection-free adapter registered in GsonProvider. */
+    static final TypeAdapter<Round> ADAPTER = new GsonAdapter().nullSafe();
+
+    private static final class GsonAdapter extends TypeAdapter<Round> {
+        @Override
+        public Round read(JsonReader in) throws IOException {
+            Round round = new Round();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": round.id = JsonFields.readString(in); break;
+                    case "name": round.name = JsonFields.readString(in); break;
+                    case "description": round.description = JsonFields.readString(in); break;
+                    case "date": round.date = JsonFields.readString(in); break;
+                    case "time": round.time = JsonFields.readString(in); break;
+                    case "status": round.status = JsonFields.readString(in); break;
+                    case "criteria": round.criteria = JsonFields.readList(in, Criteria.ADAPTER); break;
+                    case "teams": round.teams = JsonFields.readList(in, Team.ADAPTER); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return round;
+        }
+
+        @Override
+        public void write(JsonWriter out, Round round) throws IOException {
+            out.beginObject();
+            out.name("id").value(round.id);
+            out.name("name").value(round.name);
+            out.name("description").value(round.description);
+            out.name("date").value(round.date);
+            out.name("time").value(round.time);
+            out.name("status").value(round.status);
+            out.name("criteria");
+            JsonFields.writeList(out, round.criteria, Criteria.ADAPTER);
+            out.name("teams");
+            JsonFields.writeList(out, round.teams, Team.ADAPTER);
+            out.endObject();
+        }
+    }
 }
@@ -9,15 +9,40 @@ import android.widget.Button;
 import android.widget.ImageView; // Import ImageView
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.cardview.widget.CardView;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 public class RoundAdapter extends RecyclerView.Adapter<RoundAdapter.RoundViewHolder> {
 
-    private List<Round> roundList = new ArrayList<>();
+    private static final DiffUtil.ItemCallback<Round> DIFF_CALLBACK = new DiffUtil.ItemCallback<Round>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Round oldItem, @NonNull Round newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Round oldItem, @NonNull Round newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName());
+        }
+    };
+
+    // Diffs each new list against the current one off the main thread
+    private final AsyncListDiffer<Round> differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this),
+            new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).setBackgroundThreadExecutor(AppExecutors.background()).build());
     private final Context context;
     private final OnRoundActionListener listener; // <-- ADD LISTENER INTERFACE
+    private Set<String> selectedIds = Collections.emptySet();
 
     // --- ADD INTERFACE ---
     public interface OnRoundActionListener {
@@ -26,6 +51,8 @@ public class RoundAdapter extends RecyclerView.Adapter<RoundAdapter.RoundViewHol
         void onRegisterClick(Round round);
         void onDeleteClick(Round round, int position); // <-- ADD DELETE ACTION
         void onEditClick(Round round);   // <-- ADD EDIT ACTION
+
+        void onSelectClick(Round round); // A long press, or a tap while any round is selected
     }
     // --- END INTERFACE ---
 
@@ -35,9 +62,15 @@ public class RoundAdapter extends RecyclerView.Adapter<RoundAdapter.RoundViewHol
         this.listener = listener; // <-- STORE LISTENER
     }
 
+    // Null entries show as blank rows (see PagedList)
     public void setRounds(List<Round> newRounds) {
-        this.roundList = newRounds != null ? new ArrayList<>(newRounds) : new ArrayList<>();
-        notifyDataSetChanged();
+        differ.submitList(newRounds != null ? new ArrayList<>(newRounds) : null);
+    }
+
+    // Highlights the selected rounds; an empty set leaves selection mode
+    public void setSelectedIds(Set<String> ids) {
+        selectedIds = new HashSet<>(ids);
+        notifyItemRangeChanged(0, getItemCount());
     }
 
     @NonNull
@@ -50,7 +83,24 @@ public class RoundAdapter extends RecyclerView.Adapter<RoundAdapter.RoundViewHol
 
     @Override
     public void onBindViewHolder(@NonNull RoundViewHolder holder, int position) {
-        Round round = roundList.get(position);
+        Round round = differ.getCurrentList().get(position);
+        if (round == null) {
+            bindPlaceholder(holder); // Its page is still loading
+            return;
+        }
+
+        // Long press starts selecting for a bulk delete; while selecting, taps toggle too
+        boolean selected = selectedIds.contains(round.getId());
+        ((CardView) holder.itemView).setCardBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(),
+                selected ? R.color.selected_item : R.color.white));
+        holder.itemView.setOnLongClickListener(v -> {
+            selectClicked(holder);
+            return true;
+        });
+        holder.itemView.setOnClickListener(v -> {
+            if (!selectedIds.isEmpty()) selectClicked(holder);
+        });
+
         holder.roundName.setText(round.getName());
 
         // --- Use Listener for Clicks ---
@@ -66,17 +116,38 @@ public class RoundAdapter extends RecyclerView.Adapter<RoundAdapter.RoundViewHol
         holder.deleteIcon.setOnClickListener(v -> { // <-- SET DELETE LISTENER
             if (listener != null) {
                 int currentPosition = holder.getAdapterPosition();
-                if (currentPosition != RecyclerView.NO_POSITION) {
-                    listener.onDeleteClick(roundList.get(currentPosition), currentPosition);
+                if (currentPosition != RecyclerView.NO_POSITION && differ.getCurrentList().get(currentPosition) != null) {
+                    listener.onDeleteClick(differ.getCurrentList().get(currentPosition), currentPosition);
                 }
             }
         });
         // --- End Listener Usage ---
     }
 
+    private void selectClicked(RoundViewHolder holder) {
+        int currentPosition = holder.getAdapterPosition();
+        if (listener != null && currentPosition != RecyclerView.NO_POSITION
+                && differ.getCurrentList().get(currentPosition) != null) {
+            listener.onSelectClick(differ.getCurrentList().get(currentPosition));
+        }
+    }
+
+    // A row of a page that is not loaded yet: blank, and ignores clicks until its round arrives
+    private void bindPlaceholder(RoundViewHolder holder) {
+        ((CardView) holder.itemView).setCardBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(),
+                R.color.white));
+        holder.itemView.setOnLongClickListener(null);
+        holder.itemView.setOnClickListener(null);
+        holder.roundName.setText("");
+        holder.startButton.setOnClickListener(null);
+        holder.scoreButton.setOnClickListener(null);
+        holder.registerButton.setOnClickListener(null);
+        holder.deleteIcon.setOnClickListener(null);
+    }
+
     @Override
     public int getItemCount() {
-        return roundList.size();
+        return differ.getCurrentList().size();
     }
 
     // --- ADD ICONS TO VIEWHOLDER ---
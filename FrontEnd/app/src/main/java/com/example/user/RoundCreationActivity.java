@@ -34,14 +34,14 @@ public class RoundCreationActivity extends AppCompatActivity {
     private EditText roundNameEditText, roundDescEditText, roundDateEditText, roundTimeEditText;
     private ProgressBar progressBar;
     private ApiClient apiClient;
-    private Gson gson = new Gson();
+    private Gson gson = GsonProvider.get();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_round_creation);
 
-        apiClient = new ApiClient(this);
+        apiClient = new ApiClient(this, CallScope.untilDestroy(this));
 
         // Find views using IDs from your XML layout
         roundNameEditText = findViewById(R.id.roundNameEditText);
@@ -1,5 +1,6 @@
 package com.example.user;
 
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
@@ -12,23 +13,19 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton; // Import FAB
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-
-import org.json.JSONException;
-import org.json.JSONObject;
 
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Response;
+import java.util.Map;
+import java.util.function.Consumer;
 
 // Implement the listener interface
 public class RoundFragment extends Fragment implements RoundAdapter.OnRoundActionListener {
@@ -41,15 +38,15 @@ public class RoundFragment extends Fragment implements RoundAdapter.OnRoundActio
     private FloatingActionButton fabAddRound; // Added FAB
     private ProgressBar progressBar;
     private ApiClient apiClient;
-    private Gson gson = new Gson();
-    // Keep a local copy of the list
-    private List<Round> roundList = new ArrayList<>();
+    private PagedList<Round> pagedRounds; // The stored rounds a page at a time, without those being deleted
+    private OptimisticDeletes<Round> deletes;
+    private final Map<String, Round> selectedRounds = new LinkedHashMap<>();
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_round, container, false);
 
-        apiClient = new ApiClient(requireContext());
+        apiClient = new ApiClient(requireContext(), CallScope.untilStop(getViewLifecycleOwner()));
         // searchEditText = view.findViewById(R.id.search_edit_text); // Removed
         // addButton = view.findViewById(R.id.add_button); // Removed
         fabAddRound = view.findViewById(R.id.fab_add_round); // Find new FAB
@@ -60,9 +57,16 @@ public class RoundFragment extends Fragment implements RoundAdapter.OnRoundActio
         // Pass 'this' as the listener
         adapter = new RoundAdapter(requireContext(), this); // Pass context AND listener
         recyclerView.setAdapter(adapter);
+        deletes = newDeletes();
+        pagedRounds = newPagedList();
+        recyclerView.addOnScrollListener(new PagedScrollListener(pagedRounds));
 
         // Listener moved to fabAddRound
         fabAddRound.setOnClickListener(v -> {
+            if (!selectedRounds.isEmpty()) {
+                confirmDeleteSelected();
+                return;
+            }
             Intent intent = new Intent(getActivity(), RoundCreationActivity.class);
             startActivity(intent);
         });
@@ -77,9 +81,12 @@ public class RoundFragment extends Fragment implements RoundAdapter.OnRoundActio
 
     private void fetchRounds() {
         if (progressBar != null) progressBar.setVisibility(View.VISIBLE);
-        apiClient.get("rounds").enqueue(new Callback() {
+        // Show the stored rounds a page at a time right away, then sync them with the server
+        pagedRounds.refresh();
+        StaleWhileRevalidate.load(apiClient, LocalStore.get(requireContext()), LocalStore.ROUNDS, LocalStore.GLOBAL,
+                "rounds", new ApiCallback<List<Round>>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onFailure(@NonNull IOException e) {
                 Log.e(TAG, "Failed to fetch rounds", e);
                 if (getActivity() != null) {
                     getActivity().runOnUiThread(() -> {
@@ -90,31 +97,25 @@ public class RoundFragment extends Fragment implements RoundAdapter.OnRoundActio
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response fetching rounds: " + responseBody);
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            if (progressBar != null) progressBar.setVisibility(View.GONE);
-                            Toast.makeText(getContext(), "Failed to load rounds: Server error", Toast.LENGTH_SHORT).show();
-                        });
-                    }
-                    return;
+            public void onError(int code, String errorBody) {
+                Log.e(TAG, "Unsuccessful response fetching rounds: " + errorBody);
+                if (getActivity() != null) {
+                    getActivity().runOnUiThread(() -> {
+                        if (progressBar != null) progressBar.setVisibility(View.GONE);
+                        Toast.makeText(getContext(), "Failed to load rounds: Server error", Toast.LENGTH_SHORT).show();
+                    });
                 }
+            }
 
-                Type listType = new TypeToken<ArrayList<Round>>(){}.getType();
-                List<Round> fetchedRounds = gson.fromJson(responseBody, listType);
-
+            @Override
+            public void onSuccess(List<Round> fetchedRounds) {
                 if (getActivity() != null) {
                     getActivity().runOnUiThread(() -> {
                         if (progressBar != null) progressBar.setVisibility(View.GONE);
-                        if (fetchedRounds != null) {
-                            roundList = fetchedRounds; // Update local list
-                            adapter.setRounds(roundList); // Update adapter
-                        } else {
-                            roundList = new ArrayList<>(); // Clear local list
-                            adapter.setRounds(roundList); // Update adapter with empty list
+                        // Read the synced list again; deletes still in flight stay hidden
+                        deletes.onFreshList(fetchedRounds);
+                        pagedRounds.refresh();
+                        if (fetchedRounds == null) {
                             Toast.makeText(getContext(), "No rounds found or error parsing data", Toast.LENGTH_SHORT).show();
                         }
                     });
@@ -157,60 +158,79 @@ public class RoundFragment extends Fragment implements RoundAdapter.OnRoundActio
         new AlertDialog.Builder(requireContext()) // Use requireContext() for dialog
                 .setTitle("Delete Round")
                 .setMessage("Are you sure you want to delete '" + round.getName() + "'?")
-                .setPositiveButton("Yes", (dialog, which) -> deleteRoundFromServer(round, position))
+                .setPositiveButton("Yes", (dialog, which) -> deletes.delete(Collections.singletonList(round)))
                 .setNegativeButton("No", null)
                 .show();
     }
 
+    @Override
+    public void onSelectClick(Round round) {
+        if (selectedRounds.remove(round.getId()) == null) selectedRounds.put(round.getId(), round);
+        updateSelection();
+    }
+
     @Override
     public void onEditClick(Round round) {
         // TODO: Implement navigation to an EditRoundActivity
         Toast.makeText(getContext(), "Edit clicked for: " + round.getName(), Toast.LENGTH_SHORT).show();
     }
 
-    private void deleteRoundFromServer(Round round, int position) {
-        if (progressBar != null) progressBar.setVisibility(View.VISIBLE);
-        Log.d(TAG, "Attempting to delete round with ID: " + round.getId());
+    private void updateSelection() {
+        adapter.setSelectedIds(selectedRounds.keySet());
+        // While rounds are selected the FAB deletes them instead of adding one
+        fabAddRound.setImageResource(selectedRounds.isEmpty() ? R.drawable.ic_add : android.R.drawable.ic_menu_delete);
+        fabAddRound.setContentDescription(selectedRounds.isEmpty() ? "Add Round" : "Delete Selected Rounds");
+    }
+
+    private void confirmDeleteSelected() {
+        List<Round> selected = new ArrayList<>(selectedRounds.values()); // Their pages may have been dropped
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Delete Rounds")
+                .setMessage("Are you sure you want to delete " + selected.size() + (selected.size() == 1 ? " round?" : " rounds?"))
+                .setPositiveButton("Yes", (dialog, which) -> {
+                    selectedRounds.clear();
+                    updateSelection();
+                    deletes.delete(selected);
+                })
+                .setNegativeButton("No", null)
+                .show();
+    }
+
+    // Reads the stored rounds a page at a time, leaving out the ones being deleted
+    private PagedList<Round> newPagedList() {
+        return new PagedList<>(LocalStore.get(requireContext()).pages(LocalStore.ROUNDS, LocalStore.GLOBAL, deletes::hiddenIds),
+                PagedList.PAGE_SIZE, PagedList.MAX_PAGES, PagedList.PREFETCH_DISTANCE, AppExecutors.background(),
+                ContextCompat.getMainExecutor(requireContext()), snapshot -> {
+                    if (!snapshot.isEmpty() && progressBar != null) progressBar.setVisibility(View.GONE);
+                    adapter.setRounds(snapshot);
+                });
+    }
 
-        apiClient.delete("rounds/" + round.getId()).enqueue(new Callback() {
+    // Shows deletes at once and puts a round back if the server refuses to delete it
+    private OptimisticDeletes<Round> newDeletes() {
+        Context appContext = requireContext().getApplicationContext();
+        // Applied even if the view is destroyed before the server answers, so it holds nothing of the fragment
+        Consumer<Round> onDeleted = round -> {
+            ScoringSession.discard(round.getId());
+            Repositories.rounds().invalidate("rounds");
+            LocalStore.get(appContext).remove(LocalStore.ROUNDS, LocalStore.GLOBAL, round.getId());
+        };
+        return new OptimisticDeletes<>(apiClient, "rounds", Round::getId, onDeleted, OptimisticDeletes.MAX_CONCURRENT,
+                ContextCompat.getMainExecutor(appContext), new OptimisticDeletes.Listener<Round>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Failed to delete round", e);
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        if (progressBar != null) progressBar.setVisibility(View.GONE);
-                        Toast.makeText(getContext(), "Deletion failed: Network error", Toast.LENGTH_SHORT).show();
-                    });
-                }
+            public void onChanged() {
+                pagedRounds.refresh();
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
-                Log.d(TAG, "Delete response: Code=" + response.code() + ", Body=" + responseBody);
-
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response deleting round: " + responseBody);
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            if (progressBar != null) progressBar.setVisibility(View.GONE);
-                            String errorMsg = "Server error";
-                            try {
-                                JSONObject errorJson = new JSONObject(responseBody);
-                                errorMsg = errorJson.optString("msg", errorMsg);
-                            } catch (JSONException ignored) {}
-                            Toast.makeText(getContext(), "Deletion failed: " + errorMsg, Toast.LENGTH_SHORT).show();
-                        });
-                    }
-                    return;
-                }
-
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        Toast.makeText(getContext(), "'" + round.getName() + "' deleted", Toast.LENGTH_SHORT).show();
-                        // Refresh the list after successful deletion
-                        fetchRounds(); // fetchRounds will handle hiding the progress bar
-                    });
+            public void onSettled(int deleted, List<Round> failed) {
+                if (getContext() == null) return;
+                if (failed.isEmpty()) {
+                    Toast.makeText(getContext(), deleted == 1 ? "Round deleted" : deleted + " rounds deleted", Toast.LENGTH_SHORT).show();
+                } else if (failed.size() == 1) {
+                    Toast.makeText(getContext(), "Deletion failed for '" + failed.get(0).getName() + "'", Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(getContext(), "Deletion failed for " + failed.size() + " rounds", Toast.LENGTH_SHORT).show();
                 }
             }
         });
@@ -0,0 +1,140 @@
+package com.example.user;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The aggregated, ranked results of one round, as produced by ScoreAggregator.
+ *
+ * Instances are immutable and safe to hand from the background thread that built them to
+ * the UI thread. Judges and criteria are addressed by index; indices are in the order they
+ * first appeared in the submissions and are shared by the round and every TeamResult.
+ */
+public final class RoundScores {
+
+    static final RoundScores EMPTY = new RoundScores(Collections.<TeamResult>emptyList(),
+            Collections.<String>emptyList(), Collections.<String>emptyList(),
+            Collections.<String>emptyList(), Collections.<String>emptyList(),
+            new long[0], new int[0], new long[0], new int[0], 0, 0);
+
+    private final List<TeamResult> teams;
+    private final List<String> judgeIds;
+    private final List<String> judgeNames;
+    private final List<String> criterionIds;
+    private final List<String> criterionNames;
+    private final long[] judgeTotals;
+    private final int[] judgeCounts;
+    private final long[] criterionTotals;
+    private final int[] criterionCounts;
+    private final int submissionCount;
+    private final int skippedCount;
+
+    RoundScores(List<TeamResult> teams, List<String> judgeIds, List<String> judgeNames,
+                List<String> criterionIds, List<String> criterionNames,
+                long[] judgeTotals, int[] judgeCounts, long[] criterionTotals, int[] criterionCounts,
+                int submissionCount, int skippedCount) {
+        this.teams = Collections.unmodifiableList(teams);
+        this.judgeIds = Collections.unmodifiableList(judgeIds);
+        this.judgeNames = Collections.unmodifiableList(judgeNames);
+        this.criterionIds = Collections.unmodifiableList(criterionIds);
+        this.criterionNames = Collections.unmodifiableList(criterionNames);
+        this.judgeTotals = judgeTotals;
+        this.judgeCounts = judgeCounts;
+        this.criterionTotals = criterionTotals;
+        this.criterionCounts = criterionCounts;
+        this.submissionCount = submissionCount;
+        this.skippedCount = skippedCount;
+    }
+
+    /** Teams ordered by rank, highest total first. */
+    public List<TeamResult> getTeams() { return teams; }
+
+    public List<String> getJudgeIds() { return judgeIds; }
+    public List<String> getJudgeNames() { return judgeNames; }
+    public List<String> getCriterionIds() { return criterionIds; }
+    public List<String> getCriterionNames() { return criterionNames; }
+
+    /** Submissions that were counted. */
+    public int getSubmissionCount() { return submissionCount; }
+
+    /** Submissions dropped because they had no team. */
+    public int getSkippedCount() { return skippedCount; }
+
+    /** Average total a judge gave per submission, across all teams. */
+    public double getJudgeAverage(int judgeIndex) {
+        return average(judgeTotals, judgeCounts, judgeIndex);
+    }
+
+    /** Average score given for a criterion, across all teams and judges. */
+    public double getCriterionAverage(int criterionIndex) {
+        return average(criterionTotals, criterionCounts, criterionIndex);
+    }
+
+    private static double average(long[] totals, int[] counts, int index) {
+        return index < counts.length && counts[index] > 0 ? (double) totals[index] / counts[index] : 0;
+    }
+
+    /** One team's line in the results. */
+    public static final class TeamResult {
+        private final String teamId;
+        private final String teamName;
+        private final int memberCount;
+        private final int totalScore;
+        private final int submissionCount;
+        private final int rank;
+        private final int[] judgeTotals;
+        private final int[] judgeCounts;
+        private final int[] criterionTotals;
+        private final int[] criterionCounts;
+
+        TeamResult(String teamId, String teamName, int memberCount, int totalScore, int submissionCount, int rank,
+                   int[] judgeTotals, int[] judgeCounts, int[] criterionTotals, int[] criterionCounts) {
+            this.teamId = teamId;
+            this.teamName = teamName;
+            this.memberCount = memberCount;
+            this.totalScore = totalScore;
+            this.submissionCount = submissionCount;
+            this.rank = rank;
+            this.judgeTotals = judgeTotals;
+            this.judgeCounts = judgeCounts;
+            this.criterionTotals = criterionTotals;
+            this.criterionCounts = criterionCounts;
+        }
+
+        public String getTeamId() { return teamId; }
+        public String getTeamName() { return teamName; }
+        public int getMemberCount() { return memberCount; }
+
+        /** Sum of every judge's total for this team. */
+        public int getTotalScore() { return totalScore; }
+
+        public int getSubmissionCount() { return submissionCount; }
+
+        /** 1-based; tied teams share a rank and the next rank is skipped (1, 1, 3). */
+        public int getRank() { return rank; }
+
+        /** Average total per submission. */
+        public double getAverageScore() {
+            return submissionCount > 0 ? (double) totalScore / submissionCount : 0;
+        }
+
+        /** Sum of the totals this judge gave the team, 0 if the judge has not scored it. */
+        public int getJudgeTotal(int judgeIndex) {
+            return judgeIndex < judgeTotals.length ? judgeTotals[judgeIndex] : 0;
+        }
+
+        public int getJudgeSubmissionCount(int judgeIndex) {
+            return judgeIndex < judgeCounts.length ? judgeCounts[judgeIndex] : 0;
+        }
+
+        /** Sum of the scores the team received for a criterion, across judges. */
+        public int getCriterionTotal(int criterionIndex) {
+            return criterionIndex < criterionTotals.length ? criterionTotals[criterionIndex] : 0;
+        }
+
+        public double getCriterionAverage(int criterionIndex) {
+            int count = criterionIndex < criterionCounts.length ? criterionCounts[criterionIndex] : 0;
+            return count > 0 ? (double) criterionTotals[criterionIndex] / count : 0;
+        }
+    }
+}
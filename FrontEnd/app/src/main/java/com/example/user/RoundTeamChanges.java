@@ -0,0 +1,97 @@
+package com.example.user;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Teams added to or removed from one round on screen but not saved yet. Taps only change this
+ * set and the list shown; all of them go to the server together as a single PUT rounds/{id}.
+ *
+ * Adding a team that has a pending remove cancels the remove, and the other way round, so the
+ * PUT carries only the net change. Not thread-safe: use it from the UI thread.
+ */
+public final class RoundTeamChanges {
+
+    private final Map<String, Team> adds = new LinkedHashMap<>();
+    private final Map<String, Team> removes = new LinkedHashMap<>();
+
+    public void add(Team team) {
+        if (removes.remove(team.getId()) == null) adds.put(team.getId(), team);
+    }
+
+    public void remove(Team team) {
+        if (adds.remove(team.getId()) == null) removes.put(team.getId(), team);
+    }
+
+    /** @return How many teams the PUT would add or remove. */
+    public int size() {
+        return adds.size() + removes.size();
+    }
+
+    public boolean isEmpty() {
+        return adds.isEmpty() && removes.isEmpty();
+    }
+
+    /**
+     * @param registered Whether the team is in the round on the server.
+     * @return Whether it will be once these changes are saved.
+     */
+    public boolean isRegistered(String teamId, boolean registered) {
+        return adds.containsKey(teamId) || (registered && !removes.containsKey(teamId));
+    }
+
+    /** @return The round's teams as they will be once these changes are saved; added teams go last. */
+    public List<Team> applyTo(List<Team> registered) {
+        List<Team> result = new ArrayList<>(registered.size() + adds.size());
+        for (Team team : registered) {
+            if (!removes.containsKey(team.getId()) && !adds.containsKey(team.getId())) result.add(team);
+        }
+        result.addAll(adds.values());
+        return result;
+    }
+
+    /** Hands over every change for sending and starts an empty set for the taps that follow. */
+    public RoundTeamChanges take() {
+        RoundTeamChanges taken = new RoundTeamChanges();
+        taken.adds.putAll(adds);
+        taken.removes.putAll(removes);
+        clear();
+        return taken;
+    }
+
+    /** Drops every change, e.g. when the user leaves without saving. */
+    public void clear() {
+        adds.clear();
+        removes.clear();
+    }
+
+    /** Puts back changes whose PUT failed, underneath any taps made while it was in flight. */
+    public void restore(RoundTeamChanges unsaved) {
+        RoundTeamChanges newer = take();
+        adds.putAll(unsaved.adds);
+        removes.putAll(unsaved.removes);
+        for (Team team : newer.adds.values()) add(team);
+        for (Team team : newer.removes.values()) remove(team);
+    }
+
+    /** @return The PUT rounds/{id} body, e.g. { "addTeamIds": ["0x1"], "removeTeamIds": ["0x2"] }. */
+    public String toJson() {
+        StringWriter text = new StringWriter();
+        try (JsonWriter out = new JsonWriter(text)) {
+            out.beginObject();
+            out.name("addTeamIds");
+            JsonFields.writeStringList(out, new ArrayList<>(adds.keySet()));
+            out.name("removeTeamIds");
+            JsonFields.writeStringList(out, new ArrayList<>(removes.keySet()));
+            out.endObject();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // A StringWriter does not throw
+        }
+        return text.toString();
+    }
+}
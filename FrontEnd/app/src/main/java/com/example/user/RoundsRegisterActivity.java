@@ -4,30 +4,24 @@ import android.app.AlertDialog;
 import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
+import android.view.View;
+import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
+import androidx.activity.OnBackPressedCallback;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors; // For Java 8+ streams
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Response;
 
 public class RoundsRegisterActivity extends AppCompatActivity implements TeamRegisterAdapter.OnTeamRegisterActionListener {
 
@@ -41,15 +35,28 @@ public class RoundsRegisterActivity extends AppCompatActivity implements TeamReg
     private List<Team> teamList = new ArrayList<>(); // Teams currently IN this round
     private String roundId;
     private String roundName = "UNKNOWN ROUND";
+    private CallScope scope;
     private ApiClient apiClient;
-    private Gson gson = new Gson();
+    private Button saveButton;
+    private final RoundTeamChanges pendingChanges = new RoundTeamChanges();
+    private RoundTeamChanges savingChanges; // Sent, waiting for the server's answer
+    private Runnable afterSave;
+    // Enabled while anything is staged or saving. A callback rather than an onBackPressed
+    // override, which the system back gesture no longer calls with predictive back
+    private final OnBackPressedCallback saveBeforeBack = new OnBackPressedCallback(false) {
+        @Override
+        public void handleOnBackPressed() {
+            runAfterSaving(RoundsRegisterActivity.this::finish);
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_rounds_register);
 
-        apiClient = new ApiClient(this);
+        scope = CallScope.untilStop(this);
+        apiClient = new ApiClient(this, scope);
 
         // Get Round ID and Name from Intent
         roundId = getIntent().getStringExtra("ROUND_ID");
@@ -60,10 +67,16 @@ public class RoundsRegisterActivity extends AppCompatActivity implements TeamReg
             return;
         }
 
+        getOnBackPressedDispatcher().addCallback(this, saveBeforeBack);
         setupToolbar();
         setupViews();
         setupRecyclerView();
         setupFab();
+        // The round's teams as last loaded here or for scoring, shown before the refresh in onResume
+        Repositories.teams().observe(this, Repositories.roundTeams(roundId), teams -> runOnUiThread(() -> {
+            teamList = teams;
+            showTeams();
+        }));
     }
 
     @Override
@@ -77,13 +90,15 @@ public class RoundsRegisterActivity extends AppCompatActivity implements TeamReg
         setSupportActionBar(toolbar);
         if (getSupportActionBar() != null) getSupportActionBar().setDisplayShowTitleEnabled(false);
         ImageView backArrow = findViewById(R.id.back_arrow);
-        if (backArrow != null) backArrow.setOnClickListener(v -> finish());
+        if (backArrow != null) backArrow.setOnClickListener(v -> runAfterSaving(this::finish));
     }
 
     private void setupViews() {
         roundTitle = findViewById(R.id.text_round_name);
         roundTitle.setText(roundName.toUpperCase());
         searchBar = findViewById(R.id.edit_text_search); // For future filtering
+        saveButton = findViewById(R.id.button_save_changes);
+        saveButton.setOnClickListener(v -> confirmSave());
     }
 
     private void setupRecyclerView() {
@@ -96,108 +111,188 @@ public class RoundsRegisterActivity extends AppCompatActivity implements TeamReg
 
     private void setupFab() {
         fabAdd = findViewById(R.id.fab_add_team);
-        fabAdd.setOnClickListener(view -> {
-            Intent intent = new Intent(RoundsRegisterActivity.this, NewRoundRegisterActivity.class);
-            intent.putExtra("ROUND_ID", roundId);
-            intent.putExtra("ROUND_NAME", roundName);
-            // Pass IDs of teams already in the round
-            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.N) {
-                ArrayList<String> registeredTeamIds = teamList.stream()
-                        .map(Team::getId)
-                        .collect(Collectors.toCollection(ArrayList::new));
-                intent.putStringArrayListExtra("REGISTERED_TEAM_IDS", registeredTeamIds);
-            } else {
-                ArrayList<String> registeredTeamIds = new ArrayList<>();
-                for (Team team : teamList) {
-                    registeredTeamIds.add(team.getId());
-                }
-                intent.putStringArrayListExtra("REGISTERED_TEAM_IDS", registeredTeamIds);
+        fabAdd.setOnClickListener(view -> runAfterSaving(this::openAddTeams));
+    }
+
+    private void openAddTeams() {
+        Intent intent = new Intent(RoundsRegisterActivity.this, NewRoundRegisterActivity.class);
+        intent.putExtra("ROUND_ID", roundId);
+        intent.putExtra("ROUND_NAME", roundName);
+        // Pass IDs of teams already in the round
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.N) {
+            ArrayList<String> registeredTeamIds = teamList.stream()
+                    .map(Team::getId)
+                    .collect(Collectors.toCollection(ArrayList::new));
+            intent.putStringArrayListExtra("REGISTERED_TEAM_IDS", registeredTeamIds);
+        } else {
+            ArrayList<String> registeredTeamIds = new ArrayList<>();
+            for (Team team : teamList) {
+                registeredTeamIds.add(team.getId());
             }
+            intent.putStringArrayListExtra("REGISTERED_TEAM_IDS", registeredTeamIds);
+        }
 
-            startActivity(intent);
-        });
+        startActivity(intent);
     }
 
     private void fetchRegisteredTeams() {
-        // Show loading indicator
-        apiClient.get("rounds/" + roundId + "/teams").enqueue(new Callback() {
+        Repositories.teams().refresh(apiClient, Repositories.roundTeams(roundId), new ApiCallback<List<Team>>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onFailure(@NonNull IOException e) {
                 Log.e(TAG, "Failed to fetch registered teams", e);
                 runOnUiThread(() -> Toast.makeText(RoundsRegisterActivity.this, "Failed to load teams", Toast.LENGTH_SHORT).show());
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response fetching teams: " + responseBody);
-                    runOnUiThread(() -> Toast.makeText(RoundsRegisterActivity.this, "Error loading teams", Toast.LENGTH_SHORT).show());
-                    return;
-                }
-
-                Type listType = new TypeToken<ArrayList<Team>>(){}.getType();
-                List<Team> fetchedTeams = gson.fromJson(responseBody, listType);
-
-                runOnUiThread(() -> {
-                    if (fetchedTeams != null) {
-                        teamList = fetchedTeams;
-                        adapter.setTeams(teamList);
-                    } else {
-                        adapter.setTeams(new ArrayList<>());
-                    }
-                });
+            public void onError(int code, String errorBody) {
+                Log.e(TAG, "Unsuccessful response fetching teams: " + errorBody);
+                runOnUiThread(() -> Toast.makeText(RoundsRegisterActivity.this, "Error loading teams", Toast.LENGTH_SHORT).show());
+            }
+
+            @Override
+            public void onSuccess(List<Team> fetchedTeams) {
+                // Shown by the observer
             }
         });
     }
 
-    // This is called when the remove icon is clicked in the adapter
     // This is called when the remove icon is clicked in the adapter
     @Override
     public void onTeamActionClick(Team team, int position) {
-        // Show confirmation dialog before removing
-        new AlertDialog.Builder(this) // <-- FIX: Changed from "new AlertDialog.Builder().Builder(this)"
-                .setTitle("Remove Team")
-                .setMessage("Remove '" + team.getName() + "' from this round?")
-                .setPositiveButton("Remove", (dialog, which) -> removeTeamFromRound(team.getId()))
+        // Only staged here; the removals are confirmed and sent in one PUT when saved
+        pendingChanges.remove(team);
+        showTeams();
+        updateSaveButton();
+    }
+
+    // The server's list with the saving and staged changes on top
+    private List<Team> displayedTeams() {
+        List<Team> teams = savingChanges != null ? savingChanges.applyTo(teamList) : teamList;
+        return pendingChanges.applyTo(teams);
+    }
+
+    private void showTeams() {
+        adapter.setTeams(displayedTeams());
+    }
+
+    private void updateSaveButton() {
+        saveBeforeBack.setEnabled(savingChanges != null || !pendingChanges.isEmpty());
+        if (savingChanges != null) {
+            saveButton.setVisibility(View.VISIBLE);
+            saveButton.setEnabled(false);
+            saveButton.setText("Saving...");
+        } else if (pendingChanges.isEmpty()) {
+            saveButton.setVisibility(View.GONE);
+        } else {
+            int count = pendingChanges.size();
+            saveButton.setVisibility(View.VISIBLE);
+            saveButton.setEnabled(true);
+            saveButton.setText("Remove " + count + (count == 1 ? " team" : " teams"));
+        }
+    }
+
+    private void confirmSave() {
+        int count = pendingChanges.size();
+        new AlertDialog.Builder(this)
+                .setTitle("Remove Teams")
+                .setMessage("Remove " + count + (count == 1 ? " team" : " teams") + " from this round?")
+                .setPositiveButton("Remove", (dialog, which) -> saveChanges())
                 .setNegativeButton("Cancel", null)
                 .show();
     }
 
-
-    private void removeTeamFromRound(String teamId) {
-        // Show loading indicator
-        JSONObject jsonBody = new JSONObject();
-        try {
-            // Use the PUT endpoint with the removeTeamIds field
-            JSONArray removeIds = new JSONArray();
-            removeIds.put(teamId);
-            jsonBody.put("removeTeamIds", removeIds);
-        } catch (JSONException e) {
-            Log.e(TAG, "Error creating JSON for removing team", e);
+    // Asks whether to save or drop what is staged first, so removals are never sent unconfirmed
+    // and the next screen and this list agree with the server
+    private void runAfterSaving(Runnable next) {
+        if (pendingChanges.isEmpty()) {
+            runAfterSent(next);
             return;
         }
+        int count = pendingChanges.size();
+        new AlertDialog.Builder(this)
+                .setTitle("Unsaved Changes")
+                .setMessage("Remove " + count + (count == 1 ? " team" : " teams") + " from this round before leaving?")
+                .setPositiveButton("Remove", (dialog, which) -> {
+                    afterSave = next;
+                    saveChanges();
+                })
+                .setNegativeButton("Discard", (dialog, which) -> {
+                    pendingChanges.clear();
+                    showTeams();
+                    updateSaveButton();
+                    runAfterSent(next);
+                })
+                .setNeutralButton("Cancel", null)
+                .show();
+    }
 
-        apiClient.put("rounds/" + roundId, jsonBody.toString()).enqueue(new Callback() {
+    // Waits for a save already confirmed and in flight, if there is one
+    private void runAfterSent(Runnable next) {
+        if (savingChanges == null) {
+            next.run();
+        } else {
+            afterSave = next;
+        }
+    }
+
+    private void saveChanges() {
+        if (savingChanges != null || pendingChanges.isEmpty()) return; // The PUT in flight saves again when it is done
+        RoundTeamChanges sending = pendingChanges.take();
+        savingChanges = sending;
+        updateSaveButton();
+
+        // Applied to what judges see even if this screen is destroyed before the server answers
+        String round = roundId;
+        ApiCallback<Round> callback = scope.bind(updated -> {
+            ScoringSession.discard(round);
+            if (updated != null && updated.getTeams() != null) {
+                Repositories.teams().put(Repositories.roundTeams(round), updated.getTeams());
+            }
+        }, new ApiCallback<Round>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Failed to remove team", e);
-                runOnUiThread(() -> Toast.makeText(RoundsRegisterActivity.this, "Failed to remove team", Toast.LENGTH_SHORT).show());
+            public void onFailure(@NonNull IOException e) {
+                Log.e(TAG, "Failed to remove teams", e);
+                runOnUiThread(() -> saveFailed(sending, "Failed to remove teams"));
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response removing team: " + responseBody);
-                    runOnUiThread(() -> Toast.makeText(RoundsRegisterActivity.this, "Error removing team", Toast.LENGTH_SHORT).show());
-                    return;
-                }
-                runOnUiThread(() -> {
-                    Toast.makeText(RoundsRegisterActivity.this, "Team removed", Toast.LENGTH_SHORT).show();
-                    fetchRegisteredTeams(); // Refresh the list
-                });
+            public void onError(int code, String errorBody) {
+                Log.e(TAG, "Unsuccessful response removing teams: " + errorBody);
+                runOnUiThread(() -> saveFailed(sending, "Error removing teams"));
+            }
+
+            @Override
+            public void onSuccess(Round round) {
+                runOnUiThread(() -> saved(sending, round));
             }
         });
+        apiClient.unscoped().put("rounds/" + roundId, sending.toJson()).enqueue(new JsonCallback<>(Round.class, callback));
+    }
+
+    private void saved(RoundTeamChanges sent, Round round) {
+        savingChanges = null;
+        // The round in the response is the server's list; reconcile with it once instead of refetching
+        teamList = round != null && round.getTeams() != null ? round.getTeams() : sent.applyTo(teamList);
+        Toast.makeText(this, sent.size() + (sent.size() == 1 ? " team" : " teams") + " removed", Toast.LENGTH_SHORT).show();
+        showTeams();
+        updateSaveButton();
+
+        if (afterSave == null) return;
+        if (!pendingChanges.isEmpty()) {
+            saveChanges(); // Tapped while the last PUT was in flight
+        } else {
+            Runnable next = afterSave;
+            afterSave = null;
+            next.run();
+        }
+    }
+
+    private void saveFailed(RoundTeamChanges unsaved, String message) {
+        savingChanges = null;
+        afterSave = null; // Stay, so nothing staged is lost
+        pendingChanges.restore(unsaved);
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+        showTeams();
+        updateSaveButton();
     }
 }
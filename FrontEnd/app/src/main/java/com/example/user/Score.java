@@ -1,8 +1,12 @@
 package com.example.user;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.google.gson.annotations.SerializedName;
+import java.io.IOException;
 import java.util.List;
-import java.util.ArrayList; // Import
+import java.util.Collections;
 
 public class Score {
     @SerializedName("id")
@@ -29,5 +33,47 @@ public class Score {
     public Team getTeam() { return team; }
     public Judge getJudge() { return judge; }
     public Round getRound() { return round; }
-    public List<CriteriaScore> getScoresByCriteria() { return scoresByCriteria == null ? new ArrayList<>() : scoresByCriteria; }
-}
\ No newline at end of file
+    public List<CriteriaScore> getScoresByCriteria() { return scoresByCriteria == null ? Collections.<CriteriaScore>emptyList() : scoresByCriteria; }
+
+    // --- JSON ---
+
+    /** Reflection-free adapter registered in GsonProvider. */
+    static final TypeAdapter<Score> ADAPTER = new GsonAdapter().nullSafe();
+
+    private static final class GsonAdapter extends TypeAdapter<Score> {
+        @Override
+        public Score read(JsonReader in) throws IOException {
+            Score score = new Score();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": score.id = JsonFields.readString(in); break;
+                    case "total_score": score.totalScore = JsonFields.readInt(in); break;
+                    case "team": score.team = JsonFields.readObject(in, Team.ADAPTER); break;
+                    case "judge": score.judge = JsonFields.readObject(in, Judge.ADAPTER); break;
+                    case "round": score.round = JsonFields.readObject(in, Round.ADAPTER); break;
+                    case "scoresByCriteria": score.scoresByCriteria = JsonFields.readList(in, CriteriaScore.ADAPTER); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return score;
+        }
+
+        @Override
+        public void write(JsonWriter out, Score score) throws IOException {
+            out.beginObject();
+            out.name("id").value(score.id);
+            out.name("total_score").value(score.totalScore);
+            out.name("team");
+            Team.ADAPTER.write(out, score.team);
+            out.name("judge");
+            Judge.ADAPTER.write(out, score.judge);
+            out.name("round");
+            Round.ADAPTER.write(out, score.round);
+            out.name("scoresByCriteria");
+            JsonFields.writeList(out, score.scoresByCriteria, CriteriaScore.ADAPTER);
+            out.endObject();
+        }
+    }
+}
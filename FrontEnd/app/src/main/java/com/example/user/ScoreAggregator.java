@@ -0,0 +1,183 @@
+package com.example.user;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a round's individual score submissions into ranked per-team results with
+ * per-judge and per-criterion breakdowns.
+ *
+ * Has no Android dependencies and does no threading of its own; callers run it on a
+ * background executor and post the returned RoundScores to the UI. Working memory grows
+ * with the number of teams, judges and criteria, not with the number of submissions.
+ */
+public final class ScoreAggregator {
+
+    private static final Comparator<TeamTotals> BY_TOTAL_DESCENDING = new Comparator<TeamTotals>() {
+        @Override
+        public int compare(TeamTotals a, TeamTotals b) {
+            int byScore = Integer.compare(b.totalScore, a.totalScore);
+            if (byScore != 0) return byScore;
+            // Stable display order for ties
+            int byName = compareNullable(a.teamName, b.teamName);
+            return byName != 0 ? byName : compareNullable(a.teamId, b.teamId);
+        }
+    };
+
+    private ScoreAggregator() {}
+
+    /**
+     * @param submissions Every score submitted for the round; null entries and entries without a team are skipped.
+     * @return The ranked results.
+     */
+    public static RoundScores aggregate(List<Score> submissions) {
+        if (submissions == null || submissions.isEmpty()) {
+            return RoundScores.EMPTY;
+        }
+
+        Map<String, TeamTotals> teamsById = new HashMap<>();
+        Map<String, Integer> judgeIndex = new HashMap<>();
+        List<String> judgeIds = new ArrayList<>();
+        List<String> judgeNames = new ArrayList<>();
+        Map<String, Integer> criterionIndex = new HashMap<>();
+        List<String> criterionIds = new ArrayList<>();
+        List<String> criterionNames = new ArrayList<>();
+        long[] judgeTotals = new long[4];
+        int[] judgeCounts = new int[4];
+        long[] criterionTotals = new long[4];
+        int[] criterionCounts = new int[4];
+        int counted = 0;
+        int skipped = 0;
+
+        for (int s = 0, n = submissions.size(); s < n; s++) {
+            Score score = submissions.get(s);
+            Team team = score != null ? score.getTeam() : null;
+            if (team == null) {
+                skipped++;
+                continue;
+            }
+            counted++;
+
+            TeamTotals totals = teamsById.get(team.getId());
+            if (totals == null) {
+                totals = new TeamTotals(team.getId(), team.getName(), team.getMemberCount());
+                teamsById.put(team.getId(), totals);
+            }
+            int total = score.getTotalScore();
+            totals.totalScore += total;
+            totals.submissionCount++;
+
+            Judge judge = score.getJudge();
+            if (judge != null) {
+                Integer index = judgeIndex.get(judge.getId());
+                if (index == null) {
+                    index = judgeIds.size();
+                    judgeIndex.put(judge.getId(), index);
+                    judgeIds.add(judge.getId());
+                    judgeNames.add(judge.getName());
+                    if (index == judgeCounts.length) {
+                        judgeTotals = Arrays.copyOf(judgeTotals, index * 2);
+                        judgeCounts = Arrays.copyOf(judgeCounts, index * 2);
+                    }
+                }
+                judgeTotals[index] += total;
+                judgeCounts[index]++;
+                totals.addJudge(index, total);
+            }
+
+            List<CriteriaScore> byCriteria = score.getScoresByCriteria();
+            for (int c = 0, m = byCriteria.size(); c < m; c++) {
+                CriteriaScore criteriaScore = byCriteria.get(c);
+                Criteria criterion = criteriaScore != null ? criteriaScore.getCriterion() : null;
+                if (criterion == null) continue;
+                Integer index = criterionIndex.get(criterion.getId());
+                if (index == null) {
+                    index = criterionIds.size();
+                    criterionIndex.put(criterion.getId(), index);
+                    criterionIds.add(criterion.getId());
+                    criterionNames.add(criterion.getName());
+                    if (index == criterionCounts.length) {
+                        criterionTotals = Arrays.copyOf(criterionTotals, index * 2);
+                        criterionCounts = Arrays.copyOf(criterionCounts, index * 2);
+                    }
+                }
+                criterionTotals[index] += criteriaScore.getScore();
+                criterionCounts[index]++;
+                totals.addCriterion(index, criteriaScore.getScore());
+            }
+        }
+
+        TeamTotals[] ranked = teamsById.values().toArray(new TeamTotals[0]);
+        Arrays.sort(ranked, BY_TOTAL_DESCENDING);
+        List<RoundScores.TeamResult> results = new ArrayList<>(ranked.length);
+        int rank = 0;
+        for (int i = 0; i < ranked.length; i++) {
+            if (i == 0 || ranked[i].totalScore != ranked[i - 1].totalScore) {
+                rank = i + 1;
+            }
+            results.add(ranked[i].toResult(rank));
+        }
+
+        return new RoundScores(results, judgeIds, judgeNames, criterionIds, criterionNames,
+                Arrays.copyOf(judgeTotals, judgeIds.size()), Arrays.copyOf(judgeCounts, judgeIds.size()),
+                Arrays.copyOf(criterionTotals, criterionIds.size()), Arrays.copyOf(criterionCounts, criterionIds.size()),
+                counted, skipped);
+    }
+
+    private static int compareNullable(String a, String b) {
+        if (a == null) return b == null ? 0 : 1;
+        if (b == null) return -1;
+        return a.compareTo(b);
+    }
+
+    // Mutable per-team running totals; only ever touched by the aggregating thread
+    private static final class TeamTotals {
+        private static final int[] NONE = new int[0];
+
+        final String teamId;
+        final String teamName;
+        final int memberCount;
+        int totalScore;
+        int submissionCount;
+        int[] judgeTotals = NONE;
+        int[] judgeCounts = NONE;
+        int[] criterionTotals = NONE;
+        int[] criterionCounts = NONE;
+
+        TeamTotals(String teamId, String teamName, int memberCount) {
+            this.teamId = teamId;
+            this.teamName = teamName;
+            this.memberCount = memberCount;
+        }
+
+        void addJudge(int index, int total) {
+            if (index >= judgeCounts.length) {
+                int size = Math.max(index + 1, judgeCounts.length * 2);
+                judgeTotals = Arrays.copyOf(judgeTotals, size);
+                judgeCounts = Arrays.copyOf(judgeCounts, size);
+            }
+            judgeTotals[index] += total;
+            judgeCounts[index]++;
+        }
+
+        void addCriterion(int index, int score) {
+            if (index >= criterionCounts.length) {
+                int size = Math.max(index + 1, criterionCounts.length * 2);
+                criterionTotals = Arrays.copyOf(criterionTotals, size);
+                criterionCounts = Arrays.copyOf(criterionCounts, size);
+            }
+            criterionTotals[index] += score;
+            criterionCounts[index]++;
+        }
+
+        RoundScores.TeamResult toResult(int rank) {
+            // The arrays are not shared with anything else, so the result can own them
+            return new RoundScores.TeamResult(teamId, teamName, memberCount, totalScore, submissionCount, rank,
+                    judgeTotals, judgeCounts, criterionTotals, criterionCounts);
+        }
+    }
+}
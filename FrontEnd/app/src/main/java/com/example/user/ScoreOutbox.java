@@ -0,0 +1,521 @@
+package com.example.user;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import androidx.annotation.NonNull;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+/**
+ * Durable queue of score submissions. A submission is written to disk before anything is sent,
+ * then a background sender drains the queue with bounded concurrency and exponential backoff,
+ * so scores entered while the venue Wi-Fi is down are sent once it comes back, even after the
+ * app was killed in between.
+ *
+ * Every entry carries an idempotency key that is reused on each retry, so a retry of a request
+ * whose response was lost replays the server's first answer instead of adding a second Score.
+ *
+ * When the server no longer accepts the judge's token, nothing more is sent until they sign in
+ * again and resume() is called; the entries stay PENDING, since the server never looked at them.
+ *
+ * When several entries are due at once, e.g. a judge's queue after the Wi-Fi came back, they go
+ * out together as one POST scores/batch with a result per entry. A server without that endpoint
+ * gets them one request each instead, until it is asked again a while later.
+ *
+ * All state lives on the outbox's single thread; listeners are called there with snapshots.
+ */
+public final class ScoreOutbox {
+
+    public enum State {
+        /** Stored on the device, waiting to be sent or for its next retry. */
+        PENDING,
+        /** Being sent right now. */
+        IN_FLIGHT,
+        /** The server stored the score. */
+        CONFIRMED,
+        /** The server rejected the score; sending it again would not help. */
+        FAILED
+    }
+
+    public interface Listener {
+        /**
+         * Called on the outbox thread whenever an entry changes, and once when registered.
+         * @param entries A snapshot of every entry, oldest first.
+         */
+        void onOutboxChanged(List<Entry> entries);
+    }
+
+    private static final String ENDPOINT = "scores";
+    private static final String BATCH_ENDPOINT = "scores/batch";
+    private static final int MAX_CONCURRENT = 2;
+    private static final int MAX_BATCH_SIZE = 25; // The server takes up to 50
+    private static final long BASE_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 60_000;
+    // How long to send one by one after the server said it has no batch endpoint, e.g. until it is updated
+    private static final long BATCH_REPROBE_MS = TimeUnit.MINUTES.toMillis(10);
+    // Confirmed entries are kept for a day so judges can still see which teams are done
+    private static final long CONFIRMED_RETENTION_MS = TimeUnit.HOURS.toMillis(24);
+
+    private static ScoreOutbox instance;
+
+    private final OutboxStore store;
+    private final ApiClient apiClient;
+    private final int maxConcurrent;
+    private final int maxBatchSize;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final ScheduledExecutorService executor;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Only touched on the executor
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private int inFlight;
+    private long batchUnsupportedUntil;
+    private boolean waitingForSignIn;
+    private ScheduledFuture<?> wakeUp;
+
+    public static synchronized ScoreOutbox get(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new ScoreOutbox(new SqliteOutboxStore(appContext, SqliteOutboxStore.DATABASE_NAME),
+                    new ApiClient(appContext), MAX_CONCURRENT, MAX_BATCH_SIZE, BASE_BACKOFF_MS, MAX_BACKOFF_MS,
+                    newExecutor());
+            instance.drainWhenOnline(appContext);
+        }
+        return instance;
+    }
+
+    /**
+     * @param store Where entries are persisted.
+     * @param apiClient Client to POST the scores with.
+     * @param maxConcurrent How many requests may be in flight at once; a batch counts as one.
+     * @param maxBatchSize How many due entries may share one batch request; 1 sends each on its own.
+     * @param baseBackoffMs Delay ceiling after the first failed attempt; doubles with every further one.
+     * @param maxBackoffMs Upper bound for the delay ceiling.
+     * @param executor The single thread that owns the outbox state.
+     */
+    ScoreOutbox(OutboxStore store, ApiClient apiClient, int maxConcurrent, int maxBatchSize, long baseBackoffMs,
+                long maxBackoffMs, ScheduledExecutorService executor) {
+        this.store = store;
+        this.apiClient = apiClient;
+        this.maxConcurrent = maxConcurrent;
+        this.maxBatchSize = maxBatchSize;
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.executor = executor;
+        executor.execute(this::load);
+    }
+
+    /**
+     * Queues a score submission. It is persisted before it is sent; listeners see it as PENDING
+     * once it is on disk.
+     * @param body The POST /api/scores body, see ScorePayloads.submission.
+     */
+    public void enqueue(String roundId, String judgeId, String teamId, String teamName, String body) {
+        Entry entry = new Entry(UUID.randomUUID().toString(), roundId, judgeId, teamId, teamName, body,
+                System.currentTimeMillis());
+        executor.execute(() -> {
+            store.save(entry);
+            entries.put(entry.idempotencyKey, entry);
+            notifyListeners();
+            drainNow();
+        });
+    }
+
+    /**
+     * Sends every waiting entry now rather than at its backoff time, e.g. when the network is back.
+     */
+    public void drain() {
+        executor.execute(() -> {
+            long now = System.currentTimeMillis();
+            for (Entry entry : entries.values()) {
+                if (entry.state == State.PENDING && entry.nextAttemptAt > now) entry.nextAttemptAt = now;
+            }
+            drainNow();
+        });
+    }
+
+    /**
+     * Sends again after the server refused the judge's token, e.g. once they have signed in anew.
+     */
+    public void resume() {
+        executor.execute(() -> waitingForSignIn = false);
+        drain();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        executor.execute(() -> {
+            if (listeners.contains(listener)) listener.onOutboxChanged(snapshot());
+        });
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Reduces a snapshot to the latest submission state of each team a judge scored in a round.
+     * @return State by team id.
+     */
+    public static Map<String, State> statesByTeam(List<Entry> entries, String roundId, String judgeId) {
+        Map<String, State> states = new HashMap<>();
+        for (Entry entry : entries) { // Oldest first, so a resubmission overrides earlier ones
+            if (entry.roundId.equals(roundId) && entry.judgeId.equals(judgeId)) {
+                states.put(entry.teamId, entry.state);
+            }
+        }
+        return states;
+    }
+
+    private void load() {
+        long now = System.currentTimeMillis();
+        for (Entry entry : store.loadAll()) {
+            if (entry.state == State.CONFIRMED && now - entry.updatedAt > CONFIRMED_RETENTION_MS) {
+                store.delete(entry.idempotencyKey);
+                continue;
+            }
+            if (entry.state == State.IN_FLIGHT) {
+                // The app died mid-send. The server may have stored it; the idempotency key makes resending safe
+                entry.state = State.PENDING;
+                entry.nextAttemptAt = now;
+                entry.updatedAt = now;
+                store.save(entry);
+            }
+            entries.put(entry.idempotencyKey, entry);
+        }
+        notifyListeners();
+        drainNow();
+    }
+
+    private void drainNow() {
+        long now = System.currentTimeMillis();
+        if (waitingForSignIn) {
+            scheduleWakeUp(Long.MAX_VALUE, now); // Every request would be refused the same way
+            return;
+        }
+        long nextWakeUp = Long.MAX_VALUE;
+        List<Entry> due = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.state != State.PENDING) continue;
+            if (entry.nextAttemptAt > now) {
+                nextWakeUp = Math.min(nextWakeUp, entry.nextAttemptAt);
+                continue;
+            }
+            due.add(entry);
+        }
+        int next = 0;
+        while (next < due.size() && inFlight < maxConcurrent) { // Each completion drains again
+            int size = now < batchUnsupportedUntil ? 1 : Math.min(maxBatchSize, due.size() - next);
+            if (size > 1) {
+                sendBatch(new ArrayList<>(due.subList(next, next + size)), now);
+            } else {
+                send(due.get(next), now);
+            }
+            next += size;
+        }
+        if (next > 0) notifyListeners();
+        scheduleWakeUp(nextWakeUp, now);
+    }
+
+    private void markSending(Entry entry, long now) {
+        entry.state = State.IN_FLIGHT;
+        entry.attempts++;
+        entry.updatedAt = now;
+        store.save(entry); // Saved before the request leaves, so a crash mid-send is resent on restart
+    }
+
+    private void send(Entry entry, long now) {
+        markSending(entry, now);
+        inFlight++;
+        apiClient.post(ENDPOINT, entry.body, entry.idempotencyKey).enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                executor.execute(() -> settle(entry, -1, e.toString()));
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                int code = response.code();
+                String message = "HTTP " + code + " " + response.message();
+                response.close();
+                executor.execute(() -> settle(entry, code, message));
+            }
+        });
+    }
+
+    private void sendBatch(List<Entry> batch, long now) {
+        for (Entry entry : batch) {
+            markSending(entry, now);
+        }
+        inFlight++;
+        apiClient.post(BATCH_ENDPOINT, batchBody(batch)).enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                executor.execute(() -> settleBatch(batch, -1, e.toString(), false, null));
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                int code = response.code();
+                String message = "HTTP " + code + " " + response.message();
+                // Express answers routes it does not have itself; a tunnel or proxy in between does not
+                boolean fromAppServer = "Express".equals(response.header("X-Powered-By"));
+                Map<String, Integer> results = null;
+                try {
+                    if (response.isSuccessful()) {
+                        results = readBatchResults(response.body().charStream());
+                    }
+                } catch (IOException | RuntimeException e) {
+                    code = -1; // The items may or may not be stored; resending them is safe
+                    message = "Unreadable batch response: " + e;
+                } finally {
+                    response.close();
+                }
+                int settledCode = code;
+                String settledMessage = message;
+                Map<String, Integer> settledResults = results;
+                executor.execute(() -> settleBatch(batch, settledCode, settledMessage, fromAppServer, settledResults));
+            }
+        });
+    }
+
+    private void settle(Entry entry, int code, String error) {
+        inFlight--;
+        update(entry, code, error, System.currentTimeMillis());
+        notifyListeners();
+        drainNow();
+    }
+
+    /**
+     * @param code The batch request's status, or -1 if it failed.
+     * @param fromAppServer Whether the answer came from the app's server rather than something in between.
+     * @param results Each entry's own status by idempotency key, if the batch request succeeded.
+     */
+    private void settleBatch(List<Entry> batch, int code, String error, boolean fromAppServer,
+                             Map<String, Integer> results) {
+        inFlight--;
+        long now = System.currentTimeMillis();
+        if (code == 404 && fromAppServer || code == 405 || code == 501) {
+            // An older server: send these one by one, without counting this as an attempt
+            batchUnsupportedUntil = now + BATCH_REPROBE_MS;
+            for (Entry entry : batch) {
+                entry.state = State.PENDING;
+                entry.attempts--;
+                entry.nextAttemptAt = now;
+                entry.updatedAt = now;
+                store.save(entry);
+            }
+        } else {
+            for (Entry entry : batch) {
+                if (results == null) {
+                    update(entry, code, error, now);
+                } else {
+                    Integer itemCode = results.get(entry.idempotencyKey);
+                    update(entry, itemCode != null ? itemCode : -1,
+                            itemCode != null ? "HTTP " + itemCode + " in batch" : "Missing from the batch response", now);
+                }
+            }
+        }
+        notifyListeners();
+        drainNow();
+    }
+
+    private void update(Entry entry, int code, String error, long now) {
+        entry.updatedAt = now;
+        if (code >= 200 && code < 300) {
+            entry.state = State.CONFIRMED;
+            entry.lastError = null;
+        } else if (isUnauthorized(code)) {
+            // Refused before the score was looked at; it goes out as it is once the judge signs in again
+            waitingForSignIn = true;
+            entry.state = State.PENDING;
+            entry.attempts--;
+            entry.lastError = error;
+            entry.nextAttemptAt = now;
+        } else if (isPermanent(code)) {
+            entry.state = State.FAILED;
+            entry.lastError = error;
+        } else {
+            entry.state = State.PENDING;
+            entry.lastError = error;
+            entry.nextAttemptAt = now + Backoff.jittered(entry.attempts, baseBackoffMs, maxBackoffMs);
+        }
+        store.save(entry);
+    }
+
+    // { "items": [{ "idempotencyKey": "...", "submission": <the entry's POST scores body> }] }
+    static String batchBody(List<Entry> batch) {
+        StringWriter text = new StringWriter();
+        try (JsonWriter out = new JsonWriter(text)) {
+            out.beginObject().name("items").beginArray();
+            for (Entry entry : batch) {
+                out.beginObject()
+                        .name("idempotencyKey").value(entry.idempotencyKey)
+                        .name("submission").jsonValue(entry.body)
+                        .endObject();
+            }
+            out.endArray().endObject();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // A StringWriter does not throw
+        }
+        return text.toString();
+    }
+
+    // { "results": [{ "idempotencyKey": "...", "status": 201, ... }] }, as status by key
+    static Map<String, Integer> readBatchResults(Reader body) throws IOException {
+        Map<String, Integer> results = new HashMap<>();
+        JsonReader in = new JsonReader(body);
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals("results")) {
+                in.skipValue();
+                continue;
+            }
+            in.beginArray();
+            while (in.hasNext()) {
+                String key = null;
+                int status = -1;
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "idempotencyKey": key = JsonFields.readString(in); break;
+                        case "status": status = JsonFields.readInt(in); break;
+                        default: in.skipValue();
+                    }
+                }
+                in.endObject();
+                if (key != null && status > 0) results.put(key, status);
+            }
+            in.endArray();
+        }
+        in.endObject();
+        return results;
+    }
+
+    // The token expired (it lasts an hour) or was never sent, so no score can be saved until a new one
+    static boolean isUnauthorized(int code) {
+        return code == 401 || code == 403;
+    }
+
+    // The server rejected the submission itself. 408, 409 (the first attempt is still being
+    // processed) and 429 are worth another try, as are 5xx and network errors (code -1). So is
+    // 404: POST scores never answers it, so it comes from a tunnel or proxy that lost the server
+    static boolean isPermanent(int code) {
+        return code >= 400 && code < 500 && !isUnauthorized(code)
+                && code != 404 && code != 408 && code != 409 && code != 429;
+    }
+
+    private void scheduleWakeUp(long at, long now) {
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+            wakeUp = null;
+        }
+        if (at != Long.MAX_VALUE) {
+            wakeUp = executor.schedule(this::drainNow, at - now, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private List<Entry> snapshot() {
+        List<Entry> copy = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            copy.add(entry.copy());
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    private void notifyListeners() {
+        if (listeners.isEmpty()) return;
+        List<Entry> snapshot = snapshot();
+        for (Listener listener : listeners) {
+            listener.onOutboxChanged(snapshot);
+        }
+    }
+
+    private void drainWhenOnline(Context context) {
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null) return;
+        connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                drain();
+            }
+        });
+    }
+
+    private static ScheduledExecutorService newExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "score-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** One queued score submission. Listeners receive copies, so reading one is always safe. */
+    public static final class Entry {
+        final String idempotencyKey;
+        final String roundId;
+        final String judgeId;
+        final String teamId;
+        final String teamName;
+        final String body;
+        final long createdAt;
+        State state = State.PENDING;
+        int attempts;
+        long nextAttemptAt;
+        String lastError;
+        long updatedAt;
+
+        Entry(String idempotencyKey, String roundId, String judgeId, String teamId, String teamName, String body,
+              long createdAt) {
+            this.idempotencyKey = idempotencyKey;
+            this.roundId = roundId;
+            this.judgeId = judgeId;
+            this.teamId = teamId;
+            this.teamName = teamName;
+            this.body = body;
+            this.createdAt = createdAt;
+            this.nextAttemptAt = createdAt;
+            this.updatedAt = createdAt;
+        }
+
+        Entry copy() {
+            Entry copy = new Entry(idempotencyKey, roundId, judgeId, teamId, teamName, body, createdAt);
+            copy.state = state;
+            copy.attempts = attempts;
+            copy.nextAttemptAt = nextAttemptAt;
+            copy.lastError = lastError;
+            copy.updatedAt = updatedAt;
+            return copy;
+        }
+
+        public String getIdempotencyKey() { return idempotencyKey; }
+        public String getRoundId() { return roundId; }
+        public String getJudgeId() { return judgeId; }
+        public String getTeamId() { return teamId; }
+        public String getTeamName() { return teamName; }
+        public State getState() { return state; }
+        public int getAttempts() { return attempts; }
+        public String getLastError() { return lastError; }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.user;
+
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Builds the request bodies sent to the "scores" endpoint.
+ * Kept free of Android classes so the benchmark module can exercise it on a plain JVM.
+ */
+public final class ScorePayloads {
+
+    private ScorePayloads() {}
+
+    /**
+     * Builds the body of POST /api/scores for one judge scoring one team.
+     * @param teamId The team being scored.
+     * @param roundId The round the score belongs to.
+     * @param judgeId The judge submitting the score.
+     * @param criteria The round's criteria, in the order the scores were entered.
+     * @param scores The score entered for each criterion, same order as criteria.
+     * @return The JSON body.
+     * @throws JSONException If a value cannot be encoded.
+     */
+    public static JSONObject submission(String teamId, String roundId, String judgeId,
+                                        List<Criteria> criteria, int[] scores) throws JSONException {
+        if (criteria.size() != scores.length) {
+            throw new IllegalArgumentException("Expected " + criteria.size() + " scores but got " + scores.length);
+        }
+        JSONArray scoresByCriteria = new JSONArray();
+        for (int i = 0; i < scores.length; i++) {
+            JSONObject criteriaScore = new JSONObject();
+            criteriaScore.put("criterionId", criteria.get(i).getId());
+            criteriaScore.put("score", scores[i]);
+            scoresByCriteria.put(criteriaScore);
+        }
+
+        JSONObject jsonBody = new JSONObject();
+        jsonBody.put("teamId", teamId);
+        jsonBody.put("roundId", roundId);
+        jsonBody.put("judgeId", judgeId);
+        jsonBody.put("scoresByCriteria", scoresByCriteria);
+        return jsonBody;
+    }
+}
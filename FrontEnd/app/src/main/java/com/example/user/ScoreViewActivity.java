@@ -14,55 +14,23 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.Collections; // Import Collections for sorting
-import java.util.HashMap; // Import HashMap
 import java.util.List;
-import java.util.Map; // Import Map
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Response;
 
 public class ScoreViewActivity extends AppCompatActivity {
     private static final String TAG = "ScoreViewActivity";
     private ScoreViewAdapter adapter;
     private ApiClient apiClient;
-    private Gson gson = new Gson();
     private String roundId, roundName;
-    private List<TeamScoreModel> displayList = new ArrayList<>(); // List for the adapter
     private ProgressBar progressBar;
 
-    // Inner model class for the adapter's display data (aggregated score)
-    public static class TeamScoreModel implements Comparable<TeamScoreModel> { // Implement Comparable for sorting
-        public String teamName;
-        public int memberCount;
-        public int totalAggregatedScore; // Changed from 'score' to reflect aggregation
-        public String teamId;
-
-        public TeamScoreModel(String teamId, String teamName, int memberCount, int totalAggregatedScore) {
-            this.teamId = teamId;
-            this.teamName = teamName;
-            this.memberCount = memberCount;
-            this.totalAggregatedScore = totalAggregatedScore;
-        }
-
-        // Compare teams based on score (descending) for leaderboard sorting
-        @Override
-        public int compareTo(TeamScoreModel other) {
-            return Integer.compare(other.totalAggregatedScore, this.totalAggregatedScore); // Descending order
-        }
-    }
-
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_score_view);
 
-        apiClient = new ApiClient(this);
+        apiClient = new ApiClient(this, CallScope.untilDestroy(this));
 
         roundId = getIntent().getStringExtra("ROUND_ID");
         roundName = getIntent().getStringExtra("ROUND_NAME");
@@ -90,7 +58,7 @@ public class ScoreViewActivity extends AppCompatActivity {
     private void setupRecyclerView() {
         RecyclerView teamRecyclerView = findViewById(R.id.teamRecyclerView);
         teamRecyclerView.setLayoutManager(new LinearLayoutManager(this));
-        adapter = new ScoreViewAdapter(displayList);
+        adapter = new ScoreViewAdapter(new ArrayList<>());
         teamRecyclerView.setAdapter(adapter);
 
         // Optional: Spacing
@@ -101,9 +69,11 @@ public class ScoreViewActivity extends AppCompatActivity {
         if (progressBar != null) progressBar.setVisibility(View.VISIBLE);
         Log.d(TAG, "Fetching scores for round ID: " + roundId);
 
-        apiClient.get("scores/round/" + roundId).enqueue(new Callback() {
+        // Scores already loaded for this round show at once, and again once the refresh is in
+        Repositories.scores().observe(this, Repositories.roundScores(roundId), this::showScores);
+        Repositories.scores().refresh(apiClient, Repositories.roundScores(roundId), new ApiCallback<List<Score>>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onFailure(@NonNull IOException e) {
                 Log.e(TAG, "Failed to fetch scores", e);
                 runOnUiThread(() -> {
                     if (progressBar != null) progressBar.setVisibility(View.GONE);
@@ -112,77 +82,44 @@ public class ScoreViewActivity extends AppCompatActivity {
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
-                Log.d(TAG, "Fetch scores response code: " + response.code());
-                Log.d(TAG, "Fetch scores response body (raw): " + responseBody.substring(0, Math.min(responseBody.length(), 500))); // Log start of body
-
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Error fetching scores: " + responseBody);
-                    runOnUiThread(() -> {
-                        if (progressBar != null) progressBar.setVisibility(View.GONE);
-                        Toast.makeText(ScoreViewActivity.this, "Error loading scores", Toast.LENGTH_SHORT).show();
-                    });
-                    return;
-                }
-
-                // Parse API response which is List<Score> (individual submissions)
-                Type listType = new TypeToken<ArrayList<Score>>(){}.getType();
-                List<Score> scoreSubmissions = null;
-                try {
-                    scoreSubmissions = gson.fromJson(responseBody, listType);
-                } catch (Exception e) { Log.e(TAG, "Error parsing scores JSON", e); }
-
-                final List<Score> finalScoreSubmissions = scoreSubmissions;
+            public void onError(int code, String errorBody) {
+                Log.e(TAG, "Error fetching scores (" + code + "): " + errorBody);
                 runOnUiThread(() -> {
                     if (progressBar != null) progressBar.setVisibility(View.GONE);
-
-                    if (finalScoreSubmissions != null && !finalScoreSubmissions.isEmpty()) {
-                        Log.d(TAG, "Parsed " + finalScoreSubmissions.size() + " score submissions.");
-                        // --- PROCESS AND AGGREGATE SCORES ---
-                        Map<String, TeamScoreModel> aggregatedScores = new HashMap<>();
-
-                        for (Score score : finalScoreSubmissions) {
-                            if (score != null && score.getTeam() != null) {
-                                String teamId = score.getTeam().getId();
-                                TeamScoreModel currentTeamScore = aggregatedScores.get(teamId);
-
-                                if (currentTeamScore == null) {
-                                    // First score submission for this team
-                                    currentTeamScore = new TeamScoreModel(
-                                            teamId,
-                                            score.getTeam().getName(),
-                                            score.getTeam().getMemberCount(),
-                                            score.getTotalScore() // Start with the first score
-                                    );
-                                } else {
-                                    // Add current submission's score to the existing total
-                                    currentTeamScore.totalAggregatedScore += score.getTotalScore();
-                                }
-                                aggregatedScores.put(teamId, currentTeamScore);
-                            } else { Log.w(TAG, "Skipping null score or team within score."); }
-                        }
-
-                        // Convert map values to a list for the adapter
-                        List<TeamScoreModel> newDisplayList = new ArrayList<>(aggregatedScores.values());
-
-                        // Sort the list by score (descending)
-                        Collections.sort(newDisplayList);
-
-                        displayList.clear();
-                        displayList.addAll(newDisplayList);
-                        adapter.notifyDataSetChanged(); // Update adapter
-                        Log.d(TAG, "Adapter updated with " + displayList.size() + " aggregated team scores.");
-                        // --- END PROCESSING ---
-
-                    } else {
-                        Log.w(TAG, "No scores found or JSON parsing failed.");
-                        Toast.makeText(ScoreViewActivity.this, "No scores submitted for this round yet.", Toast.LENGTH_SHORT).show();
-                        displayList.clear();
-                        adapter.notifyDataSetChanged(); // Clear adapter
-                    }
+                    Toast.makeText(ScoreViewActivity.this, "Error loading scores", Toast.LENGTH_SHORT).show();
                 });
             }
+
+            @Override
+            public void onSuccess(List<Score> finalScoreSubmissions) {
+                // Shown by the observer
+            }
+        });
+    }
+
+    private void showScores(List<Score> finalScoreSubmissions) {
+        if (finalScoreSubmissions == null || finalScoreSubmissions.isEmpty()) {
+            runOnUiThread(() -> {
+                if (progressBar != null) progressBar.setVisibility(View.GONE);
+                Log.w(TAG, "No scores found.");
+                Toast.makeText(ScoreViewActivity.this, "No scores submitted for this round yet.", Toast.LENGTH_SHORT).show();
+                adapter.setScores(null); // Clear adapter
+            });
+            return;
+        }
+
+        Log.d(TAG, "Parsed " + finalScoreSubmissions.size() + " score submissions.");
+        // Aggregating a large round takes long enough to drop frames, so only the result reaches the UI thread
+        AppExecutors.background().execute(() -> {
+            RoundScores roundScores = ScoreAggregator.aggregate(finalScoreSubmissions);
+            if (roundScores.getSkippedCount() > 0) {
+                Log.w(TAG, "Skipped " + roundScores.getSkippedCount() + " score submissions without a team.");
+            }
+            runOnUiThread(() -> {
+                if (progressBar != null) progressBar.setVisibility(View.GONE);
+                adapter.setScores(roundScores.getTeams());
+                Log.d(TAG, "Adapter updated with " + roundScores.getTeams().size() + " aggregated team scores.");
+            });
         });
     }
 }
\ No newline at end of file
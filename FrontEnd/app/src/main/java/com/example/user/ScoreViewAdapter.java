@@ -6,24 +6,43 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList; // Import
 import java.util.List;
+import java.util.Objects;
 
 public class ScoreViewAdapter extends RecyclerView.Adapter<ScoreViewAdapter.ScoreViewHolder> {
 
-    // Use the inner class defined in ScoreViewActivity
-    private List<ScoreViewActivity.TeamScoreModel> teams;
+    private static final DiffUtil.ItemCallback<RoundScores.TeamResult> DIFF_CALLBACK = new DiffUtil.ItemCallback<RoundScores.TeamResult>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull RoundScores.TeamResult oldItem, @NonNull RoundScores.TeamResult newItem) {
+            return Objects.equals(oldItem.getTeamId(), newItem.getTeamId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull RoundScores.TeamResult oldItem, @NonNull RoundScores.TeamResult newItem) {
+            return oldItem.getRank() == newItem.getRank()
+                    && oldItem.getTotalScore() == newItem.getTotalScore()
+                    && oldItem.getMemberCount() == newItem.getMemberCount()
+                    && Objects.equals(oldItem.getTeamName(), newItem.getTeamName());
+        }
+    };
+
+    // Ranked results produced by ScoreAggregator, diffed off the main thread
+    private final AsyncListDiffer<RoundScores.TeamResult> differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this),
+            new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).setBackgroundThreadExecutor(AppExecutors.background()).build());
 
-    public ScoreViewAdapter(List<ScoreViewActivity.TeamScoreModel> teams) {
-        // Ensure the list is never null
-        this.teams = teams != null ? teams : new ArrayList<>();
+    public ScoreViewAdapter(List<RoundScores.TeamResult> teams) {
+        setScores(teams);
     }
 
     // Method to update the list when data is fetched/processed
-    public void setScores(List<ScoreViewActivity.TeamScoreModel> newTeams) {
-        this.teams = newTeams != null ? newTeams : new ArrayList<>();
-        notifyDataSetChanged();
+    public void setScores(List<RoundScores.TeamResult> newTeams) {
+        differ.submitList(newTeams != null ? new ArrayList<>(newTeams) : null);
     }
 
     @NonNull
@@ -35,23 +54,23 @@ public class ScoreViewAdapter extends RecyclerView.Adapter<ScoreViewAdapter.Scor
 
     @Override
     public void onBindViewHolder(@NonNull ScoreViewHolder holder, int position) {
-        ScoreViewActivity.TeamScoreModel team = teams.get(position);
+        RoundScores.TeamResult team = differ.getCurrentList().get(position);
 
         if (holder.textTeamName != null) {
-            holder.textTeamName.setText(team.teamName);
+            holder.textTeamName.setText(team.getRank() + ". " + team.getTeamName());
         }
         if (holder.textMemberCount != null) {
-            holder.textMemberCount.setText(team.memberCount + " Members");
+            holder.textMemberCount.setText(team.getMemberCount() + " Members");
         }
         if (holder.textScoreButton != null) {
             // Display the aggregated score
-            holder.textScoreButton.setText(String.valueOf(team.totalAggregatedScore));
+            holder.textScoreButton.setText(String.valueOf(team.getTotalScore()));
         }
     }
 
     @Override
     public int getItemCount() {
-        return teams.size();
+        return differ.getCurrentList().size();
     }
 
     static class ScoreViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,272 @@
+package com.example.user;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything a judge needs to score one round: its teams, its criteria and the judges list.
+ * It is loaded once, by JudgeSelectionActivity, and kept in memory for the life of the process,
+ * so picking another judge, re-entering StartActivity or rotating the screen costs no network
+ * round trips. The next request for the round goes out when scores are submitted.
+ *
+ * A session lives until the round is ended or deleted, or until an edit on this device changes
+ * what it holds (see discard). A part that failed to load is fetched again on the next load().
+ * The teams and judges come through their Repository, so a list another screen has already
+ * loaded is not fetched again; discarding a session forgets those lists too.
+ */
+public final class ScoringSession {
+
+    public interface Listener {
+        /**
+         * Called once every part has loaded or failed. If they already have, it is called on the
+         * calling thread before load() returns; otherwise on a network thread.
+         */
+        void onReady(ScoringSession session);
+    }
+
+    /** Keeps the criteria on the device, so scoring can continue after the Wi-Fi drops. */
+    interface CriteriaBackup {
+        List<Criteria> read(String roundId);
+        void save(String roundId, List<Criteria> criteria);
+    }
+
+    private static final String TAG = "ScoringSession";
+
+    private static final Map<String, ScoringSession> sessions = new HashMap<>();
+
+    private final String roundId;
+    private final ApiClient apiClient;
+    private final Repository<Team> teamRepository;
+    private final Repository<Judge> judgeRepository;
+    private final CriteriaBackup backup;
+
+    // Guarded by this
+    private final Part<List<Team>> teams = new Part<>();
+    private final Part<List<Criteria>> criteria = new Part<>();
+    private final Part<List<Judge>> judges = new Part<>();
+    private final List<Listener> waiting = new ArrayList<>();
+    private boolean offlineCriteria;
+
+    /** @return The round's session, created empty if it has none yet. */
+    public static synchronized ScoringSession forRound(Context context, String roundId) {
+        ScoringSession session = sessions.get(roundId);
+        if (session == null) {
+            Context appContext = context.getApplicationContext();
+            session = new ScoringSession(roundId, new ApiClient(appContext), Repositories.teams(),
+                    Repositories.judges(), new CriteriaBackup() {
+                @Override
+                public List<Criteria> read(String id) {
+                    return LocalStore.get(appContext).read(LocalStore.CRITERIA, id);
+                }
+
+                @Override
+                public void save(String id, List<Criteria> list) {
+                    LocalStore.get(appContext).replace(LocalStore.CRITERIA, id, list);
+                }
+            });
+            sessions.put(roundId, session);
+        }
+        return session;
+    }
+
+    /** Forgets a round's session, e.g. when the round is ended, edited or deleted. */
+    public static synchronized void discard(String roundId) {
+        sessions.remove(roundId);
+        Repositories.teams().invalidate(Repositories.roundTeams(roundId));
+    }
+
+    /** Forgets every session, e.g. after a team or judge was added or removed. */
+    public static synchronized void discardAll() {
+        sessions.clear();
+        Repositories.teams().invalidateAll();
+        Repositories.judges().invalidateAll();
+    }
+
+    ScoringSession(String roundId, ApiClient apiClient, Repository<Team> teamRepository,
+                   Repository<Judge> judgeRepository, CriteriaBackup backup) {
+        this.roundId = roundId;
+        this.apiClient = apiClient;
+        this.teamRepository = teamRepository;
+        this.judgeRepository = judgeRepository;
+        this.backup = backup;
+    }
+
+    /**
+     * Fetches whatever is not loaded yet; parts already loaded are never fetched again, and a
+     * part being fetched for another caller is shared rather than fetched twice.
+     */
+    public void load(Listener listener) {
+        boolean fetchTeams;
+        boolean fetchCriteria;
+        boolean fetchJudges;
+        synchronized (this) {
+            fetchTeams = teams.begin();
+            fetchCriteria = criteria.begin();
+            fetchJudges = judges.begin();
+            if (!isSettled()) {
+                waiting.add(listener);
+                listener = null;
+            }
+        }
+        if (listener != null) {
+            listener.onReady(this);
+            return;
+        }
+        if (fetchTeams) fetchTeams();
+        if (fetchCriteria) fetchCriteria();
+        if (fetchJudges) fetchJudges();
+    }
+
+    public String getRoundId() {
+        return roundId;
+    }
+
+    /** @return The round's teams, or null if they could not be loaded. */
+    public synchronized List<Team> getTeams() {
+        return teams.value;
+    }
+
+    /** @return The round's criteria, or null if they could not be loaded. */
+    public synchronized List<Criteria> getCriteria() {
+        return criteria.value;
+    }
+
+    /** @return Every judge, or null if they could not be loaded. */
+    public synchronized List<Judge> getJudges() {
+        return judges.value;
+    }
+
+    /** @return True if the server could not be reached and the criteria were read from the device. */
+    public synchronized boolean isOfflineCriteria() {
+        return offlineCriteria;
+    }
+
+    private void fetchTeams() {
+        teamRepository.load(apiClient, Repositories.roundTeams(roundId), new ApiCallback<List<Team>>() {
+            @Override
+            public void onSuccess(List<Team> result) {
+                finish(teams, result, false);
+            }
+
+            @Override
+            public void onError(int code, String errorBody) {
+                Log.e(TAG, "Error loading teams for round " + roundId + ": " + errorBody);
+                finish(teams, null, false);
+            }
+
+            @Override
+            public void onFailure(@NonNull IOException e) {
+                Log.e(TAG, "Failed to load teams for round " + roundId, e);
+                finish(teams, null, false);
+            }
+        });
+    }
+
+    private void fetchCriteria() {
+        apiClient.get("rounds/" + roundId, Round.class, new ApiCallback<Round>() {
+            @Override
+            public void onSuccess(Round round) {
+                List<Criteria> list = round != null && round.getCriteria() != null
+                        ? round.getCriteria() : Collections.<Criteria>emptyList();
+                if (!list.isEmpty()) {
+                    try {
+                        backup.save(roundId, list);
+                    } catch (RuntimeException e) {
+                        Log.w(TAG, "Could not store criteria", e);
+                    }
+                }
+                finish(criteria, Collections.unmodifiableList(list), false);
+            }
+
+            @Override
+            public void onError(int code, String errorBody) {
+                Log.e(TAG, "Error loading criteria for round " + roundId + ": " + errorBody);
+                useStoredCriteria();
+            }
+
+            @Override
+            public void onFailure(@NonNull IOException e) {
+                Log.e(TAG, "Failed to load criteria for round " + roundId, e);
+                useStoredCriteria();
+            }
+        });
+    }
+
+    private void useStoredCriteria() {
+        List<Criteria> stored = null;
+        try {
+            stored = backup.read(roundId);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Could not read stored criteria", e);
+        }
+        if (stored == null || stored.isEmpty()) {
+            finish(criteria, null, false);
+        } else {
+            // Still worth asking the server on the next load()
+            finish(criteria, Collections.unmodifiableList(stored), true);
+        }
+    }
+
+    private void fetchJudges() {
+        judgeRepository.load(apiClient, "judges", new ApiCallback<List<Judge>>() {
+            @Override
+            public void onSuccess(List<Judge> result) {
+                finish(judges, result, false);
+            }
+
+            @Override
+            public void onError(int code, String errorBody) {
+                Log.e(TAG, "Error loading judges: " + errorBody);
+                finish(judges, null, false);
+            }
+
+            @Override
+            public void onFailure(@NonNull IOException e) {
+                Log.e(TAG, "Failed to load judges", e);
+                finish(judges, null, false);
+            }
+        });
+    }
+
+    private <T> void finish(Part<T> part, T value, boolean fromDevice) {
+        List<Listener> ready;
+        synchronized (this) {
+            part.loading = false;
+            part.value = value;
+            // A copy from the device is used, but the server is asked again next time
+            part.loaded = value != null && !fromDevice;
+            if (part == criteria) offlineCriteria = fromDevice;
+            if (!isSettled()) return;
+            ready = new ArrayList<>(waiting);
+            waiting.clear();
+        }
+        for (Listener listener : ready) {
+            listener.onReady(this);
+        }
+    }
+
+    private boolean isSettled() {
+        return !teams.loading && !criteria.loading && !judges.loading;
+    }
+
+    // One thing the session loads; guarded by the session
+    private static final class Part<T> {
+        T value;
+        boolean loaded;
+        boolean loading;
+
+        // Returns true if the caller has to fetch it
+        boolean begin() {
+            if (loaded || loading) return false;
+            loading = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.user;
+
+import java.io.IOException;
+import okio.BufferedSource;
+
+/**
+ * Minimal text/event-stream reader: splits a stream into events as described by the
+ * Server-Sent Events spec (id, event, data and retry fields; comment lines are ignored).
+ */
+final class ServerSentEvents {
+
+    interface Handler {
+        /**
+         * @param id The event's id, or the last id seen if it had none; null if none was ever sent.
+         * @param type The event type, "message" if the server did not name one.
+         * @param data The event data, with multiple data lines joined by '\n'.
+         */
+        void onEvent(String id, String type, String data) throws IOException;
+
+        /** The server asked clients to wait this long before reconnecting. */
+        void onRetry(long delayMs);
+    }
+
+    private ServerSentEvents() {}
+
+    /**
+     * Reads events until the stream ends or the handler throws.
+     * @param source The response body.
+     * @param lastEventId The id to report until the server sends one, e.g. the Last-Event-ID sent.
+     */
+    static void read(BufferedSource source, String lastEventId, Handler handler) throws IOException {
+        String id = lastEventId;
+        String type = null;
+        StringBuilder data = null;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                if (data != null) {
+                    handler.onEvent(id, type != null ? type : "message", data.toString());
+                }
+                type = null;
+                data = null;
+                continue;
+            }
+            if (line.charAt(0) == ':') continue; // Comment, e.g. the server's heartbeat
+
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) value = value.substring(1);
+
+            switch (field) {
+                case "data":
+                    if (data == null) data = new StringBuilder(value);
+                    else data.append('\n').append(value);
+                    break;
+                case "event":
+                    type = value;
+                    break;
+                case "id":
+                    if (value.indexOf('\0') < 0) id = value;
+                    break;
+                case "retry":
+                    try {
+                        handler.onRetry(Long.parseLong(value));
+                    } catch (NumberFormatException ignored) {}
+                    break;
+                default:
+                    break; // Unknown fields are ignored
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+
+/**
+ * Coalesces identical GET requests that are in flight at the same time into a single
+ * network call, then fans the result out to every waiting callback.
+ *
+ * Two calls are identical when they have the same URL and auth token, e.g. "teams" being
+ * loaded by TeamsFragment and NewRoundRegisterActivity at once. Only enqueue() coalesces;
+ * execute() always goes straight to the network.
+ */
+public class SingleFlight {
+
+    private final Map<String, Flight> inFlight = new HashMap<>();
+
+    /**
+     * Wraps a fresh network call so that enqueueing it joins any identical call already running.
+     * @param networkCall A call that has not been executed yet.
+     * @return A call that can be used exactly like the one passed in.
+     */
+    public Call newCall(Call networkCall) {
+        return new CoalescedCall(networkCall);
+    }
+
+    /** Number of distinct network calls currently shared by waiters. */
+    public synchronized int inFlightCount() {
+        return inFlight.size();
+    }
+
+    static String keyOf(Request request) {
+        return request.method() + " " + request.url() + " " + request.header("x-auth-token");
+    }
+
+    private void join(CoalescedCall waiter, Callback callback) {
+        String key = keyOf(waiter.request());
+        Flight flight;
+        boolean leader = false;
+        synchronized (this) {
+            flight = inFlight.get(key);
+            if (flight == null) {
+                flight = new Flight(key, waiter.networkCall);
+                inFlight.put(key, flight);
+                leader = true;
+            }
+            flight.waiters.add(new Waiter(waiter, callback));
+            waiter.flight = flight;
+        }
+        if (leader) {
+            flight.networkCall.enqueue(flight);
+        }
+    }
+
+    private void leave(CoalescedCall waiter) {
+        Flight flight = waiter.flight;
+        if (flight == null) return;
+        synchronized (this) {
+            for (Waiter w : flight.waiters) {
+                if (!w.call.canceled) return;
+            }
+            // Nobody is left to wait for it, so a later identical request starts afresh instead of
+            // joining a call that is about to fail with "Canceled"
+            if (inFlight.get(flight.key) == flight) {
+                inFlight.remove(flight.key);
+            }
+        }
+        flight.networkCall.cancel();
+    }
+
+    // Removes the flight so later requests start a new network call, and returns its waiters
+    private synchronized List<Waiter> complete(Flight flight) {
+        if (inFlight.get(flight.key) == flight) {
+            inFlight.remove(flight.key);
+        }
+        return new ArrayList<>(flight.waiters);
+    }
+
+    private static final class Waiter {
+        final CoalescedCall call;
+        final Callback callback;
+
+        Waiter(CoalescedCall call, Callback callback) {
+            this.call = call;
+            this.callback = callback;
+        }
+    }
+
+    private final class Flight implements Callback {
+        final String key;
+        final Call networkCall;
+        final List<Waiter> waiters = new ArrayList<>();
+
+        Flight(String key, Call networkCall) {
+            this.key = key;
+            this.networkCall = networkCall;
+        }
+
+        @Override
+        public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            fanOut(complete(this), waiter -> waiter.callback.onFailure(waiter.call, e));
+        }
+
+        @Override
+        public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+            List<Waiter> waiters = complete(this);
+            if (waiters.size() == 1) {
+                // Nobody joined, so hand over the live response and keep the body streaming
+                deliver(waiters.get(0), response);
+                return;
+            }
+
+            // The body can only be read once; buffer it and give every waiter its own copy
+            byte[] bytes;
+            MediaType contentType;
+            try (ResponseBody body = response.body()) {
+                contentType = body != null ? body.contentType() : null;
+                bytes = body != null ? body.bytes() : new byte[0];
+            } catch (IOException e) {
+                fanOut(waiters, waiter -> waiter.callback.onFailure(waiter.call, e));
+                return;
+            }
+            fanOut(waiters, waiter -> deliver(waiter, response.newBuilder()
+                    .request(waiter.call.request())
+                    .body(ResponseBody.create(bytes, contentType))
+                    .build()));
+        }
+
+        private void deliver(Waiter waiter, Response response) {
+            if (waiter.call.canceled) {
+                response.close();
+                waiter.callback.onFailure(waiter.call, new IOException("Canceled"));
+                return;
+            }
+            try {
+                waiter.callback.onResponse(waiter.call, response);
+            } catch (IOException e) {
+                waiter.callback.onFailure(waiter.call, e);
+            }
+        }
+
+        // Calls back every waiter even if one of them throws, then rethrows the first throw to
+        // OkHttp, as an uncoalesced call would have
+        private void fanOut(List<Waiter> waiters, Consumer<Waiter> callBack) {
+            RuntimeException thrown = null;
+            for (Waiter waiter : waiters) {
+                try {
+                    callBack.accept(waiter);
+                } catch (RuntimeException e) {
+                    if (thrown == null) thrown = e;
+                    else thrown.addSuppressed(e);
+                }
+            }
+            if (thrown != null) throw thrown;
+        }
+    }
+
+    private final class CoalescedCall implements Call {
+        private final Call networkCall;
+        private volatile boolean executed;
+        private volatile boolean canceled;
+        private volatile Flight flight;
+
+        CoalescedCall(Call networkCall) {
+            this.networkCall = networkCall;
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return networkCall.request();
+        }
+
+        @NonNull
+        @Override
+        public Response execute() throws IOException {
+            markExecuted();
+            return networkCall.execute();
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback callback) {
+            markExecuted();
+            join(this, callback);
+        }
+
+        @Override
+        public void cancel() {
+            canceled = true;
+            if (flight != null) {
+                leave(this);
+            } else {
+                networkCall.cancel();
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return networkCall.timeout();
+        }
+
+        @NonNull
+        @Override
+        public Call clone() {
+            return new CoalescedCall(networkCall.clone());
+        }
+
+        private synchronized void markExecuted() {
+            if (executed) throw new IllegalStateException("Already Executed");
+            executed = true;
+        }
+    }
+}
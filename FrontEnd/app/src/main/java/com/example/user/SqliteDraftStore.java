@@ -0,0 +1,75 @@
+package com.example.user;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps score drafts in their own SQLite file, one row per typed criterion. Like the outbox,
+ * drafts cannot be fetched again, so upgrades must migrate rows rather than drop them.
+ */
+class SqliteDraftStore extends SQLiteOpenHelper implements DraftStore {
+
+    static final String DATABASE_NAME = "score_drafts.db";
+    private static final int DATABASE_VERSION = 1;
+
+    SqliteDraftStore(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE drafts ("
+                + "round_id TEXT NOT NULL, judge_id TEXT NOT NULL, team_id TEXT NOT NULL, "
+                + "criterion_id TEXT NOT NULL, value TEXT NOT NULL, "
+                + "PRIMARY KEY (round_id, judge_id, team_id, criterion_id))");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // No upgrades yet; add ALTER TABLE steps here so typed scores survive them
+    }
+
+    @Override
+    public Map<String, Map<String, String>> load(String roundId, String judgeId) {
+        Map<String, Map<String, String>> drafts = new HashMap<>();
+        try (Cursor cursor = getReadableDatabase().query("drafts", new String[]{"team_id", "criterion_id", "value"},
+                "round_id = ? AND judge_id = ?", new String[]{roundId, judgeId}, null, null, null)) {
+            while (cursor.moveToNext()) {
+                Map<String, String> scores = drafts.get(cursor.getString(0));
+                if (scores == null) {
+                    scores = new HashMap<>();
+                    drafts.put(cursor.getString(0), scores);
+                }
+                scores.put(cursor.getString(1), cursor.getString(2));
+            }
+        }
+        return drafts;
+    }
+
+    @Override
+    public void save(String roundId, String judgeId, String teamId, Map<String, String> scores) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete("drafts", "round_id = ? AND judge_id = ? AND team_id = ?", new String[]{roundId, judgeId, teamId});
+            ContentValues values = new ContentValues();
+            for (Map.Entry<String, String> score : scores.entrySet()) {
+                values.clear();
+                values.put("round_id", roundId);
+                values.put("judge_id", judgeId);
+                values.put("team_id", teamId);
+                values.put("criterion_id", score.getKey());
+                values.put("value", score.getValue());
+                db.insert("drafts", null, values);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
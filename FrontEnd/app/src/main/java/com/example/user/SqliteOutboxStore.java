@@ -0,0 +1,83 @@
+package com.example.user;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the score outbox in its own SQLite file. Unlike the LocalStore, nothing in here can be
+ * fetched again, so upgrades must migrate rows rather than drop them.
+ */
+class SqliteOutboxStore extends SQLiteOpenHelper implements OutboxStore {
+
+    static final String DATABASE_NAME = "score_outbox.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String[] COLUMNS = {
+            "idempotency_key", "round_id", "judge_id", "team_id", "team_name", "body",
+            "state", "attempts", "next_attempt_at", "last_error", "created_at", "updated_at"};
+
+    SqliteOutboxStore(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE outbox ("
+                + "idempotency_key TEXT PRIMARY KEY, round_id TEXT NOT NULL, judge_id TEXT NOT NULL, "
+                + "team_id TEXT NOT NULL, team_name TEXT, body TEXT NOT NULL, state TEXT NOT NULL, "
+                + "attempts INTEGER NOT NULL, next_attempt_at INTEGER NOT NULL, last_error TEXT, "
+                + "created_at INTEGER NOT NULL, updated_at INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // No upgrades yet; add ALTER TABLE steps here so unsent scores survive them
+    }
+
+    @Override
+    public List<ScoreOutbox.Entry> loadAll() {
+        List<ScoreOutbox.Entry> entries = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query("outbox", COLUMNS, null, null, null, null, "created_at")) {
+            while (cursor.moveToNext()) {
+                ScoreOutbox.Entry entry = new ScoreOutbox.Entry(cursor.getString(0), cursor.getString(1),
+                        cursor.getString(2), cursor.getString(3), cursor.getString(4), cursor.getString(5),
+                        cursor.getLong(10));
+                entry.state = ScoreOutbox.State.valueOf(cursor.getString(6));
+                entry.attempts = cursor.getInt(7);
+                entry.nextAttemptAt = cursor.getLong(8);
+                entry.lastError = cursor.getString(9);
+                entry.updatedAt = cursor.getLong(11);
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void save(ScoreOutbox.Entry entry) {
+        ContentValues values = new ContentValues();
+        values.put("idempotency_key", entry.idempotencyKey);
+        values.put("round_id", entry.roundId);
+        values.put("judge_id", entry.judgeId);
+        values.put("team_id", entry.teamId);
+        values.put("team_name", entry.teamName);
+        values.put("body", entry.body);
+        values.put("state", entry.state.name());
+        values.put("attempts", entry.attempts);
+        values.put("next_attempt_at", entry.nextAttemptAt);
+        values.put("last_error", entry.lastError);
+        values.put("created_at", entry.createdAt);
+        values.put("updated_at", entry.updatedAt);
+        getWritableDatabase().insertWithOnConflict("outbox", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    @Override
+    public void delete(String idempotencyKey) {
+        getWritableDatabase().delete("outbox", "idempotency_key = ?", new String[]{idempotencyKey});
+    }
+}
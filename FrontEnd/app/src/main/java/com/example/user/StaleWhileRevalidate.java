@@ -0,0 +1,194 @@
+package com.example.user;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Brings a LocalStore list up to date with the server. List screens show the stored copy
+ * right away by paging through the store (see PagedList) and read it again once this has
+ * written the server's copy back.
+ *
+ * Once the server has given the list a watermark, later loads ask only for what changed
+ * since then (see ListChanges) and merge it into the stored copy, so a list of thousands of
+ * registrants costs a few rows per refresh instead of all of them. The whole list is fetched
+ * again when there is nothing stored to merge into or the server answers 410 Gone because it
+ * no longer has changes that far back.
+ *
+ * Refreshes of a list that has been synced before are background work for RequestScheduler; one
+ * dropped while the network is busy, or cancelled because its screen was left, calls nothing
+ * back, and the next load tries again.
+ *
+ * A synced list is also handed to its Repository, so other screens showing it need not fetch it.
+ */
+public final class StaleWhileRevalidate {
+
+    private static final String TAG = "StaleWhileRevalidate";
+
+    /** Where a synced list is kept between loads; a LocalStore list in the app. */
+    interface StoredList<T> {
+        /** @return The stored list, or null if there is none. */
+        List<T> read();
+
+        /** @return The watermark it was synced to, or null. */
+        String watermark();
+
+        void replace(List<T> items, String watermark);
+
+        void applyChanges(ListChanges<T> changes);
+    }
+
+    private StaleWhileRevalidate() {}
+
+    /**
+     * @param apiClient Client to fetch the fresh list with.
+     * @param store Where the last fetched list is kept.
+     * @param kind What the list holds.
+     * @param scope The store scope, LocalStore.GLOBAL or e.g. a round id.
+     * @param endpoint The GET endpoint that returns the list, e.g. "teams".
+     * @param callback Receives the fresh list once it has been stored, or onError or onFailure,
+     *                 on a background thread.
+     */
+    public static <T> void load(ApiClient apiClient, LocalStore store, LocalStore.Kind<T> kind, String scope,
+                                String endpoint, ApiCallback<List<T>> callback) {
+        Repository<T> repository = Repositories.of(kind);
+        load(apiClient, new StoredList<T>() {
+            @Override
+            public List<T> read() {
+                return store.read(kind, scope);
+            }
+
+            @Override
+            public String watermark() {
+                return store.watermark(kind, scope);
+            }
+
+            @Override
+            public void replace(List<T> items, String watermark) {
+                store.replace(kind, scope, items, watermark);
+            }
+
+            @Override
+            public void applyChanges(ListChanges<T> changes) {
+                store.applyChanges(kind, scope, changes.items, changes.deletedIds, changes.watermark);
+            }
+        }, kind.adapter, kind.idOf, endpoint, AppExecutors.background(), repository == null ? callback : new ApiCallback<List<T>>() {
+            @Override
+            public void onSuccess(List<T> fresh) {
+                callback.onSuccess(fresh != null ? repository.put(endpoint, fresh) : null);
+            }
+
+            @Override
+            public void onError(int code, String errorBody) {
+                callback.onError(code, errorBody);
+            }
+
+            @Override
+            public void onFailure(@NonNull IOException e) {
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * @param disk Runs the watermark read that comes before the request.
+     */
+    static <T> void load(ApiClient apiClient, StoredList<T> stored, TypeAdapter<T> adapter, Function<T, String> idOf,
+                         String endpoint, Executor disk, ApiCallback<List<T>> callback) {
+        disk.execute(() -> {
+            String watermark = null;
+            try {
+                watermark = stored.watermark(); // One small row; the request cannot be built without it
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not read the watermark for " + endpoint, e);
+            }
+            fetch(apiClient, stored, adapter, idOf, endpoint, watermark, callback);
+        });
+    }
+
+    private static <T> void fetch(ApiClient apiClient, StoredList<T> stored, TypeAdapter<T> adapter,
+                                  Function<T, String> idOf, String endpoint, String watermark,
+                                  ApiCallback<List<T>> callback) {
+        apiClient.getChanges(endpoint, watermark).enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                if (e instanceof RequestScheduler.ShedException || call.isCanceled()) {
+                    return; // Dropped while the network was busy, or the screen left; the stored copy stays
+                }
+                callback.onFailure(e);
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                ListChanges<T> changes;
+                try (ResponseBody body = response.body()) {
+                    if (response.code() == 410 && watermark != null) {
+                        fetch(apiClient, stored, adapter, idOf, endpoint, null, callback);
+                        return;
+                    }
+                    if (!response.isSuccessful()) {
+                        callback.onError(response.code(), body != null ? body.string() : "");
+                        return;
+                    }
+                    if (body == null) {
+                        callback.onSuccess(null);
+                        return;
+                    }
+                    long parseStart = System.nanoTime();
+                    changes = ListChanges.read(new JsonReader(body.charStream()), adapter);
+                    NetworkMetrics metrics = apiClient.networkMetrics();
+                    if (metrics != null) metrics.recordParse(endpoint, System.nanoTime() - parseStart);
+                } catch (IOException e) {
+                    if (!call.isCanceled()) callback.onFailure(e);
+                    return;
+                } catch (RuntimeException e) {
+                    if (!call.isCanceled()) callback.onFailure(new IOException("Malformed JSON response", e));
+                    return;
+                }
+
+                // Changes to nothing, if the server sends them, are the whole list
+                boolean whole = changes.complete || watermark == null;
+                List<T> fresh;
+                if (whole) {
+                    fresh = changes.items;
+                } else {
+                    List<T> base = read(stored, endpoint);
+                    if (base == null) {
+                        // Nothing to merge the changes into, e.g. the store was cleared meanwhile
+                        fetch(apiClient, stored, adapter, idOf, endpoint, null, callback);
+                        return;
+                    }
+                    fresh = changes.applyTo(base, idOf);
+                }
+                try {
+                    if (whole) {
+                        stored.replace(fresh, changes.watermark);
+                    } else {
+                        stored.applyChanges(changes);
+                    }
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Could not store " + endpoint, e);
+                }
+                callback.onSuccess(fresh);
+            }
+        });
+    }
+
+    private static <T> List<T> read(StoredList<T> stored, String endpoint) {
+        try {
+            return stored.read();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Could not read stored " + endpoint, e);
+            return null;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.user;
 
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -15,20 +17,12 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
-import java.io.IOException;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Response;
 
 public class StartActivity extends AppCompatActivity {
     private static final String TAG = "StartActivity";
@@ -42,11 +36,13 @@ public class StartActivity extends AppCompatActivity {
     private List<Team> teamList = new ArrayList<>();
     private List<Criteria> criteriaList = new ArrayList<>();
     private Map<String, EditText> criteriaEditTextMap = new HashMap<>();
+    private final List<CriterionRow> criterionRows = new ArrayList<>();
     private int selectedTeamAdapterPosition = -1;
 
-    private ApiClient apiClient;
-    private Gson gson = new Gson();
     private TeamAdapter teamAdapter;
+    private ScoreOutbox scoreOutbox;
+    private DraftScores scoreDrafts;
+    private ScoreOutbox.Listener outboxListener;
 
     interface TeamSelectionListener {
         void onTeamSelected(int position);
@@ -57,7 +53,8 @@ public class StartActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_start);
 
-        apiClient = new ApiClient(this);
+        scoreOutbox = ScoreOutbox.get(this);
+        scoreDrafts = DraftScores.get(this);
         initializeViews();
 
         roundId = getIntent().getStringExtra("ROUND_ID");
@@ -75,10 +72,10 @@ public class StartActivity extends AppCompatActivity {
 
         setupRecyclerView();
         setupButtonListeners();
+        observeSubmissions();
 
-        if (progressBar != null) progressBar.setVisibility(View.VISIBLE);
-        fetchTeamsForRound();
-        fetchCriteriaForRound(); // Fetch criteria immediately
+        // Drafts first, so a team tapped as soon as the list shows already has its scores
+        scoreDrafts.load(roundId, judgeId, () -> runOnUiThread(this::loadSession));
     }
 
     private void initializeViews() {
@@ -99,107 +96,84 @@ public class StartActivity extends AppCompatActivity {
         teamRecyclerView.setAdapter(teamAdapter);
     }
 
-    private void onTeamSelected(int position) {
-        this.selectedTeamAdapterPosition = position;
-        inflateCriteriaForSelectedTeam();
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (scoreDrafts != null) scoreDrafts.flush();
     }
 
-    // Counter for outstanding async operations
-    private int dataFetchCounter = 0;
-    private final Object lock = new Object(); // For synchronizing counter
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (outboxListener != null) scoreOutbox.removeListener(outboxListener);
+    }
 
-    private void checkAndHideProgressBar() {
-        synchronized(lock) {
-            dataFetchCounter--;
-            if (dataFetchCounter <= 0 && progressBar != null) {
-                runOnUiThread(() -> progressBar.setVisibility(View.GONE));
+    // Keeps each team card's pending / sending / saved label in step with the outbox
+    private void observeSubmissions() {
+        outboxListener = new ScoreOutbox.Listener() {
+            @Override
+            public void onOutboxChanged(List<ScoreOutbox.Entry> entries) {
+                Map<String, ScoreOutbox.State> states = ScoreOutbox.statesByTeam(entries, roundId, judgeId);
+                runOnUiThread(() -> teamAdapter.setSubmissionStates(states));
             }
-        }
+        };
+        scoreOutbox.addListener(outboxListener);
     }
 
+    private void onTeamSelected(int position) {
+        this.selectedTeamAdapterPosition = position;
+        bindCriteriaForSelectedTeam();
+    }
 
-    private void fetchTeamsForRound() {
-        synchronized(lock) { dataFetchCounter++; } // Increment counter before starting fetch
-        apiClient.get("rounds/" + roundId + "/teams").enqueue(new Callback() {
+    // Teams, criteria and judges come from the round's session; only the first screen of a round loads them
+    private void loadSession() {
+        ScoringSession session = ScoringSession.forRound(this, roundId);
+        if (progressBar != null) progressBar.setVisibility(View.VISIBLE);
+        session.load(new ScoringSession.Listener() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Failed fetchTeamsForRound", e);
-                runOnUiThread(() -> {
-                    checkAndHideProgressBar(); // Decrement counter on failure
-                    Toast.makeText(StartActivity.this, "Failed to load teams", Toast.LENGTH_SHORT).show();
-                });
-            }
-            @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String body = response.body().string();
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Failed fetchTeamsForRound: " + body);
-                    runOnUiThread(() -> {
-                        checkAndHideProgressBar(); // Decrement counter on error response
-                        Toast.makeText(StartActivity.this, "Error loading teams", Toast.LENGTH_SHORT).show();
-                    });
-                    return;
-                }
-                Type listType = new TypeToken<ArrayList<Team>>(){}.getType();
-                List<Team> fetchedTeams = gson.fromJson(body, listType);
-                runOnUiThread(() -> {
-                    checkAndHideProgressBar(); // Decrement counter on success
-                    if (fetchedTeams != null) {
-                        teamList.clear();
-                        teamList.addAll(fetchedTeams);
-                        teamAdapter.notifyDataSetChanged();
-                    }
-                    checkDataAndInflateCriteria();
-                });
+            public void onReady(ScoringSession loaded) {
+                runOnUiThread(() -> showSession(loaded));
             }
         });
     }
 
-    private void fetchCriteriaForRound() {
-        synchronized(lock) { dataFetchCounter++; } // Increment counter
-        apiClient.get("rounds/" + roundId).enqueue(new Callback() { // Use the GET /api/rounds/:id endpoint
-            @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Failed fetchCriteriaForRound", e);
-                runOnUiThread(() -> {
-                    checkAndHideProgressBar(); // Decrement counter
-                    Toast.makeText(StartActivity.this, "Failed to load criteria", Toast.LENGTH_SHORT).show();
-                });
-            }
-            @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String body = response.body().string();
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Failed fetchCriteriaForRound: " + body);
-                    runOnUiThread(() -> {
-                        checkAndHideProgressBar(); // Decrement counter
-                        Toast.makeText(StartActivity.this, "Error loading criteria", Toast.LENGTH_SHORT).show();
-                    });
-                    return;
-                }
-                Round round = gson.fromJson(body, Round.class);
-                runOnUiThread(() -> {
-                    checkAndHideProgressBar(); // Decrement counter
-                    if (round != null && round.getCriteria() != null && !round.getCriteria().isEmpty()) {
-                        criteriaList.clear();
-                        criteriaList.addAll(round.getCriteria());
-                        Log.d(TAG, "Criteria fetched: " + criteriaList.size());
-                        checkDataAndInflateCriteria();
-                    } else {
-                        Log.w(TAG, "No criteria found in response");
-                        Toast.makeText(StartActivity.this, "No criteria defined", Toast.LENGTH_SHORT).show();
-                        criteriaList.clear();
-                        inflateCriteriaForSelectedTeam(); // Clear UI
-                    }
-                });
+    private void showSession(ScoringSession session) {
+        if (progressBar != null) progressBar.setVisibility(View.GONE);
+
+        List<Team> teams = session.getTeams();
+        if (teams != null) {
+            teamList.clear();
+            teamList.addAll(teams);
+            teamAdapter.notifyDataSetChanged();
+        } else {
+            Toast.makeText(this, "Failed to load teams", Toast.LENGTH_SHORT).show();
+        }
+
+        List<Criteria> criteria = session.getCriteria();
+        criteriaList.clear();
+        if (criteria == null) {
+            Toast.makeText(this, "Failed to load criteria", Toast.LENGTH_SHORT).show();
+        } else if (criteria.isEmpty()) {
+            Log.w(TAG, "No criteria found in response");
+            Toast.makeText(this, "No criteria defined", Toast.LENGTH_SHORT).show();
+        } else {
+            criteriaList.addAll(criteria);
+            Log.d(TAG, "Criteria loaded: " + criteriaList.size());
+            if (session.isOfflineCriteria()) {
+                Toast.makeText(this, "Offline: using saved criteria", Toast.LENGTH_SHORT).show();
             }
-        });
+        }
+        if (criteriaList.isEmpty()) {
+            bindCriteriaForSelectedTeam(); // Clear UI
+        } else {
+            checkDataAndInflateCriteria();
+        }
     }
 
     private void checkDataAndInflateCriteria() {
         if (!criteriaList.isEmpty() && selectedTeamAdapterPosition != -1) {
             Log.d(TAG, "Both ready, inflating criteria UI.");
-            inflateCriteriaForSelectedTeam();
+            bindCriteriaForSelectedTeam();
         } else {
             Log.d(TAG, "Not inflating. Criteria loaded: " + !criteriaList.isEmpty() + ", Team idx: " + selectedTeamAdapterPosition);
         }
@@ -209,13 +183,15 @@ public class StartActivity extends AppCompatActivity {
     private void setupButtonListeners() {
         submitBtn.setOnClickListener(v -> submitScores());
         resetBtn.setOnClickListener(v -> {
-            if (selectedTeamAdapterPosition != -1) {
-                inflateCriteriaForSelectedTeam();
+            if (selectedTeamAdapterPosition != -1 && selectedTeamAdapterPosition < teamList.size()) {
+                scoreDrafts.clear(roundId, judgeId, teamList.get(selectedTeamAdapterPosition).getId());
+                bindCriteriaForSelectedTeam();
                 Toast.makeText(this, "Scores reset", Toast.LENGTH_SHORT).show();
             } else { Toast.makeText(this, "Select a team first!", Toast.LENGTH_SHORT).show(); }
         });
         endRoundBtn.setOnClickListener(v -> {
             // TODO: Update round status via API PUT /api/rounds/:id { "status": "Finished" }
+            ScoringSession.discard(roundId);
             Toast.makeText(this, "Round ended!", Toast.LENGTH_SHORT).show();
             finish();
         });
@@ -227,80 +203,46 @@ public class StartActivity extends AppCompatActivity {
         }
 
         Team selectedTeam = teamList.get(selectedTeamAdapterPosition);
-        JSONArray scoresByCriteria = new JSONArray();
         boolean allScoresEntered = true;
 
         if (criteriaList.isEmpty()) {
             Toast.makeText(this, "No criteria loaded.", Toast.LENGTH_SHORT).show(); return;
         }
 
+        int[] scores = new int[criteriaList.size()];
         try {
-            for (Criteria criterion : criteriaList) {
+            for (int i = 0; i < criteriaList.size(); i++) {
+                Criteria criterion = criteriaList.get(i);
                 EditText scoreEditText = criteriaEditTextMap.get(criterion.getId());
                 if (scoreEditText == null) { allScoresEntered = false; break; }
                 String scoreStr = scoreEditText.getText().toString().trim();
                 if (scoreStr.isEmpty()) { Toast.makeText(this, "Enter score for " + criterion.getName(), Toast.LENGTH_SHORT).show(); allScoresEntered = false; break; }
                 int score = Integer.parseInt(scoreStr);
                 if (score < 0 || score > criterion.getMaxScore()) { Toast.makeText(this, "Score for " + criterion.getName() + " must be 0-" + criterion.getMaxScore(), Toast.LENGTH_SHORT).show(); allScoresEntered = false; break; }
-                JSONObject criteriaScore = new JSONObject();
-                criteriaScore.put("criterionId", criterion.getId());
-                criteriaScore.put("score", score);
-                scoresByCriteria.put(criteriaScore);
+                scores[i] = score;
             }
         } catch (Exception e) { Toast.makeText(this, "Invalid score.", Toast.LENGTH_SHORT).show(); return; }
 
         if (!allScoresEntered) { return; }
 
-        JSONObject jsonBody = new JSONObject();
+        JSONObject jsonBody;
         try {
-            jsonBody.put("teamId", selectedTeam.getId());
-            jsonBody.put("roundId", roundId);
-            jsonBody.put("judgeId", judgeId);
-            jsonBody.put("scoresByCriteria", scoresByCriteria);
+            jsonBody = ScorePayloads.submission(selectedTeam.getId(), roundId, judgeId, criteriaList, scores);
         } catch (JSONException e) { return; }
 
-        submitBtn.setEnabled(false);
-        if (progressBar != null) progressBar.setVisibility(View.VISIBLE);
-
-        apiClient.post("scores", jsonBody.toString()).enqueue(new Callback() {
-            @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Score submission failed", e);
-                runOnUiThread(() -> {
-                    if (progressBar != null) progressBar.setVisibility(View.GONE);
-                    submitBtn.setEnabled(true);
-                    Toast.makeText(StartActivity.this, "Submission failed: Network error", Toast.LENGTH_SHORT).show();
-                });
-            }
-            @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException{
-                final String responseBody = response.body().string();
-                runOnUiThread(() -> {
-                    if (progressBar != null) progressBar.setVisibility(View.GONE);
-                    submitBtn.setEnabled(true);
-                    if (response.isSuccessful()) {
-                        Toast.makeText(StartActivity.this, "Scores submitted for " + selectedTeam.getName(), Toast.LENGTH_SHORT).show();
-                        int previouslySelected = selectedTeamAdapterPosition;
-                        selectedTeamAdapterPosition = -1;
-                        teamAdapter.deselectItem(previouslySelected);
-                        inflateCriteriaForSelectedTeam();
-                    } else {
-                        Log.e(TAG, "Score submission error: " + responseBody);
-                        String errorMsg = "Submission error";
-                        try {
-                            JSONObject errorJson = new JSONObject(responseBody);
-                            errorMsg = errorJson.optString("message", errorMsg);
-                        } catch (JSONException ignored) {}
-                        Toast.makeText(StartActivity.this, errorMsg, Toast.LENGTH_SHORT).show();
-                    }
-                });
-            }
-        });
+        // Saved on the device first; the outbox sends it, retrying until the server has it
+        scoreOutbox.enqueue(roundId, judgeId, selectedTeam.getId(), selectedTeam.getName(), jsonBody.toString());
+        scoreDrafts.clear(roundId, judgeId, selectedTeam.getId());
+        Toast.makeText(this, "Scores saved for " + selectedTeam.getName(), Toast.LENGTH_SHORT).show();
+        int previouslySelected = selectedTeamAdapterPosition;
+        selectedTeamAdapterPosition = -1;
+        teamAdapter.deselectItem(previouslySelected);
+        bindCriteriaForSelectedTeam();
     }
 
-    private void inflateCriteriaForSelectedTeam() {
-        Log.d(TAG, "InflateCriteria. Selected Idx: " + selectedTeamAdapterPosition + ", Criteria Loaded: " + criteriaList.size());
-        criteriaContainer.removeAllViews();
+    // Rows are inflated once per criterion, then rebound for each team with that team's draft
+    private void bindCriteriaForSelectedTeam() {
+        Log.d(TAG, "BindCriteria. Selected Idx: " + selectedTeamAdapterPosition + ", Criteria Loaded: " + criteriaList.size());
         criteriaEditTextMap.clear();
 
         if (selectedTeamAdapterPosition == -1 || selectedTeamAdapterPosition >= teamList.size() || criteriaList.isEmpty()) {
@@ -309,22 +251,69 @@ public class StartActivity extends AppCompatActivity {
             return;
         }
 
+        Team team = teamList.get(selectedTeamAdapterPosition);
         criteriaContainer.setVisibility(View.VISIBLE);
-        textSelectedTeam.setText("Selected Team: " + teamList.get(selectedTeamAdapterPosition).getName());
-        Log.d(TAG, "Inflating for team: " + teamList.get(selectedTeamAdapterPosition).getName());
+        textSelectedTeam.setText("Selected Team: " + team.getName());
 
         LayoutInflater inflater = LayoutInflater.from(this);
-        for (Criteria criterion : criteriaList) {
-            View criteriaView = inflater.inflate(R.layout.item_score_input, criteriaContainer, false);
-            TextView criteriaName = criteriaView.findViewById(R.id.text_criteria_name);
-            EditText scoreEdit = criteriaView.findViewById(R.id.edit_score);
-            if (criteriaName != null && scoreEdit != null && criterion != null) {
-                criteriaName.setText(criterion.getName());
-                scoreEdit.setHint("Score / " + criterion.getMaxScore());
-                criteriaEditTextMap.put(criterion.getId(), scoreEdit);
-                criteriaContainer.addView(criteriaView);
-                Log.d(TAG, "Added view for criterion: " + criterion.getName());
-            } else { Log.e(TAG, "Error inflating criteria item view."); }
+        while (criterionRows.size() < criteriaList.size()) {
+            CriterionRow row = new CriterionRow(inflater.inflate(R.layout.item_score_input, criteriaContainer, false));
+            criteriaContainer.addView(row.itemView);
+            criterionRows.add(row);
+        }
+        for (int i = 0; i < criterionRows.size(); i++) {
+            CriterionRow row = criterionRows.get(i);
+            Criteria criterion = i < criteriaList.size() ? criteriaList.get(i) : null;
+            if (criterion != null) {
+                row.bind(team.getId(), criterion);
+                criteriaEditTextMap.put(criterion.getId(), row.scoreEdit);
+            } else {
+                row.unbind();
+            }
+        }
+    }
+
+    // One criterion's name and score box; whatever is typed goes into the bound team's draft
+    private class CriterionRow {
+        final View itemView;
+        final TextView criteriaName;
+        final EditText scoreEdit;
+        private String teamId, criterionId;
+
+        CriterionRow(View itemView) {
+            this.itemView = itemView;
+            criteriaName = itemView.findViewById(R.id.text_criteria_name);
+            scoreEdit = itemView.findViewById(R.id.edit_score);
+            scoreEdit.addTextChangedListener(new TextWatcher() {
+                @Override
+                public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+
+                @Override
+                public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+                @Override
+                public void afterTextChanged(Editable s) {
+                    if (teamId != null) {
+                        scoreDrafts.put(roundId, judgeId, teamId, criterionId, s.toString().trim());
+                    }
+                }
+            });
+        }
+
+        void bind(String teamId, Criteria criterion) {
+            this.teamId = null; // Filling in the draft is not typing
+            itemView.setVisibility(View.VISIBLE);
+            criteriaName.setText(criterion.getName());
+            scoreEdit.setHint("Score / " + criterion.getMaxScore());
+            String draft = scoreDrafts.get(roundId, judgeId, teamId, criterion.getId());
+            scoreEdit.setText(draft != null ? draft : "");
+            this.teamId = teamId;
+            this.criterionId = criterion.getId();
+        }
+
+        void unbind() {
+            teamId = null;
+            itemView.setVisibility(View.GONE);
         }
     }
 
@@ -332,6 +321,7 @@ public class StartActivity extends AppCompatActivity {
     private class TeamAdapter extends RecyclerView.Adapter<TeamAdapter.TeamViewHolder> {
         private List<Team> teams;
         private int selectedPosition = -1;
+        private Map<String, ScoreOutbox.State> submissionStates = new HashMap<>();
         private final TeamSelectionListener listener;
 
         public TeamAdapter(List<Team> teams, TeamSelectionListener listener) { this.teams = teams; this.listener = listener; }
@@ -343,6 +333,11 @@ public class StartActivity extends AppCompatActivity {
             }
         }
 
+        public void setSubmissionStates(Map<String, ScoreOutbox.State> states) {
+            submissionStates = states;
+            notifyItemRangeChanged(0, teams.size());
+        }
+
         @NonNull @Override
         public TeamViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
             View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_team_card, parent, false);
@@ -352,6 +347,7 @@ public class StartActivity extends AppCompatActivity {
         @Override
         public void onBindViewHolder(@NonNull TeamViewHolder holder, int position) {
             holder.textTeamName.setText(teams.get(position).getName());
+            bindSubmissionState(holder.textSubmissionStatus, submissionStates.get(teams.get(position).getId()));
             holder.itemView.setBackgroundResource(selectedPosition == position ? R.drawable.rounded_box_orange : R.drawable.rounded_box);
             holder.itemView.setOnClickListener(v -> {
                 int previousPosition = selectedPosition;
@@ -365,14 +361,29 @@ public class StartActivity extends AppCompatActivity {
             });
         }
 
+        private void bindSubmissionState(TextView status, ScoreOutbox.State state) {
+            if (state == null) {
+                status.setVisibility(View.GONE);
+                return;
+            }
+            switch (state) {
+                case PENDING: status.setText("Pending"); status.setTextColor(0xFF757575); break;
+                case IN_FLIGHT: status.setText("Sending..."); status.setTextColor(0xFF1976D2); break;
+                case CONFIRMED: status.setText("Saved"); status.setTextColor(0xFF388E3C); break;
+                case FAILED: status.setText("Not saved"); status.setTextColor(0xFFD32F2F); break;
+            }
+            status.setVisibility(View.VISIBLE);
+        }
+
         @Override
         public int getItemCount() { return teams.size(); }
 
         class TeamViewHolder extends RecyclerView.ViewHolder {
-            TextView textTeamName;
+            TextView textTeamName, textSubmissionStatus;
             public TeamViewHolder(View itemView) {
                 super(itemView);
                 textTeamName = itemView.findViewById(R.id.text_team_name);
+                textSubmissionStatus = itemView.findViewById(R.id.text_submission_status);
             }
         }
     }
@@ -1,6 +1,10 @@
 package com.example.user;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.google.gson.annotations.SerializedName;
+import java.io.IOException;
 import java.util.List;
 
 public class Team {
@@ -37,4 +41,39 @@ public class Team {
     public int getMemberCount() {
         return members != null ? members.size() : 0;
     }
+
+    // --- JSON ---
+
+    /** Reflection-free adapter registered in GsonProvider. */
+    static final TypeAdapter<Team> ADAPTER = new GsonAdapter().nullSafe();
+
+    private static final class GsonAdapter extends TypeAdapter<Team> {
+        @Override
+        public Team read(JsonReader in) throws IOException {
+            Team team = new Team();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": team.id = JsonFields.readString(in); break;
+                    case "name": team.name = JsonFields.readString(in); break;
+                    case "college": team.college = JsonFields.readString(in); break;
+                    case "members": team.members = JsonFields.readStringList(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return team;
+        }
+
+        @Override
+        public void write(JsonWriter out, Team team) throws IOException {
+            out.beginObject();
+            out.name("id").value(team.id);
+            out.name("name").value(team.name);
+            out.name("college").value(team.college);
+            out.name("members");
+            JsonFields.writeStringList(out, team.members);
+            out.endObject();
+        }
+    }
 }
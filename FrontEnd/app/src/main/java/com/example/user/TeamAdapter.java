@@ -8,18 +8,46 @@ import android.widget.Button;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.cardview.widget.CardView;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Adapter for displaying a list of teams in a RecyclerView.
  * Handles item clicks for deletion via an OnTeamListener interface.
+ * New lists are diffed against the current one on a background thread, so a refresh
+ * only rebinds the rows whose team actually changed.
  */
 public class TeamAdapter extends RecyclerView.Adapter<TeamAdapter.TeamViewHolder> {
 
-    private List<Team> teams = new ArrayList<>();
+    /** Teams are the same row when their ids match, and need rebinding when a displayed field changed. */
+    static final DiffUtil.ItemCallback<Team> DIFF_CALLBACK = new DiffUtil.ItemCallback<Team>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Team oldItem, @NonNull Team newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Team oldItem, @NonNull Team newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && oldItem.getMemberCount() == newItem.getMemberCount();
+        }
+    };
+
+    private final AsyncListDiffer<Team> differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this),
+            new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).setBackgroundThreadExecutor(AppExecutors.background()).build());
     private final OnTeamListener onTeamListener;
+    private Set<String> selectedIds = Collections.emptySet();
 
     /**
      * Interface for handling team item interactions.
@@ -33,7 +61,10 @@ public class TeamAdapter extends RecyclerView.Adapter<TeamAdapter.TeamViewHolder
         void onDeleteClick(Team team, int position);
         
         // Example for edit functionality
-        // void onEditClick(Team team); 
+        // void onEditClick(Team team);
+
+        /** Called on a long press, and on a tap while any team is selected. */
+        void onSelectClick(Team team);
     }
 
     /**
@@ -45,12 +76,21 @@ public class TeamAdapter extends RecyclerView.Adapter<TeamAdapter.TeamViewHolder
     }
 
     /**
-     * Updates the list of teams displayed by the adapter.
-     * @param newTeams The new list of teams.
+     * Updates the list of teams displayed by the adapter. Must be called on the main thread.
+     * @param newTeams The new list of teams; null entries show as blank rows (see PagedList).
      */
     public void setTeams(List<Team> newTeams) {
-        this.teams = newTeams;
-        notifyDataSetChanged(); // Notifies the RecyclerView to refresh
+        // Copied because the differ ignores a list it already holds, even if it was modified
+        differ.submitList(newTeams != null ? new ArrayList<>(newTeams) : null);
+    }
+
+    /**
+     * Highlights the selected teams. Must be called on the main thread.
+     * @param ids The ids of the selected teams; empty to leave selection mode.
+     */
+    public void setSelectedIds(Set<String> ids) {
+        selectedIds = new HashSet<>(ids);
+        notifyItemRangeChanged(0, getItemCount());
     }
 
     @NonNull
@@ -65,15 +105,34 @@ public class TeamAdapter extends RecyclerView.Adapter<TeamAdapter.TeamViewHolder
     @Override
     public void onBindViewHolder(@NonNull TeamViewHolder holder, int position) {
         // Binds data from the Team object to the views in the ViewHolder
-        Team team = teams.get(position);
+        Team team = differ.getCurrentList().get(position);
+        if (team == null) {
+            bindPlaceholder(holder); // Its page is still loading
+            return;
+        }
+
+        // Long press starts selecting for a bulk delete; while selecting, taps toggle too
+        boolean selected = selectedIds.contains(team.getId());
+        ((CardView) holder.itemView).setCardBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(),
+                selected ? R.color.selected_item : R.color.white));
+        holder.itemView.setOnLongClickListener(v -> {
+            selectClicked(holder);
+            return true;
+        });
+        holder.itemView.setOnClickListener(v -> {
+            if (!selectedIds.isEmpty()) selectClicked(holder);
+        });
+
         holder.teamName.setText(team.getName());
         holder.teamMembers.setText(team.getMemberCount() + " Members");
 
         // Sets up the click listener for the delete icon
         holder.deleteIcon.setOnClickListener(v -> {
-            if (onTeamListener != null) {
+            int currentPosition = holder.getAdapterPosition();
+            if (onTeamListener != null && currentPosition != RecyclerView.NO_POSITION
+                    && differ.getCurrentList().get(currentPosition) != null) {
                 // Delegates the delete action to the listener
-                onTeamListener.onDeleteClick(team, position);
+                onTeamListener.onDeleteClick(differ.getCurrentList().get(currentPosition), currentPosition);
             }
         });
 
@@ -83,10 +142,29 @@ public class TeamAdapter extends RecyclerView.Adapter<TeamAdapter.TeamViewHolder
         // });
     }
 
+    private void selectClicked(TeamViewHolder holder) {
+        int currentPosition = holder.getAdapterPosition();
+        if (onTeamListener != null && currentPosition != RecyclerView.NO_POSITION
+                && differ.getCurrentList().get(currentPosition) != null) {
+            onTeamListener.onSelectClick(differ.getCurrentList().get(currentPosition));
+        }
+    }
+
+    // A row of a page that is not loaded yet: blank, and ignores clicks until its team arrives
+    private void bindPlaceholder(TeamViewHolder holder) {
+        ((CardView) holder.itemView).setCardBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(),
+                R.color.white));
+        holder.itemView.setOnLongClickListener(null);
+        holder.itemView.setOnClickListener(null);
+        holder.teamName.setText("");
+        holder.teamMembers.setText("");
+        holder.deleteIcon.setOnClickListener(null);
+    }
+
     @Override
     public int getItemCount() {
         // Returns the total number of teams in the list
-        return teams.size();
+        return differ.getCurrentList().size();
     }
 
     /**
@@ -7,6 +7,9 @@ import android.view.ViewGroup;
 import android.widget.ImageView; // Import ImageView
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
 import java.util.List;
@@ -14,7 +17,9 @@ import java.util.List;
 // Adapter used in RoundsRegisterActivity (to remove) and NewRoundRegisterActivity (to add)
 public class TeamRegisterAdapter extends RecyclerView.Adapter<TeamRegisterAdapter.TeamViewHolder> {
 
-    private List<Team> teamList = new ArrayList<>();
+    // Same row identity and displayed fields as TeamAdapter
+    private final AsyncListDiffer<Team> differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this),
+            new AsyncDifferConfig.Builder<>(TeamAdapter.DIFF_CALLBACK).setBackgroundThreadExecutor(AppExecutors.background()).build());
     private final OnTeamRegisterActionListener listener;
     private final boolean showAddIcon; // Flag to show '+' or 'delete' icon
 
@@ -29,8 +34,7 @@ public class TeamRegisterAdapter extends RecyclerView.Adapter<TeamRegisterAdapte
     }
 
     public void setTeams(List<Team> teams) {
-        this.teamList = teams != null ? new ArrayList<>(teams) : new ArrayList<>();
-        notifyDataSetChanged();
+        differ.submitList(teams != null ? new ArrayList<>(teams) : null);
     }
 
     @NonNull
@@ -43,7 +47,7 @@ public class TeamRegisterAdapter extends RecyclerView.Adapter<TeamRegisterAdapte
 
     @Override
     public void onBindViewHolder(@NonNull TeamViewHolder holder, int position) {
-        Team team = teamList.get(position);
+        Team team = differ.getCurrentList().get(position);
         holder.teamName.setText(team.getName());
         holder.memberCount.setText(team.getMemberCount() + " Members");
 
@@ -55,7 +59,7 @@ public class TeamRegisterAdapter extends RecyclerView.Adapter<TeamRegisterAdapte
             if (listener != null) {
                 int currentPosition = holder.getAdapterPosition();
                 if(currentPosition != RecyclerView.NO_POSITION) {
-                    listener.onTeamActionClick(teamList.get(currentPosition), currentPosition);
+                    listener.onTeamActionClick(differ.getCurrentList().get(currentPosition), currentPosition);
                 }
             }
         });
@@ -63,7 +67,7 @@ public class TeamRegisterAdapter extends RecyclerView.Adapter<TeamRegisterAdapte
 
     @Override
     public int getItemCount() {
-        return teamList.size();
+        return differ.getCurrentList().size();
     }
 
     static class TeamViewHolder extends RecyclerView.ViewHolder {
@@ -1,5 +1,6 @@
 package com.example.user;
 
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
@@ -13,21 +14,18 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton; // Import FAB
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import org.json.JSONException; // Import JSONException
-import org.json.JSONObject; // Import JSONObject
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Response;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class TeamsFragment extends Fragment implements TeamAdapter.OnTeamListener {
 
@@ -37,14 +35,15 @@ public class TeamsFragment extends Fragment implements TeamAdapter.OnTeamListene
     // private ProgressBar progressBar; // Removed
     private FloatingActionButton fabAdd; // Use FAB type
     private ApiClient apiClient;
-    private Gson gson = new Gson();
-    private List<Team> teamList = new ArrayList<>();
+    private PagedList<Team> pagedTeams; // The stored teams a page at a time, without those being deleted
+    private OptimisticDeletes<Team> deletes;
+    private final Map<String, Team> selectedTeams = new LinkedHashMap<>();
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_team, container, false);
 
-        apiClient = new ApiClient(requireContext());
+        apiClient = new ApiClient(requireContext(), CallScope.untilStop(getViewLifecycleOwner()));
         recyclerView = view.findViewById(R.id.recycler_view_teams);
         // progressBar = view.findViewById(R.id.progressBar); // Removed
         fabAdd = view.findViewById(R.id.fab_add); // Find FAB by its ID
@@ -52,9 +51,16 @@ public class TeamsFragment extends Fragment implements TeamAdapter.OnTeamListene
 
         adapter = new TeamAdapter(this);
         recyclerView.setAdapter(adapter);
+        deletes = newDeletes();
+        pagedTeams = newPagedList();
+        recyclerView.addOnScrollListener(new PagedScrollListener(pagedTeams));
 
         // Set listener on the FAB
         fabAdd.setOnClickListener(v -> {
+            if (!selectedTeams.isEmpty()) {
+                confirmDeleteSelected();
+                return;
+            }
             Intent intent = new Intent(requireContext(), RegisterTeamActivity.class);
             startActivity(intent);
         });
@@ -70,9 +76,12 @@ public class TeamsFragment extends Fragment implements TeamAdapter.OnTeamListene
 
     private void fetchTeams() {
         // if (progressBar != null) progressBar.setVisibility(View.VISIBLE); // Removed
-        apiClient.get("teams").enqueue(new Callback() {
+        // Show the stored teams a page at a time right away, then sync them with the server
+        pagedTeams.refresh();
+        StaleWhileRevalidate.load(apiClient, LocalStore.get(requireContext()), LocalStore.TEAMS, LocalStore.GLOBAL,
+                "teams", new ApiCallback<List<Team>>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onFailure(@NonNull IOException e) {
                 Log.e(TAG, "Failed to fetch teams", e);
                 if (getActivity() != null) {
                     getActivity().runOnUiThread(() -> {
@@ -83,38 +92,26 @@ public class TeamsFragment extends Fragment implements TeamAdapter.OnTeamListene
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                 final String responseBody = response.body().string(); // Read body once
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response fetching teams: " + responseBody);
-                     if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            // if (progressBar != null) progressBar.setVisibility(View.GONE); // Removed
-                            Toast.makeText(getContext(), "Failed to load teams: Server Error", Toast.LENGTH_SHORT).show();
-                        });
-                    }
-                    return;
+            public void onError(int code, String errorBody) {
+                Log.e(TAG, "Unsuccessful response fetching teams: " + errorBody);
+                if (getActivity() != null) {
+                    getActivity().runOnUiThread(() -> {
+                        // if (progressBar != null) progressBar.setVisibility(View.GONE); // Removed
+                        Toast.makeText(getContext(), "Failed to load teams: Server Error", Toast.LENGTH_SHORT).show();
+                    });
                 }
+            }
 
-                Type listType = new TypeToken<ArrayList<Team>>(){}.getType();
-                List<Team> fetchedTeams = null;
-                 try {
-                     fetchedTeams = gson.fromJson(responseBody, listType);
-                 } catch (Exception e) {
-                     Log.e(TAG, "Error parsing teams JSON", e);
-                 }
-
-                 final List<Team> finalFetchedTeams = fetchedTeams;
-                 if (getActivity() != null) {
+            @Override
+            public void onSuccess(List<Team> fetchedTeams) {
+                if (getActivity() != null) {
                     getActivity().runOnUiThread(() -> {
                         // if (progressBar != null) progressBar.setVisibility(View.GONE); // Removed
-                        if (finalFetchedTeams != null) {
-                            teamList = finalFetchedTeams; // Update local list
-                            adapter.setTeams(teamList); // Update adapter
-                        } else {
-                            teamList = new ArrayList<>(); // Clear local list
-                            adapter.setTeams(teamList); // Update adapter
-                             Toast.makeText(getContext(), "No teams found or error parsing data", Toast.LENGTH_SHORT).show();
+                        // Read the synced list again; deletes still in flight stay hidden
+                        deletes.onFreshList(fetchedTeams);
+                        pagedTeams.refresh();
+                        if (fetchedTeams == null) {
+                            Toast.makeText(getContext(), "No teams found or error parsing data", Toast.LENGTH_SHORT).show();
                         }
                     });
                 }
@@ -127,49 +124,73 @@ public class TeamsFragment extends Fragment implements TeamAdapter.OnTeamListene
         new AlertDialog.Builder(requireContext())
                 .setTitle("Delete Team")
                 .setMessage("Are you sure you want to delete '" + team.getName() + "'?")
-                .setPositiveButton("Yes", (dialog, which) -> deleteTeamFromServer(team, position))
+                .setPositiveButton("Yes", (dialog, which) -> deletes.delete(Collections.singletonList(team)))
                 .setNegativeButton("No", null)
                 .show();
     }
 
+    @Override
+    public void onSelectClick(Team team) {
+        if (selectedTeams.remove(team.getId()) == null) selectedTeams.put(team.getId(), team);
+        updateSelection();
+    }
+
     // No onEditClick needed anymore
 
-    private void deleteTeamFromServer(Team team, int position) {
-        // if (progressBar != null) progressBar.setVisibility(View.VISIBLE); // Removed
-        apiClient.delete("teams/" + team.getId()).enqueue(new Callback() {
+    private void updateSelection() {
+        adapter.setSelectedIds(selectedTeams.keySet());
+        // While teams are selected the FAB deletes them instead of adding one
+        fabAdd.setImageResource(selectedTeams.isEmpty() ? R.drawable.ic_add : android.R.drawable.ic_menu_delete);
+        fabAdd.setContentDescription(selectedTeams.isEmpty() ? "Add Team" : "Delete Selected Teams");
+    }
+
+    private void confirmDeleteSelected() {
+        List<Team> selected = new ArrayList<>(selectedTeams.values()); // Their pages may have been dropped
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Delete Teams")
+                .setMessage("Are you sure you want to delete " + selected.size() + (selected.size() == 1 ? " team?" : " teams?"))
+                .setPositiveButton("Yes", (dialog, which) -> {
+                    selectedTeams.clear();
+                    updateSelection();
+                    deletes.delete(selected);
+                })
+                .setNegativeButton("No", null)
+                .show();
+    }
+
+    // Reads the stored teams a page at a time, leaving out the ones being deleted
+    private PagedList<Team> newPagedList() {
+        return new PagedList<>(LocalStore.get(requireContext()).pages(LocalStore.TEAMS, LocalStore.GLOBAL, deletes::hiddenIds),
+                PagedList.PAGE_SIZE, PagedList.MAX_PAGES, PagedList.PREFETCH_DISTANCE, AppExecutors.background(),
+                ContextCompat.getMainExecutor(requireContext()), snapshot -> adapter.setTeams(snapshot));
+    }
+
+    // Shows deletes at once and puts a team back if the server refuses to delete it
+    private OptimisticDeletes<Team> newDeletes() {
+        Context appContext = requireContext().getApplicationContext();
+        // Applied even if the view is destroyed before the server answers, so it holds nothing of the fragment
+        Consumer<Team> onDeleted = team -> {
+            ScoringSession.discardAll(); // The team may have been in any round
+            LocalStore.get(appContext).remove(LocalStore.TEAMS, LocalStore.GLOBAL, team.getId());
+        };
+        return new OptimisticDeletes<>(apiClient, "teams", Team::getId, onDeleted, OptimisticDeletes.MAX_CONCURRENT,
+                ContextCompat.getMainExecutor(appContext), new OptimisticDeletes.Listener<Team>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Failed to delete team", e);
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                         // if (progressBar != null) progressBar.setVisibility(View.GONE); // Removed
-                        Toast.makeText(getContext(), "Deletion failed", Toast.LENGTH_SHORT).show();
-                    });
-                }
+            public void onChanged() {
+                pagedTeams.refresh();
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response deleting team: " + responseBody);
-                    if (getActivity() != null) {
-                         getActivity().runOnUiThread(() -> {
-                              // if (progressBar != null) progressBar.setVisibility(View.GONE); // Removed
-                             Toast.makeText(getContext(), "Deletion failed: Server Error", Toast.LENGTH_SHORT).show();
-                         });
-                    }
-                    return;
-                }
-
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        Toast.makeText(getContext(), "'" + team.getName() + "' deleted", Toast.LENGTH_SHORT).show();
-                        // Refresh list from server
-                        fetchTeams();
-                    });
+            public void onSettled(int deleted, List<Team> failed) {
+                if (getContext() == null) return;
+                if (failed.isEmpty()) {
+                    Toast.makeText(getContext(), deleted == 1 ? "Team deleted" : deleted + " teams deleted", Toast.LENGTH_SHORT).show();
+                } else if (failed.size() == 1) {
+                    Toast.makeText(getContext(), "Deletion failed for '" + failed.get(0).getName() + "'", Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(getContext(), "Deletion failed for " + failed.size() + " teams", Toast.LENGTH_SHORT).show();
                 }
             }
         });
     }
-}
\ No newline at end of file
+}
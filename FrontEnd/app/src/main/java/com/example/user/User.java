@@ -1,6 +1,10 @@
 package com.example.user;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.google.gson.annotations.SerializedName;
+import java.io.IOException;
 
 public class User {
     @SerializedName("id")
@@ -39,4 +43,40 @@ public class User {
     public String getRole() {
         return role;
     }
-}
\ No newline at end of file
+
+    // --- JSON ---
+
+    /** Reflection-free adapter registered in GsonProvider. */
+    static final TypeAdapter<User> ADAPTER = new GsonAdapter().nullSafe();
+
+    private static final class GsonAdapter extends TypeAdapter<User> {
+        @Override
+        public User read(JsonReader in) throws IOException {
+            User user = new User();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": user.id = JsonFields.readString(in); break;
+                    case "name": user.name = JsonFields.readString(in); break;
+                    case "email": user.email = JsonFields.readString(in); break;
+                    case "contactNumber": user.contactNumber = JsonFields.readString(in); break;
+                    case "role": user.role = JsonFields.readString(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return user;
+        }
+
+        @Override
+        public void write(JsonWriter out, User user) throws IOException {
+            out.beginObject();
+            out.name("id").value(user.id);
+            out.name("name").value(user.name);
+            out.name("email").value(user.email);
+            out.name("contactNumber").value(user.contactNumber);
+            out.name("role").value(user.role);
+            out.endObject();
+        }
+    }
+}
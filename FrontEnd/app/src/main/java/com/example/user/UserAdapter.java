@@ -6,29 +6,62 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.cardview.widget.CardView;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder> {
 
-    private List<User> userList = new ArrayList<>();
+    private static final DiffUtil.ItemCallback<User> DIFF_CALLBACK = new DiffUtil.ItemCallback<User>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull User oldItem, @NonNull User newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull User oldItem, @NonNull User newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getRole(), newItem.getRole());
+        }
+    };
+
+    // Diffs each new list against the current one off the main thread
+    private final AsyncListDiffer<User> differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this),
+            new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).setBackgroundThreadExecutor(AppExecutors.background()).build());
     private final OnUserListener onUserListener;
+    private Set<String> selectedIds = Collections.emptySet();
 
     // Interface to handle clicks back to the fragment
     public interface OnUserListener {
         void onDeleteClick(User user, int position);
         void onEditClick(User user);
+
+        void onSelectClick(User user); // A long press, or a tap while any user is selected
     }
 
     public UserAdapter(OnUserListener onUserListener) {
         this.onUserListener = onUserListener;
     }
 
-    // Method to update the data in the adapter
+    // Method to update the data in the adapter; null entries show as blank rows (see PagedList)
     public void setUsers(List<User> newUsers) {
-        this.userList = newUsers != null ? new ArrayList<>(newUsers) : new ArrayList<>();
-        notifyDataSetChanged();
+        differ.submitList(newUsers != null ? new ArrayList<>(newUsers) : null);
+    }
+
+    // Highlights the selected users; an empty set leaves selection mode
+    public void setSelectedIds(Set<String> ids) {
+        selectedIds = new HashSet<>(ids);
+        notifyItemRangeChanged(0, getItemCount());
     }
 
     @NonNull
@@ -41,7 +74,24 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull UserViewHolder holder, int position) {
-        User user = userList.get(position);
+        User user = differ.getCurrentList().get(position);
+        if (user == null) {
+            bindPlaceholder(holder); // Its page is still loading
+            return;
+        }
+
+        // Long press starts selecting for a bulk delete; while selecting, taps toggle too
+        boolean selected = selectedIds.contains(user.getId());
+        ((CardView) holder.itemView).setCardBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(),
+                selected ? R.color.selected_item : R.color.white));
+        holder.itemView.setOnLongClickListener(v -> {
+            selectClicked(holder);
+            return true;
+        });
+        holder.itemView.setOnClickListener(v -> {
+            if (!selectedIds.isEmpty()) selectClicked(holder);
+        });
+
         holder.nameText.setText(user.getName());
         holder.roleText.setText(user.getRole());
 
@@ -51,16 +101,35 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
         holder.deleteIcon.setOnClickListener(v -> {
             if (onUserListener != null) {
                 int currentPosition = holder.getAdapterPosition();
-                if (currentPosition != RecyclerView.NO_POSITION) {
-                    onUserListener.onDeleteClick(userList.get(currentPosition), currentPosition);
+                if (currentPosition != RecyclerView.NO_POSITION && differ.getCurrentList().get(currentPosition) != null) {
+                    onUserListener.onDeleteClick(differ.getCurrentList().get(currentPosition), currentPosition);
                 }
             }
         });
     }
 
+    private void selectClicked(UserViewHolder holder) {
+        int currentPosition = holder.getAdapterPosition();
+        if (onUserListener != null && currentPosition != RecyclerView.NO_POSITION
+                && differ.getCurrentList().get(currentPosition) != null) {
+            onUserListener.onSelectClick(differ.getCurrentList().get(currentPosition));
+        }
+    }
+
+    // A row of a page that is not loaded yet: blank, and ignores clicks until its user arrives
+    private void bindPlaceholder(UserViewHolder holder) {
+        ((CardView) holder.itemView).setCardBackgroundColor(ContextCompat.getColor(holder.itemView.getContext(),
+                R.color.white));
+        holder.itemView.setOnLongClickListener(null);
+        holder.itemView.setOnClickListener(null);
+        holder.nameText.setText("");
+        holder.roleText.setText("");
+        holder.deleteIcon.setOnClickListener(null);
+    }
+
     @Override
     public int getItemCount() {
-        return userList.size();
+        return differ.getCurrentList().size();
     }
 
     public static class UserViewHolder extends RecyclerView.ViewHolder {
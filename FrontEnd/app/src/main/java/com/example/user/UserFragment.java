@@ -1,5 +1,6 @@
 package com.example.user;
 
+import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
@@ -12,19 +13,18 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton; // Import FAB
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import java.io.IOException;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.Response;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class UserFragment extends Fragment implements UserAdapter.OnUserListener {
 
@@ -36,14 +36,15 @@ public class UserFragment extends Fragment implements UserAdapter.OnUserListener
     private FloatingActionButton fabAddUser; // Added FAB
     private ProgressBar progressBar;
     private ApiClient apiClient;
-    private Gson gson = new Gson();
-    private List<User> userList = new ArrayList<>();
+    private PagedList<User> pagedUsers; // The stored users a page at a time, without those being deleted
+    private OptimisticDeletes<User> deletes;
+    private final Map<String, User> selectedUsers = new LinkedHashMap<>();
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_user, container, false);
 
-        apiClient = new ApiClient(requireContext());
+        apiClient = new ApiClient(requireContext(), CallScope.untilStop(getViewLifecycleOwner()));
         // searchEditText = view.findViewById(R.id.search_edit_text); // Removed
         // addButton = view.findViewById(R.id.add_button); // Removed
         fabAddUser = view.findViewById(R.id.fab_add_user); // Find FAB
@@ -53,9 +54,16 @@ public class UserFragment extends Fragment implements UserAdapter.OnUserListener
 
         adapter = new UserAdapter(this);
         recyclerView.setAdapter(adapter);
+        deletes = newDeletes();
+        pagedUsers = newPagedList();
+        recyclerView.addOnScrollListener(new PagedScrollListener(pagedUsers));
 
         // Changed listener to be on the FAB
         fabAddUser.setOnClickListener(v -> {
+            if (!selectedUsers.isEmpty()) {
+                confirmDeleteSelected();
+                return;
+            }
             Intent intent = new Intent(requireContext(), RegisterActivity.class);
             startActivity(intent);
         });
@@ -71,9 +79,12 @@ public class UserFragment extends Fragment implements UserAdapter.OnUserListener
 
     private void fetchUsers() {
         if (progressBar != null) progressBar.setVisibility(View.VISIBLE);
-        apiClient.get("users").enqueue(new Callback() {
+        // Show the stored users a page at a time right away, then sync them with the server
+        pagedUsers.refresh();
+        StaleWhileRevalidate.load(apiClient, LocalStore.get(requireContext()), LocalStore.USERS, LocalStore.GLOBAL,
+                "users", new ApiCallback<List<User>>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            public void onFailure(@NonNull IOException e) {
                 Log.e(TAG, "Failed to fetch users", e);
                 if (getActivity() != null) {
                     getActivity().runOnUiThread(() -> {
@@ -84,30 +95,25 @@ public class UserFragment extends Fragment implements UserAdapter.OnUserListener
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response fetching users: " + responseBody);
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            if (progressBar != null) progressBar.setVisibility(View.GONE);
-                            Toast.makeText(getContext(), "Failed to load users: Server error", Toast.LENGTH_SHORT).show();
-                        });
-                    }
-                    return;
+            public void onError(int code, String errorBody) {
+                Log.e(TAG, "Unsuccessful response fetching users: " + errorBody);
+                if (getActivity() != null) {
+                    getActivity().runOnUiThread(() -> {
+                        if (progressBar != null) progressBar.setVisibility(View.GONE);
+                        Toast.makeText(getContext(), "Failed to load users: Server error", Toast.LENGTH_SHORT).show();
+                    });
                 }
+            }
 
-                Type listType = new TypeToken<ArrayList<User>>(){}.getType();
-                List<User> fetchedUsers = gson.fromJson(responseBody, listType);
-
+            @Override
+            public void onSuccess(List<User> fetchedUsers) {
                 if (getActivity() != null) {
                     getActivity().runOnUiThread(() -> {
                         if (progressBar != null) progressBar.setVisibility(View.GONE);
-                        if (fetchedUsers != null) {
-                            userList = fetchedUsers;
-                            adapter.setUsers(userList);
-                        } else {
-                            adapter.setUsers(new ArrayList<>());
+                        // Read the synced list again; deletes still in flight stay hidden
+                        deletes.onFreshList(fetchedUsers);
+                        pagedUsers.refresh();
+                        if (fetchedUsers == null) {
                             Toast.makeText(getContext(), "No users found or error parsing data", Toast.LENGTH_SHORT).show();
                         }
                     });
@@ -121,11 +127,17 @@ public class UserFragment extends Fragment implements UserAdapter.OnUserListener
         new AlertDialog.Builder(requireContext())
                 .setTitle("Delete User")
                 .setMessage("Are you sure you want to delete '" + user.getName() + "'?")
-                .setPositiveButton("Yes", (dialog, which) -> deleteUserFromServer(user, position))
+                .setPositiveButton("Yes", (dialog, which) -> deletes.delete(Collections.singletonList(user)))
                 .setNegativeButton("No", null)
                 .show();
     }
 
+    @Override
+    public void onSelectClick(User user) {
+        if (selectedUsers.remove(user.getId()) == null) selectedUsers.put(user.getId(), user);
+        updateSelection();
+    }
+
     // Kept onEditClick as requested
     @Override
     public void onEditClick(User user) {
@@ -133,42 +145,63 @@ public class UserFragment extends Fragment implements UserAdapter.OnUserListener
         Toast.makeText(getContext(), "Edit clicked for: " + user.getName(), Toast.LENGTH_SHORT).show();
     }
 
+    private void updateSelection() {
+        adapter.setSelectedIds(selectedUsers.keySet());
+        // While users are selected the FAB deletes them instead of adding one
+        fabAddUser.setImageResource(selectedUsers.isEmpty() ? R.drawable.ic_add : android.R.drawable.ic_menu_delete);
+        fabAddUser.setContentDescription(selectedUsers.isEmpty() ? "Add User" : "Delete Selected Users");
+    }
 
-    private void deleteUserFromServer(User user, int position) {
-        if (progressBar != null) progressBar.setVisibility(View.VISIBLE);
-        apiClient.delete("users/" + user.getId()).enqueue(new Callback() {
+    private void confirmDeleteSelected() {
+        List<User> selected = new ArrayList<>(selectedUsers.values()); // Their pages may have been dropped
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Delete Users")
+                .setMessage("Are you sure you want to delete " + selected.size() + (selected.size() == 1 ? " user?" : " users?"))
+                .setPositiveButton("Yes", (dialog, which) -> {
+                    selectedUsers.clear();
+                    updateSelection();
+                    deletes.delete(selected);
+                })
+                .setNegativeButton("No", null)
+                .show();
+    }
+
+    // Reads the stored users a page at a time, leaving out the ones being deleted
+    private PagedList<User> newPagedList() {
+        return new PagedList<>(LocalStore.get(requireContext()).pages(LocalStore.USERS, LocalStore.GLOBAL, deletes::hiddenIds),
+                PagedList.PAGE_SIZE, PagedList.MAX_PAGES, PagedList.PREFETCH_DISTANCE, AppExecutors.background(),
+                ContextCompat.getMainExecutor(requireContext()), snapshot -> {
+                    if (!snapshot.isEmpty() && progressBar != null) progressBar.setVisibility(View.GONE);
+                    adapter.setUsers(snapshot);
+                });
+    }
+
+    // Shows deletes at once and puts a user back if the server refuses to delete it
+    private OptimisticDeletes<User> newDeletes() {
+        Context appContext = requireContext().getApplicationContext();
+        // Applied even if the view is destroyed before the server answers, so it holds nothing of the fragment
+        Consumer<User> onDeleted = user -> {
+            Repositories.users().invalidate("users");
+            LocalStore.get(appContext).remove(LocalStore.USERS, LocalStore.GLOBAL, user.getId());
+        };
+        return new OptimisticDeletes<>(apiClient, "users", User::getId, onDeleted, OptimisticDeletes.MAX_CONCURRENT,
+                ContextCompat.getMainExecutor(appContext), new OptimisticDeletes.Listener<User>() {
             @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                Log.e(TAG, "Failed to delete user", e);
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        if (progressBar != null) progressBar.setVisibility(View.GONE);
-                        Toast.makeText(getContext(), "Deletion failed", Toast.LENGTH_SHORT).show();
-                    });
-                }
+            public void onChanged() {
+                pagedUsers.refresh();
             }
 
             @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                final String responseBody = response.body().string();
-                if (!response.isSuccessful()) {
-                    Log.e(TAG, "Unsuccessful response deleting user: " + responseBody);
-                    if (getActivity() != null) {
-                        getActivity().runOnUiThread(() -> {
-                            if (progressBar != null) progressBar.setVisibility(View.GONE);
-                            Toast.makeText(getContext(), "Deletion failed: Server error", Toast.LENGTH_SHORT).show();
-                        });
-                    }
-                    return;
-                }
-
-                if (getActivity() != null) {
-                    getActivity().runOnUiThread(() -> {
-                        Toast.makeText(getContext(), "'" + user.getName() + "' deleted", Toast.LENGTH_SHORT).show();
-                        fetchUsers();
-                    });
+            public void onSettled(int deleted, List<User> failed) {
+                if (getContext() == null) return;
+                if (failed.isEmpty()) {
+                    Toast.makeText(getContext(), deleted == 1 ? "User deleted" : deleted + " users deleted", Toast.LENGTH_SHORT).show();
+                } else if (failed.size() == 1) {
+                    Toast.makeText(getContext(), "Deletion failed for '" + failed.get(0).getName() + "'", Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(getContext(), "Deletion failed for " + failed.size() + " users", Toast.LENGTH_SHORT).show();
                 }
             }
         });
     }
-}
\ No newline at end of file
+}
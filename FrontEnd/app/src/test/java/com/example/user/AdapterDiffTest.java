@@ -0,0 +1,107 @@
+package com.example.user;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the adapters' diff callbacks turn a refresh into row-level updates.
+ */
+public class AdapterDiffTest {
+
+    @Test
+    public void teamRefresh_dispatchesOnlyChangedRows() {
+        List<Team> before = teams(2000, -1);
+        List<Team> after = teams(2000, 1234); // Team 1234 renamed, everything else re-fetched unchanged
+        after.remove(10);
+        after.add(GsonProvider.get().fromJson("{\"id\":\"0xnew\",\"name\":\"New\",\"members\":[]}", Team.class));
+
+        Counts counts = diff(before, after, TeamAdapter.DIFF_CALLBACK);
+
+        assertEquals(1, counts.changed);
+        assertEquals(1, counts.removed);
+        assertEquals(1, counts.inserted);
+        assertEquals(0, counts.moved);
+    }
+
+    @Test
+    public void leaderboardMove_rebindsEveryRowWhoseRankChanged() {
+        List<LeaderboardEntry> before = entries(100);
+        List<LeaderboardEntry> after = new ArrayList<>(before);
+        after.add(0, after.remove(10)); // The 11th team jumps to first place
+
+        Counts counts = diff(LeaderboardAdapter.rank(before), LeaderboardAdapter.rank(after), LeaderboardAdapter.DIFF_CALLBACK);
+
+        // The team that moved plus the ten it overtook; ranks 12..100 are untouched
+        assertEquals(11, counts.changed);
+        assertEquals(0, counts.inserted + counts.removed);
+    }
+
+    private static List<Team> teams(int count, int renamed) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":\"0xt").append(i).append("\",\"name\":\"Team ").append(i)
+                    .append(i == renamed ? " (renamed)" : "").append("\",\"members\":[\"a\",\"b\"]}");
+        }
+        return GsonProvider.get().fromJson(json.append(']').toString(), new TypeToken<ArrayList<Team>>(){}.getType());
+    }
+
+    private static List<LeaderboardEntry> entries(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"teamId\":\"0xt").append(i).append("\",\"teamName\":\"Team ").append(i)
+                    .append("\",\"totalScore\":").append(count - i).append(",\"memberCount\":3}");
+        }
+        return GsonProvider.get().fromJson(json.append(']').toString(), new TypeToken<ArrayList<LeaderboardEntry>>(){}.getType());
+    }
+
+    // Runs the same computation AsyncListDiffer runs in the background
+    private static <T> Counts diff(List<T> oldList, List<T> newList, DiffUtil.ItemCallback<T> itemCallback) {
+        DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() { return oldList.size(); }
+
+            @Override
+            public int getNewListSize() { return newList.size(); }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return itemCallback.areItemsTheSame(oldList.get(oldPosition), newList.get(newPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return itemCallback.areContentsTheSame(oldList.get(oldPosition), newList.get(newPosition));
+            }
+        });
+        Counts counts = new Counts();
+        result.dispatchUpdatesTo(counts);
+        return counts;
+    }
+
+    private static final class Counts implements ListUpdateCallback {
+        int inserted, removed, moved, changed;
+
+        @Override
+        public void onInserted(int position, int count) { inserted += count; }
+
+        @Override
+        public void onRemoved(int position, int count) { removed += count; }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) { moved++; }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) { changed += count; }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.user;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exercises the disk cache and per-endpoint policies against a local server that sends ETags.
+ */
+public class CachePolicyTest {
+
+    private static final String TEAMS_JSON = "[{\"id\":\"0x1\",\"name\":\"Alpha\"}]";
+    private static final String USERS_JSON = "[{\"id\":\"0x2\",\"name\":\"Ada\",\"role\":\"judge\"}]";
+
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private MockWebServer server;
+    private CacheStats stats;
+    private ApiClient apiClient;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        stats = new CacheStats();
+        OkHttpClient client = HttpClientProvider.newClient(5, 5, cacheDir.getRoot(), CachePolicy.defaults(), stats);
+        apiClient = new ApiClient(server.url("/api/").toString(), client, null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void unchangedList_isRevalidatedWithIfNoneMatch() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "W/\"abc\"").setBody(USERS_JSON));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "W/\"abc\""));
+
+        assertEquals(USERS_JSON, fetch("users"));
+        assertEquals(USERS_JSON, fetch("users"));
+
+        server.takeRequest();
+        RecordedRequest revalidation = server.takeRequest();
+        assertEquals("W/\"abc\"", revalidation.getHeader("If-None-Match"));
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getRevalidatedHitCount());
+        assertEquals(USERS_JSON.length(), stats.getBytesSaved());
+    }
+
+    @Test
+    public void teams_areServedFromCacheWithinMaxAge() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "W/\"abc\"").setBody(TEAMS_JSON));
+
+        assertEquals(TEAMS_JSON, fetch("teams"));
+        assertEquals(TEAMS_JSON, fetch("teams"));
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, stats.getHitCount());
+    }
+
+    @Test
+    public void leaderboard_isNeverCached() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "W/\"abc\"").setBody("[]"));
+        server.enqueue(new MockResponse().setHeader("ETag", "W/\"abc\"").setBody("[]"));
+
+        fetch("leaderboard");
+        fetch("leaderboard");
+
+        server.takeRequest();
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+        assertEquals(2, stats.getMissCount());
+    }
+
+    @Test
+    public void delete_evictsCachedList() throws Exception {
+        server.enqueue(new MockResponse().setBody(TEAMS_JSON));
+        server.enqueue(new MockResponse().setBody("{\"msg\":\"deleted\"}"));
+        server.enqueue(new MockResponse().setBody("[]"));
+
+        fetch("teams");
+        apiClient.delete("teams/0x1").execute().close();
+
+        assertEquals("[]", fetch("teams"));
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void exactEndpointPolicy_winsOverResource() {
+        CachePolicy policy = CachePolicy.defaults();
+        policy.setMaxAge("rounds", 60);
+        policy.setMaxAge("rounds/0x1/teams", CachePolicy.NO_STORE);
+
+        assertEquals(60, policy.maxAgeFor("rounds/0x2"));
+        assertEquals(CachePolicy.NO_STORE, policy.maxAgeFor("rounds/0x1/teams"));
+        assertEquals(30, policy.maxAgeFor("teams"));
+        assertEquals(CachePolicy.ALWAYS_REVALIDATE, policy.maxAgeFor("judges"));
+    }
+
+    private String fetch(String endpoint) throws Exception {
+        try (Response response = apiClient.get(endpoint).execute()) {
+            return response.body().string();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import static org.junit.Assert.*;
+
+/**
+ * Leaves a screen while its calls are running and checks that reads stop downloading and report
+ * nothing, that submissions still reach the server, and that nothing keeps the screen in memory.
+ */
+public class CallScopeTest {
+
+    private static final Type TEAM_LIST = new TypeToken<ArrayList<Team>>(){}.getType();
+
+    private MockWebServer server;
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicInteger reported = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void stoppingTheScreen_stopsTheDownloadAndReportsNothing() throws Exception {
+        Buffer teams = teamsJson(20_000);
+        long total = teams.size();
+        server.enqueue(new MockResponse().setBody(teams).throttleBody(16 * 1024, 50, TimeUnit.MILLISECONDS));
+        Screen screen = new Screen();
+        CallScope scope = CallScope.untilStop(screen);
+        ApiClient apiClient = newApiClient(scope);
+
+        apiClient.get("teams").enqueue(new JsonCallback<>(TEAM_LIST, screen.callback(), null));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bytesRead.get() < 64 * 1024 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertEquals(1, scope.activeCount());
+
+        screen.lifecycle.moveTo(Lifecycle.State.CREATED);
+        Thread.sleep(200);
+        long afterStop = bytesRead.get();
+        Thread.sleep(500);
+
+        assertEquals("Kept downloading after the screen stopped", afterStop, bytesRead.get());
+        assertTrue(afterStop + " of " + total + " bytes read", afterStop < total / 2);
+        assertEquals(0, reported.get());
+        assertEquals(0, scope.activeCount());
+        assertEquals("A stopped screen keeps its scope", 1, screen.lifecycle.observers.size());
+    }
+
+    @Test
+    public void submissionsOutliveStop_andDestroyLetsTheScreenGo() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"msg\":\"Score saved\"}").setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody("{\"msg\":\"Score saved\"}").setHeadersDelay(1500, TimeUnit.MILLISECONDS));
+        Screen screen = new Screen();
+        CallScope scope = CallScope.untilStop(screen);
+        screen.apiClient = newApiClient(scope);
+
+        CountDownLatch saved = new CountDownLatch(1);
+        screen.apiClient.post("scores", "{\"score\":7}", "key-1").enqueue(new JsonCallback<>(Object.class,
+                countDown(saved), null));
+        screen.lifecycle.moveTo(Lifecycle.State.CREATED);
+        assertTrue("The submission was cancelled with the screen", saved.await(5, TimeUnit.SECONDS));
+        awaitIdle(scope); // A call is let go of once its callback has returned
+
+        screen.apiClient.post("scores", "{\"score\":8}", "key-2").enqueue(new JsonCallback<>(Object.class,
+                screen.callback(), null));
+        server.takeRequest();
+        server.takeRequest(); // The second submission has been sent
+        screen.lifecycle.moveTo(Lifecycle.State.DESTROYED);
+        assertEquals(0, screen.lifecycle.observers.size());
+        assertEquals(1, scope.activeCount());
+
+        WeakReference<Screen> left = new WeakReference<>(screen);
+        screen = null;
+        for (int i = 0; i < 10 && left.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertNull("The submission still in flight kept the screen in memory", left.get());
+
+        awaitIdle(scope);
+        assertEquals("A destroyed screen was called back", 0, reported.get());
+    }
+
+    private static void awaitIdle(CallScope scope) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scope.activeCount() > 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertEquals(0, scope.activeCount());
+    }
+
+    private ApiClient newApiClient(CallScope scope) {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addNetworkInterceptor(chain -> {
+                    Response response = chain.proceed(chain.request());
+                    ResponseBody body = response.body();
+                    ResponseBody counted = ResponseBody.create(Okio.buffer(new ForwardingSource(body.source()) {
+                        @Override
+                        public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                            long read = super.read(sink, byteCount);
+                            if (read > 0) bytesRead.addAndGet(read);
+                            return read;
+                        }
+                    }), body.contentType(), body.contentLength());
+                    return response.newBuilder().body(counted).build();
+                })
+                .build();
+        RequestScheduler scheduler = new RequestScheduler(client.dispatcher(),
+                RequestScheduler.DEFAULT_MAX_QUEUED_BACKGROUND, null);
+        return new ApiClient(server.url("/api/").toString(), client, new SingleFlight(), scheduler, scope, null);
+    }
+
+    private ApiCallback<Object> countDown(CountDownLatch latch) {
+        return new ApiCallback<Object>() {
+            @Override
+            public void onSuccess(Object result) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+            }
+
+            @Override
+            public void onError(int code, String errorBody) {
+            }
+        };
+    }
+
+    private static Buffer teamsJson(int count) {
+        Buffer json = new Buffer().writeUtf8("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.writeUtf8(",");
+            json.writeUtf8("{\"id\":\"t" + i + "\",\"name\":\"Team " + i + "\",\"college\":\"College " + i
+                    + "\",\"members\":[\"A\",\"B\",\"C\"]}");
+        }
+        return json.writeUtf8("]");
+    }
+
+    // Stands in for an activity: what a call made from it must not keep alive once it is destroyed
+    private final class Screen implements LifecycleOwner {
+        final FakeLifecycle lifecycle = new FakeLifecycle(this);
+        ApiClient apiClient;
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return lifecycle;
+        }
+
+        <T> ApiCallback<T> callback() {
+            return new ApiCallback<T>() {
+                @Override
+                public void onSuccess(T result) {
+                    reported.incrementAndGet();
+                }
+
+                @Override
+                public void onFailure(IOException e) {
+                    reported.incrementAndGet();
+                }
+
+                @Override
+                public void onError(int code, String errorBody) {
+                    reported.incrementAndGet();
+                }
+            };
+        }
+    }
+}
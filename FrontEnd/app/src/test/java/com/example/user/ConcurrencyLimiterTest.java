@@ -0,0 +1,160 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how the per-host limit follows latency and errors, first sample by sample, then under
+ * load against a local server whose bandwidth is throttled.
+ */
+public class ConcurrencyLimiterTest {
+
+    private static final long MS = 1_000_000L;
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void limit_growsWhileFastAndIsCutOnceForACongestedBurst() {
+        Dispatcher dispatcher = new Dispatcher();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(dispatcher, 4, 1, 6, 2.0);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) limiter.onSample(start, 100 * MS, 4, false);
+        assertEquals("One more for every limit's worth of fast calls", 5, limiter.getLimit());
+        assertEquals(5, dispatcher.getMaxRequestsPerHost());
+
+        for (int i = 0; i < 20; i++) limiter.onSample(start, 100 * MS, 0, false);
+        assertEquals("Not raised while the limit goes unused", 5, limiter.getLimit());
+
+        long burst = System.nanoTime();
+        limiter.onSample(burst, 300 * MS, 5, false);
+        assertEquals(3, limiter.getLimit());
+        limiter.onSample(burst, 300 * MS, 5, false);
+        limiter.onSample(burst, 0, 5, true);
+        assertEquals("Calls sent before the cut do not cut again", 3, limiter.getLimit());
+
+        limiter.onSample(System.nanoTime(), 0, 3, true); // e.g. a 503
+        limiter.onSample(System.nanoTime(), 0, 3, true);
+        limiter.onSample(System.nanoTime(), 0, 3, true);
+        assertEquals(1, limiter.getLimit());
+        assertEquals(1, dispatcher.getMaxRequestsPerHost());
+    }
+
+    @Test
+    public void throttledServer_lowersTheLimitUnderLoadAndRaisesItOnceTheLinkIsFast() throws Exception {
+        ThrottledLink link = new ThrottledLink(50 * 1024);
+        server.setDispatcher(link);
+        NetworkMetrics metrics = new NetworkMetrics();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new Dispatcher(), 5, 1, 16, 2.0);
+        OkHttpClient client = HttpClientProvider.newClient(new HttpClientProvider.Options(5, 5)
+                .networkMetrics(metrics)
+                .retryPolicy(new RetryPolicy(0, 0, new CircuitBreaker(5, 1_000), metrics))
+                .concurrencyLimiter(limiter));
+        RequestScheduler scheduler = new RequestScheduler(limiter.getDispatcher(), 64, metrics);
+        ApiClient apiClient = new ApiClient(server.url("/api/").toString(), client, new SingleFlight(), scheduler, null, null);
+
+        int maxQueued = load(apiClient, limiter, scheduler, 30);
+
+        assertTrue("Calls waited for a slot", maxQueued > 0);
+        int throttledLimit = limiter.getLimit();
+        assertTrue("Backed off from 5, was " + throttledLimit, throttledLimit < 5);
+        NetworkMetrics.Endpoint teams = metrics.get("teams");
+        assertEquals(30, teams.getLatency(NetworkMetrics.Phase.QUEUE).getCount());
+        assertTrue(teams.getLatency(NetworkMetrics.Phase.QUEUE).getMax() > 0);
+
+        link.bytesPerSecond = 0; // The tunnel is fast again
+        load(apiClient, limiter, scheduler, 60);
+        assertTrue("Grew back from " + throttledLimit + " to " + limiter.getLimit(), limiter.getLimit() > throttledLimit);
+    }
+
+    // Enqueues distinct GETs at once, so none are coalesced, and waits for every body to be read
+    private static int load(ApiClient apiClient, ConcurrencyLimiter limiter, RequestScheduler scheduler, int calls)
+            throws Exception {
+        CountDownLatch done = new CountDownLatch(calls);
+        AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < calls; i++) {
+            apiClient.get("teams?page=" + i).enqueue(new Callback() {
+                @Override
+                public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    failures.incrementAndGet();
+                    done.countDown();
+                }
+
+                @Override
+                public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+                    try (Response r = response) {
+                        r.body().string();
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        int maxQueued = 0;
+        while (!done.await(5, TimeUnit.MILLISECONDS)) {
+            maxQueued = Math.max(maxQueued, scheduler.queuedCount());
+        }
+        assertEquals(0, failures.get());
+        assertEquals(0, limiter.getInFlightCount());
+        return maxQueued;
+    }
+
+    /**
+     * One link of fixed bandwidth shared by every response, like a congested tunnel: a response
+     * waits for the ones ahead of it, then its body is sent at the link's rate.
+     */
+    private static final class ThrottledLink extends okhttp3.mockwebserver.Dispatcher {
+        private static final int BODY_BYTES = 4 * 1024;
+        private static final String BODY = new String(new char[BODY_BYTES]).replace('\0', 'x');
+
+        volatile long bytesPerSecond;
+        private long linkFreeAt;
+
+        ThrottledLink(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        @Override
+        public synchronized MockResponse dispatch(@NonNull RecordedRequest request) {
+            MockResponse response = new MockResponse().setBody(BODY);
+            long rate = bytesPerSecond;
+            if (rate == 0) return response;
+
+            long now = System.nanoTime();
+            long start = Math.max(now, linkFreeAt);
+            linkFreeAt = start + TimeUnit.SECONDS.toNanos(BODY_BYTES) / rate;
+            return response
+                    .setBodyDelay(start - now, TimeUnit.NANOSECONDS)
+                    .throttleBody(rate / 100, 10, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.user;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that drafts survive a restart and that a burst of keystrokes is written to disk once.
+ */
+public class DraftScoresTest {
+
+    private static final long WRITE_DELAY_MS = 200;
+
+    private final CountingStore store = new CountingStore();
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void typing_isWrittenOncePerTeamAfterTheDelay() throws Exception {
+        DraftScores drafts = new DraftScores(store, executor, WRITE_DELAY_MS);
+        // A judge types "1", "10", "100" into three criteria, then moves to the next team
+        for (String criterion : new String[]{"0xc1", "0xc2", "0xc3"}) {
+            for (String typed : new String[]{"1", "10", "100"}) {
+                drafts.put("0xr", "0xj", "0xt1", criterion, typed);
+            }
+        }
+        drafts.put("0xr", "0xj", "0xt2", "0xc1", "7");
+        assertEquals("Nothing is written before the delay", 0, store.saves);
+
+        awaitIdle(WRITE_DELAY_MS * 3);
+        assertEquals(2, store.saves);
+        assertEquals("100", store.rows.get("0xt1").get("0xc3"));
+
+        // Retyping the same value is not a change
+        drafts.put("0xr", "0xj", "0xt2", "0xc1", "7");
+        drafts.flush();
+        awaitIdle(0);
+        assertEquals(2, store.saves);
+    }
+
+    @Test
+    public void drafts_surviveARestartUntilCleared() throws Exception {
+        DraftScores drafts = new DraftScores(store, executor, WRITE_DELAY_MS);
+        drafts.put("0xr", "0xj", "0xt1", "0xc1", "8");
+        drafts.put("0xr", "0xj", "0xt1", "0xc2", "");
+        drafts.flush();
+        awaitIdle(0);
+
+        DraftScores reopened = new DraftScores(store, executor, WRITE_DELAY_MS);
+        CountDownLatch loaded = new CountDownLatch(1);
+        reopened.load("0xr", "0xj", loaded::countDown);
+        assertTrue(loaded.await(2, TimeUnit.SECONDS));
+        assertEquals("8", reopened.get("0xr", "0xj", "0xt1", "0xc1"));
+        assertNull(reopened.get("0xr", "0xj", "0xt1", "0xc2"));
+        assertNull("Drafts are per judge", reopened.get("0xr", "0xj2", "0xt1", "0xc1"));
+
+        reopened.clear("0xr", "0xj", "0xt1"); // Submitted
+        reopened.flush();
+        awaitIdle(0);
+        assertFalse(store.rows.containsKey("0xt1"));
+    }
+
+    // Waits out the write delay, then for everything queued on the executor before now
+    private void awaitIdle(long sleepMs) throws Exception {
+        Thread.sleep(sleepMs);
+        executor.submit(() -> {}).get(2, TimeUnit.SECONDS);
+    }
+
+    /** Keeps one judge's drafts in a map and counts the writes. */
+    private static final class CountingStore implements DraftStore {
+        final Map<String, Map<String, String>> rows = new HashMap<>();
+        int saves;
+
+        @Override
+        public synchronized Map<String, Map<String, String>> load(String roundId, String judgeId) {
+            Map<String, Map<String, String>> copy = new HashMap<>();
+            if (!judgeId.equals("0xj")) return copy;
+            for (Map.Entry<String, Map<String, String>> row : rows.entrySet()) {
+                copy.put(row.getKey(), new HashMap<>(row.getValue()));
+            }
+            return copy;
+        }
+
+        @Override
+        public synchronized void save(String roundId, String judgeId, String teamId, Map<String, String> scores) {
+            saves++;
+            if (scores.isEmpty()) {
+                rows.remove(teamId);
+            } else {
+                rows.put(teamId, new HashMap<>(scores));
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A lifecycle the tests move by hand. Starts out resumed and holds its owner weakly, as
+ * LifecycleRegistry does.
+ */
+final class FakeLifecycle extends Lifecycle {
+    final List<LifecycleObserver> observers = new ArrayList<>();
+    private final WeakReference<LifecycleOwner> owner;
+    private State state = State.RESUMED;
+
+    FakeLifecycle(LifecycleOwner owner) {
+        this.owner = new WeakReference<>(owner);
+    }
+
+    @Override
+    public void addObserver(@NonNull LifecycleObserver observer) {
+        observers.add(observer);
+    }
+
+    @Override
+    public void removeObserver(@NonNull LifecycleObserver observer) {
+        observers.remove(observer);
+    }
+
+    @NonNull
+    @Override
+    public State getCurrentState() {
+        return state;
+    }
+
+    void moveTo(State target) {
+        while (state.compareTo(target) > 0) {
+            state = State.values()[state.ordinal() - 1];
+            for (LifecycleObserver observer : new ArrayList<>(observers)) {
+                DefaultLifecycleObserver o = (DefaultLifecycleObserver) observer;
+                if (state == State.STARTED) o.onPause(owner.get());
+                if (state == State.CREATED) o.onStop(owner.get());
+                if (state == State.DESTROYED) o.onDestroy(owner.get());
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.user;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that ApiClient instances created by different screens share one connection.
+ */
+public class HttpClientProviderTest {
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void get_returnsSameInstance() {
+        assertSame(HttpClientProvider.get(null), HttpClientProvider.get(null));
+    }
+
+    @Test
+    public void apiClientsFromDifferentScreens_reuseOneConnection() throws Exception {
+        server.enqueue(new MockResponse().setBody("[]"));
+        server.enqueue(new MockResponse().setBody("[]"));
+        String baseUrl = server.url("/api/").toString();
+        OkHttpClient shared = HttpClientProvider.newClient(
+                HttpClientProvider.DEFAULT_MAX_IDLE_CONNECTIONS, HttpClientProvider.DEFAULT_KEEP_ALIVE_MINUTES);
+
+        // JudgeSelectionActivity and StartActivity each create their own ApiClient
+        ApiClient judgeSelection = new ApiClient(baseUrl, shared, null);
+        ApiClient start = new ApiClient(baseUrl, shared, null);
+
+        try (Response response = judgeSelection.get("judges").execute()) {
+            assertEquals("[]", response.body().string());
+        }
+        try (Response response = start.get("rounds/0x1/teams").execute()) {
+            assertEquals("[]", response.body().string());
+        }
+
+        // A sequence number of 1 means the second request arrived on the first request's socket
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+        assertEquals(1, shared.connectionPool().connectionCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void configure_afterClientCreated_throws() {
+        HttpClientProvider.get(null);
+        HttpClientProvider.configure(10, 1);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.user;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OutboxStore kept in a map, standing in for SQLite in JVM tests. Entries are copied in and out,
+ * as a database would, so a test can reopen an outbox on the same store to simulate a restart.
+ */
+class InMemoryOutboxStore implements OutboxStore {
+
+    private final Map<String, ScoreOutbox.Entry> rows = new LinkedHashMap<>();
+
+    @Override
+    public synchronized List<ScoreOutbox.Entry> loadAll() {
+        List<ScoreOutbox.Entry> entries = new ArrayList<>();
+        for (ScoreOutbox.Entry row : rows.values()) {
+            entries.add(row.copy());
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized void save(ScoreOutbox.Entry entry) {
+        rows.put(entry.idempotencyKey, entry.copy());
+    }
+
+    @Override
+    public synchronized void delete(String idempotencyKey) {
+        rows.remove(idempotencyKey);
+    }
+}
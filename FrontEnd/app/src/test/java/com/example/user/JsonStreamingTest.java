@@ -0,0 +1,109 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+import static org.junit.Assert.*;
+
+/**
+ * Parses a large score list straight off the body stream and checks it matches parsing it from a
+ * String, without the body ever being read into one.
+ */
+public class JsonStreamingTest {
+
+    private static final int SCORE_COUNT = 50_000;
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final Type SCORE_LIST = new TypeToken<ArrayList<Score>>(){}.getType();
+
+    private static byte[] payload;
+
+    @BeforeClass
+    public static void buildPayload() {
+        payload = scoresJson(SCORE_COUNT).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void streamingParse_matchesStringParse() throws IOException {
+        List<Score> streamed = JsonCallback.parse(ResponseBody.create(payload, JSON), SCORE_LIST);
+        List<Score> buffered = new Gson().fromJson(ResponseBody.create(payload, JSON).string(), SCORE_LIST);
+
+        assertEquals(SCORE_COUNT, streamed.size());
+        assertEquals(buffered.size(), streamed.size());
+        Score last = streamed.get(SCORE_COUNT - 1);
+        assertEquals("0x" + Integer.toHexString(SCORE_COUNT - 1), last.getId());
+        assertEquals(3, last.getScoresByCriteria().size());
+        assertEquals("Creativity", last.getScoresByCriteria().get(1).getCriterion().getName());
+        assertEquals(buffered.get(123).getTeam().getName(), streamed.get(123).getTeam().getName());
+    }
+
+    @Test
+    public void streamingParse_neverHoldsTheBodyAsOneString() throws IOException {
+        List<String> readers = new ArrayList<>();
+        Source source = new ForwardingSource(new Buffer().write(payload)) {
+            @Override
+            public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                readers.add(readerOf(Thread.currentThread().getStackTrace()));
+                return super.read(sink, byteCount);
+            }
+        };
+        ResponseBody body = ResponseBody.create(Okio.buffer(source), JSON, payload.length);
+
+        assertEquals(SCORE_COUNT, JsonCallback.<List<Score>>parse(body, SCORE_LIST).size());
+        // Pulled a little at a time as the parser needs it, never drained up front into a String
+        assertTrue(readers.size() + " reads", readers.size() > 1);
+        for (String reader : readers) {
+            assertEquals(JsonReader.class.getName(), reader);
+        }
+    }
+
+    // The outermost of the classes that could be draining the body on this read
+    private static String readerOf(StackTraceElement[] stack) {
+        String reader = null;
+        for (StackTraceElement frame : stack) {
+            if (frame.getClassName().equals(JsonReader.class.getName())
+                    || frame.getClassName().equals(ResponseBody.class.getName()) && frame.getMethodName().equals("string")) {
+                reader = frame.getClassName();
+            }
+        }
+        return reader;
+    }
+
+    static String scoresJson(int count) {
+        StringBuilder json = new StringBuilder(count * 420);
+        json.append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            String id = Integer.toHexString(i);
+            json.append("{\"id\":\"0x").append(id).append("\",\"total_score\":").append(i % 30)
+                    .append(",\"team\":{\"id\":\"0xt").append(i % 200).append("\",\"name\":\"Team ").append(i % 200)
+                    .append("\",\"college\":\"College ").append(i % 40).append("\",\"members\":[\"Asha\",\"Ravi\",\"Meera\"]}")
+                    .append(",\"judge\":{\"id\":\"0xj").append(i % 8).append("\",\"name\":\"Judge ").append(i % 8).append("\"}")
+                    .append(",\"scoresByCriteria\":[")
+                    .append("{\"id\":\"0xc").append(id).append("a\",\"score\":").append(i % 10)
+                    .append(",\"criterion\":{\"id\":\"0xk1\",\"name\":\"Presentation\",\"maxScore\":10}},")
+                    .append("{\"id\":\"0xc").append(id).append("b\",\"score\":").append(i % 10)
+                    .append(",\"criterion\":{\"id\":\"0xk2\",\"name\":\"Creativity\",\"maxScore\":10}},")
+                    .append("{\"id\":\"0xc").append(id).append("c\",\"score\":").append(i % 10)
+                    .append(",\"criterion\":{\"id\":\"0xk3\",\"name\":\"Execution\",\"maxScore\":10}}]}");
+        }
+        return json.append(']').toString();
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.user;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.OkHttpClient;
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the leaderboard stream against a stand-in server that writes text/event-stream by hand,
+ * so tests control exactly when events are sent and connections dropped.
+ */
+public class LeaderboardStreamTest {
+
+    private static final int TEAMS = 10;
+    private static final int EVENTS = 300;
+    private static final long EVENT_INTERVAL_MS = 10; // 6000 events a minute
+    private static final long MAX_LATENCY_MS = 1000;
+
+    private StandInServer server;
+    private LeaderboardStream stream;
+    private final RecordingListener listener = new RecordingListener();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StandInServer();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (stream != null) stream.stop();
+        server.close();
+    }
+
+    @Test
+    public void events_arriveWithinASecondUnderSustainedLoad() throws Exception {
+        long[] sentAt = new long[EVENTS + 1];
+        server.serve((connection, lastEventId, out) -> {
+            send(out, "e-0", "snapshot", snapshotJson(0));
+            for (int seq = 1; seq <= EVENTS; seq++) {
+                Thread.sleep(EVENT_INTERVAL_MS);
+                sentAt[seq] = System.nanoTime();
+                send(out, "e-" + seq, "score", scoreJson(seq % TEAMS, 1));
+            }
+            server.holdOpen();
+        });
+        startStream();
+
+        List<LeaderboardEntry> last = listener.awaitTotal(EVENTS);
+        assertNotNull("Not every event arrived", last);
+
+        long worstMs = 0;
+        for (int seq = 1; seq <= EVENTS; seq++) {
+            worstMs = Math.max(worstMs, TimeUnit.NANOSECONDS.toMillis(listener.appliedAt[seq] - sentAt[seq]));
+        }
+        assertTrue("Slowest update took " + worstMs + " ms", worstMs < MAX_LATENCY_MS);
+        assertEquals(TEAMS, last.size());
+        assertEquals(EVENTS / TEAMS, last.get(0).getTotalScore());
+    }
+
+    @Test
+    public void droppedConnection_resumesFromLastEventId() throws Exception {
+        server.serve((connection, lastEventId, out) -> {
+            if (connection == 0) {
+                send(out, "e-0", "snapshot", snapshotJson(0));
+                for (int seq = 1; seq <= 5; seq++) send(out, "e-" + seq, "score", scoreJson(1, 2));
+                return; // Drops the connection
+            }
+            for (int seq = 6; seq <= 10; seq++) send(out, "e-" + seq, "score", scoreJson(2, 1));
+            server.holdOpen();
+        });
+        startStream();
+
+        List<LeaderboardEntry> last = listener.awaitTotal(15);
+        assertNotNull(last);
+        assertEquals(2, server.lastEventIds.size());
+        assertNull(server.lastEventIds.get(0));
+        assertEquals("e-5", server.lastEventIds.get(1));
+        assertEquals("Team 1", last.get(0).getTeamName());
+        assertEquals(10, last.get(0).getTotalScore());
+        assertEquals(5, last.get(1).getTotalScore());
+        assertTrue(listener.liveChanges.contains(false));
+    }
+
+    @Test
+    public void gapInEventIds_resyncsFromAFreshSnapshot() throws Exception {
+        server.serve((connection, lastEventId, out) -> {
+            if (connection == 0) {
+                send(out, "e-0", "snapshot", snapshotJson(0));
+                send(out, "e-1", "score", scoreJson(3, 1));
+                send(out, "e-3", "score", scoreJson(3, 1)); // e-2 never arrived
+            } else {
+                send(out, "e-3", "snapshot", snapshotJson(100));
+                send(out, "e-4", "score", scoreJson(3, 1));
+            }
+            server.holdOpen();
+        });
+        startStream();
+
+        List<LeaderboardEntry> last = listener.awaitTotal(TEAMS * 100 + 1);
+        assertNotNull(last);
+        // The second connection asks for a snapshot instead of resuming after the gap
+        assertEquals(2, server.lastEventIds.size());
+        assertNull(server.lastEventIds.get(1));
+        assertEquals("Team 3", last.get(0).getTeamName());
+        assertEquals(101, last.get(0).getTotalScore());
+    }
+
+    @Test
+    public void unreadableEvent_resyncsFromAFreshSnapshot() throws Exception {
+        server.serve((connection, lastEventId, out) -> {
+            if (connection == 0) {
+                send(out, "e-0", "snapshot", snapshotJson(0));
+                send(out, "e-1", "score", scoreJson(4, 1));
+                send(out, "e-2", "score", "{\"teamName\":\"Team 4\",\"points\":"); // Cut off by a proxy
+            } else {
+                send(out, "e-2", "snapshot", snapshotJson(100));
+                send(out, "e-3", "score", scoreJson(4, 1));
+            }
+            server.holdOpen();
+        });
+        startStream();
+
+        List<LeaderboardEntry> last = listener.awaitTotal(TEAMS * 100 + 1);
+        assertNotNull(last);
+        // Resuming from e-1 would replay the unreadable event forever
+        assertEquals(2, server.lastEventIds.size());
+        assertNull(server.lastEventIds.get(1));
+        assertEquals("Team 4", last.get(0).getTeamName());
+        assertEquals(101, last.get(0).getTotalScore());
+    }
+
+    @Test
+    public void parser_joinsDataLinesAndSkipsComments() throws Exception {
+        Buffer body = new Buffer().writeUtf8(": ping\r\n\r\nretry: 2000\n\nid: e-7\nevent: note\ndata: one\ndata:two\n\ndata: three\n\n");
+        List<String> events = new ArrayList<>();
+        AtomicReference<Long> retry = new AtomicReference<>();
+
+        ServerSentEvents.read(body, null, new ServerSentEvents.Handler() {
+            @Override
+            public void onEvent(String id, String type, String data) {
+                events.add(id + "|" + type + "|" + data);
+            }
+
+            @Override
+            public void onRetry(long delayMs) {
+                retry.set(delayMs);
+            }
+        });
+
+        assertEquals(2000L, (long) retry.get());
+        assertEquals(2, events.size());
+        assertEquals("e-7|note|one\ntwo", events.get(0));
+        assertEquals("e-7|message|three", events.get(1)); // The last id carries over
+        assertTrue(LeaderboardStream.isGap("a-1", "a-3"));
+        assertFalse(LeaderboardStream.isGap("a-1", "a-2"));
+        assertFalse(LeaderboardStream.isGap("a-9", "b-1"));
+    }
+
+    private void startStream() {
+        OkHttpClient client = new OkHttpClient();
+        ApiClient apiClient = new ApiClient(server.baseUrl(), client, null);
+        stream = new LeaderboardStream(apiClient, listener, 10, 100);
+        stream.start();
+    }
+
+    private static String snapshotJson(int score) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < TEAMS; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"teamId\":\"0xt").append(i).append("\",\"teamName\":\"Team ").append(i)
+                    .append("\",\"totalScore\":").append(score).append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    private static String scoreJson(int team, int points) {
+        return "{\"teamId\":\"0xt" + team + "\",\"teamName\":\"Team " + team + "\",\"points\":" + points + "}";
+    }
+
+    private static void send(OutputStream out, String id, String type, String data) throws IOException {
+        out.write(("id: " + id + "\nevent: " + type + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    /**
+     * Applies the stream to a RankedLeaderboard, as the adapter does, and records when each
+     * total was reached: with 1 point per event, the total is the event count.
+     */
+    private static final class RecordingListener implements LeaderboardStream.Listener {
+        final long[] appliedAt = new long[EVENTS + TEAMS * 100 + 2];
+        final List<Boolean> liveChanges = new CopyOnWriteArrayList<>();
+        private final Object lock = new Object();
+        private final RankedLeaderboard board = new RankedLeaderboard();
+        private int total = -1;
+
+        @Override
+        public void onSnapshot(List<LeaderboardEntry> entries) {
+            synchronized (lock) {
+                board.replaceAll(entries);
+                total = 0;
+                for (LeaderboardEntry entry : entries) total += entry.getTotalScore();
+                applied();
+            }
+        }
+
+        @Override
+        public void onScore(String teamId, String teamName, int points) {
+            synchronized (lock) {
+                board.addPoints(teamId, teamName, points);
+                total += points;
+                applied();
+            }
+        }
+
+        private void applied() {
+            if (total < appliedAt.length && appliedAt[total] == 0) appliedAt[total] = System.nanoTime();
+            lock.notifyAll();
+        }
+
+        @Override
+        public void onLiveChanged(boolean live) {
+            liveChanges.add(live);
+        }
+
+        List<LeaderboardEntry> awaitTotal(int expected) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 20_000;
+            synchronized (lock) {
+                while (System.currentTimeMillis() < deadline) {
+                    if (total == expected) return board.toList();
+                    lock.wait(100);
+                }
+            }
+            return null;
+        }
+    }
+
+    interface Script {
+        void run(int connection, String lastEventId, OutputStream out) throws Exception;
+    }
+
+    /** Accepts connections and answers each with an event stream written by a Script. */
+    private static final class StandInServer {
+        final List<String> lastEventIds = new CopyOnWriteArrayList<>();
+        private final ServerSocket serverSocket;
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private Thread acceptor;
+
+        StandInServer() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        }
+
+        String baseUrl() {
+            return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/api/";
+        }
+
+        void serve(Script script) {
+            acceptor = new Thread(() -> {
+                for (int connection = 0; ; connection++) {
+                    Socket socket;
+                    try {
+                        socket = serverSocket.accept();
+                    } catch (IOException e) {
+                        return; // Closed
+                    }
+                    int index = connection;
+                    // Each connection gets its own thread, so one held open does not block the next
+                    Thread handler = new Thread(() -> handle(socket, index, script), "stand-in-connection-" + index);
+                    handler.setDaemon(true);
+                    handler.start();
+                }
+            }, "stand-in-event-server");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        private void handle(Socket socket, int connection, Script script) {
+            try (Socket closing = socket) {
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(closing.getInputStream(), StandardCharsets.UTF_8));
+                String lastEventId = null;
+                String line;
+                while ((line = in.readLine()) != null && !line.isEmpty()) {
+                    if (line.toLowerCase().startsWith("last-event-id:")) {
+                        lastEventId = line.substring("last-event-id:".length()).trim();
+                    }
+                }
+                lastEventIds.add(lastEventId);
+                OutputStream out = closing.getOutputStream();
+                out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/event-stream\r\n"
+                        + "Cache-Control: no-store\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                script.run(connection, lastEventId, out);
+            } catch (Exception ignored) {
+                // The client hung up, or the test is over
+            }
+        }
+
+        /** Keeps the current connection open until the test ends. */
+        void holdOpen() throws InterruptedException {
+            closed.await();
+        }
+
+        void close() throws Exception {
+            closed.countDown();
+            serverSocket.close();
+            if (acceptor != null) acceptor.join(2000);
+        }
+    }
+}
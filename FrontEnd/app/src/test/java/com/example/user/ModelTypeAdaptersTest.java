@@ -0,0 +1,80 @@
+package com.example.user;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the hand-written model adapters against Gson's reflective binding. Their throughput is
+ * compared by ModelParsingBenchmark.
+ */
+public class ModelTypeAdaptersTest {
+
+    private static final int SCORE_COUNT = 20_000;
+    private static final Type SCORE_LIST = new TypeToken<ArrayList<Score>>(){}.getType();
+
+    private static String json;
+
+    @BeforeClass
+    public static void buildPayload() {
+        json = JsonStreamingTest.scoresJson(SCORE_COUNT);
+    }
+
+    @Test
+    public void adapters_parseSameScoresAsReflection() {
+        List<Score> reflective = new Gson().fromJson(json, SCORE_LIST);
+        List<Score> adapted = GsonProvider.get().fromJson(json, SCORE_LIST);
+
+        assertEquals(reflective.size(), adapted.size());
+        for (int i = 0; i < adapted.size(); i += 997) {
+            Score expected = reflective.get(i);
+            Score actual = adapted.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getTotalScore(), actual.getTotalScore());
+            assertEquals(expected.getTeam().getName(), actual.getTeam().getName());
+            assertEquals(expected.getTeam().getMembers(), actual.getTeam().getMembers());
+            assertEquals(expected.getJudge().getId(), actual.getJudge().getId());
+            assertNull(actual.getRound());
+            assertEquals(expected.getScoresByCriteria().size(), actual.getScoresByCriteria().size());
+            CriteriaScore last = actual.getScoresByCriteria().get(2);
+            assertEquals("Execution", last.getCriterion().getName());
+            assertEquals(10, last.getCriterion().getMaxScore());
+        }
+    }
+
+    @Test
+    public void adapters_skipUnknownFieldsAndNulls() {
+        String body = "{\"id\":\"0x1\",\"name\":\"Final\",\"dgraph.type\":[\"Round\"],"
+                + "\"extra\":{\"nested\":[1,2,{\"deep\":true}]},\"description\":null,"
+                + "\"criteria\":[{\"id\":\"0xk1\",\"name\":\"Design\",\"maxScore\":null}],\"teams\":null}";
+
+        Round round = GsonProvider.get().fromJson(body, Round.class);
+
+        assertEquals("0x1", round.getId());
+        assertEquals("Final", round.getName());
+        assertNull(round.getDescription());
+        assertNull(round.getTeams());
+        assertEquals("Design", round.getCriteria().get(0).getName());
+        assertEquals(0, round.getCriteria().get(0).getMaxScore());
+    }
+
+    @Test
+    public void criteria_serializeWithoutNullId() {
+        // RoundCreationActivity posts new criteria, which have no id yet
+        List<Criteria> criteria = Arrays.asList(new Criteria("Design", 10), new Criteria("Pitch", 5));
+
+        String body = GsonProvider.get().toJson(criteria);
+
+        assertEquals("[{\"name\":\"Design\",\"maxScore\":10},{\"name\":\"Pitch\",\"maxScore\":5}]", body);
+        assertEquals(new Gson().toJson(criteria), body);
+    }
+}
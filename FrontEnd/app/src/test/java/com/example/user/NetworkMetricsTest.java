@@ -0,0 +1,126 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sends calls through a client that records NetworkMetrics and checks what was recorded per endpoint.
+ */
+public class NetworkMetricsTest {
+
+    private static final String TEAMS = "[{\"id\":\"0xt1\",\"name\":\"Alpha\"},{\"id\":\"0xt2\",\"name\":\"Beta\"}]";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final NetworkMetrics metrics = new NetworkMetrics();
+    private MockWebServer server;
+    private ApiClient apiClient;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        RetryPolicy noRetries = new RetryPolicy(0, 0, new CircuitBreaker(5, 1_000), metrics); // No rules set
+        OkHttpClient client = HttpClientProvider.newClient(new HttpClientProvider.Options(5, 5)
+                .networkMetrics(metrics)
+                .retryPolicy(noRetries));
+        apiClient = new ApiClient(server.url("/api/").toString(), client, null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void calls_recordPhasesSizesAndErrorsPerEndpoint() throws Exception {
+        server.enqueue(new MockResponse().setBody(TEAMS));
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("{\"msg\":\"Server Error\"}"));
+
+        get("rounds/0x1a/teams");
+        get("judges");
+
+        NetworkMetrics.Endpoint teams = metrics.get("rounds/0x2b/teams"); // Any round counts as the same endpoint
+        assertEquals(1, teams.getCallCount());
+        assertEquals(0, teams.getErrorCount());
+        assertEquals(1, teams.getLatency(NetworkMetrics.Phase.CONNECT).getCount());
+        assertEquals("Plain HTTP", 0, teams.getLatency(NetworkMetrics.Phase.TLS).getCount());
+        assertEquals(1, teams.getLatency(NetworkMetrics.Phase.TTFB).getCount());
+        assertEquals(1, teams.getLatency(NetworkMetrics.Phase.BODY).getCount());
+        assertEquals(1, teams.getLatency(NetworkMetrics.Phase.PARSE).getCount());
+        assertEquals(TEAMS.length(), teams.getResponseBytes().getSum());
+
+        NetworkMetrics.Endpoint judges = metrics.get("judges");
+        assertEquals(1.0, judges.getErrorRate(), 0);
+        assertEquals("Reused the first call's connection", 0, judges.getLatency(NetworkMetrics.Phase.CONNECT).getCount());
+        assertEquals(1, judges.getLatency(NetworkMetrics.Phase.TOTAL).getCount());
+    }
+
+    @Test
+    public void dump_writesEveryEndpointAsJson() throws Exception {
+        server.enqueue(new MockResponse().setBody(TEAMS));
+        get("teams?since=4");
+
+        File file = folder.newFile("network.json");
+        metrics.dump(file);
+
+        JsonObject dumped = JsonParser.parseString(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8))
+                .getAsJsonObject();
+        JsonObject teams = dumped.getAsJsonObject("teams");
+        assertEquals(1, teams.get("calls").getAsInt());
+        assertEquals(1, teams.getAsJsonObject("latencyMs").getAsJsonObject("ttfb").get("count").getAsInt());
+        assertEquals(TEAMS.length(), teams.getAsJsonObject("responseBytes").get("max").getAsInt());
+    }
+
+    // Waits for the call to end, not just for the callback, so its last events are recorded
+    private void get(String endpoint) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        apiClient.get(endpoint, new TypeToken<ArrayList<Team>>(){}.getType(), new ApiCallback<List<Team>>() {
+            @Override
+            public void onSuccess(List<Team> result) {
+                done.countDown();
+            }
+
+            @Override
+            public void onError(int code, String errorBody) {
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(@NonNull IOException e) {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while ((metrics.get(endpoint) == null || metrics.get(endpoint).getLatency(NetworkMetrics.Phase.TOTAL).getCount() == 0)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
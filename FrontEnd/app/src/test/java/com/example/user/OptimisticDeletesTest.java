@@ -0,0 +1,204 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that deletes are hidden at once, are sent a few at a time, are undone when they fail,
+ * and are applied app-wide even when the screen is gone before the server answers.
+ */
+public class OptimisticDeletesTest {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger mostInFlight = new AtomicInteger();
+    private MockWebServer server;
+    private ExecutorService mainThread;
+    private final AtomicInteger changes = new AtomicInteger();
+    private final List<String> confirmed = new ArrayList<>();
+    private final CountDownLatch settled = new CountDownLatch(1);
+    private int settledDeleted;
+    private List<Team> settledFailed;
+    private OptimisticDeletes<Team> deletes;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                mostInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                Thread.sleep(100);
+                inFlight.decrementAndGet();
+                if (request.getPath().equals("/api/teams/0xt3")) {
+                    return new MockResponse().setResponseCode(500).setBody("{\"msg\":\"Server Error\"}");
+                }
+                return new MockResponse().setBody("{\"msg\":\"Team deleted\"}");
+            }
+        });
+        server.start();
+        mainThread = Executors.newSingleThreadExecutor();
+        ApiClient apiClient = new ApiClient(server.url("/api/").toString(), new OkHttpClient(), null);
+        deletes = new OptimisticDeletes<>(apiClient, "teams", Team::getId, team -> {
+            synchronized (confirmed) {
+                confirmed.add(team.getId());
+            }
+        }, 2, mainThread, new OptimisticDeletes.Listener<Team>() {
+            @Override
+            public void onChanged() {
+                changes.incrementAndGet();
+            }
+
+            @Override
+            public void onSettled(int deleted, List<Team> failed) {
+                settledDeleted = deleted;
+                settledFailed = failed;
+                settled.countDown();
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mainThread.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void bulkDelete_isHiddenAtOnceAndSentTwoAtATime() throws Exception {
+        List<Team> teams = teams(6);
+        onMain(() -> deletes.delete(teams.subList(1, 6)));
+        assertEquals("Hidden before any DELETE was answered", Arrays.asList("0xt0"), shown(teams));
+        assertEquals(1, changes.get());
+
+        assertTrue(settled.await(5, TimeUnit.SECONDS));
+        assertEquals(5, server.getRequestCount());
+        assertEquals(2, mostInFlight.get());
+        assertEquals(4, settledDeleted);
+        assertEquals("0xt3", settledFailed.get(0).getId());
+
+        // The refused team is back in its old place; the deleted ones stay hidden from a stale stored copy
+        assertEquals(Arrays.asList("0xt0", "0xt3"), shown(teams));
+        assertEquals(2, changes.get());
+        assertEquals(4, confirmed.size());
+    }
+
+    @Test
+    public void freshList_doesNotShowTeamsStillBeingDeleted() throws Exception {
+        List<Team> teams = teams(3);
+        onMain(() -> {
+            deletes.delete(teams.subList(2, 3));
+            // A sync answered before the DELETE was
+            deletes.onFreshList(teams);
+        });
+        assertEquals(Arrays.asList("0xt0", "0xt1"), shown(teams));
+        assertTrue(settled.await(5, TimeUnit.SECONDS));
+
+        // Once the server's list agrees, the team is no longer hidden by id
+        onMain(() -> deletes.onFreshList(teams.subList(0, 2)));
+        assertTrue(deletes.hiddenIds().isEmpty());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void screenDestroyedMidDelete_stillAppliesEveryConfirmedDelete() throws Exception {
+        List<Round> rounds = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            rounds.add(Round.ADAPTER.fromJson("{\"id\":\"0xr" + i + "\",\"name\":\"Round " + i + "\"}"));
+        }
+        Repositories.rounds().put("rounds", rounds);
+        Repositories.teams().put(Repositories.roundTeams("0xr1"), teams(2));
+        List<String> stored = new CopyOnWriteArrayList<>(Arrays.asList("0xr1", "0xr2", "0xr3"));
+
+        Screen screen = new Screen();
+        OkHttpClient client = new OkHttpClient();
+        ApiClient screenClient = new ApiClient(server.url("/api/").toString(), client, new SingleFlight(),
+                new RequestScheduler(client.dispatcher(), RequestScheduler.DEFAULT_MAX_QUEUED_BACKGROUND, null),
+                CallScope.untilStop(screen), null);
+        CountDownLatch applied = new CountDownLatch(3);
+        AtomicInteger screenCalls = new AtomicInteger();
+        OptimisticDeletes<Round> roundDeletes = new OptimisticDeletes<>(screenClient, "rounds", Round::getId, round -> {
+            // What RoundFragment does; the list stands in for LocalStore
+            ScoringSession.discard(round.getId());
+            Repositories.rounds().invalidate("rounds");
+            stored.remove(round.getId());
+            applied.countDown();
+        }, 2, mainThread, new OptimisticDeletes.Listener<Round>() {
+            @Override
+            public void onChanged() {
+                screenCalls.incrementAndGet();
+            }
+
+            @Override
+            public void onSettled(int deleted, List<Round> failed) {
+                screenCalls.incrementAndGet();
+            }
+        });
+
+        // The third DELETE has not been sent yet when the user swipes two tabs away
+        onMain(() -> roundDeletes.delete(rounds));
+        onMain(() -> screen.lifecycle.moveTo(Lifecycle.State.DESTROYED));
+
+        assertTrue(applied.await(5, TimeUnit.SECONDS));
+        assertEquals(3, server.getRequestCount());
+        assertTrue(stored.isEmpty());
+        assertNull(Repositories.rounds().peek("rounds"));
+        assertNull(Repositories.teams().peek(Repositories.roundTeams("0xr1")));
+        Thread.sleep(100);
+        onMain(() -> {}); // Every answer has been settled
+        assertEquals("The destroyed screen was called back", 1, screenCalls.get());
+    }
+
+    private void onMain(Runnable action) throws Exception {
+        mainThread.submit(action).get(2, TimeUnit.SECONDS);
+    }
+
+    private static List<Team> teams(int count) throws Exception {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            teams.add(Team.ADAPTER.fromJson("{\"id\":\"0xt" + i + "\",\"name\":\"Team " + i + "\"}"));
+        }
+        return teams;
+    }
+
+    private static final class Screen implements LifecycleOwner {
+        final FakeLifecycle lifecycle = new FakeLifecycle(this);
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return lifecycle;
+        }
+    }
+
+    // What a list screen shows of the teams
+    private List<String> shown(List<Team> teams) {
+        List<String> ids = new ArrayList<>();
+        for (Team team : teams) {
+            if (!deletes.hiddenIds().contains(team.getId())) ids.add(team.getId());
+        }
+        return ids;
+    }
+}
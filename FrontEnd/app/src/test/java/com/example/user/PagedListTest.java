@@ -0,0 +1,104 @@
+package com.example.user;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Scrolls a long list and checks that pages are read as they are needed, a few rows ahead,
+ * and that only a bounded window of them is held.
+ */
+public class PagedListTest {
+
+    private static final int PAGE_SIZE = 50;
+    private static final int MAX_PAGES = 3;
+    private static final int PREFETCH_DISTANCE = 20;
+
+    private final Rows rows = new Rows(10_000);
+    private List<String> shown;
+
+    @Test
+    public void firstPageShowsAtOnce_andOnlyAWindowIsHeld() {
+        PagedList<String> list = newList(Runnable::run);
+
+        list.refresh();
+        assertEquals(10_000, shown.size());
+        assertEquals("Row 0", shown.get(0));
+        assertNull("Not read until scrolled near", shown.get(PAGE_SIZE));
+        assertEquals(1, rows.pagesRead);
+
+        list.loadAround(20, 29);
+        assertEquals("Still within the first page", 1, rows.pagesRead);
+        list.loadAround(25, 34);
+        assertEquals("Read ahead before row 50 is on screen", "Row 50", shown.get(PAGE_SIZE));
+
+        list.loadAround(5000, 5009);
+        assertEquals("Row 5009", shown.get(5009));
+        assertEquals("Row 4980", shown.get(4980)); // The page above, within the prefetch distance
+        assertNull("Dropped as the farthest page", shown.get(0));
+        assertEquals(MAX_PAGES * PAGE_SIZE, loaded(shown));
+    }
+
+    @Test
+    public void refresh_dropsPagesReadBeforeIt() {
+        Queue<Runnable> background = new ArrayDeque<>();
+        PagedList<String> list = newList(background::add);
+        list.refresh();
+        runAll(background);
+
+        list.loadAround(60, 69); // Reads the second page from the old rows...
+        rows.rename("Renamed");
+        list.refresh(); // ...but the rows change before it arrives
+        runAll(background);
+
+        assertEquals("Renamed 60", shown.get(60));
+        assertEquals("Renamed 0", shown.get(0));
+    }
+
+    private PagedList<String> newList(Executor background) {
+        return new PagedList<>(rows, PAGE_SIZE, MAX_PAGES, PREFETCH_DISTANCE, background, Runnable::run,
+                snapshot -> shown = snapshot);
+    }
+
+    private static void runAll(Queue<Runnable> tasks) {
+        while (!tasks.isEmpty()) tasks.remove().run();
+    }
+
+    private static int loaded(List<String> list) {
+        int loaded = 0;
+        for (String row : list) {
+            if (row != null) loaded++;
+        }
+        return loaded;
+    }
+
+    private static final class Rows implements PagedList.Source<String> {
+        private final List<String> rows = new ArrayList<>();
+        int pagesRead;
+
+        Rows(int count) {
+            for (int i = 0; i < count; i++) rows.add("Row " + i);
+        }
+
+        void rename(String prefix) {
+            for (int i = 0; i < rows.size(); i++) rows.set(i, prefix + " " + i);
+        }
+
+        @Override
+        public int count() {
+            return rows.size();
+        }
+
+        @Override
+        public List<String> load(int offset, int limit) {
+            pagesRead++;
+            return new ArrayList<>(rows.subList(offset, Math.min(rows.size(), offset + limit)));
+        }
+    }
+}
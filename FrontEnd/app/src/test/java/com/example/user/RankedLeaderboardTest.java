@@ -0,0 +1,103 @@
+package com.example.user;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the order-statistic leaderboard against a plain re-sort after every update.
+ */
+public class RankedLeaderboardTest {
+
+    @Test
+    public void addPoints_matchesAFullResortAfterEveryUpdate() {
+        Random random = new Random(7);
+        RankedLeaderboard board = new RankedLeaderboard();
+        // Reference model: totals in first-seen order, stably sorted on demand
+        Map<String, Integer> totals = new LinkedHashMap<>();
+
+        for (int i = 0; i < 5000; i++) {
+            String teamId = "0xt" + random.nextInt(300);
+            int points = random.nextInt(5); // Small scores, so ties are common
+            int before = resorted(totals).indexOf(teamId);
+
+            RankedLeaderboard.Move move = board.addPoints(teamId, "Team " + teamId, points);
+            totals.merge(teamId, points, Integer::sum);
+            List<String> expected = resorted(totals);
+
+            assertEquals(before, move.from);
+            assertEquals(expected.indexOf(teamId), move.to);
+            assertEquals(move.to, board.positionOf(teamId));
+            if (i % 500 == 0) {
+                assertEquals(expected, ids(board.toList()));
+            }
+        }
+        List<String> expected = resorted(totals);
+        assertEquals(expected.size(), board.size());
+        for (int position = 0; position < expected.size(); position++) {
+            LeaderboardEntry entry = board.get(position);
+            assertEquals(expected.get(position), entry.getTeamId());
+            assertEquals((int) totals.get(entry.getTeamId()), entry.getTotalScore());
+        }
+    }
+
+    @Test
+    public void move_coversExactlyTheRowsThatChanged() {
+        RankedLeaderboard board = new RankedLeaderboard();
+        board.replaceAll(Arrays.asList(entry("a", 50), entry("b", 40), entry("c", 30), entry("d", 20), entry("e", 10)));
+        List<LeaderboardEntry> before = board.toList();
+
+        RankedLeaderboard.Move move = board.addPoints("d", null, 25); // 45: passes b and c
+        List<LeaderboardEntry> after = board.toList();
+
+        assertEquals(3, move.from);
+        assertEquals(1, move.to);
+        assertEquals(Arrays.asList("a", "d", "b", "c", "e"), ids(after));
+        assertEquals("Team d", after.get(1).getTeamName());
+        // Outside from..to nothing moved
+        assertSame(before.get(0), after.get(0));
+        assertSame(before.get(4), after.get(4));
+    }
+
+    @Test
+    public void ties_keepTheOrderTeamsFirstAppeared() {
+        RankedLeaderboard board = new RankedLeaderboard();
+        board.replaceAll(Arrays.asList(entry("a", 10), entry("b", 10), entry("c", 5)));
+
+        RankedLeaderboard.Move move = board.addPoints("c", null, 5); // Ties a and b, but arrived last
+        assertEquals(2, move.from);
+        assertEquals(2, move.to);
+
+        RankedLeaderboard.Move newTeam = board.addPoints("z", "Zeta", 10);
+        assertTrue(newTeam.isInsert());
+        assertEquals(3, newTeam.to);
+        assertEquals(Arrays.asList("a", "b", "c", "z"), ids(board.toList()));
+        assertEquals(-1, board.positionOf("missing"));
+    }
+
+    private static List<String> resorted(Map<String, Integer> totals) {
+        List<Map.Entry<String, Integer>> rows = new ArrayList<>(totals.entrySet());
+        rows.sort(Comparator.comparing((Map.Entry<String, Integer> row) -> row.getValue()).reversed());
+        List<String> ids = new ArrayList<>(rows.size());
+        for (Map.Entry<String, Integer> row : rows) ids.add(row.getKey());
+        return ids;
+    }
+
+    private static List<String> ids(List<LeaderboardEntry> entries) {
+        List<String> ids = new ArrayList<>(entries.size());
+        for (LeaderboardEntry entry : entries) ids.add(entry.getTeamId());
+        return ids;
+    }
+
+    private static LeaderboardEntry entry(String teamId, int total) {
+        return new LeaderboardEntry(teamId, "Team " + teamId, total, 0);
+    }
+}
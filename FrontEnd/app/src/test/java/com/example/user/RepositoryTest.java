@@ -0,0 +1,197 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * Opens the screens that show the same team list one after another and checks that only the
+ * first fetches and parses it, and that the shared cache stays within its memory budget.
+ */
+public class RepositoryTest {
+
+    private static final int TEAM_COUNT = 2_000;
+    private static final Type TEAM_LIST = new TypeToken<ArrayList<Team>>(){}.getType();
+
+    private MockWebServer server;
+    private ApiClient apiClient;
+    private EntityCache cache;
+    private Repository<Team> teams;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(@NonNull RecordedRequest request) {
+                return new MockResponse().setHeader("Content-Type", "application/json").setBody(teamsJson(TEAM_COUNT));
+            }
+        });
+        server.start();
+        apiClient = new ApiClient(server.url("/api/").toString(), new OkHttpClient(), null);
+        cache = new EntityCache(EntityCache.DEFAULT_MAX_BYTES);
+        teams = Repositories.newTeamRepository(cache);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void listLoadedByOneScreen_isShownByTheNextWithoutFetchingAgain() throws Exception {
+        Screen teamsTab = new Screen();
+        AtomicReference<List<Team>> onTab = new AtomicReference<>();
+        teams.observe(teamsTab, "teams", onTab::set);
+        refresh("teams");
+        assertEquals(TEAM_COUNT, onTab.get().size());
+
+        // The add-teams screen and a scoring session, opened afterwards
+        Screen addTeams = new Screen();
+        AtomicReference<List<Team>> onAddTeams = new AtomicReference<>();
+        teams.observe(addTeams, "teams", onAddTeams::set);
+        assertSame("Expected the cached list before observe() returned", onTab.get(), onAddTeams.get());
+        AtomicReference<List<Team>> loaded = new AtomicReference<>();
+        teams.load(apiClient, "teams", callback(loaded, null));
+        assertSame(onTab.get(), loaded.get());
+        assertEquals(1, server.getRequestCount());
+
+        refresh("teams");
+        assertEquals(2, server.getRequestCount());
+        assertNotSame("Observers get the refreshed list", loaded.get(), onAddTeams.get());
+        assertSame(onTab.get(), onAddTeams.get());
+        try {
+            onTab.get().remove(0);
+            fail("Screens share the list, so none may change it");
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        assertEquals(2, cache.getHitCount());
+        assertTrue(cache.getHitRatio() > 0.5);
+        assertTrue(cache.getSizeBytes() > TEAM_COUNT * 100L);
+    }
+
+    @Test
+    public void cacheStaysWithinItsBudget_droppingTheLeastRecentlyUsedList() {
+        List<Team> round = parsedTeams(100);
+        long listBytes = EntityCache.sizeOf(round, Repositories::sizeOf);
+        cache = new EntityCache(listBytes * 3 + listBytes / 2);
+        teams = Repositories.newTeamRepository(cache);
+        Repository<Judge> judges = Repositories.newJudgeRepository(cache);
+
+        teams.put(Repositories.roundTeams("r1"), round);
+        teams.put(Repositories.roundTeams("r2"), round);
+        teams.put(Repositories.roundTeams("r3"), round);
+        assertNotNull(teams.peek(Repositories.roundTeams("r1"))); // r2 is now the least recently used
+        teams.put(Repositories.roundTeams("r4"), round);
+
+        assertNull(teams.peek(Repositories.roundTeams("r2")));
+        assertNotNull(teams.peek(Repositories.roundTeams("r1")));
+        assertNotNull(teams.peek(Repositories.roundTeams("r3")));
+        assertNotNull(teams.peek(Repositories.roundTeams("r4")));
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.getSizeBytes() <= cache.getMaxBytes());
+
+        // Larger than the whole cache: not kept, and nothing else is pushed out for it
+        teams.put("teams", parsedTeams(400));
+        assertNull(teams.peek("teams"));
+        assertEquals(3, cache.getEntryCount());
+
+        judges.put("judges", new ArrayList<>());
+        teams.invalidateAll();
+        assertEquals(1, cache.getEntryCount());
+        assertNotNull(judges.peek("judges"));
+    }
+
+    @Test
+    public void destroyedScreen_isNoLongerHandedLists() {
+        Screen screen = new Screen();
+        List<List<Team>> seen = new ArrayList<>();
+        teams.observe(screen, "teams", seen::add);
+        teams.put("teams", parsedTeams(1));
+        assertEquals(1, seen.size());
+
+        screen.lifecycle.moveTo(Lifecycle.State.DESTROYED);
+        teams.put("teams", parsedTeams(2));
+
+        assertEquals(1, seen.size());
+        assertTrue(screen.lifecycle.observers.isEmpty());
+    }
+
+    private void refresh(String endpoint) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        teams.refresh(apiClient, endpoint, callback(new AtomicReference<>(), done));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    private static ApiCallback<List<Team>> callback(AtomicReference<List<Team>> result, CountDownLatch done) {
+        return new ApiCallback<List<Team>>() {
+            @Override
+            public void onSuccess(List<Team> teams) {
+                result.set(teams);
+                if (done != null) done.countDown();
+            }
+
+            @Override
+            public void onError(int code, String errorBody) {
+                fail("HTTP " + code);
+            }
+
+            @Override
+            public void onFailure(@NonNull IOException e) {
+                fail(e.toString());
+            }
+        };
+    }
+
+    private static List<Team> parsedTeams(int count) {
+        try {
+            return JsonCallback.parse(ResponseBody.create(teamsJson(count), null), TEAM_LIST);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String teamsJson(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":\"0xt").append(i).append("\",\"name\":\"Team ").append(i)
+                    .append("\",\"college\":\"College of Engineering ").append(i % 40)
+                    .append("\",\"members\":[\"Ada\",\"Grace\",\"Linus\"]}");
+        }
+        return json.append(']').toString();
+    }
+
+    private static final class Screen implements LifecycleOwner {
+        final FakeLifecycle lifecycle = new FakeLifecycle(this);
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return lifecycle;
+        }
+    }
+}
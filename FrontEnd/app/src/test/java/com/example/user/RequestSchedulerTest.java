@@ -0,0 +1,147 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * Queues background list refreshes against a slow server and checks that score submissions and
+ * foreground reads still go first.
+ */
+public class RequestSchedulerTest {
+
+    private static final long LIST_DELAY_MS = 200;
+
+    private MockWebServer server;
+    private RequestScheduler scheduler;
+    private final List<String> arrivals = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new okhttp3.mockwebserver.Dispatcher() {
+            @Override
+            public MockResponse dispatch(@NonNull RecordedRequest request) {
+                arrivals.add(request.getMethod() + " " + request.getPath());
+                if ("POST".equals(request.getMethod())) {
+                    return new MockResponse().setBody("{\"msg\":\"Score saved\"}");
+                }
+                return new MockResponse().setBody("[]").setHeadersDelay(LIST_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void submitLatency_staysFlatWhileFiftyBackgroundGetsAreQueued() throws Exception {
+        ApiClient apiClient = newApiClient(5, 64);
+
+        long idle = submit(apiClient, "key-1");
+
+        CountDownLatch refreshed = new CountDownLatch(50);
+        for (int i = 0; i < 50; i++) {
+            apiClient.getChanges("teams", "w" + i).enqueue(countDown(refreshed));
+        }
+        assertTrue(scheduler.queuedCount(RequestScheduler.Priority.BACKGROUND) >= 45);
+
+        long busy = submit(apiClient, "key-2");
+        assertTrue("Submitted in " + busy + " ms while idle took " + idle + " ms; one list takes " + LIST_DELAY_MS,
+                busy < idle + LIST_DELAY_MS / 2);
+        assertTrue("Refreshes were still waiting", refreshed.getCount() > 0);
+
+        assertTrue(refreshed.await(10, TimeUnit.SECONDS));
+        assertEquals(0, scheduler.queuedCount(RequestScheduler.Priority.BACKGROUND));
+    }
+
+    @Test
+    public void higherClassesGoFirstAndTheOldestBackgroundCallIsShed() throws Exception {
+        ApiClient apiClient = newApiClient(2, 3);
+
+        List<IOException> shed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(7);
+        for (int i = 1; i <= 5; i++) {
+            apiClient.getChanges("teams", "b" + i).enqueue(new Callback() {
+                @Override
+                public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    shed.add(e);
+                    done.countDown();
+                }
+
+                @Override
+                public void onResponse(@NonNull Call call, @NonNull Response response) {
+                    response.close();
+                    done.countDown();
+                }
+            });
+        }
+        server.takeRequest(); // b1 has arrived
+        apiClient.post("scores", "{}", "key-1").enqueue(countDown(done));
+        apiClient.get("judges").enqueue(countDown(done));
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        assertEquals(1, shed.size());
+        assertTrue(shed.get(0) instanceof RequestScheduler.ShedException);
+        // b1 took the one slot background may use, and b5 pushed b2 out of the queue. The judges
+        // list waited for the submission's slot; the other refreshes waited for the judges list
+        assertEquals(List.of("GET /api/teams?since=b1", "POST /api/scores", "GET /api/judges",
+                "GET /api/teams?since=b3", "GET /api/teams?since=b4", "GET /api/teams?since=b5"), arrivals);
+    }
+
+    private ApiClient newApiClient(int perHost, int maxQueuedBackground) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(perHost);
+        scheduler = new RequestScheduler(dispatcher, maxQueuedBackground, null);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .build();
+        return new ApiClient(server.url("/api/").toString(), client, new SingleFlight(), scheduler, null, null);
+    }
+
+    private static long submit(ApiClient apiClient, String idempotencyKey) throws Exception {
+        CountDownLatch answered = new CountDownLatch(1);
+        long start = System.nanoTime();
+        apiClient.post("scores", "{\"score\":7}", idempotencyKey).enqueue(countDown(answered));
+        assertTrue(answered.await(5, TimeUnit.SECONDS));
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static Callback countDown(CountDownLatch latch) {
+        return new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                response.close();
+                latch.countDown();
+            }
+        };
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs calls against a server that drops connections or answers 503 on demand, and checks what
+ * is retried, what is not, and that a dead server is failed fast.
+ */
+public class RetryPolicyTest {
+
+    private static final long OPEN_MS = 300;
+
+    private final FaultyServer faults = new FaultyServer();
+    private final NetworkMetrics metrics = new NetworkMetrics();
+    private MockWebServer server;
+    private RetryPolicy policy;
+    private ApiClient apiClient;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(faults);
+        server.start();
+        policy = new RetryPolicy(10, 50, new CircuitBreaker(3, OPEN_MS), metrics);
+        policy.setMaxRetries("GET", null, 2);
+        policy.setMaxRetries("POST", null, 2);
+        policy.setMaxRetries("GET", "leaderboard/stream", 0);
+        OkHttpClient client = HttpClientProvider.newClient(new HttpClientProvider.Options(5, 5)
+                .networkMetrics(metrics)
+                .retryPolicy(policy));
+        apiClient = new ApiClient(server.url("/api/").toString(), client, null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void get_isRetriedThroughDroppedConnectionsAndUnavailableAnswers() throws Exception {
+        faults.drops.set(1);
+        faults.unavailable.set(1);
+
+        try (Response response = apiClient.get("teams").execute()) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(3, server.getRequestCount());
+        assertEquals(2, metrics.get("teams").getRetryCount());
+
+        // The stream has retries switched off
+        faults.unavailable.set(1);
+        try (Response response = apiClient.get("leaderboard/stream").execute()) {
+            assertEquals(503, response.code());
+        }
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    public void post_isRetriedOnlyWithAnIdempotencyKey() throws Exception {
+        faults.drops.set(1);
+        try {
+            apiClient.post("teams", "{}").execute().close();
+            fail("A POST without a key must not be sent twice");
+        } catch (IOException expected) {
+        }
+        assertEquals(1, server.getRequestCount());
+
+        faults.drops.set(1);
+        try (Response response = apiClient.post("scores", "{}", "key-1").execute()) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void deadServer_failsFastUntilAProbeGetsThrough() throws Exception {
+        faults.drops.set(Integer.MAX_VALUE);
+        try {
+            apiClient.get("teams").execute().close(); // Three attempts open the circuit
+            fail();
+        } catch (IOException expected) {
+        }
+        int sent = server.getRequestCount();
+        assertEquals(3, sent);
+
+        try {
+            apiClient.get("judges").execute().close();
+            fail();
+        } catch (CircuitBreaker.CircuitOpenException expected) {
+        }
+        assertEquals("Failed without touching the network", sent, server.getRequestCount());
+
+        faults.drops.set(0); // The tunnel is back
+        Thread.sleep(OPEN_MS + 50);
+        try (Response response = apiClient.get("judges").execute()) {
+            assertEquals(200, response.code());
+        }
+        assertFalse(policy.getCircuitBreaker().isOpen(server.getHostName()));
+    }
+
+    @Test
+    public void cancelledCalls_leaveTheCircuitClosed() throws Exception {
+        faults.slow = true;
+        List<Call> calls = new ArrayList<>();
+        CountDownLatch failed = new CountDownLatch(5);
+        for (int i = 0; i < 5; i++) { // More than enough failures to open it
+            Call call = apiClient.get("rounds/0x" + i);
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(@NonNull Call c, @NonNull IOException e) {
+                    failed.countDown();
+                }
+
+                @Override
+                public void onResponse(@NonNull Call c, @NonNull Response response) {
+                    response.close();
+                }
+            });
+            calls.add(call);
+        }
+        for (int i = 0; i < 5; i++) server.takeRequest(); // Every call is waiting on the server
+        for (Call call : calls) call.cancel(); // e.g. the screen was left
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        assertFalse(policy.getCircuitBreaker().isOpen(server.getHostName()));
+
+        // A cancelled probe hands the probe on instead of keeping the circuit open for good
+        CircuitBreaker breaker = new CircuitBreaker(1, 0);
+        breaker.onFailure("tunnel");
+        breaker.beforeRequest("tunnel");
+        breaker.onCanceled("tunnel");
+        breaker.beforeRequest("tunnel");
+    }
+
+    @Test
+    public void cancelWhileWaitingToRetry_givesUpAtOnce() throws Exception {
+        RetryPolicy patient = new RetryPolicy(2_000, 2_000, new CircuitBreaker(3, OPEN_MS), metrics);
+        patient.setMaxRetries("GET", null, 2);
+        OkHttpClient client = HttpClientProvider.newClient(new HttpClientProvider.Options(5, 5)
+                .retryPolicy(patient));
+        ApiClient patientClient = new ApiClient(server.url("/api/").toString(), client, null);
+        faults.unavailable.set(1);
+
+        CountDownLatch failed = new CountDownLatch(1);
+        Call call = patientClient.get("teams");
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call c, @NonNull IOException e) {
+                failed.countDown();
+            }
+
+            @Override
+            public void onResponse(@NonNull Call c, @NonNull Response response) {
+                response.close();
+            }
+        });
+        server.takeRequest();
+        Thread.sleep(100); // The 503 is back; the retry is at least 900 ms away
+        call.cancel();
+
+        assertTrue("Kept its slots until the retry was due", failed.await(500, TimeUnit.MILLISECONDS));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    /**
+     * Drops the next few connections, then answers the next few with 503, then succeeds; or,
+     * while slow, holds every answer back.
+     */
+    private static final class FaultyServer extends Dispatcher {
+        final AtomicInteger drops = new AtomicInteger();
+        final AtomicInteger unavailable = new AtomicInteger();
+        volatile boolean slow;
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if (slow) {
+                return new MockResponse().setBody("[]").setHeadersDelay(5, TimeUnit.SECONDS);
+            }
+            if (drops.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+            }
+            if (unavailable.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                return new MockResponse().setResponseCode(503).setBody("{\"msg\":\"Tunnel unavailable\"}");
+            }
+            return new MockResponse().setBody("[]");
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.user;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that staged team changes net out and survive a failed save.
+ */
+public class RoundTeamChangesTest {
+
+    @Test
+    public void changes_netOutAndBuildOnePut() throws Exception {
+        Team alpha = team("0xt1", "Alpha");
+        Team beta = team("0xt2", "Beta");
+        Team gamma = team("0xt3", "Gamma");
+        RoundTeamChanges changes = new RoundTeamChanges();
+
+        changes.add(gamma);
+        changes.remove(beta);
+        changes.remove(gamma); // Changed their mind
+        changes.add(beta);
+        assertTrue(changes.isEmpty());
+
+        changes.remove(alpha);
+        changes.add(gamma);
+        assertEquals(2, changes.size());
+        assertFalse(changes.isRegistered("0xt1", true));
+        assertTrue(changes.isRegistered("0xt3", false));
+        assertEquals("{\"addTeamIds\":[\"0xt3\"],\"removeTeamIds\":[\"0xt1\"]}", changes.toJson());
+
+        List<Team> shown = changes.applyTo(Arrays.asList(alpha, beta));
+        assertEquals(Arrays.asList("0xt2", "0xt3"), ids(shown));
+    }
+
+    @Test
+    public void failedSave_isRestoredUnderNewerTaps() throws Exception {
+        Team alpha = team("0xt1", "Alpha");
+        Team beta = team("0xt2", "Beta");
+        RoundTeamChanges pending = new RoundTeamChanges();
+        pending.add(alpha);
+
+        RoundTeamChanges sending = pending.take();
+        assertTrue(pending.isEmpty());
+
+        // While the PUT is in flight the admin adds Beta and takes Alpha back out
+        pending.add(beta);
+        pending.remove(alpha);
+
+        pending.restore(sending); // The PUT failed
+        assertEquals("{\"addTeamIds\":[\"0xt2\"],\"removeTeamIds\":[]}", pending.toJson());
+    }
+
+    private static Team team(String id, String name) throws Exception {
+        return Team.ADAPTER.fromJson("{\"id\":\"" + id + "\",\"name\":\"" + name + "\"}");
+    }
+
+    private static List<String> ids(List<Team> teams) {
+        List<String> ids = new ArrayList<>();
+        for (Team team : teams) ids.add(team.getId());
+        return ids;
+    }
+}
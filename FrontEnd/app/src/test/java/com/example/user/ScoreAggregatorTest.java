@@ -0,0 +1,154 @@
+package com.example.user;
+
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks totals, ranks and breakdowns produced by ScoreAggregator.
+ */
+public class ScoreAggregatorTest {
+
+    private static final Type SCORE_LIST = new TypeToken<ArrayList<Score>>(){}.getType();
+
+    @Test
+    public void aggregate_emptyOrNull_returnsEmptyResult() {
+        assertTrue(ScoreAggregator.aggregate(null).getTeams().isEmpty());
+        assertTrue(ScoreAggregator.aggregate(Collections.<Score>emptyList()).getTeams().isEmpty());
+    }
+
+    @Test
+    public void aggregate_sumsPerTeamAndRanksWithTies() {
+        List<Score> scores = parse(
+                score("0xt1", "Alpha", "0xj1", 7, 5, 2),
+                score("0xt1", "Alpha", "0xj2", 9, 6, 3),
+                score("0xt2", "Bravo", "0xj1", 10, 6, 4),
+                score("0xt2", "Bravo", "0xj2", 6, 3, 3),
+                score("0xt3", "Charlie", "0xj1", 12, 8, 4));
+
+        RoundScores result = ScoreAggregator.aggregate(scores);
+        List<RoundScores.TeamResult> teams = result.getTeams();
+
+        assertEquals(3, teams.size());
+        // Alpha and Bravo both have 16; ties share a rank and are ordered by name
+        assertEquals("Alpha", teams.get(0).getTeamName());
+        assertEquals(16, teams.get(0).getTotalScore());
+        assertEquals(1, teams.get(0).getRank());
+        assertEquals("Bravo", teams.get(1).getTeamName());
+        assertEquals(1, teams.get(1).getRank());
+        assertEquals("Charlie", teams.get(2).getTeamName());
+        assertEquals(12, teams.get(2).getTotalScore());
+        assertEquals(3, teams.get(2).getRank());
+
+        assertEquals(2, teams.get(0).getSubmissionCount());
+        assertEquals(8.0, teams.get(0).getAverageScore(), 0.0001);
+        assertEquals(5, result.getSubmissionCount());
+        assertEquals(3, teams.get(0).getMemberCount());
+    }
+
+    @Test
+    public void aggregate_breaksDownByJudgeAndCriterion() {
+        List<Score> scores = parse(
+                score("0xt1", "Alpha", "0xj1", 7, 5, 2),
+                score("0xt1", "Alpha", "0xj2", 9, 6, 3),
+                score("0xt2", "Bravo", "0xj2", 6, 3, 3));
+
+        RoundScores result = ScoreAggregator.aggregate(scores);
+        RoundScores.TeamResult alpha = result.getTeams().get(0);
+        RoundScores.TeamResult bravo = result.getTeams().get(1);
+
+        assertEquals(Arrays.asList("0xj1", "0xj2"), result.getJudgeIds());
+        assertEquals(Arrays.asList("Design", "Pitch"), result.getCriterionNames());
+        assertEquals(7, alpha.getJudgeTotal(0));
+        assertEquals(9, alpha.getJudgeTotal(1));
+        assertEquals(0, bravo.getJudgeTotal(0));
+        assertEquals(0, bravo.getJudgeSubmissionCount(0));
+        assertEquals(6, bravo.getJudgeTotal(1));
+
+        assertEquals(11, alpha.getCriterionTotal(0));
+        assertEquals(5.5, alpha.getCriterionAverage(0), 0.0001);
+        assertEquals(2.5, alpha.getCriterionAverage(1), 0.0001);
+        // (5 + 6 + 3) / 3 submissions
+        assertEquals(14 / 3.0, result.getCriterionAverage(0), 0.0001);
+        assertEquals(7.5, result.getJudgeAverage(1), 0.0001);
+    }
+
+    @Test
+    public void aggregate_skipsSubmissionsWithoutTeam() {
+        List<Score> scores = parse(score("0xt1", "Alpha", "0xj1", 7, 5, 2));
+        scores.add(null);
+        scores.addAll(GsonProvider.get().<List<Score>>fromJson("[{\"id\":\"0x9\",\"total_score\":4}]", SCORE_LIST));
+
+        RoundScores result = ScoreAggregator.aggregate(scores);
+
+        assertEquals(1, result.getTeams().size());
+        assertEquals(1, result.getSubmissionCount());
+        assertEquals(2, result.getSkippedCount());
+    }
+
+    @Test
+    public void aggregate_matchesSimpleTotalsOnLargeRound() {
+        List<Score> scores = GsonProvider.get().fromJson(JsonStreamingTest.scoresJson(100_000), SCORE_LIST);
+
+        RoundScores result = ScoreAggregator.aggregate(scores);
+
+        assertEquals(200, result.getTeams().size());
+        long sum = 0;
+        for (Score score : scores) sum += score.getTotalScore();
+        long aggregated = 0;
+        for (RoundScores.TeamResult team : result.getTeams()) aggregated += team.getTotalScore();
+        assertEquals(sum, aggregated);
+        for (int i = 1; i < result.getTeams().size(); i++) {
+            assertTrue(result.getTeams().get(i - 1).getTotalScore() >= result.getTeams().get(i).getTotalScore());
+        }
+    }
+
+    @Test
+    public void aggregate_allocationDoesNotGrowWithSubmissions() {
+        List<Score> small = GsonProvider.get().fromJson(JsonStreamingTest.scoresJson(10_000), SCORE_LIST);
+        List<Score> large = GsonProvider.get().fromJson(JsonStreamingTest.scoresJson(100_000), SCORE_LIST);
+        for (int i = 0; i < 3; i++) {
+            ScoreAggregator.aggregate(small);
+            ScoreAggregator.aggregate(large);
+        }
+
+        long smallBytes = allocatedBytes(small);
+        long largeBytes = allocatedBytes(large);
+
+        // Both rounds have the same 200 teams, 8 judges and 3 criteria
+        assertTrue(largeBytes < smallBytes * 2);
+    }
+
+    private static long allocatedBytes(List<Score> scores) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        RoundScores result = ScoreAggregator.aggregate(scores);
+        long after = threads.getThreadAllocatedBytes(threadId);
+        assertEquals(200, result.getTeams().size());
+        return after - before;
+    }
+
+    private static List<Score> parse(String... scores) {
+        return GsonProvider.get().fromJson("[" + String.join(",", scores) + "]", SCORE_LIST);
+    }
+
+    private static String score(String teamId, String teamName, String judgeId, int total, int design, int pitch) {
+        return "{\"id\":\"0x" + Integer.toHexString((teamId + judgeId).hashCode()) + "\",\"total_score\":" + total
+                + ",\"team\":{\"id\":\"" + teamId + "\",\"name\":\"" + teamName + "\",\"members\":[\"a\",\"b\",\"c\"]}"
+                + ",\"judge\":{\"id\":\"" + judgeId + "\",\"name\":\"Judge " + judgeId + "\"}"
+                + ",\"scoresByCriteria\":["
+                + "{\"score\":" + design + ",\"criterion\":{\"id\":\"0xk1\",\"name\":\"Design\",\"maxScore\":10}},"
+                + "{\"score\":" + pitch + ",\"criterion\":{\"id\":\"0xk2\",\"name\":\"Pitch\",\"maxScore\":10}}]}";
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.user;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drains the score outbox against a stand-in server that drops connections at random, and checks
+ * that every submission ends up stored exactly once.
+ */
+public class ScoreOutboxTest {
+
+    private static final int SUBMISSIONS = 40;
+    private static final int MAX_CONCURRENT = 3;
+
+    private MockWebServer server;
+    private ApiClient apiClient;
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        // Let the outbox do the retrying, not OkHttp
+        OkHttpClient client = new OkHttpClient.Builder()
+                .retryOnConnectionFailure(false)
+                .readTimeout(2, TimeUnit.SECONDS)
+                .build();
+        apiClient = new ApiClient(server.url("/api/").toString(), client, null);
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void flakyServer_everySubmissionStoredExactlyOnce() throws Exception {
+        FlakyScoreServer scoreServer = new FlakyScoreServer(new Random(42));
+        server.setDispatcher(scoreServer);
+        ScoreOutbox outbox = newOutbox(new InMemoryOutboxStore());
+
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            outbox.enqueue("0xr1", "0xj1", "0xt" + i, "Team " + i, "{\"teamId\":\"0xt" + i + "\"}");
+        }
+        List<ScoreOutbox.Entry> settled = awaitEntries(outbox, entries -> entries.size() == SUBMISSIONS
+                && entries.stream().allMatch(e -> e.getState() == ScoreOutbox.State.CONFIRMED));
+
+        assertNotNull("Outbox did not confirm every submission", settled);
+        // Without the idempotency key, every lost response would have become a duplicate Score
+        assertEquals(SUBMISSIONS, scoreServer.scoreNodes.get());
+        assertEquals(SUBMISSIONS, scoreServer.bodiesByKey.size());
+        assertTrue("The server never dropped a connection", server.getRequestCount() > SUBMISSIONS);
+        assertTrue("Replays should have answered some retries", scoreServer.replays.get() > 0);
+        assertTrue(scoreServer.maxConcurrent.get() <= MAX_CONCURRENT);
+
+        Map<String, ScoreOutbox.State> states = ScoreOutbox.statesByTeam(settled, "0xr1", "0xj1");
+        assertEquals(ScoreOutbox.State.CONFIRMED, states.get("0xt7"));
+        assertTrue(ScoreOutbox.statesByTeam(settled, "0xr2", "0xj1").isEmpty());
+    }
+
+    @Test
+    public void rejectedSubmission_failsWithoutRetrying() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("{\"msg\":\"Missing required fields\"}"));
+        ScoreOutbox outbox = newOutbox(new InMemoryOutboxStore());
+
+        outbox.enqueue("0xr1", "0xj1", "0xt1", "Alpha", "{}");
+        List<ScoreOutbox.Entry> settled = awaitEntries(outbox,
+                entries -> entries.size() == 1 && entries.get(0).getState() == ScoreOutbox.State.FAILED);
+
+        assertNotNull(settled);
+        assertEquals(1, settled.get(0).getAttempts());
+        assertTrue(settled.get(0).getLastError().contains("400"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void expiredToken_keepsTheScoreUntilTheJudgeSignsInAgain() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(401).setBody("{\"message\":\"Token is not valid.\"}"));
+        server.enqueue(new MockResponse().setResponseCode(201).setBody("{}"));
+        ScoreOutbox outbox = newOutbox(new InMemoryOutboxStore());
+
+        outbox.enqueue("0xr1", "0xj1", "0xt1", "Alpha", "{}");
+        List<ScoreOutbox.Entry> refused = awaitEntries(outbox, entries -> entries.size() == 1
+                && entries.get(0).getState() == ScoreOutbox.State.PENDING && entries.get(0).getLastError() != null);
+        assertNotNull(refused);
+        assertTrue(refused.get(0).getLastError().contains("401"));
+
+        outbox.drain(); // The network coming back does not help
+        Thread.sleep(200);
+        assertEquals(1, server.getRequestCount());
+
+        outbox.resume();
+        List<ScoreOutbox.Entry> settled = awaitEntries(outbox,
+                entries -> entries.size() == 1 && entries.get(0).getState() == ScoreOutbox.State.CONFIRMED);
+        assertNotNull(settled);
+        assertEquals(1, settled.get(0).getAttempts());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void notFoundFromTheTunnel_isRetried() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404).setBody("Tunnel not found"));
+        server.enqueue(new MockResponse().setResponseCode(201).setBody("{}"));
+        ScoreOutbox outbox = newOutbox(new InMemoryOutboxStore());
+
+        outbox.enqueue("0xr1", "0xj1", "0xt1", "Alpha", "{}");
+        List<ScoreOutbox.Entry> settled = awaitEntries(outbox,
+                entries -> entries.size() == 1 && entries.get(0).getState() == ScoreOutbox.State.CONFIRMED);
+
+        assertNotNull(settled);
+        assertEquals(2, settled.get(0).getAttempts());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void restart_resendsWhatWasInFlightWithTheSameKey() throws Exception {
+        InMemoryOutboxStore store = new InMemoryOutboxStore();
+        // What the app left on disk when it was killed mid-send
+        ScoreOutbox.Entry interrupted = new ScoreOutbox.Entry("key-1", "0xr1", "0xj1", "0xt1", "Alpha", "{}", 1L);
+        interrupted.state = ScoreOutbox.State.IN_FLIGHT;
+        interrupted.attempts = 1;
+        store.save(interrupted);
+        server.enqueue(new MockResponse().setResponseCode(201).setBody("{}"));
+
+        ScoreOutbox outbox = newOutbox(store);
+        List<ScoreOutbox.Entry> settled = awaitEntries(outbox,
+                entries -> entries.size() == 1 && entries.get(0).getState() == ScoreOutbox.State.CONFIRMED);
+
+        assertNotNull(settled);
+        assertEquals(2, settled.get(0).getAttempts());
+        assertEquals("key-1", server.takeRequest().getHeader("Idempotency-Key"));
+        assertEquals(ScoreOutbox.State.CONFIRMED, store.loadAll().get(0).getState());
+    }
+
+    @Test
+    public void queuedSubmissions_goOutAsOneBatchWithPerItemResults() throws Exception {
+        BatchScoreServer scoreServer = new BatchScoreServer(true);
+        server.setDispatcher(scoreServer);
+        InMemoryOutboxStore store = queuedWhileOffline(10);
+
+        ScoreOutbox outbox = newOutbox(store, 25);
+        List<ScoreOutbox.Entry> settled = awaitEntries(outbox, entries -> entries.size() == 10
+                && entries.stream().noneMatch(e -> e.getState() == ScoreOutbox.State.PENDING
+                        || e.getState() == ScoreOutbox.State.IN_FLIGHT));
+
+        assertNotNull(settled);
+        assertEquals("Expected one round trip for the whole queue", 1, server.getRequestCount());
+        assertEquals("/api/scores/batch", server.takeRequest().getPath());
+        assertEquals(9, scoreServer.storedKeys.size());
+        Map<String, ScoreOutbox.State> states = ScoreOutbox.statesByTeam(settled, "0xr1", "0xj1");
+        assertEquals(ScoreOutbox.State.CONFIRMED, states.get("0xt0"));
+        assertEquals(ScoreOutbox.State.FAILED, states.get("0xt3")); // Rejected on its own, the rest still stored
+        assertTrue(settled.stream().allMatch(e -> e.getAttempts() == 1));
+    }
+
+    @Test
+    public void serverWithoutBatches_getsOneRequestPerSubmission() throws Exception {
+        BatchScoreServer scoreServer = new BatchScoreServer(false);
+        server.setDispatcher(scoreServer);
+        InMemoryOutboxStore store = queuedWhileOffline(6);
+
+        ScoreOutbox outbox = newOutbox(store, 25);
+        List<ScoreOutbox.Entry> settled = awaitEntries(outbox, entries -> entries.size() == 6
+                && entries.stream().noneMatch(e -> e.getState() == ScoreOutbox.State.PENDING
+                        || e.getState() == ScoreOutbox.State.IN_FLIGHT));
+
+        assertNotNull(settled);
+        assertEquals(1 + 6, server.getRequestCount());
+        assertEquals(5, scoreServer.storedKeys.size());
+        // The refused batch does not count as an attempt
+        assertTrue(settled.stream().allMatch(e -> e.getAttempts() == 1));
+    }
+
+    @Test
+    public void notFoundFromTheTunnel_doesNotStopBatching() throws Exception {
+        BatchScoreServer scoreServer = new BatchScoreServer(true);
+        AtomicInteger batches = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (batches.getAndIncrement() == 0) {
+                    return new MockResponse().setResponseCode(404).setBody("Tunnel not found");
+                }
+                return scoreServer.dispatch(request);
+            }
+        });
+        // Backs off long enough that only drain() sends the queue again
+        ScoreOutbox outbox = new ScoreOutbox(queuedWhileOffline(6), apiClient, MAX_CONCURRENT, 25, 60_000, 60_000,
+                executor);
+        assertNotNull(awaitEntries(outbox, entries -> entries.size() == 6 && entries.stream().allMatch(
+                e -> e.getState() == ScoreOutbox.State.PENDING && e.getLastError() != null)));
+
+        outbox.drain();
+        List<ScoreOutbox.Entry> settled = awaitEntries(outbox, entries -> entries.size() == 6
+                && entries.stream().noneMatch(e -> e.getState() == ScoreOutbox.State.PENDING
+                        || e.getState() == ScoreOutbox.State.IN_FLIGHT));
+
+        assertNotNull(settled);
+        assertEquals("Expected the queue to be retried as one batch", 2, server.getRequestCount());
+        assertEquals("/api/scores/batch", server.takeRequest().getPath());
+        assertEquals("/api/scores/batch", server.takeRequest().getPath());
+        assertEquals(5, scoreServer.storedKeys.size());
+    }
+
+    // One request per submission: the flaky server only speaks POST /api/scores
+    private ScoreOutbox newOutbox(OutboxStore store) {
+        return newOutbox(store, 1);
+    }
+
+    private ScoreOutbox newOutbox(OutboxStore store, int maxBatchSize) {
+        return new ScoreOutbox(store, apiClient, MAX_CONCURRENT, maxBatchSize, 5, 50, executor);
+    }
+
+    // A judge's scores for several teams, saved while the Wi-Fi was down; team 0xt3's is invalid
+    private static InMemoryOutboxStore queuedWhileOffline(int teams) {
+        InMemoryOutboxStore store = new InMemoryOutboxStore();
+        for (int i = 0; i < teams; i++) {
+            String body = i == 3 ? "{}" : "{\"teamId\":\"0xt" + i + "\",\"scoresByCriteria\":[{\"criterionId\":\"0xc\",\"score\":5}]}";
+            store.save(new ScoreOutbox.Entry("key-" + i, "0xr1", "0xj1", "0xt" + i, "Team " + i, body, i));
+        }
+        return store;
+    }
+
+    private static List<ScoreOutbox.Entry> awaitEntries(ScoreOutbox outbox, Predicate<List<ScoreOutbox.Entry>> done)
+            throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<List<ScoreOutbox.Entry>> result = new AtomicReference<>();
+        ScoreOutbox.Listener listener = entries -> {
+            if (done.test(entries) && result.compareAndSet(null, entries)) latch.countDown();
+        };
+        outbox.addListener(listener);
+        latch.await(30, TimeUnit.SECONDS);
+        outbox.removeListener(listener);
+        return result.get();
+    }
+
+    /**
+     * Stands in for POST /api/scores/batch, answering each item as POST /api/scores would; or,
+     * as an older server, refuses batches with a 404 and takes single submissions only.
+     */
+    private static final class BatchScoreServer extends Dispatcher {
+        final Map<String, String> storedKeys = new ConcurrentHashMap<>();
+        private final boolean acceptsBatches;
+
+        BatchScoreServer(boolean acceptsBatches) {
+            this.acceptsBatches = acceptsBatches;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            String body = request.getBody().readUtf8();
+            if (request.getPath().equals("/api/scores")) {
+                int status = store(request.getHeader("Idempotency-Key"), JsonParser.parseString(body).getAsJsonObject());
+                return new MockResponse().setResponseCode(status).setBody("{}");
+            }
+            if (!acceptsBatches) {
+                return new MockResponse().setResponseCode(404).setHeader("X-Powered-By", "Express")
+                        .setBody("Cannot POST /api/scores/batch");
+            }
+            JsonArray results = new JsonArray();
+            for (JsonElement element : JsonParser.parseString(body).getAsJsonObject().getAsJsonArray("items")) {
+                JsonObject item = element.getAsJsonObject();
+                String key = item.get("idempotencyKey").getAsString();
+                JsonObject result = new JsonObject();
+                result.addProperty("idempotencyKey", key);
+                result.addProperty("status", store(key, item.getAsJsonObject("submission")));
+                results.add(result);
+            }
+            JsonObject response = new JsonObject();
+            response.add("results", results);
+            return new MockResponse().setHeader("Content-Type", "application/json").setBody(response.toString());
+        }
+
+        private int store(String key, JsonObject submission) {
+            if (!submission.has("teamId")) return 400;
+            storedKeys.put(key, submission.get("teamId").getAsString());
+            return 201;
+        }
+    }
+
+    /**
+     * Behaves like POST /api/scores behind the idempotency middleware, on a bad connection:
+     * some connections die before the request is read, some after the score was stored but
+     * before the answer got out, and some requests hit a 503.
+     */
+    private static final class FlakyScoreServer extends Dispatcher {
+        final Map<String, String> bodiesByKey = new ConcurrentHashMap<>();
+        final AtomicInteger scoreNodes = new AtomicInteger();
+        final AtomicInteger replays = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final Random random;
+
+        FlakyScoreServer(Random random) {
+            this.random = random;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            if (request.getHeader("Idempotency-Key") == null) {
+                return new MockResponse(); // MockWebServer's record of a connection dropped at start
+            }
+            int now = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(5); // Long enough for concurrent sends to overlap
+                double roll = nextDouble();
+                if (roll < 0.15) {
+                    return new MockResponse().setResponseCode(503);
+                }
+                String key = request.getHeader("Idempotency-Key");
+                String body = request.getBody().readUtf8();
+                if (bodiesByKey.putIfAbsent(key, body) == null) {
+                    scoreNodes.incrementAndGet();
+                } else {
+                    assertEquals("Key reused with a different body", bodiesByKey.get(key), body);
+                    replays.incrementAndGet();
+                }
+                MockResponse stored = new MockResponse().setResponseCode(201).setBody(body);
+                if (roll < 0.45) {
+                    stored.setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST); // Stored, but the answer is lost
+                }
+                return stored;
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }
+
+        @Override
+        public MockResponse peek() {
+            // Consulted as each connection opens
+            return nextDouble() < 0.2
+                    ? new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START)
+                    : new MockResponse().setSocketPolicy(SocketPolicy.KEEP_OPEN);
+        }
+
+        private synchronized double nextDouble() {
+            return random.nextDouble();
+        }
+    }
+}
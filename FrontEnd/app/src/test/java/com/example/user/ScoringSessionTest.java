@@ -0,0 +1,100 @@
+package com.example.user;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a round's scoring session goes to the network once, however many screens use it.
+ */
+public class ScoringSessionTest {
+
+    private MockWebServer server;
+    private ScoringSession session;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                Thread.sleep(50); // Long enough for a second screen to ask while the first load runs
+                switch (request.getPath()) {
+                    case "/api/rounds/0xr/teams":
+                        return json("[{\"id\":\"0xt1\",\"name\":\"Alpha\"},{\"id\":\"0xt2\",\"name\":\"Beta\"}]");
+                    case "/api/rounds/0xr":
+                        return json("{\"id\":\"0xr\",\"name\":\"Final\",\"criteria\":[{\"id\":\"0xc\",\"name\":\"Design\",\"maxScore\":10}]}");
+                    case "/api/judges":
+                        return json("[{\"id\":\"0xj\",\"name\":\"Ada\"}]");
+                    default:
+                        return new MockResponse().setResponseCode(404);
+                }
+            }
+        });
+        server.start();
+        ApiClient apiClient = new ApiClient(server.url("/api/").toString(), new OkHttpClient(), null);
+        EntityCache cache = new EntityCache(EntityCache.DEFAULT_MAX_BYTES);
+        session = new ScoringSession("0xr", apiClient, Repositories.newTeamRepository(cache),
+                Repositories.newJudgeRepository(cache), new ScoringSession.CriteriaBackup() {
+            @Override
+            public List<Criteria> read(String roundId) {
+                return null;
+            }
+
+            @Override
+            public void save(String roundId, List<Criteria> criteria) {
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void concurrentLoads_shareOneRequestPerEndpoint() throws Exception {
+        CountDownLatch ready = new CountDownLatch(2);
+        session.load(loaded -> ready.countDown()); // JudgeSelectionActivity
+        session.load(loaded -> ready.countDown()); // StartActivity, opened before the first load finished
+
+        assertTrue(ready.await(5, TimeUnit.SECONDS));
+        assertEquals(3, server.getRequestCount());
+        assertEquals(2, session.getTeams().size());
+        assertEquals("Design", session.getCriteria().get(0).getName());
+        assertEquals("Ada", session.getJudges().get(0).getName());
+        assertFalse(session.isOfflineCriteria());
+    }
+
+    @Test
+    public void loadedSession_answersAtOnceWithoutTheNetwork() throws Exception {
+        CountDownLatch first = new CountDownLatch(1);
+        session.load(loaded -> first.countDown());
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+
+        // Another judge, a re-entered StartActivity, a rotation: all served from memory
+        boolean[] answered = new boolean[1];
+        for (int i = 0; i < 3; i++) {
+            answered[0] = false;
+            session.load(loaded -> answered[0] = true);
+            assertTrue("Expected the callback before load() returned", answered[0]);
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that concurrent identical GETs share one network call.
+ */
+public class SingleFlightTest {
+
+    private static final String TEAMS_JSON = "[{\"id\":\"0x1\",\"name\":\"Alpha\"}]";
+
+    private MockWebServer server;
+    private OkHttpClient client;
+    private SingleFlight singleFlight;
+    private String baseUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        client = new OkHttpClient();
+        singleFlight = new SingleFlight();
+        baseUrl = server.url("/api/").toString();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void concurrentGetsFromDifferentScreens_shareOneRequest() throws Exception {
+        // Hold the response back long enough for every screen to enqueue
+        server.enqueue(new MockResponse().setBody(TEAMS_JSON).setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        ApiClient teamsFragment = new ApiClient(baseUrl, client, singleFlight, null);
+        ApiClient newRoundRegister = new ApiClient(baseUrl, client, singleFlight, null);
+
+        RecordingCallback callback = new RecordingCallback(3);
+        teamsFragment.get("teams").enqueue(callback);
+        newRoundRegister.get("teams").enqueue(callback);
+        teamsFragment.get("teams").enqueue(callback);
+
+        assertTrue(callback.await());
+        assertEquals(3, callback.bodies.size());
+        for (String body : callback.bodies) {
+            assertEquals(TEAMS_JSON, body);
+        }
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    public void sequentialGets_eachHitTheNetwork() throws Exception {
+        server.enqueue(new MockResponse().setBody("[]"));
+        server.enqueue(new MockResponse().setBody("[]"));
+        ApiClient apiClient = new ApiClient(baseUrl, client, singleFlight, null);
+
+        RecordingCallback first = new RecordingCallback(1);
+        apiClient.get("teams").enqueue(first);
+        assertTrue(first.await());
+        RecordingCallback second = new RecordingCallback(1);
+        apiClient.get("teams").enqueue(second);
+        assertTrue(second.await());
+
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void cancelledWaiter_doesNotCancelOthers() throws Exception {
+        server.enqueue(new MockResponse().setBody(TEAMS_JSON).setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        ApiClient apiClient = new ApiClient(baseUrl, client, singleFlight, null);
+
+        RecordingCallback callback = new RecordingCallback(2);
+        Call leaving = apiClient.get("teams");
+        leaving.enqueue(callback);
+        apiClient.get("teams").enqueue(callback);
+        leaving.cancel();
+
+        assertTrue(callback.await());
+        assertEquals(1, callback.bodies.size());
+        assertEquals(1, callback.failures.size());
+        assertTrue(leaving.isCanceled());
+    }
+
+    @Test
+    public void requestAfterEveryWaiterCancelled_startsANewCall() throws Exception {
+        server.enqueue(new MockResponse().setBody(TEAMS_JSON).setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody(TEAMS_JSON));
+        ApiClient apiClient = new ApiClient(baseUrl, client, singleFlight, null);
+
+        Call leaving = apiClient.get("teams");
+        leaving.enqueue(new RecordingCallback(1));
+        leaving.cancel();
+        assertEquals(0, singleFlight.inFlightCount());
+
+        RecordingCallback next = new RecordingCallback(1);
+        apiClient.get("teams").enqueue(next);
+        assertTrue(next.await());
+        assertEquals(0, next.failures.size());
+        assertEquals(TEAMS_JSON, next.bodies.get(0));
+    }
+
+    @Test
+    public void waiterThatThrows_doesNotKeepTheResultFromTheOthers() throws Exception {
+        server.enqueue(new MockResponse().setBody(TEAMS_JSON).setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        ApiClient apiClient = new ApiClient(baseUrl, client, singleFlight, null);
+
+        apiClient.get("teams").enqueue(new RecordingCallback(1) {
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                throw new IllegalStateException("Screen already gone");
+            }
+        });
+        RecordingCallback others = new RecordingCallback(2);
+        apiClient.get("teams").enqueue(others);
+        apiClient.get("teams").enqueue(others);
+
+        assertTrue(others.await());
+        assertEquals(2, others.bodies.size());
+    }
+
+    @Test
+    public void differentTokens_areNotCoalesced() {
+        Request judge = new Request.Builder().url(baseUrl + "teams").header("x-auth-token", "a").build();
+        Request admin = new Request.Builder().url(baseUrl + "teams").header("x-auth-token", "b").build();
+
+        assertNotEquals(SingleFlight.keyOf(judge), SingleFlight.keyOf(admin));
+    }
+
+    private static class RecordingCallback implements Callback {
+        final List<String> bodies = new CopyOnWriteArrayList<>();
+        final List<IOException> failures = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch;
+
+        RecordingCallback(int expectedCalls) {
+            latch = new CountDownLatch(expectedCalls);
+        }
+
+        boolean await() throws InterruptedException {
+            return latch.await(5, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void onFailure(@NonNull Call call, @NonNull IOException e) {
+            failures.add(e);
+            latch.countDown();
+        }
+
+        @Override
+        public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+            bodies.add(response.body().string());
+            latch.countDown();
+        }
+    }
+}
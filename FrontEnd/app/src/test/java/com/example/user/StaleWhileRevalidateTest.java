@@ -0,0 +1,234 @@
+package com.example.user;
+
+import androidx.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * Syncs a team list against a stand-in server that keeps a version per change, and checks
+ * that only what changed between syncs is downloaded and merged.
+ */
+public class StaleWhileRevalidateTest {
+
+    private final TeamServer teams = new TeamServer();
+    private final MemoryList stored = new MemoryList();
+    private MockWebServer server;
+    private ApiClient apiClient;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(teams);
+        server.start();
+        apiClient = new ApiClient(server.url("/api/").toString(), new OkHttpClient(), null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void laterSyncs_downloadOnlyWhatChanged() throws Exception {
+        teams.put("0xt1", "Alpha");
+        teams.put("0xt2", "Beta");
+        teams.put("0xt3", "Gamma");
+        assertEquals(Arrays.asList("Alpha", "Beta", "Gamma"), names(sync()));
+        assertEquals("/api/teams", server.takeRequest().getPath());
+        assertEquals("3", stored.watermark);
+
+        teams.put("0xt2", "Beta Prime");
+        teams.delete("0xt1");
+        teams.put("0xt4", "Delta");
+
+        List<Team> synced = sync();
+        RecordedRequest request = server.takeRequest();
+        assertEquals("/api/teams?since=3", request.getPath());
+        assertEquals("Renamed in place, deleted dropped, added last",
+                Arrays.asList("Beta Prime", "Gamma", "Delta"), names(synced));
+        assertEquals(names(synced), names(stored.items));
+        assertEquals(3, stored.lastChanged); // Two changed and one deleted, not the whole list
+        assertEquals("6", stored.watermark);
+
+        // Nothing changed: an empty answer and the same list
+        assertEquals(names(synced), names(sync()));
+        assertEquals("/api/teams?since=6", server.takeRequest().getPath());
+        assertEquals(0, stored.lastChanged);
+    }
+
+    @Test
+    public void expiredWatermark_fallsBackToTheWholeList() throws Exception {
+        teams.put("0xt1", "Alpha");
+        sync();
+        teams.put("0xt2", "Beta");
+        teams.forgetHistory(); // The server dropped its change log, e.g. after a restart
+
+        assertEquals(Arrays.asList("Alpha", "Beta"), names(sync()));
+        server.takeRequest();
+        assertEquals("/api/teams?since=1", server.takeRequest().getPath());
+        assertEquals("/api/teams", server.takeRequest().getPath());
+        assertEquals("2", stored.watermark);
+    }
+
+    @Test
+    public void serverWithoutWatermarks_isAskedForEverythingEachTime() throws Exception {
+        teams.legacy = true;
+        teams.put("0xt1", "Alpha");
+        sync();
+        teams.put("0xt2", "Beta");
+
+        assertEquals(Arrays.asList("Alpha", "Beta"), names(sync()));
+        assertNull(stored.watermark);
+        assertEquals("/api/teams", server.takeRequest().getPath());
+        assertEquals("/api/teams", server.takeRequest().getPath());
+    }
+
+    private List<Team> sync() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        stored.written = new CountDownLatch(1);
+        List<List<Team>> result = new ArrayList<>();
+        StaleWhileRevalidate.load(apiClient, stored, Team.ADAPTER, Team::getId, "teams", Runnable::run,
+                new ApiCallback<List<Team>>() {
+            @Override
+            public void onSuccess(List<Team> fresh) {
+                result.add(fresh);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(int code, String errorBody) {
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(@NonNull IOException e) {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("Expected a list", 1, result.size());
+        assertEquals("Stored before onSuccess", 0, stored.written.getCount());
+        return result.get(0);
+    }
+
+    private static List<String> names(List<Team> list) {
+        List<String> names = new ArrayList<>();
+        for (Team team : list) names.add(team.getName());
+        return names;
+    }
+
+    /** Teams with the version of their last change, and tombstones for deleted ones. */
+    private static final class TeamServer extends Dispatcher {
+        private final Map<String, String> names = new LinkedHashMap<>();
+        private final Map<String, Integer> changedAt = new LinkedHashMap<>();
+        private int version;
+        private int oldestKnown;
+        volatile boolean legacy;
+
+        synchronized void put(String id, String name) {
+            names.put(id, name);
+            changedAt.remove(id); // Changed entries go last, like the server's own ordering
+            changedAt.put(id, ++version);
+        }
+
+        synchronized void delete(String id) {
+            names.remove(id);
+            changedAt.remove(id);
+            changedAt.put(id, ++version);
+        }
+
+        synchronized void forgetHistory() {
+            oldestKnown = version;
+        }
+
+        @Override
+        public synchronized MockResponse dispatch(RecordedRequest request) {
+            String since = request.getRequestUrl().queryParameter("since");
+            if (legacy) {
+                return new MockResponse().setBody(array(0, false));
+            }
+            if (since == null) {
+                return new MockResponse().setBody("{\"watermark\":\"" + version + "\",\"complete\":true,\"changed\":"
+                        + array(0, true) + "}");
+            }
+            int from = Integer.parseInt(since);
+            if (from < oldestKnown) {
+                return new MockResponse().setResponseCode(410).setBody("{\"msg\":\"Watermark expired\"}");
+            }
+            StringBuilder deleted = new StringBuilder("[");
+            for (Map.Entry<String, Integer> change : changedAt.entrySet()) {
+                if (change.getValue() > from && !names.containsKey(change.getKey())) {
+                    if (deleted.length() > 1) deleted.append(',');
+                    deleted.append('"').append(change.getKey()).append('"');
+                }
+            }
+            return new MockResponse().setBody("{\"watermark\":\"" + version + "\",\"changed\":" + array(from, false)
+                    + ",\"deleted\":" + deleted.append(']') + "}");
+        }
+
+        // Teams changed after the version, in id order for a whole list and change order otherwise
+        private String array(int after, boolean byId) {
+            List<String> ids = new ArrayList<>(byId || after == 0 ? names.keySet() : changedAt.keySet());
+            StringBuilder json = new StringBuilder("[");
+            for (String id : ids) {
+                if (!names.containsKey(id) || changedAt.get(id) <= after) continue;
+                if (json.length() > 1) json.append(',');
+                json.append("{\"id\":\"").append(id).append("\",\"name\":\"").append(names.get(id)).append("\"}");
+            }
+            return json.append(']').toString();
+        }
+    }
+
+    /** The stored list, in memory. */
+    private static final class MemoryList implements StaleWhileRevalidate.StoredList<Team> {
+        volatile List<Team> items;
+        volatile String watermark;
+        volatile int lastChanged = -1;
+        volatile CountDownLatch written = new CountDownLatch(1);
+
+        @Override
+        public List<Team> read() {
+            return items != null ? new ArrayList<>(items) : null;
+        }
+
+        @Override
+        public String watermark() {
+            return watermark;
+        }
+
+        @Override
+        public void replace(List<Team> list, String newWatermark) {
+            items = new ArrayList<>(list);
+            watermark = newWatermark;
+            lastChanged = list.size();
+            written.countDown();
+        }
+
+        @Override
+        public void applyChanges(ListChanges<Team> changes) {
+            items = changes.applyTo(items, Team::getId);
+            watermark = changes.watermark;
+            lastChanged = changes.items.size() + changes.deletedIds.size();
+            written.countDown();
+        }
+    }
+}
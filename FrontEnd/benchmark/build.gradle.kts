@@ -0,0 +1,57 @@
+// JMH benchmarks for the app's Android-free data paths. Run with:
+//   ./gradlew :benchmark:jmh
+// or a subset, e.g. ./gradlew :benchmark:jmh -PjmhIncludes=ModelParsing
+// Results (throughput plus gc.alloc.rate.norm bytes/op) are written to build/results/jmh/results.json.
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Compile the app's plain-Java model and JSON classes directly, so the benchmarks measure the
+// exact code the app ships without pulling in the Android toolchain.
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include(
+                "com/example/user/Criteria.java",
+                "com/example/user/CriteriaScore.java",
+                "com/example/user/GsonProvider.java",
+                "com/example/user/JsonFields.java",
+                "com/example/user/Judge.java",
+                "com/example/user/LeaderboardEntry.java",
+                "com/example/user/RankedLeaderboard.java",
+                "com/example/user/Round.java",
+                "com/example/user/RoundScores.java",
+                "com/example/user/Score.java",
+                "com/example/user/ScoreAggregator.java",
+                "com/example/user/ScorePayloads.java",
+                "com/example/user/Team.java",
+                "com/example/user/User.java"
+            )
+        }
+    }
+}
+
+dependencies {
+    implementation(libs.gson)
+    // Provided by the platform on Android
+    implementation(libs.org.json)
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh.get())
+    benchmarkMode.add("thrpt")
+    timeUnit.set("s")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    includes.set(providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(emptyList()))
+}
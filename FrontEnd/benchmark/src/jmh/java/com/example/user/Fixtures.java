@@ -0,0 +1,104 @@
+package com.example.user;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Deterministic JSON payloads shaped like the server's responses, sized for the benchmarks.
+ * A round has a few hundred teams, so ids and names repeat the way they do in real score lists.
+ */
+final class Fixtures {
+
+    static final int TEAMS_PER_ROUND = 200;
+    static final int JUDGES = 8;
+    static final String[] CRITERIA = {"Presentation", "Creativity", "Execution"};
+
+    private Fixtures() {}
+
+    /** GET /api/teams */
+    static byte[] teams(int count) {
+        StringBuilder json = new StringBuilder(count * 110).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            appendTeam(json, i);
+        }
+        return bytes(json.append(']'));
+    }
+
+    /** GET /api/rounds, each round with its criteria and two registered teams */
+    static byte[] rounds(int count) {
+        StringBuilder json = new StringBuilder(count * 520).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":\"0xr").append(Integer.toHexString(i))
+                    .append("\",\"name\":\"Round ").append(i)
+                    .append("\",\"description\":\"Qualifier heat ").append(i % 12)
+                    .append("\",\"date\":\"2025-10-").append(10 + i % 20)
+                    .append("\",\"time\":\"1").append(i % 10).append(":00\",\"status\":\"")
+                    .append(i % 3 == 0 ? "Finished" : "Upcoming").append("\",\"criteria\":[");
+            for (int c = 0; c < CRITERIA.length; c++) {
+                if (c > 0) json.append(',');
+                appendCriterion(json, c);
+            }
+            json.append("],\"teams\":[");
+            appendTeam(json, i);
+            json.append(',');
+            appendTeam(json, i + 1);
+            json.append("]}");
+        }
+        return bytes(json.append(']'));
+    }
+
+    /** GET /api/scores/round/:roundId, one submission per judge per team */
+    static byte[] scores(int count) {
+        StringBuilder json = new StringBuilder(count * 440).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            String id = Integer.toHexString(i);
+            int judge = i % JUDGES;
+            json.append("{\"id\":\"0x").append(id).append("\",\"total_score\":").append(3 * (i % 10))
+                    .append(",\"team\":");
+            appendTeam(json, (i / JUDGES) % TEAMS_PER_ROUND);
+            json.append(",\"judge\":{\"id\":\"0xj").append(judge).append("\",\"name\":\"Judge ").append(judge)
+                    .append("\",\"email\":\"judge").append(judge).append("@example.com\"}")
+                    .append(",\"scoresByCriteria\":[");
+            for (int c = 0; c < CRITERIA.length; c++) {
+                if (c > 0) json.append(',');
+                json.append("{\"id\":\"0xc").append(id).append(c).append("\",\"score\":").append(i % 10)
+                        .append(",\"criterion\":");
+                appendCriterion(json, c);
+                json.append('}');
+            }
+            json.append("]}");
+        }
+        return bytes(json.append(']'));
+    }
+
+    /** GET /api/leaderboard */
+    static byte[] leaderboard(int count) {
+        StringBuilder json = new StringBuilder(count * 80).append('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"teamId\":\"0xt").append(Integer.toHexString(i))
+                    .append("\",\"teamName\":\"Team ").append(i)
+                    .append("\",\"totalScore\":").append(count - i)
+                    .append(",\"memberCount\":").append(2 + i % 3).append('}');
+        }
+        return bytes(json.append(']'));
+    }
+
+    private static void appendTeam(StringBuilder json, int i) {
+        json.append("{\"id\":\"0xt").append(Integer.toHexString(i))
+                .append("\",\"name\":\"Team ").append(i)
+                .append("\",\"college\":\"College ").append(i % 40)
+                .append("\",\"members\":[\"Asha\",\"Ravi\",\"Meera\"]}");
+    }
+
+    private static void appendCriterion(StringBuilder json, int c) {
+        json.append("{\"id\":\"0xk").append(c).append("\",\"name\":\"").append(CRITERIA[c])
+                .append("\",\"maxScore\":10}");
+    }
+
+    private static byte[] bytes(StringBuilder json) {
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.user;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Applies one live score to a leaderboard of `teams` teams. During finals the stream delivers
+ * up to ~1000 scores a second, so each update has to cost well under a millisecond to leave
+ * the UI thread room to draw.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LeaderboardUpdateBenchmark {
+
+    private static final int UPDATES = 1024;
+    private static final Comparator<LeaderboardEntry> BY_TOTAL_DESCENDING =
+            Comparator.comparingInt(LeaderboardEntry::getTotalScore).reversed();
+
+    @Param({"1000", "10000"})
+    public int teams;
+
+    private RankedLeaderboard ranked;
+    private Map<String, LeaderboardEntry> board;
+    private String[] updateTeams;
+    private int[] updatePoints;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<LeaderboardEntry> entries = new ArrayList<>(teams);
+        for (int i = 0; i < teams; i++) {
+            entries.add(new LeaderboardEntry("0xt" + Integer.toHexString(i), "Team " + i, random.nextInt(5000), 4));
+        }
+        entries.sort(BY_TOTAL_DESCENDING);
+        ranked = new RankedLeaderboard();
+        ranked.replaceAll(entries);
+        board = new LinkedHashMap<>();
+        for (LeaderboardEntry entry : entries) board.put(entry.getTeamId(), entry);
+
+        updateTeams = new String[UPDATES];
+        updatePoints = new int[UPDATES];
+        for (int i = 0; i < UPDATES; i++) {
+            updateTeams[i] = "0xt" + Integer.toHexString(random.nextInt(teams));
+            updatePoints[i] = random.nextInt(60);
+        }
+    }
+
+    @Benchmark
+    public RankedLeaderboard.Move rankedLeaderboard() {
+        int i = next++ & (UPDATES - 1);
+        return ranked.addPoints(updateTeams[i], null, updatePoints[i]);
+    }
+
+    /**
+     * What LeaderboardStream did per event before RankedLeaderboard: update the team, then copy
+     * and re-sort the whole board for the adapter (which then diffed it, not measured here).
+     */
+    @Benchmark
+    public List<LeaderboardEntry> fullResort() {
+        int i = next++ & (UPDATES - 1);
+        LeaderboardEntry existing = board.get(updateTeams[i]);
+        board.put(existing.getTeamId(), existing.withPoints(updatePoints[i], null));
+        List<LeaderboardEntry> sorted = new ArrayList<>(board.values());
+        sorted.sort(BY_TOTAL_DESCENDING);
+        return sorted;
+    }
+}
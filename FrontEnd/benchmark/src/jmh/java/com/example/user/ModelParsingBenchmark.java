@@ -0,0 +1,79 @@
+package com.example.user;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parses list responses the way JsonCallback does: a JsonReader over the UTF-8 body stream.
+ * "reflective" is a plain new Gson(), "adapters" is GsonProvider's hand-written TypeAdapters.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ModelParsingBenchmark {
+
+    private static final Type TEAM_LIST = new TypeToken<ArrayList<Team>>(){}.getType();
+    private static final Type ROUND_LIST = new TypeToken<ArrayList<Round>>(){}.getType();
+    private static final Type SCORE_LIST = new TypeToken<ArrayList<Score>>(){}.getType();
+    private static final Type LEADERBOARD_LIST = new TypeToken<ArrayList<LeaderboardEntry>>(){}.getType();
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int size;
+
+    @Param({"reflective", "adapters"})
+    public String gson;
+
+    private Gson parser;
+    private byte[] teams;
+    private byte[] rounds;
+    private byte[] scores;
+    private byte[] leaderboard;
+
+    @Setup
+    public void setUp() {
+        parser = "adapters".equals(gson) ? GsonProvider.get() : new Gson();
+        teams = Fixtures.teams(size);
+        rounds = Fixtures.rounds(size);
+        scores = Fixtures.scores(size);
+        leaderboard = Fixtures.leaderboard(size);
+    }
+
+    @Benchmark
+    public List<Team> parseTeams() {
+        return parse(teams, TEAM_LIST);
+    }
+
+    @Benchmark
+    public List<Round> parseRounds() {
+        return parse(rounds, ROUND_LIST);
+    }
+
+    @Benchmark
+    public List<Score> parseScores() {
+        return parse(scores, SCORE_LIST);
+    }
+
+    @Benchmark
+    public List<LeaderboardEntry> parseLeaderboard() {
+        return parse(leaderboard, LEADERBOARD_LIST);
+    }
+
+    private <T> T parse(byte[] body, Type type) {
+        JsonReader reader = new JsonReader(
+                new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+        return parser.fromJson(reader, type);
+    }
+}
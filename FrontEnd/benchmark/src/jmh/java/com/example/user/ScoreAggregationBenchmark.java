@@ -0,0 +1,88 @@
+package com.example.user;
+
+import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Aggregates a round's score submissions into per-team totals sorted for display.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ScoreAggregationBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int size;
+
+    private List<Score> scores;
+
+    @Setup
+    public void setUp() {
+        scores = GsonProvider.get().fromJson(
+                new InputStreamReader(new ByteArrayInputStream(Fixtures.scores(size)), StandardCharsets.UTF_8),
+                new TypeToken<ArrayList<Score>>(){}.getType());
+    }
+
+    /**
+     * The loop ScoreViewActivity.fetchAndProcessScoresForRound used to run on the UI thread,
+     * kept as the baseline for ScoreAggregator.
+     */
+    @Benchmark
+    public List<TeamScoreModel> scoreViewActivityLoop() {
+        Map<String, TeamScoreModel> aggregatedScores = new HashMap<>();
+        for (Score score : scores) {
+            if (score != null && score.getTeam() != null) {
+                String teamId = score.getTeam().getId();
+                TeamScoreModel currentTeamScore = aggregatedScores.get(teamId);
+                if (currentTeamScore == null) {
+                    currentTeamScore = new TeamScoreModel(teamId, score.getTeam().getName(),
+                            score.getTeam().getMemberCount(), score.getTotalScore());
+                } else {
+                    currentTeamScore.totalAggregatedScore += score.getTotalScore();
+                }
+                aggregatedScores.put(teamId, currentTeamScore);
+            }
+        }
+        List<TeamScoreModel> newDisplayList = new ArrayList<>(aggregatedScores.values());
+        Collections.sort(newDisplayList);
+        return newDisplayList;
+    }
+
+    @Benchmark
+    public RoundScores scoreAggregator() {
+        return ScoreAggregator.aggregate(scores);
+    }
+
+    /** Same shape as the TeamScoreModel ScoreViewActivity used before ScoreAggregator. */
+    public static class TeamScoreModel implements Comparable<TeamScoreModel> {
+        public String teamName;
+        public int memberCount;
+        public int totalAggregatedScore;
+        public String teamId;
+
+        public TeamScoreModel(String teamId, String teamName, int memberCount, int totalAggregatedScore) {
+            this.teamId = teamId;
+            this.teamName = teamName;
+            this.memberCount = memberCount;
+            this.totalAggregatedScore = totalAggregatedScore;
+        }
+
+        @Override
+        public int compareTo(TeamScoreModel other) {
+            return Integer.compare(other.totalAggregatedScore, this.totalAggregatedScore);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.user;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Builds and encodes the body StartActivity.submitScores posts for one team.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ScorePayloadBenchmark {
+
+    @Param({"3", "10", "50"})
+    public int criteriaCount;
+
+    private List<Criteria> criteria;
+    private int[] scores;
+
+    @Setup
+    public void setUp() {
+        // Criteria ids are only assigned by the server, so parse them like StartActivity receives them
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < criteriaCount; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":\"0xk").append(i).append("\",\"name\":\"Criterion ").append(i)
+                    .append("\",\"maxScore\":10}");
+        }
+        criteria = new ArrayList<>();
+        for (Criteria c : GsonProvider.get().fromJson(json.append(']').toString(), Criteria[].class)) {
+            criteria.add(c);
+        }
+        scores = new int[criteriaCount];
+        for (int i = 0; i < criteriaCount; i++) {
+            scores[i] = i % 11;
+        }
+    }
+
+    @Benchmark
+    public String buildSubmission() throws JSONException {
+        return ScorePayloads.submission("0xt1", "0xr1", "0xj1", criteria, scores).toString();
+    }
+}